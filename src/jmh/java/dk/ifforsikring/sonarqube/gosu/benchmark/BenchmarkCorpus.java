@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.benchmark;
+
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuLexer;
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuParser;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ListTokenSource;
+import org.antlr.v4.runtime.Token;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+
+/**
+ * Gosu sources the benchmarks run on, read from the test resources of the project.
+ * <p>
+ * A path of the form {@code generated:<functions>} stands for a synthetic class holding that many functions,
+ * standing in for the large generated files found in real projects.
+ */
+final class BenchmarkCorpus {
+    static final Path BASE_DIR = Paths.get(System.getProperty("gosu.benchmark.corpus", "src/test/resources"));
+
+    static final String POLICIES_PLUGIN = "parser/complexCases/PoliciesPlugin.gs";
+    static final String INCIDENT_DTO = "parser/complexCases/IncidentDTO.gs";
+    static final String ENHANCEMENT = "parser/complexCases/SomeEnhancement.gsx";
+    static final String LINES_500 = "rules/LinesOfCodeRule/lines500.gs";
+    static final String HIGHLIGHTING = "measures/highlighting/GosuFile.gs";
+    static final String GENERATED_500 = "generated:500";
+
+    private static final String GENERATED_PREFIX = "generated:";
+
+    private BenchmarkCorpus() {
+    }
+
+    static String read(String relativePath) {
+        if (relativePath.startsWith(GENERATED_PREFIX)) {
+            return generate(Integer.parseInt(relativePath.substring(GENERATED_PREFIX.length())));
+        }
+        try {
+            return Files.readString(BASE_DIR.resolve(relativePath), StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    static InputFile inputFile(String relativePath) {
+        return inputFile(relativePath, InputFile.Type.MAIN);
+    }
+
+    static InputFile inputFile(String relativePath, InputFile.Type type) {
+        final String fileName = relativePath.startsWith(GENERATED_PREFIX)
+                ? "generated/Generated" + relativePath.substring(GENERATED_PREFIX.length()) + ".gs"
+                : relativePath;
+        return TestInputFileBuilder.create("benchmark", BASE_DIR.toFile(), BASE_DIR.resolve(fileName).toFile())
+                .setLanguage("gosu")
+                .setType(type)
+                .setCharset(StandardCharsets.UTF_8)
+                .setContents(read(relativePath))
+                .build();
+    }
+
+    /**
+     * @return Tokens of the file, lexed once so the benchmarks can replay them
+     */
+    static List<Token> tokens(String relativePath) {
+        final CommonTokenStream tokenStream = new CommonTokenStream(new GosuLexer(CharStreams.fromString(read(relativePath))));
+        tokenStream.fill();
+        return List.copyOf(tokenStream.getTokens());
+    }
+
+    /**
+     * Fails the setup of a benchmark on a file the parser does not accept, as its numbers would be meaningless.
+     */
+    static void requireNoSyntaxErrors(String relativePath) {
+        final GosuParser parser = new GosuParser(new CommonTokenStream(new ListTokenSource(tokens(relativePath))));
+        parser.removeErrorListeners();
+        parser.start();
+        if (parser.getNumberOfSyntaxErrors() > 0) {
+            throw new IllegalStateException("Benchmark file " + relativePath + " has " + parser.getNumberOfSyntaxErrors() + " syntax errors");
+        }
+    }
+
+    private static String generate(int functions) {
+        final StringBuilder source = new StringBuilder()
+                .append("package generated\n\n")
+                .append("uses java.util.List\n\n")
+                .append("class Generated").append(functions).append(" {\n\n")
+                .append("  private var _threshold : int = 10\n\n");
+
+        for (int i = 0; i < functions; i++) {
+            source.append("  /**\n")
+                    .append("   * Sums the values of batch ").append(i).append(" above the threshold.\n")
+                    .append("   */\n")
+                    .append("  function sum").append(i).append("(values : List<Integer>, limit : int) : int {\n")
+                    .append("    var total = 0\n")
+                    .append("    for (value in values) {\n")
+                    .append("      if (value > _threshold and value < limit) {\n")
+                    .append("        total += value\n")
+                    .append("      } else if (value == ").append(i).append(") {\n")
+                    .append("        total -= 1\n")
+                    .append("      }\n")
+                    .append("    }\n")
+                    .append("    // TODO check the limit of batch ").append(i).append("\n")
+                    .append("    return total > limit ? limit : total\n")
+                    .append("  }\n\n");
+        }
+
+        return source.append("}\n").toString();
+    }
+}
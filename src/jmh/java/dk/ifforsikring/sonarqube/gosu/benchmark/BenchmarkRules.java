@@ -0,0 +1,44 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.benchmark;
+
+import dk.ifforsikring.sonarqube.gosu.language.GosuLanguage;
+import org.sonar.api.batch.rule.ActiveRules;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.batch.rule.internal.NewActiveRule;
+import org.sonar.api.rule.RuleKey;
+
+import java.util.Collection;
+
+/**
+ * Active rules of the benchmarks, with the default values of their properties.
+ */
+final class BenchmarkRules {
+
+    private BenchmarkRules() {
+    }
+
+    static ActiveRules activeRules(Collection<String> ruleKeys) {
+        final ActiveRulesBuilder activeRules = new ActiveRulesBuilder();
+        for (String ruleKey : ruleKeys) {
+            activeRules.addRule(new NewActiveRule.Builder()
+                    .setRuleKey(RuleKey.of(GosuLanguage.REPOSITORY_KEY, ruleKey))
+                    .build());
+        }
+        return activeRules.build();
+    }
+}
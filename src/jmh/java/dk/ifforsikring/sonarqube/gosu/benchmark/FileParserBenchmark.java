@@ -0,0 +1,95 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.benchmark;
+
+import dk.ifforsikring.sonarqube.gosu.plugin.GosuFileAnalysis;
+import dk.ifforsikring.sonarqube.gosu.plugin.GosuFileParser;
+import dk.ifforsikring.sonarqube.gosu.plugin.context.AnalysisContext;
+import dk.ifforsikring.sonarqube.gosu.plugin.context.ListenerMode;
+import dk.ifforsikring.sonarqube.gosu.plugin.parser.GosuParserFactory;
+import dk.ifforsikring.sonarqube.gosu.plugin.parser.ParsingStrategy;
+import dk.ifforsikring.sonarqube.gosu.plugin.reports.UnitTestReports;
+import dk.ifforsikring.sonarqube.gosu.plugin.tools.reflections.ClassExtractor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per file of a whole {@link GosuFileParser} analysis with every rule active: lexing, parsing,
+ * rules, metrics and token measures. Nothing is saved on the sensor context, so the same file can be
+ * analysed again on every run.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class FileParserBenchmark {
+
+    @Param({
+            BenchmarkCorpus.POLICIES_PLUGIN,
+            BenchmarkCorpus.INCIDENT_DTO,
+            BenchmarkCorpus.ENHANCEMENT,
+            BenchmarkCorpus.LINES_500,
+            BenchmarkCorpus.GENERATED_500
+    })
+    public String file;
+
+    @Param({"SLL_THEN_LL", "LL"})
+    public ParsingStrategy parsingStrategy;
+
+    @Param({"TREE_WALK", "PARSE"})
+    public ListenerMode listenerMode;
+
+    private InputFile inputFile;
+    private AnalysisContext analysisContext;
+
+    @Setup
+    public void setUp() {
+        BenchmarkCorpus.requireNoSyntaxErrors(file);
+        inputFile = BenchmarkCorpus.inputFile(file);
+
+        final SensorContextTester sensorContext = SensorContextTester.create(BenchmarkCorpus.BASE_DIR);
+        sensorContext.setActiveRules(BenchmarkRules.activeRules(ClassExtractor.getRules().keySet()));
+        final GosuParserFactory parserFactory = GosuParserFactory.withMaxDfaStates(GosuParserFactory.UNBOUNDED);
+        parserFactory.warmUp();
+        analysisContext = AnalysisContext.builder(sensorContext, UnitTestReports.empty())
+                .withParserFactory(parserFactory)
+                .withParsingStrategy(parsingStrategy)
+                .withListenerMode(listenerMode)
+                .build();
+    }
+
+    @Benchmark
+    public GosuFileAnalysis analyse() throws IOException {
+        return new GosuFileParser(inputFile, analysisContext, new NoOpFileLinesContext()).analyse();
+    }
+}
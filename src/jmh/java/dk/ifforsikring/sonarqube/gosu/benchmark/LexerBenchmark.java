@@ -0,0 +1,82 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.benchmark;
+
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuLexer;
+import dk.ifforsikring.sonarqube.gosu.plugin.parser.GosuParserFactory;
+import dk.ifforsikring.sonarqube.gosu.plugin.tokens.GosuTokenStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per file of the lexer alone, with the lexer DFA shared between runs as in an analysis.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class LexerBenchmark {
+
+    @Param({
+            BenchmarkCorpus.POLICIES_PLUGIN,
+            BenchmarkCorpus.INCIDENT_DTO,
+            BenchmarkCorpus.ENHANCEMENT,
+            BenchmarkCorpus.LINES_500,
+            BenchmarkCorpus.GENERATED_500
+    })
+    public String file;
+
+    private String source;
+    private GosuParserFactory parserFactory;
+
+    @Setup
+    public void setUp() {
+        source = BenchmarkCorpus.read(file);
+        parserFactory = GosuParserFactory.withMaxDfaStates(GosuParserFactory.UNBOUNDED);
+    }
+
+    @Benchmark
+    public int lex() {
+        final GosuLexer lexer = parserFactory.createLexer(CharStreams.fromString(source));
+        final CommonTokenStream tokenStream = new CommonTokenStream(lexer);
+        tokenStream.fill();
+        return tokenStream.size();
+    }
+
+    @Benchmark
+    public int lexIntoGosuTokenStream() {
+        final GosuLexer lexer = parserFactory.createLexer(CharStreams.fromString(source));
+        final GosuTokenStream tokenStream = new GosuTokenStream(lexer);
+        tokenStream.fill();
+        return tokenStream.size();
+    }
+}
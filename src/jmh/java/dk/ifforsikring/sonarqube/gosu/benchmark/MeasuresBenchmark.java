@@ -0,0 +1,72 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.benchmark;
+
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuLexer;
+import dk.ifforsikring.sonarqube.gosu.plugin.GosuFileProperties;
+import dk.ifforsikring.sonarqube.gosu.plugin.measures.Measures;
+import dk.ifforsikring.sonarqube.gosu.plugin.measures.ProcessedTokens;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per file of the highlighting and copy-paste detection tokens computed by {@link Measures},
+ * up to the point where {@link Measures#addProcessedTokensTo} hands them over to the sensor context.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class MeasuresBenchmark {
+
+    @Param({
+            BenchmarkCorpus.POLICIES_PLUGIN,
+            BenchmarkCorpus.HIGHLIGHTING,
+            BenchmarkCorpus.LINES_500,
+            BenchmarkCorpus.GENERATED_500
+    })
+    public String file;
+
+    private Measures measures;
+
+    @Setup
+    public void setUp() {
+        final CommonTokenStream tokenStream = new CommonTokenStream(new GosuLexer(CharStreams.fromString(BenchmarkCorpus.read(file))));
+        tokenStream.fill();
+        measures = Measures.of(new GosuFileProperties(BenchmarkCorpus.inputFile(file), tokenStream, new NoOpFileLinesContext()));
+    }
+
+    @Benchmark
+    public ProcessedTokens processTokens() {
+        return measures.processTokens();
+    }
+}
@@ -0,0 +1,42 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.benchmark;
+
+import org.sonar.api.measures.FileLinesContext;
+
+import javax.annotation.Nonnull;
+
+/**
+ * Line data is not saved by the benchmarks.
+ */
+final class NoOpFileLinesContext implements FileLinesContext {
+
+    @Override
+    public void setIntValue(@Nonnull String metricKey, int line, int value) {
+        // Nothing to save
+    }
+
+    @Override
+    public void setStringValue(@Nonnull String metricKey, int line, @Nonnull String value) {
+        // Nothing to save
+    }
+
+    @Override
+    public void save() {
+        // Nothing to save
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.benchmark;
+
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuParser;
+import dk.ifforsikring.sonarqube.gosu.plugin.parser.GosuParserFactory;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ListTokenSource;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per file of {@link GosuParser#start()} on tokens lexed beforehand, without any listener.
+ * <p>
+ * The cold DFA case gives every parse empty prediction caches, like the first files of an analysis did
+ * before the caches were shared; the warm DFA case reuses caches warmed up by the factory.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ParserBenchmark {
+
+    @Param({
+            BenchmarkCorpus.POLICIES_PLUGIN,
+            BenchmarkCorpus.INCIDENT_DTO,
+            BenchmarkCorpus.ENHANCEMENT,
+            BenchmarkCorpus.LINES_500,
+            BenchmarkCorpus.GENERATED_500
+    })
+    public String file;
+
+    @Param({"SLL", "LL"})
+    public PredictionMode predictionMode;
+
+    private List<Token> tokens;
+    private GosuParserFactory warmParserFactory;
+
+    @Setup
+    public void setUp() {
+        BenchmarkCorpus.requireNoSyntaxErrors(file);
+        tokens = BenchmarkCorpus.tokens(file);
+        warmParserFactory = GosuParserFactory.withMaxDfaStates(GosuParserFactory.UNBOUNDED);
+        warmParserFactory.warmUp();
+    }
+
+    @Benchmark
+    public GosuParser.StartContext coldDfa() {
+        return parse(GosuParserFactory.withMaxDfaStates(GosuParserFactory.UNBOUNDED));
+    }
+
+    @Benchmark
+    public GosuParser.StartContext warmDfa() {
+        return parse(warmParserFactory);
+    }
+
+    private GosuParser.StartContext parse(GosuParserFactory parserFactory) {
+        final GosuParser parser = parserFactory.createParser(new CommonTokenStream(new ListTokenSource(tokens)));
+        parser.removeErrorListeners();
+        parser.getInterpreter().setPredictionMode(predictionMode);
+        return parser.start();
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.benchmark;
+
+import com.google.inject.Guice;
+import com.google.inject.Inject;
+import com.google.inject.Injector;
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuParser;
+import dk.ifforsikring.sonarqube.gosu.plugin.GosuFileProperties;
+import dk.ifforsikring.sonarqube.gosu.plugin.context.AnalysisModule;
+import dk.ifforsikring.sonarqube.gosu.plugin.context.FileAnalysisModule;
+import dk.ifforsikring.sonarqube.gosu.plugin.context.RulePlan;
+import dk.ifforsikring.sonarqube.gosu.plugin.issues.Issue;
+import dk.ifforsikring.sonarqube.gosu.plugin.issues.IssueCollector;
+import dk.ifforsikring.sonarqube.gosu.plugin.measures.MeasureCollector;
+import dk.ifforsikring.sonarqube.gosu.plugin.measures.metrics.BaseMetric;
+import dk.ifforsikring.sonarqube.gosu.plugin.parser.GosuParserFactory;
+import dk.ifforsikring.sonarqube.gosu.plugin.reports.UnitTestReports;
+import dk.ifforsikring.sonarqube.gosu.plugin.tokens.TokenPipeline;
+import dk.ifforsikring.sonarqube.gosu.plugin.tools.listeners.SyntaxErrorListener;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.antlr.v4.runtime.tree.TerminalNode;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+
+import java.lang.reflect.Constructor;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per file of each rule on its own, walking a tree parsed beforehand. The rule is walked together with
+ * the metrics it is injected with, and its file injector is created on every run, as in an analysis.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RuleBenchmark {
+
+    @Param({
+            "AutomaticDowncastRule",
+            "CognitiveComplexityRule",
+            "CollectionIsEmptyRule",
+            "CyclomaticComplexityRule",
+            "DefaultModifiersRule",
+            "EmptyCatchRule",
+            "EmptyLineRule",
+            "HardcodedEntityFieldValueRule",
+            "IfElseIfRule",
+            "InternalImportsRule",
+            "InvertedBooleanExpressionsRule",
+            "LinesOfCodeRule",
+            "LoggerRule",
+            "MagicNumbersRule",
+            "NestedStatementsRule",
+            "PublicStaticFieldRule",
+            "PublicVariablesRule",
+            "RethrowInCatchRule",
+            "ReturnNullCollectionRule",
+            "SameConditionsInIfRule",
+            "StringBuilderInstantiationRule",
+            "SystemClockUnawareDateRule",
+            "TODOsRule",
+            "TooManyParamsRule",
+            "UnnecessaryImportRule",
+            "UnusedParameterRule"
+    })
+    public String rule;
+
+    @Param({
+            BenchmarkCorpus.POLICIES_PLUGIN,
+            BenchmarkCorpus.GENERATED_500
+    })
+    public String file;
+
+    private Injector analysisInjector;
+    private RulePlan.PlannedRule plannedRule;
+    private List<Class<? extends BaseMetric>> metrics;
+    private InputFile inputFile;
+    private CommonTokenStream tokenStream;
+    private GosuParser.StartContext tree;
+
+    @Setup
+    public void setUp() {
+        BenchmarkCorpus.requireNoSyntaxErrors(file);
+        final SensorContextTester sensorContext = SensorContextTester.create(BenchmarkCorpus.BASE_DIR);
+        final RulePlan rulePlan = RulePlan.of(BenchmarkRules.activeRules(List.of(rule)));
+        final InputFile.Type type = rulePlan.getRulesFor(InputFile.Type.MAIN).isEmpty() ? InputFile.Type.TEST : InputFile.Type.MAIN;
+        plannedRule = rulePlan.getRulesFor(type).stream()
+                .findFirst()
+                .orElseThrow(() -> new IllegalStateException("Unknown rule: " + rule));
+        metrics = metricsInjectedIn(plannedRule);
+        analysisInjector = Guice.createInjector(new AnalysisModule(sensorContext, UnitTestReports.empty()));
+
+        final GosuParserFactory parserFactory = GosuParserFactory.withMaxDfaStates(GosuParserFactory.UNBOUNDED);
+        inputFile = BenchmarkCorpus.inputFile(file, type);
+        tokenStream = new CommonTokenStream(parserFactory.createLexer(CharStreams.fromString(BenchmarkCorpus.read(file))));
+        tree = parserFactory.createParser(tokenStream).start();
+    }
+
+    @Benchmark
+    public List<Issue> walk() {
+        final IssueCollector issueCollector = new IssueCollector();
+        final GosuFileProperties gosuFileProperties = new GosuFileProperties(inputFile, tokenStream, new NoOpFileLinesContext());
+        final Injector injector = analysisInjector.createChildInjector(new FileAnalysisModule(
+                gosuFileProperties, issueCollector, new MeasureCollector(), new SyntaxErrorListener(gosuFileProperties)));
+
+        final ListenerChain listeners = new ListenerChain();
+        listeners.add(plannedRule.instantiate(injector));
+        for (Class<? extends BaseMetric> metric : metrics) {
+            listeners.add(injector.getInstance(metric));
+        }
+
+        ParseTreeWalker.DEFAULT.walk(listeners, tree);
+        injector.getInstance(TokenPipeline.class).run(tokenStream.getTokens());
+        return issueCollector.getIssues();
+    }
+
+    @SuppressWarnings("unchecked")
+    private static List<Class<? extends BaseMetric>> metricsInjectedIn(RulePlan.PlannedRule plannedRule) {
+        final List<Class<? extends BaseMetric>> metrics = new ArrayList<>();
+        for (Constructor<?> constructor : plannedRule.getRuleClass().getDeclaredConstructors()) {
+            if (constructor.isAnnotationPresent(Inject.class)) {
+                for (Class<?> parameterType : constructor.getParameterTypes()) {
+                    if (BaseMetric.class.isAssignableFrom(parameterType)) {
+                        metrics.add((Class<? extends BaseMetric>) parameterType);
+                    }
+                }
+            }
+        }
+        return metrics;
+    }
+
+    /**
+     * Notifies its listeners in the order the parser does: rule entries in registration order, rule exits in reverse.
+     */
+    private static final class ListenerChain implements ParseTreeListener {
+        private final List<ParseTreeListener> listeners = new ArrayList<>();
+
+        private void add(ParseTreeListener listener) {
+            listeners.add(listener);
+        }
+
+        @Override
+        public void enterEveryRule(ParserRuleContext ctx) {
+            for (ParseTreeListener listener : listeners) {
+                listener.enterEveryRule(ctx);
+                ctx.enterRule(listener);
+            }
+        }
+
+        @Override
+        public void exitEveryRule(ParserRuleContext ctx) {
+            for (int i = listeners.size() - 1; i >= 0; i--) {
+                final ParseTreeListener listener = listeners.get(i);
+                ctx.exitRule(listener);
+                listener.exitEveryRule(ctx);
+            }
+        }
+
+        @Override
+        public void visitTerminal(TerminalNode node) {
+            for (ParseTreeListener listener : listeners) {
+                listener.visitTerminal(node);
+            }
+        }
+
+        @Override
+        public void visitErrorNode(ErrorNode node) {
+            for (ParseTreeListener listener : listeners) {
+                listener.visitErrorNode(node);
+            }
+        }
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.benchmark;
+
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuLexer;
+import dk.ifforsikring.sonarqube.gosu.plugin.GosuFileProperties;
+import dk.ifforsikring.sonarqube.gosu.plugin.LineIndexes;
+import dk.ifforsikring.sonarqube.gosu.plugin.measures.Measures;
+import dk.ifforsikring.sonarqube.gosu.plugin.measures.ProcessedTokens;
+import dk.ifforsikring.sonarqube.gosu.plugin.tokens.TokenPipeline;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Token;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Cost per file of the token based measures: one walk of the token stream per concern, as before
+ * the token pipeline, against a single walk dispatching every token to all of them.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TokenPipelineBenchmark {
+
+    @Param({
+            BenchmarkCorpus.POLICIES_PLUGIN,
+            BenchmarkCorpus.LINES_500,
+            BenchmarkCorpus.HIGHLIGHTING
+    })
+    public String file;
+
+    private GosuFileProperties gosuFileProperties;
+    private List<Token> tokens;
+
+    @Setup
+    public void setUp() {
+        final CommonTokenStream tokenStream = new CommonTokenStream(new GosuLexer(CharStreams.fromString(BenchmarkCorpus.read(file))));
+        tokenStream.fill();
+        tokens = tokenStream.getTokens();
+        gosuFileProperties = new GosuFileProperties(BenchmarkCorpus.inputFile(file), tokenStream, new NoOpFileLinesContext());
+    }
+
+    @Benchmark
+    public void separatePasses(Blackhole blackhole) {
+        final TokenPipeline measuresPipeline = new TokenPipeline();
+        final ProcessedTokens processedTokens = Measures.of(gosuFileProperties).registerOn(measuresPipeline);
+        measuresPipeline.run(tokens);
+
+        final LineIndexes lineIndexes = new LineIndexes();
+        new TokenPipeline().register(lineIndexes).run(tokens);
+
+        final TodoCounter todoCounter = new TodoCounter();
+        new TokenPipeline().register(todoCounter::consume, GosuLexer.COMMENT, GosuLexer.LINE_COMMENT).run(tokens);
+
+        blackhole.consume(processedTokens);
+        blackhole.consume(lineIndexes);
+        blackhole.consume(todoCounter.todos);
+    }
+
+    @Benchmark
+    public void singlePass(Blackhole blackhole) {
+        final TokenPipeline tokenPipeline = new TokenPipeline();
+        final ProcessedTokens processedTokens = Measures.of(gosuFileProperties).registerOn(tokenPipeline);
+        final LineIndexes lineIndexes = new LineIndexes();
+        final TodoCounter todoCounter = new TodoCounter();
+        tokenPipeline.register(lineIndexes)
+                .register(todoCounter::consume, GosuLexer.COMMENT, GosuLexer.LINE_COMMENT)
+                .run(tokens);
+
+        blackhole.consume(processedTokens);
+        blackhole.consume(lineIndexes);
+        blackhole.consume(todoCounter.todos);
+    }
+
+    private static final class TodoCounter {
+        private int todos;
+
+        private void consume(Token token) {
+            if (token.getText().toUpperCase().contains("TODO")) {
+                todos++;
+            }
+        }
+    }
+}
@@ -20,23 +20,27 @@ lexer grammar GosuLexer;
 
 channels { COMMENTS }
 
+// Keywords, operators, literals and comments of the generated GosuTokenClasses are found from the rules themselves.
+// Complexity operators and executable tokens are maintained by hand: their rules end with a "// classes:" comment
+// listing complexity-operator or executable.
+
 //KEYWORDS
 
 ABSTRACT:       {_input.LA(-1) != '.'}?'abstract';
-AND:            {_input.LA(-1) != '.'}?'and';
+AND:            {_input.LA(-1) != '.'}?'and';  // classes: complexity-operator
 ANNOTATION:     {_input.LA(-1) != '.'}?'annotation';
 AS:             {_input.LA(-1) != '.'}?'as';
 ASSERT:         {_input.LA(-1) != '.'}?'assert';
-BLOCK:          {_input.LA(-1) != '.'}?'block';
+BLOCK:          {_input.LA(-1) != '.'}?'block';  // classes: executable
 BREAK:          {_input.LA(-1) != '.'}?'break';
 CASE:           {_input.LA(-1) != '.'}?'case';
-CATCH:          {_input.LA(-1) != '.'}?'catch';
+CATCH:          {_input.LA(-1) != '.'}?'catch';  // classes: executable
 CLASS:          {_input.LA(-1) != '.'}?'class';
 CONSTRUCT:      {_input.LA(-1) != '.'}?'construct';
 CONTINUE:       {_input.LA(-1) != '.'}?'continue';
 DEFAULT:        {_input.LA(-1) != '.'}?'default';
 DELEGATE:       {_input.LA(-1) != '.'}?'delegate';
-DO:             {_input.LA(-1) != '.'}?'do';
+DO:             {_input.LA(-1) != '.'}?'do';  // classes: executable
 ELSE:           {_input.LA(-1) != '.'}?'else';
 ENHANCEMENT:    {_input.LA(-1) != '.'}?'enhancement';
 ENUM:           {_input.LA(-1) != '.'}?'enum';
@@ -45,9 +49,9 @@ EXTENDS:        {_input.LA(-1) != '.'}?'extends';
 FALSE:          {_input.LA(-1) != '.'}?'false';
 FINAL:          {_input.LA(-1) != '.'}?'final';
 FINALLY:        {_input.LA(-1) != '.'}?'finally';
-FOR:            {_input.LA(-1) != '.'}?'for';
-FOREACH:        {_input.LA(-1) != '.'}?'foreach';
-FUNCTION:       {_input.LA(-1) != '.'}?'function';
+FOR:            {_input.LA(-1) != '.'}?'for';  // classes: executable
+FOREACH:        {_input.LA(-1) != '.'}?'foreach';  // classes: executable
+FUNCTION:       {_input.LA(-1) != '.'}?'function';  // classes: executable
 GET:            {_input.LA(-1) != '.'}?'get';
 IF:             {_input.LA(-1) != '.'}?'if';
 IMPLEMENTS:     {_input.LA(-1) != '.'}?'implements';
@@ -56,9 +60,9 @@ INDEX:          {_input.LA(-1) != '.'}?'index';
 INTERFACE:      {_input.LA(-1) != '.'}?'interface';
 INTERNAL:       {_input.LA(-1) != '.'}?'internal';
 ITERATOR:       {_input.LA(-1) != '.'}?'iterator';
-NEW:            {_input.LA(-1) != '.'}?'new';
+NEW:            {_input.LA(-1) != '.'}?'new';  // classes: executable
 NOT:            {_input.LA(-1) != '.'}?'not';
-OR:             {_input.LA(-1) != '.'}?'or';
+OR:             {_input.LA(-1) != '.'}?'or';  // classes: complexity-operator
 OVERRIDE:       {_input.LA(-1) != '.'}?'override';
 PACKAGE:        {_input.LA(-1) != '.'}?'package';
 PRIVATE:        {_input.LA(-1) != '.'}?'private';
@@ -79,7 +83,7 @@ THIS:           {_input.LA(-1) != '.'}?'this';
 THROW:          {_input.LA(-1) != '.'}?'throw';
 TRANSIENT:      {_input.LA(-1) != '.'}?'transient';
 TRUE:           {_input.LA(-1) != '.'}?'true';
-TRY:            {_input.LA(-1) != '.'}?'try';
+TRY:            {_input.LA(-1) != '.'}?'try';  // classes: executable
 TYPEAS:         {_input.LA(-1) != '.'}?'typeas';
 TYPEIS:         {_input.LA(-1) != '.'}?'typeis';
 TYPEOF:         {_input.LA(-1) != '.'}?'typeof';
@@ -87,7 +91,7 @@ USES:           {_input.LA(-1) != '.'}?'uses';
 USING:          {_input.LA(-1) != '.'}?'using';
 VAR:            {_input.LA(-1) != '.'}?'var';
 VOID:           {_input.LA(-1) != '.'}?'void';
-WHILE:          {_input.LA(-1) != '.'}?'while';
+WHILE:          {_input.LA(-1) != '.'}?'while';  // classes: executable
 NULL:           {_input.LA(-1) != '.'}?'null';
 NAN:            {_input.LA(-1) != '.'}?'NaN';
 INFINITY:       {_input.LA(-1) != '.'}?'Infinity';
@@ -116,16 +120,16 @@ COLON : ':';
 EQUAL : '==' | '===';
 LE : '<=';
 NOTEQUAL : '!=' | '!==';
-CONJ : '&&';
-DISJ : '||';
+CONJ : '&&';  // classes: complexity-operator
+DISJ : '||';  // classes: complexity-operator
 INC : '++';
 DEC : '--';
 PLUS : '+';
 MINUS : '-';
 MUL : '*';
 DIV : '/';
-BITAND : '&';
-BITOR : '|';
+BITAND : '&';  // classes: complexity-operator
+BITOR : '|';  // classes: complexity-operator
 CARET : '^';
 MOD : '%';
 ARROW : '->';
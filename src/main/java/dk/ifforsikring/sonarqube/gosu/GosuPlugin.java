@@ -33,6 +33,13 @@ public class GosuPlugin implements Plugin {
                 GosuSensor.class,
                 GosuRulesDefinition.class,
                 GosuLangProperties.getSuffixProperty(),
+                GosuLangProperties.getAnalysisThreadsProperty(),
+                GosuLangProperties.getAnalysisCacheProperty(),
+                GosuLangProperties.getAnalysisCacheDirProperty(),
+                GosuLangProperties.getParserMaxDfaStatesProperty(),
+                GosuLangProperties.getParserStrategyProperty(),
+                GosuLangProperties.getListenerModeProperty(),
+                GosuLangProperties.getProfileProperty(),
                 GosuQualityProfile.class
         );
     }
@@ -16,6 +16,7 @@
  */
 package dk.ifforsikring.sonarqube.gosu.language;
 
+import org.sonar.api.PropertyType;
 import org.sonar.api.config.PropertyDefinition;
 
 import java.util.Set;
@@ -23,7 +24,21 @@ import java.util.Set;
 public final class GosuLangProperties {
     public static final String FILE_SUFFIXES_KEY = "sonar.gosu.file.suffixes";
     public static final String FILE_SUFFIXES_DEFAULT_VALUE = ".gs,.gsx";
+    public static final String ANALYSIS_THREADS_KEY = "sonar.gosu.analysis.threads";
+    public static final int ANALYSIS_THREADS_DEFAULT_VALUE = 1;
+    public static final String ANALYSIS_CACHE_KEY = "sonar.gosu.analysis.cache";
+    public static final boolean ANALYSIS_CACHE_DEFAULT_VALUE = true;
+    public static final String ANALYSIS_CACHE_DIR_KEY = "sonar.gosu.analysis.cacheDir";
+    public static final String PARSER_MAX_DFA_STATES_KEY = "sonar.gosu.parser.maxDfaStates";
+    public static final int PARSER_MAX_DFA_STATES_DEFAULT_VALUE = 200_000;
+    public static final String PARSER_STRATEGY_KEY = "sonar.gosu.parser.strategy";
+    public static final String PARSER_STRATEGY_DEFAULT_VALUE = "SLL_THEN_LL";
+    public static final String LISTENER_MODE_KEY = "sonar.gosu.analysis.listenerMode";
+    public static final String LISTENER_MODE_DEFAULT_VALUE = "TREE_WALK";
+    public static final String PROFILE_KEY = "sonar.gosu.profile";
+    public static final boolean PROFILE_DEFAULT_VALUE = false;
     public static final String GOSU_CATEGORY = "Gosu";
+    private static final String ANALYSIS_SUBCATEGORY = "Analysis";
 
     private GosuLangProperties() {
     }
@@ -39,4 +54,88 @@ public final class GosuLangProperties {
                 .onConfigScopes(Set.of(PropertyDefinition.ConfigScope.PROJECT))
                 .build();
     }
+
+    public static PropertyDefinition getAnalysisThreadsProperty() {
+        return PropertyDefinition.builder(ANALYSIS_THREADS_KEY)
+                .defaultValue(String.valueOf(ANALYSIS_THREADS_DEFAULT_VALUE))
+                .type(PropertyType.INTEGER)
+                .category(GOSU_CATEGORY)
+                .name("Analysis Threads")
+                .description("Number of files analyzed in parallel. Use 0 to analyze as many files as there are available processors.")
+                .subCategory(ANALYSIS_SUBCATEGORY)
+                .onConfigScopes(Set.of(PropertyDefinition.ConfigScope.PROJECT))
+                .build();
+    }
+
+    public static PropertyDefinition getAnalysisCacheProperty() {
+        return PropertyDefinition.builder(ANALYSIS_CACHE_KEY)
+                .defaultValue(String.valueOf(ANALYSIS_CACHE_DEFAULT_VALUE))
+                .type(PropertyType.BOOLEAN)
+                .category(GOSU_CATEGORY)
+                .name("Analysis Cache")
+                .description("Reuse the results of the previous analysis for files whose content and active rules did not change.")
+                .subCategory(ANALYSIS_SUBCATEGORY)
+                .onConfigScopes(Set.of(PropertyDefinition.ConfigScope.PROJECT))
+                .build();
+    }
+
+    public static PropertyDefinition getAnalysisCacheDirProperty() {
+        return PropertyDefinition.builder(ANALYSIS_CACHE_DIR_KEY)
+                .category(GOSU_CATEGORY)
+                .name("Analysis Cache Directory")
+                .description("Directory the analysis cache is kept in when the SonarQube analysis cache is disabled, relative to the project base directory. Defaults to a directory of the project under the SonarQube user home.")
+                .subCategory(ANALYSIS_SUBCATEGORY)
+                .onConfigScopes(Set.of(PropertyDefinition.ConfigScope.PROJECT))
+                .build();
+    }
+
+    public static PropertyDefinition getParserMaxDfaStatesProperty() {
+        return PropertyDefinition.builder(PARSER_MAX_DFA_STATES_KEY)
+                .defaultValue(String.valueOf(PARSER_MAX_DFA_STATES_DEFAULT_VALUE))
+                .type(PropertyType.INTEGER)
+                .category(GOSU_CATEGORY)
+                .name("Parser Cache Limit")
+                .description("Number of DFA states the Gosu parser may cache before the cache is cleared. Use 0 to never clear it.")
+                .subCategory(ANALYSIS_SUBCATEGORY)
+                .onConfigScopes(Set.of(PropertyDefinition.ConfigScope.PROJECT))
+                .build();
+    }
+
+    public static PropertyDefinition getParserStrategyProperty() {
+        return PropertyDefinition.builder(PARSER_STRATEGY_KEY)
+                .defaultValue(PARSER_STRATEGY_DEFAULT_VALUE)
+                .type(PropertyType.SINGLE_SELECT_LIST)
+                .options(PARSER_STRATEGY_DEFAULT_VALUE, "LL")
+                .category(GOSU_CATEGORY)
+                .name("Parser Strategy")
+                .description("SLL_THEN_LL parses files with the faster SLL prediction first and falls back to full LL prediction on failure. LL always uses full LL prediction.")
+                .subCategory(ANALYSIS_SUBCATEGORY)
+                .onConfigScopes(Set.of(PropertyDefinition.ConfigScope.PROJECT))
+                .build();
+    }
+
+    public static PropertyDefinition getListenerModeProperty() {
+        return PropertyDefinition.builder(LISTENER_MODE_KEY)
+                .defaultValue(LISTENER_MODE_DEFAULT_VALUE)
+                .type(PropertyType.SINGLE_SELECT_LIST)
+                .options(LISTENER_MODE_DEFAULT_VALUE, "PARSE")
+                .category(GOSU_CATEGORY)
+                .name("Listener Mode")
+                .description("TREE_WALK runs rules and metrics in one walk over the parsed tree of a file. PARSE notifies them while the file is parsed.")
+                .subCategory(ANALYSIS_SUBCATEGORY)
+                .onConfigScopes(Set.of(PropertyDefinition.ConfigScope.PROJECT))
+                .build();
+    }
+
+    public static PropertyDefinition getProfileProperty() {
+        return PropertyDefinition.builder(PROFILE_KEY)
+                .defaultValue(String.valueOf(PROFILE_DEFAULT_VALUE))
+                .type(PropertyType.BOOLEAN)
+                .category(GOSU_CATEGORY)
+                .name("Profile Rules")
+                .description("Log the time, callbacks and allocated bytes of every rule and metric at the end of the analysis, and write them to gosu-profile.json in the working directory.")
+                .subCategory(ANALYSIS_SUBCATEGORY)
+                .onConfigScopes(Set.of(PropertyDefinition.ConfigScope.PROJECT))
+                .build();
+    }
 }
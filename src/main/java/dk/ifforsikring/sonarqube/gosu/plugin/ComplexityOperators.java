@@ -0,0 +1,134 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin;
+
+import dk.ifforsikring.sonarqube.gosu.language.utils.GosuUtil;
+import dk.ifforsikring.sonarqube.gosu.plugin.tokens.GosuTokenClasses;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Logical operators adding to the complexity of the conditions of a file, indexed once over its tokens,
+ * so the operators of any condition are counted in constant time however deeply conditions are nested.
+ */
+public final class ComplexityOperators {
+    private final List<Token> tokens;
+    /**
+     * Number of operators among the tokens before each token index.
+     */
+    private final int[] operatorsBefore;
+    /**
+     * Number of operators before each token index with another type than the operator preceding them.
+     */
+    private final int[] sequencesBefore;
+    private final int[] operatorIndexes;
+
+    private ComplexityOperators(List<Token> tokens, int[] operatorsBefore, int[] sequencesBefore, int[] operatorIndexes) {
+        this.tokens = tokens;
+        this.operatorsBefore = operatorsBefore;
+        this.sequencesBefore = sequencesBefore;
+        this.operatorIndexes = operatorIndexes;
+    }
+
+    public static ComplexityOperators of(List<Token> tokens) {
+        final int[] operatorsBefore = new int[tokens.size() + 1];
+        final int[] sequencesBefore = new int[tokens.size() + 1];
+        final int[] operatorIndexes = new int[tokens.size()];
+        int operators = 0;
+        int sequences = 0;
+        int previousType = 0;
+
+        for (int i = 0; i < tokens.size(); i++) {
+            final int type = tokens.get(i).getType();
+            if (GosuTokenClasses.isComplexityOperator(type)) {
+                if (type != previousType) {
+                    sequences++;
+                }
+                previousType = type;
+                operatorIndexes[operators++] = i;
+            }
+            operatorsBefore[i + 1] = operators;
+            sequencesBefore[i + 1] = sequences;
+        }
+        return new ComplexityOperators(tokens, operatorsBefore, sequencesBefore, operatorIndexes);
+    }
+
+    /**
+     * @return Number of operators in the context
+     */
+    public int countIn(ParserRuleContext context) {
+        final int first = firstOperatorIn(context);
+        return operatorsBefore[endOf(context)] - first;
+    }
+
+    /**
+     * @return Number of sequences of operators of the same type in the context,
+     * where operands and other tokens between the operators do not end a sequence
+     */
+    public int countSequencesIn(ParserRuleContext context) {
+        final int first = firstOperatorIn(context);
+        final int end = endOf(context);
+        if (operatorsBefore[end] == first) {
+            return 0;
+        }
+        return 1 + sequencesBefore[end] - sequencesBefore[operatorIndexes[first] + 1];
+    }
+
+    /**
+     * @return Operators in the context
+     */
+    public List<Token> operatorsIn(ParserRuleContext context) {
+        final int end = operatorsBefore[endOf(context)];
+        final List<Token> operators = new ArrayList<>();
+        for (int i = firstOperatorIn(context); i < end; i++) {
+            operators.add(tokens.get(operatorIndexes[i]));
+        }
+        return operators;
+    }
+
+    /**
+     * @return First operator of each sequence of operators of the same type in the context
+     */
+    public List<Token> sequenceStartsIn(ParserRuleContext context) {
+        final int first = firstOperatorIn(context);
+        final int end = operatorsBefore[endOf(context)];
+        final List<Token> operators = new ArrayList<>();
+        for (int i = first; i < end; i++) {
+            final Token operator = tokens.get(operatorIndexes[i]);
+            if (i == first || tokens.get(operatorIndexes[i - 1]).getType() != operator.getType()) {
+                operators.add(operator);
+            }
+        }
+        return operators;
+    }
+
+    private int firstOperatorIn(ParserRuleContext context) {
+        return operatorsBefore[Math.min(Math.max(context.getStart().getTokenIndex(), 0), tokens.size())];
+    }
+
+    /**
+     * @return Token index after the stop token of the context, never before its start
+     */
+    private int endOf(ParserRuleContext context) {
+        final int start = Math.min(Math.max(context.getStart().getTokenIndex(), 0), tokens.size());
+        final int stop = Math.min(GosuUtil.getStopToken(context).getTokenIndex() + 1, tokens.size());
+        return Math.max(start, stop);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * Fingerprints and texts of the parse tree contexts of a file, cached so comparing the same subtrees again
+ * does not build their text again.
+ * <p>
+ * A fingerprint is a 64-bit hash of the texts of the tokens of a context: two contexts made of the same tokens
+ * have the same fingerprint, whatever rule they were parsed with. Only contexts the parser is done with are
+ * cached, as a context it still adds children to changes.
+ */
+public class ContextFingerprints {
+    private static final long MULTIPLIER = 0x9E3779B97F4A7C15L;
+    private static final long FNV_OFFSET_BASIS = 0xCBF29CE484222325L;
+    private static final long FNV_PRIME = 0x100000001B3L;
+
+    private final Map<ParserRuleContext, Fingerprint> fingerprints = new IdentityHashMap<>();
+    private final Map<ParserRuleContext, String> texts = new IdentityHashMap<>();
+
+    /**
+     * @return Fingerprint of the tokens of the context
+     */
+    public long fingerprintOf(ParserRuleContext context) {
+        final Fingerprint fingerprint = fingerprint(context);
+        return mix(fingerprint.hash ^ fingerprint.tokens);
+    }
+
+    /**
+     * @return Text of the context, as {@link ParserRuleContext#getText()}
+     */
+    public String textOf(ParserRuleContext context) {
+        if (!isComplete(context)) {
+            return context.getText();
+        }
+        return texts.computeIfAbsent(context, ParserRuleContext::getText);
+    }
+
+    /**
+     * @return Whether the text of the context is the given text, compared token by token without building it
+     */
+    public boolean hasText(ParserRuleContext context, String text) {
+        final String cachedText = texts.get(context);
+        if (cachedText != null) {
+            return cachedText.equals(text);
+        }
+        return matchedEnd(context, text, 0) == text.length();
+    }
+
+    private Fingerprint fingerprint(ParserRuleContext context) {
+        final Fingerprint cached = fingerprints.get(context);
+        if (cached != null) {
+            return cached;
+        }
+
+        long hash = 0;
+        int tokens = 0;
+        for (int i = 0; i < context.getChildCount(); i++) {
+            final ParseTree child = context.getChild(i);
+            if (child instanceof ParserRuleContext childContext) {
+                final Fingerprint childFingerprint = fingerprint(childContext);
+                hash = hash * power(childFingerprint.tokens) + childFingerprint.hash;
+                tokens += childFingerprint.tokens;
+            } else if (child instanceof TerminalNode terminal) {
+                hash = hash * MULTIPLIER + hashOf(terminal.getText());
+                tokens++;
+            }
+        }
+
+        final Fingerprint fingerprint = new Fingerprint(hash, tokens);
+        if (isComplete(context)) {
+            fingerprints.put(context, fingerprint);
+        }
+        return fingerprint;
+    }
+
+    /**
+     * @return Offset in the text after the text of the node, or -1 when the node does not match the text there
+     */
+    private static int matchedEnd(ParseTree node, String text, int offset) {
+        if (node instanceof TerminalNode terminal) {
+            final String terminalText = terminal.getText();
+            return text.startsWith(terminalText, offset) ? offset + terminalText.length() : -1;
+        }
+        int end = offset;
+        for (int i = 0; i < node.getChildCount() && end >= 0; i++) {
+            end = matchedEnd(node.getChild(i), text, end);
+        }
+        return end;
+    }
+
+    private static boolean isComplete(ParserRuleContext context) {
+        return context.getStop() != null;
+    }
+
+    private static long hashOf(String text) {
+        long hash = FNV_OFFSET_BASIS;
+        for (int i = 0; i < text.length(); i++) {
+            hash = (hash ^ text.charAt(i)) * FNV_PRIME;
+        }
+        return mix(hash);
+    }
+
+    private static long power(int exponent) {
+        long result = 1;
+        long base = MULTIPLIER;
+        for (int e = exponent; e > 0; e >>= 1) {
+            if ((e & 1) != 0) {
+                result *= base;
+            }
+            base *= base;
+        }
+        return result;
+    }
+
+    private static long mix(long hash) {
+        hash ^= hash >>> 33;
+        hash *= 0xFF51AFD7ED558CCDL;
+        hash ^= hash >>> 33;
+        hash *= 0xC4CEB9FE1A85EC53L;
+        return hash ^ hash >>> 33;
+    }
+
+    private record Fingerprint(long hash, int tokens) {
+    }
+}
@@ -0,0 +1,123 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin;
+
+import dk.ifforsikring.sonarqube.gosu.plugin.issues.Issue;
+import dk.ifforsikring.sonarqube.gosu.plugin.measures.MeasureCollector;
+import dk.ifforsikring.sonarqube.gosu.plugin.measures.ProcessedTokens;
+import dk.ifforsikring.sonarqube.gosu.plugin.tools.listeners.SyntaxErrorListener.SyntaxError;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.sensor.SensorContext;
+
+import java.io.IOException;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Everything the analysis of a single file reports to SonarQube: issues, measures, syntax errors,
+ * highlighting and copy-paste detection tokens.
+ * It is computed without touching the sensor context, so files can be analysed on worker threads
+ * while a single thread saves the results.
+ */
+public final class GosuFileAnalysis {
+    private static final Logger LOG = LoggerFactory.getLogger(GosuFileAnalysis.class);
+
+    private final InputFile inputFile;
+    private final List<Issue> issues;
+    private final MeasureCollector measures;
+    private final List<SyntaxError> syntaxErrors;
+    private final ProcessedTokens processedTokens;
+    private final PredictionMode predictionMode;
+    private final IOException readFailure;
+
+    public GosuFileAnalysis(InputFile inputFile, List<Issue> issues, MeasureCollector measures,
+                            List<SyntaxError> syntaxErrors, ProcessedTokens processedTokens, PredictionMode predictionMode) {
+        this(inputFile, issues, measures, syntaxErrors, processedTokens, predictionMode, null);
+    }
+
+    private GosuFileAnalysis(InputFile inputFile, List<Issue> issues, MeasureCollector measures,
+                             List<SyntaxError> syntaxErrors, ProcessedTokens processedTokens,
+                             PredictionMode predictionMode, IOException readFailure) {
+        this.inputFile = inputFile;
+        this.issues = issues;
+        this.measures = measures;
+        this.syntaxErrors = syntaxErrors;
+        this.processedTokens = processedTokens;
+        this.predictionMode = predictionMode;
+        this.readFailure = readFailure;
+    }
+
+    public static GosuFileAnalysis unreadable(InputFile inputFile, IOException readFailure) {
+        return new GosuFileAnalysis(inputFile, Collections.emptyList(), new MeasureCollector(),
+                Collections.emptyList(), null, null, readFailure);
+    }
+
+    public InputFile getInputFile() {
+        return inputFile;
+    }
+
+    public List<Issue> getIssues() {
+        return issues;
+    }
+
+    public MeasureCollector getMeasures() {
+        return measures;
+    }
+
+    public List<SyntaxError> getSyntaxErrors() {
+        return syntaxErrors;
+    }
+
+    public ProcessedTokens getProcessedTokens() {
+        return processedTokens;
+    }
+
+    /**
+     * @return Prediction mode the file was parsed with, {@code null} when the file wasn't parsed
+     */
+    public PredictionMode getPredictionMode() {
+        return predictionMode;
+    }
+
+    public void saveOn(SensorContext context) {
+        if (readFailure != null) {
+            saveReadFailureOn(context);
+            return;
+        }
+
+        saveMeasuresOn(context);
+        issues.forEach(issue -> issue.createIssue(context, inputFile));
+        processedTokens.saveOn(context);
+    }
+
+    void saveMeasuresOn(SensorContext context) {
+        syntaxErrors.forEach(syntaxError -> syntaxError.saveOn(context, inputFile));
+        measures.saveOn(context, inputFile);
+    }
+
+    private void saveReadFailureOn(SensorContext context) {
+        context.newAnalysisError()
+                .onFile(inputFile)
+                .at(inputFile.newPointer(0, 0))
+                .message(readFailure.getMessage())
+                .save();
+        LOG.error("Couldn't get input stream from file {}", inputFile.filename(), readFailure);
+    }
+}
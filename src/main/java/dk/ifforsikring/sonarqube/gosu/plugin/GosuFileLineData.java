@@ -16,44 +16,49 @@
  */
 package dk.ifforsikring.sonarqube.gosu.plugin;
 
-import dk.ifforsikring.sonarqube.gosu.antlr.GosuParser;
-import org.antlr.v4.runtime.Recognizer;
-import org.antlr.v4.runtime.Token;
-import org.apache.commons.lang3.StringUtils;
+import dk.ifforsikring.sonarqube.gosu.plugin.tokens.TokenPipeline;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.measures.FileLinesContext;
 
-import java.io.BufferedReader;
-import java.io.IOException;
-import java.io.InputStreamReader;
-import java.util.HashSet;
-import java.util.Set;
+import java.util.BitSet;
 
 public class GosuFileLineData {
 
-    private static final String COMMENT_TOKENS_REGEX = "^\\s?[/,*].*$";
-
-    private final GosuFileProperties fileProperties;
+    private final InputFile file;
     private final FileLinesContext fileLinesContext;
-    private int numberOfLinesOfCode = 0;
-    private int numberOfCommentedLines = 0;
-    private final Set<Integer> linesOfCodeIndexes = new HashSet<>();
-    private final Set<Integer> executableLinesIndexes = new HashSet<>();
+    private final int numberOfLinesOfCode;
+    private final int numberOfCommentedLines;
+    private final BitSet linesOfCode;
+    private final BitSet executableLines;
 
     public GosuFileLineData(GosuFileProperties gosuFileProperties) {
-        this.fileProperties = gosuFileProperties;
-        this.fileLinesContext = fileProperties.getFileLinesContext();
-        computeLinesOfCodeOf(gosuFileProperties.getFile());
-        computeLineIndexesOf(gosuFileProperties);
+        this.file = gosuFileProperties.getFile();
+        this.fileLinesContext = gosuFileProperties.getFileLinesContext();
+        final LineIndexes lineIndexes = computeLineIndexesOf(gosuFileProperties);
+        this.linesOfCode = lineIndexes.linesOfCode();
+        this.executableLines = lineIndexes.executableLines();
+        this.numberOfLinesOfCode = lineIndexes.getNumberOfLinesOfCode();
+        this.numberOfCommentedLines = lineIndexes.getNumberOfCommentLines();
     }
 
-    public void saveOnContext() {
-        final InputFile currentFile = fileProperties.getFile();
+    /**
+     * Restores line data computed by a previous analysis of the same file.
+     */
+    public GosuFileLineData(InputFile file, FileLinesContext fileLinesContext, int numberOfLinesOfCode, int numberOfCommentedLines,
+                            int[] linesOfCodeIndexes, int[] executableLinesIndexes) {
+        this.file = file;
+        this.fileLinesContext = fileLinesContext;
+        this.numberOfLinesOfCode = numberOfLinesOfCode;
+        this.numberOfCommentedLines = numberOfCommentedLines;
+        this.linesOfCode = LineIndexes.bitSetOf(linesOfCodeIndexes);
+        this.executableLines = LineIndexes.bitSetOf(executableLinesIndexes);
+    }
 
-        for (int line = 1; line <= currentFile.lines(); line++) {
-            fileLinesContext.setIntValue(CoreMetrics.NCLOC_DATA_KEY, line, linesOfCodeIndexes.contains(line) ? 1 : 0);
-            fileLinesContext.setIntValue(CoreMetrics.EXECUTABLE_LINES_DATA_KEY, line, executableLinesIndexes.contains(line) ? 1 : 0);
+    public void saveOnContext() {
+        for (int line = 1; line <= file.lines(); line++) {
+            fileLinesContext.setIntValue(CoreMetrics.NCLOC_DATA_KEY, line, linesOfCode.get(line) ? 1 : 0);
+            fileLinesContext.setIntValue(CoreMetrics.EXECUTABLE_LINES_DATA_KEY, line, executableLines.get(line) ? 1 : 0);
         }
 
         fileLinesContext.save();
@@ -71,75 +76,35 @@ public class GosuFileLineData {
         return numberOfCommentedLines;
     }
 
-    private void computeLineIndexesOf(GosuFileProperties gosuFileProperties) {
-        gosuFileProperties.getTokenStream().getTokens().forEach(token -> {
-            if (isCodeToken(token)) linesOfCodeIndexes.add(token.getLine());
-            if (isExecutableToken(token)) executableLinesIndexes.add(token.getLine());
-        });
+    public boolean isLineOfCode(int line) {
+        return line > 0 && linesOfCode.get(line);
     }
 
-    private boolean isCodeToken(Token token) {
-        return !isCommentToken(token) && token.getType() != Recognizer.EOF;
+    public boolean isExecutableLine(int line) {
+        return line > 0 && executableLines.get(line);
     }
 
-    private boolean isCommentToken(Token token) {
-        switch (token.getType()) {
-            case GosuParser.LINE_COMMENT:
-            case GosuParser.COMMENT:
-                return true;
-            default:
-                return false;
-        }
+    /**
+     * @return Lines holding code, in ascending order
+     */
+    public int[] getLinesOfCodeIndexes() {
+        return linesOfCode.stream().toArray();
     }
 
-    private boolean isExecutableToken(Token token) {
-        switch (token.getType()) {
-            case GosuParser.BLOCK:
-            case GosuParser.FUNCTION:
-            case GosuParser.FOR:
-            case GosuParser.FOREACH:
-            case GosuParser.WHILE:
-            case GosuParser.DO:
-            case GosuParser.NEW:
-            case GosuParser.TRY:
-            case GosuParser.CATCH:
-                return true;
-            default:
-                return false;
-        }
+    /**
+     * @return Lines holding executable statements, in ascending order
+     */
+    public int[] getExecutableLinesIndexes() {
+        return executableLines.stream().toArray();
     }
 
-    private void computeLinesOfCodeOf(InputFile file) {
-        try (BufferedReader reader = new BufferedReader(new InputStreamReader(file.inputStream()))) {
-            while (reader.ready()) {
-                final String line = reader.readLine();
-                if (isLineOfCode(line)) {
-                    numberOfLinesOfCode++;
-                    continue;
-                }
-
-                if (isCommentLine(line)) {
-                    numberOfCommentedLines++;
-                }
-            }
-        } catch (IOException ioException) {
-            throw new GosuPluginException("Unable to compute lines of code for source file: " + file.filename(), ioException);
+    private static LineIndexes computeLineIndexesOf(GosuFileProperties gosuFileProperties) {
+        final LineIndexes lineIndexes = gosuFileProperties.getLineIndexes();
+        if (!lineIndexes.isComplete()) {
+            new TokenPipeline()
+                    .register(lineIndexes)
+                    .run(gosuFileProperties.getTokenStream().getTokens());
         }
-    }
-
-    private boolean isCommentLine(String line) {
-        return hasValidCharacters(line) && isComment(line);
-    }
-
-    private boolean isLineOfCode(final String line) {
-        return hasValidCharacters(line) && !isComment(line);
-    }
-
-    private boolean isComment(final String line) {
-        return line.trim().matches(COMMENT_TOKENS_REGEX);
-    }
-
-    private boolean hasValidCharacters(final String line) {
-        return StringUtils.isNotBlank(line) && StringUtils.isNotEmpty(line);
+        return lineIndexes;
     }
 }
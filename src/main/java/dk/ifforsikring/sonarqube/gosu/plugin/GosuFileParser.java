@@ -16,67 +16,136 @@
  */
 package dk.ifforsikring.sonarqube.gosu.plugin;
 
-import dk.ifforsikring.sonarqube.gosu.antlr.GosuLexer;
 import dk.ifforsikring.sonarqube.gosu.antlr.GosuParser;
-import dk.ifforsikring.sonarqube.gosu.plugin.context.AnalysisModule;
+import dk.ifforsikring.sonarqube.gosu.plugin.context.AnalysisContext;
+import dk.ifforsikring.sonarqube.gosu.plugin.context.FileAnalysisModule;
 import dk.ifforsikring.sonarqube.gosu.plugin.context.GosuParserContext;
 import dk.ifforsikring.sonarqube.gosu.plugin.issues.Issue;
 import dk.ifforsikring.sonarqube.gosu.plugin.issues.IssueCollector;
-import org.antlr.v4.runtime.CharStreams;
+import dk.ifforsikring.sonarqube.gosu.plugin.measures.MeasureCollector;
+import dk.ifforsikring.sonarqube.gosu.plugin.parser.GosuCharStreams;
+import dk.ifforsikring.sonarqube.gosu.plugin.parser.ParsingStrategy;
+import dk.ifforsikring.sonarqube.gosu.plugin.tokens.GosuTokenStream;
+import dk.ifforsikring.sonarqube.gosu.plugin.reports.UnitTestReports;
+import dk.ifforsikring.sonarqube.gosu.plugin.tools.listeners.SyntaxErrorListener;
+import org.antlr.v4.runtime.CharStream;
 import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.SonarProduct;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.measures.FileLinesContext;
-import org.sonar.plugins.surefire.data.UnitTestIndex;
 
 import java.io.IOException;
-import java.io.InputStream;
 import java.util.List;
 
 public class GosuFileParser {
-    private final GosuParser gosuParser = new GosuParser(null);
-    private final GosuLexer gosuLexer = new GosuLexer(null);
+    private static final Logger LOG = LoggerFactory.getLogger(GosuFileParser.class);
+
+    private final GosuParser gosuParser;
     private final GosuFileProperties gosuFileProperties;
-    private final SensorContext context;
-    private final UnitTestIndex unitTestIndex;
-    private final IssueCollector collector = new IssueCollector();
+    private final AnalysisContext analysisContext;
     private final InputFile inputFile;
 
-    public GosuFileParser(InputFile inputFile, SensorContext context, UnitTestIndex index, FileLinesContext fileLinesContext) throws IOException {
+    public GosuFileParser(InputFile inputFile, SensorContext context, UnitTestReports unitTestReports, FileLinesContext fileLinesContext) throws IOException {
+        this(inputFile, AnalysisContext.create(context, unitTestReports), fileLinesContext);
+    }
+
+    public GosuFileParser(InputFile inputFile, AnalysisContext analysisContext, FileLinesContext fileLinesContext) throws IOException {
         this.inputFile = inputFile;
-        this.context = context;
-        this.unitTestIndex = index;
-        this.gosuFileProperties = createGosuFilePropertiesWith(fileLinesContext);
+        this.analysisContext = analysisContext;
+        final CommonTokenStream tokenStream = createTokenStream();
+        this.gosuParser = analysisContext.getParserFactory().createParser(tokenStream);
+        this.gosuFileProperties = new GosuFileProperties(inputFile, tokenStream, fileLinesContext);
     }
 
+    /**
+     * Parses the file, saves its measures and syntax errors on the sensor context and returns the issues found.
+     *
+     * @return Issues found in the file
+     */
     public List<Issue> parse() {
-        final GosuParserContext parserContext = initializeParserContext();
-        parserContext.start();
-        parseFile();
-        parserContext.stop();
-        return getIssues();
+        final GosuFileAnalysis analysis = analyse();
+        analysis.saveMeasuresOn(analysisContext.getSensorContext());
+        return analysis.getIssues();
     }
 
-    private GosuParserContext initializeParserContext() {
-        final AnalysisModule analysisModule = new AnalysisModule(context, gosuFileProperties, collector, unitTestIndex);
-        return new GosuParserContext(context, analysisModule, inputFile, gosuParser);
+    /**
+     * Parses the file without saving anything on the sensor context.
+     * Safe to call from a worker thread, as long as every thread uses its own parser.
+     *
+     * @return Everything found in the file, to be saved on the sensor context with {@link GosuFileAnalysis#saveOn}
+     */
+    public GosuFileAnalysis analyse() {
+        final ParsingStrategy parsingStrategy = analysisContext.getParsingStrategy();
+        int attempt = 0;
+        while (!parsingStrategy.isLastAttempt(attempt)) {
+            try {
+                return analyseWith(parsingStrategy, attempt);
+            } catch (ParseCancellationException e) {
+                LOG.debug("{} prediction failed on {}, parsing it again", parsingStrategy.getPredictionModes().get(attempt), inputFile);
+                attempt++;
+            }
+        }
+        return analyseWith(parsingStrategy, attempt);
     }
 
-    private GosuFileProperties createGosuFilePropertiesWith(FileLinesContext fileLinesContext) throws IOException {
-        try (InputStream stream = inputFile.inputStream()) {
-            gosuLexer.setInputStream(CharStreams.fromStream(stream));
-            CommonTokenStream tokenStream = new CommonTokenStream(gosuLexer);
-            gosuParser.setTokenStream(tokenStream);
-            return new GosuFileProperties(inputFile, tokenStream, fileLinesContext);
+    /**
+     * Every attempt starts from fresh collectors and listeners, so nothing reported by a failed attempt is kept.
+     * Files none of the listeners needs the parse tree of are only lexed.
+     */
+    private GosuFileAnalysis analyseWith(ParsingStrategy parsingStrategy, int attempt) {
+        final PredictionMode predictionMode = parsingStrategy.getPredictionModes().get(attempt);
+        final IssueCollector collector = new IssueCollector();
+        final MeasureCollector measureCollector = new MeasureCollector();
+        final SyntaxErrorListener syntaxErrorListener = new SyntaxErrorListener(gosuFileProperties);
+        final GosuParserContext parserContext = new GosuParserContext(analysisContext,
+                new FileAnalysisModule(gosuFileProperties, collector, measureCollector, syntaxErrorListener),
+                inputFile, gosuParser);
+
+        parsingStrategy.configure(gosuParser, attempt);
+        parserContext.start();
+        final boolean parsed = parserContext.needsParsing();
+        try {
+            if (parsed) {
+                parserContext.walk(parseFile());
+            } else {
+                parserContext.processTokens();
+            }
+        } finally {
+            parserContext.stop();
+            analysisContext.getParserFactory().clearIfTooLarge();
+        }
+
+        if (parsed) {
+            LOG.debug("Parsed {} with {} prediction", inputFile, predictionMode);
+        } else {
+            LOG.debug("Lexed {} without parsing it, no listener needs its parse tree", inputFile);
         }
+        return new GosuFileAnalysis(
+                inputFile,
+                collector.getIssues(),
+                measureCollector,
+                syntaxErrorListener.getSyntaxErrors(),
+                parserContext.getProcessedTokens(),
+                parsed ? predictionMode : null
+        );
     }
 
-    private void parseFile() {
-        gosuParser.start();
+    /**
+     * SonarLint gives the contents of the editors, which may not be saved on the disk yet.
+     */
+    private CommonTokenStream createTokenStream() throws IOException {
+        final boolean readFromDisk = analysisContext.getSensorContext().runtime().getProduct() != SonarProduct.SONARLINT;
+        final CharStream charStream = GosuCharStreams.of(inputFile, readFromDisk);
+        return new GosuTokenStream(analysisContext.getParserFactory().createLexer(charStream));
     }
 
-    private List<Issue> getIssues() {
-        return collector.getIssues();
+    private GosuParser.StartContext parseFile() {
+        return gosuParser.start();
     }
 
     public GosuFileProperties getProperties() {
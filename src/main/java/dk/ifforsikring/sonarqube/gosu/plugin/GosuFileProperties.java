@@ -26,7 +26,9 @@ public class GosuFileProperties {
     private final InputFile file;
     private final CommonTokenStream tokenStream;
     private final FileLinesContext fileLinesContext;
+    private final LineIndexes lineIndexes = new LineIndexes();
     private GosuFileLineData fileLineData;
+    private ComplexityOperators complexityOperators;
 
     public GosuFileProperties(InputFile file, CommonTokenStream tokenStream, FileLinesContext fileLinesContext) {
         this.file = file;
@@ -58,6 +60,24 @@ public class GosuFileProperties {
         return tokenStream.get(index);
     }
 
+    /**
+     * @return Line indexes of the file, filled in by the token pass of the analysis
+     */
+    public LineIndexes getLineIndexes() {
+        return lineIndexes;
+    }
+
+    /**
+     * @return Complexity operators of the file, indexed over all of its tokens on first use
+     */
+    public ComplexityOperators getComplexityOperators() {
+        if (complexityOperators == null) {
+            tokenStream.fill();
+            complexityOperators = ComplexityOperators.of(tokenStream.getTokens());
+        }
+        return complexityOperators;
+    }
+
     public GosuFileLineData getFileLineData() {
         if (this.fileLineData != null) return this.fileLineData;
 
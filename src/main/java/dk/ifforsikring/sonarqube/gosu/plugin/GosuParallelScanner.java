@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin;
+
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonarsource.analyzer.commons.ProgressReport;
+
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Function;
+
+/**
+ * Analyses files on a fixed pool of worker threads, while the calling thread saves every analysis
+ * on the sensor context in the order of the input files, so the results match a sequential scan.
+ * At most two files per worker are analysed ahead of the one being saved.
+ */
+class GosuParallelScanner {
+    private static final int FILES_AHEAD_PER_WORKER = 2;
+
+    private final int threads;
+    private final Function<InputFile, GosuFileAnalysis> analyser;
+
+    GosuParallelScanner(int threads, Function<InputFile, GosuFileAnalysis> analyser) {
+        this.threads = threads;
+        this.analyser = analyser;
+    }
+
+    void scan(Iterable<InputFile> inputFiles, ProgressReport progressReport, SensorContext sensorContext) {
+        final ExecutorService executor = Executors.newFixedThreadPool(threads, new WorkerThreadFactory());
+        final Deque<Future<GosuFileAnalysis>> pendingAnalyses = new ArrayDeque<>();
+        final Iterator<InputFile> files = inputFiles.iterator();
+
+        try {
+            submitAhead(files, pendingAnalyses, executor);
+            while (!pendingAnalyses.isEmpty()) {
+                if (sensorContext.isCancelled()) {
+                    progressReport.cancel();
+                    return;
+                }
+                final GosuFileAnalysis analysis = await(pendingAnalyses.poll());
+                submitAhead(files, pendingAnalyses, executor);
+                analysis.saveOn(sensorContext);
+                progressReport.nextFile();
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void submitAhead(Iterator<InputFile> files, Deque<Future<GosuFileAnalysis>> pendingAnalyses, ExecutorService executor) {
+        while (files.hasNext() && pendingAnalyses.size() < threads * FILES_AHEAD_PER_WORKER) {
+            final InputFile inputFile = files.next();
+            pendingAnalyses.add(executor.submit(() -> analyser.apply(inputFile)));
+        }
+    }
+
+    private static GosuFileAnalysis await(Future<GosuFileAnalysis> pendingAnalysis) {
+        try {
+            return pendingAnalysis.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GosuPluginException("Gosu analysis was interrupted", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            if (e.getCause() instanceof Error error) {
+                throw error;
+            }
+            throw new GosuPluginException("Gosu analysis failed", e.getCause());
+        }
+    }
+
+    private static final class WorkerThreadFactory implements ThreadFactory {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable runnable) {
+            final Thread thread = new Thread(runnable, "gosu-analysis-worker-" + count.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        }
+    }
+}
@@ -16,11 +16,19 @@
  */
 package dk.ifforsikring.sonarqube.gosu.plugin;
 
+import dk.ifforsikring.sonarqube.gosu.language.GosuLangProperties;
 import dk.ifforsikring.sonarqube.gosu.language.GosuLanguage;
-import dk.ifforsikring.sonarqube.gosu.plugin.issues.Issue;
-import dk.ifforsikring.sonarqube.gosu.plugin.measures.Measures;
+import dk.ifforsikring.sonarqube.gosu.plugin.cache.AnalysisCache;
+import dk.ifforsikring.sonarqube.gosu.plugin.context.AnalysisContext;
+import dk.ifforsikring.sonarqube.gosu.plugin.context.ListenerMode;
+import dk.ifforsikring.sonarqube.gosu.plugin.measures.metrics.BaseMetric;
+import dk.ifforsikring.sonarqube.gosu.plugin.parser.GosuParserFactory;
+import dk.ifforsikring.sonarqube.gosu.plugin.parser.ParsingStrategy;
+import dk.ifforsikring.sonarqube.gosu.plugin.profiling.ListenerProfiler;
 import dk.ifforsikring.sonarqube.gosu.plugin.reports.ReportsDirectories;
 import dk.ifforsikring.sonarqube.gosu.plugin.reports.ReportsScanner;
+import dk.ifforsikring.sonarqube.gosu.plugin.reports.UnitTestReports;
+import org.apache.commons.lang3.StringUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.fs.FilePredicate;
@@ -30,24 +38,27 @@ import org.sonar.api.batch.sensor.Sensor;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.SensorDescriptor;
 import org.sonar.api.config.Configuration;
+import org.sonar.api.measures.FileLinesContext;
 import org.sonar.api.measures.FileLinesContextFactory;
 import org.sonar.api.scan.filesystem.PathResolver;
-import org.sonar.plugins.surefire.data.UnitTestIndex;
 import org.sonarsource.analyzer.commons.ProgressReport;
 
 import javax.annotation.Nonnull;
 import java.io.File;
 import java.io.IOException;
+import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
-import java.util.Optional;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
 public class GosuSensor implements Sensor {
     private static final Logger LOG = LoggerFactory.getLogger(GosuSensor.class);
+
     private final FileSystem fileSystem;
     private final FilePredicate mainFilesPredicate;
-    private final UnitTestIndex unitTestIndex;
+    private final Configuration settings;
+    private final PathResolver pathResolver;
     private final FileLinesContextFactory fileLinesContextFactory;
 
     public GosuSensor(
@@ -58,7 +69,8 @@ public class GosuSensor implements Sensor {
     ) {
         this.fileSystem = fileSystem;
         this.mainFilesPredicate = fileSystem.predicates().and(fileSystem.predicates().hasLanguage(GosuLanguage.KEY));
-        this.unitTestIndex = createUnitTestIndex(settings, pathResolver);
+        this.settings = settings;
+        this.pathResolver = pathResolver;
         this.fileLinesContextFactory = fileLinesContextFactory;
     }
 
@@ -71,33 +83,67 @@ public class GosuSensor implements Sensor {
     @Override
     public void execute(@Nonnull SensorContext sensorContext) {
         final Iterable<InputFile> inputFiles = fileSystem.inputFiles(mainFilesPredicate);
+        final UnitTestReports unitTestReports = createUnitTestReports(inputFiles);
         final ProgressReport progressReport = new ProgressReport(
                 "Report about progress of Gosu analyzer",
                 TimeUnit.SECONDS.toMillis(10)
         );
 
+        final int analysisThreads = getAnalysisThreads(sensorContext.config());
+        final AnalysisContext analysisContext = AnalysisContext.builder(sensorContext, unitTestReports)
+                .withParserFactory(createParserFactory(sensorContext.config()))
+                .withParsingStrategy(getParsingStrategy(sensorContext.config()))
+                .withListenerMode(getListenerMode(sensorContext.config()))
+                .withProfiler(ListenerProfiler.create(sensorContext.config()))
+                .build();
+        final AnalysisCache analysisCache = AnalysisCache.create(sensorContext, unitTestReports);
+
         startReport(progressReport, inputFiles);
 
-        scan(inputFiles, progressReport, sensorContext);
+        if (analysisThreads > 1) {
+            new GosuParallelScanner(analysisThreads, inputFile -> analyse(analysisContext, analysisCache, inputFile))
+                    .scan(inputFiles, progressReport, sensorContext);
+        } else {
+            scan(inputFiles, progressReport, analysisContext, analysisCache);
+        }
 
+        if (!sensorContext.isCancelled()) {
+            analysisCache.finish();
+        }
         progressReport.stop();
+        analysisContext.getProfiler().report(sensorContext.fileSystem());
     }
 
-    private void scan(Iterable<InputFile> inputFiles, ProgressReport progressReport, SensorContext sensorContext) {
+    private void scan(Iterable<InputFile> inputFiles, ProgressReport progressReport, AnalysisContext analysisContext,
+                      AnalysisCache analysisCache) {
+        final SensorContext sensorContext = analysisContext.getSensorContext();
         for (final InputFile inputFile : inputFiles) {
             if (sensorContext.isCancelled()) {
                 progressReport.cancel();
                 return;
             }
-            scanFile(sensorContext, inputFile);
+            analyse(analysisContext, analysisCache, inputFile).saveOn(sensorContext);
             progressReport.nextFile();
         }
     }
 
-    private UnitTestIndex createUnitTestIndex(Configuration settings, PathResolver pathResolver) {
-        final ReportsScanner reportsScanner = new ReportsScanner(settings);
+    /**
+     * Starts indexing, in the background, the unit test reports of the classes named after the files test measures
+     * are saved on. Nothing is indexed when there are no such files.
+     */
+    private UnitTestReports createUnitTestReports(Iterable<InputFile> inputFiles) {
+        final Set<String> classNames = new HashSet<>();
+        for (InputFile inputFile : inputFiles) {
+            if (BaseMetric.savesMeasuresOn(inputFile.type())) {
+                classNames.add(StringUtils.substringBeforeLast(inputFile.filename(), "."));
+            }
+        }
+        if (classNames.isEmpty()) {
+            return UnitTestReports.empty();
+        }
+
         final List<File> reportsDirectories = new ReportsDirectories(settings, fileSystem, pathResolver).get();
-        return reportsScanner.createIndex(reportsDirectories);
+        return UnitTestReports.scan(new ReportsScanner(settings), reportsDirectories, classNames);
     }
 
     private void startReport(ProgressReport report, Iterable<InputFile> inputFiles) {
@@ -116,36 +162,60 @@ public class GosuSensor implements Sensor {
         });
     }
 
-    private void scanFile(SensorContext sensorContext, InputFile inputFile) {
-        final Optional<GosuFileParser> optionalParser = createParser(sensorContext, inputFile);
+    private GosuFileAnalysis analyse(AnalysisContext analysisContext, AnalysisCache analysisCache, InputFile inputFile) {
+        final FileLinesContext fileLinesContext = fileLinesContextFactory.createFor(inputFile);
+        return analysisCache.load(inputFile, fileLinesContext)
+                .orElseGet(() -> parse(analysisContext, analysisCache, inputFile, fileLinesContext));
+    }
 
-        if (optionalParser.isEmpty()) {
-            return;
+    private static GosuFileAnalysis parse(AnalysisContext analysisContext, AnalysisCache analysisCache,
+                                          InputFile inputFile, FileLinesContext fileLinesContext) {
+        try {
+            final GosuFileAnalysis analysis = new GosuFileParser(inputFile, analysisContext, fileLinesContext).analyse();
+            analysisCache.store(analysis);
+            return analysis;
+        } catch (IOException e) {
+            return GosuFileAnalysis.unreadable(inputFile, e);
         }
+    }
 
-        final GosuFileParser gosuFileParser = optionalParser.get();
-        final List<Issue> issues = gosuFileParser.parse();
+    private static GosuParserFactory createParserFactory(Configuration configuration) {
+        final GosuParserFactory parserFactory = GosuParserFactory.withMaxDfaStates(
+                configuration.getInt(GosuLangProperties.PARSER_MAX_DFA_STATES_KEY)
+                        .orElse(GosuLangProperties.PARSER_MAX_DFA_STATES_DEFAULT_VALUE)
+        );
+        parserFactory.warmUp();
+        return parserFactory;
+    }
 
-        createIssues(inputFile, sensorContext, issues);
-        Measures.of(gosuFileParser.getProperties()).addProcessedTokensTo(sensorContext);
+    private static ParsingStrategy getParsingStrategy(Configuration configuration) {
+        return getEnumProperty(configuration, GosuLangProperties.PARSER_STRATEGY_KEY,
+                ParsingStrategy.class, GosuLangProperties.PARSER_STRATEGY_DEFAULT_VALUE);
     }
 
-    private Optional<GosuFileParser> createParser(SensorContext context, InputFile inputFile) {
-        try {
-            final GosuFileParser gosuFileParser = new GosuFileParser(inputFile, context, unitTestIndex, fileLinesContextFactory.createFor(inputFile));
-            return Optional.of(gosuFileParser);
-        } catch (IOException e) {
-            context.newAnalysisError()
-                    .onFile(inputFile)
-                    .at(inputFile.newPointer(0, 0))
-                    .message(e.getMessage())
-                    .save();
-            LOG.error("Couldn't get input stream from file {}", inputFile.filename(), e);
-            return Optional.empty();
+    private static ListenerMode getListenerMode(Configuration configuration) {
+        return getEnumProperty(configuration, GosuLangProperties.LISTENER_MODE_KEY,
+                ListenerMode.class, GosuLangProperties.LISTENER_MODE_DEFAULT_VALUE);
+    }
+
+    /**
+     * Values set on the scanner side are not checked against the options of the property,
+     * so an unknown value falls back to the default instead of failing the analysis.
+     */
+    private static <E extends Enum<E>> E getEnumProperty(Configuration configuration, String key, Class<E> type, String defaultValue) {
+        final String value = configuration.get(key).map(String::trim).orElse(defaultValue);
+        for (E constant : type.getEnumConstants()) {
+            if (constant.name().equalsIgnoreCase(value)) {
+                return constant;
+            }
         }
+        LOG.warn("Unknown value '{}' of the {} property, {} is used instead", value, key, defaultValue);
+        return Enum.valueOf(type, defaultValue);
     }
 
-    private void createIssues(InputFile inputFile, SensorContext sensorContext, List<Issue> issues) {
-        issues.forEach(issue -> issue.createIssue(sensorContext, inputFile));
+    private static int getAnalysisThreads(Configuration configuration) {
+        final int analysisThreads = configuration.getInt(GosuLangProperties.ANALYSIS_THREADS_KEY)
+                .orElse(GosuLangProperties.ANALYSIS_THREADS_DEFAULT_VALUE);
+        return analysisThreads > 0 ? analysisThreads : Runtime.getRuntime().availableProcessors();
     }
 }
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin;
+
+import dk.ifforsikring.sonarqube.gosu.plugin.tokens.GosuTokenClasses;
+import dk.ifforsikring.sonarqube.gosu.plugin.tokens.TokenConsumer;
+import org.antlr.v4.runtime.Recognizer;
+import org.antlr.v4.runtime.Token;
+
+import java.util.BitSet;
+
+/**
+ * Lines holding code, comments and executable statements, collected from the tokens of a file.
+ */
+public final class LineIndexes implements TokenConsumer {
+    private final BitSet linesOfCode = new BitSet();
+    private final BitSet commentLines = new BitSet();
+    private final BitSet executableLines = new BitSet();
+    private boolean complete;
+
+    @Override
+    public void consume(Token token) {
+        if (isCommentToken(token)) {
+            addCommentLinesOf(token);
+        } else if (isCodeToken(token)) {
+            addLinesOfCodeOf(token);
+        }
+        if (isExecutableToken(token)) {
+            executableLines.set(token.getLine());
+        }
+    }
+
+    @Override
+    public void complete() {
+        commentLines.andNot(linesOfCode);
+        complete = true;
+    }
+
+    public boolean isComplete() {
+        return complete;
+    }
+
+    public boolean isLineOfCode(int line) {
+        return line > 0 && linesOfCode.get(line);
+    }
+
+    /**
+     * @return Whether the line holds comment text and no code, lines of comments holding only delimiters or other
+     * symbols are not comment lines
+     */
+    public boolean isCommentLine(int line) {
+        return line > 0 && commentLines.get(line);
+    }
+
+    public boolean isExecutableLine(int line) {
+        return line > 0 && executableLines.get(line);
+    }
+
+    public int getNumberOfLinesOfCode() {
+        return linesOfCode.cardinality();
+    }
+
+    public int getNumberOfCommentLines() {
+        return commentLines.cardinality();
+    }
+
+    BitSet linesOfCode() {
+        return (BitSet) linesOfCode.clone();
+    }
+
+    BitSet executableLines() {
+        return (BitSet) executableLines.clone();
+    }
+
+    static BitSet bitSetOf(int[] lines) {
+        final BitSet bitSet = new BitSet();
+        for (int line : lines) {
+            bitSet.set(line);
+        }
+        return bitSet;
+    }
+
+    /**
+     * Every line of a token is a line of code, including the inner lines of multi-line strings.
+     */
+    private void addLinesOfCodeOf(Token token) {
+        final String text = token.getText();
+        final int startLine = token.getLine();
+        int endLine = startLine;
+        for (int i = text.indexOf('\n'); i >= 0; i = text.indexOf('\n', i + 1)) {
+            endLine++;
+        }
+        linesOfCode.set(startLine, endLine + 1);
+    }
+
+    private void addCommentLinesOf(Token token) {
+        final String text = token.getText();
+        int line = token.getLine();
+        boolean hasText = false;
+        for (int i = 0; i < text.length(); i++) {
+            final char c = text.charAt(i);
+            if (c == '\n') {
+                if (hasText) {
+                    commentLines.set(line);
+                }
+                line++;
+                hasText = false;
+            } else if (Character.isLetterOrDigit(c)) {
+                hasText = true;
+            }
+        }
+        if (hasText) {
+            commentLines.set(line);
+        }
+    }
+
+    private static boolean isCodeToken(Token token) {
+        return !isCommentToken(token) && token.getType() != Recognizer.EOF;
+    }
+
+    private static boolean isCommentToken(Token token) {
+        return GosuTokenClasses.isComment(token.getType());
+    }
+
+    private static boolean isExecutableToken(Token token) {
+        return GosuTokenClasses.isExecutable(token.getType());
+    }
+}
@@ -0,0 +1,272 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.cache;
+
+import dk.ifforsikring.sonarqube.gosu.GosuPlugin;
+import dk.ifforsikring.sonarqube.gosu.language.GosuLangProperties;
+import dk.ifforsikring.sonarqube.gosu.language.GosuLanguage;
+import dk.ifforsikring.sonarqube.gosu.plugin.GosuFileAnalysis;
+import dk.ifforsikring.sonarqube.gosu.plugin.reports.UnitTestReports;
+import dk.ifforsikring.sonarqube.gosu.plugin.utils.FileSystemUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.rule.ActiveRule;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.measures.FileLinesContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Comparator;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Optional;
+import java.util.TreeMap;
+import java.util.stream.Stream;
+
+/**
+ * Results of previous file analyses, keyed by file and type and checked against the content hash of the file,
+ * the plugin version, the runtime, the analysis properties changing the results and the active rules with their parameters.
+ * <p>
+ * Plugins built without a version are identified by a hash of their classes, and nothing is cached when these
+ * cannot be read.
+ * <p>
+ * Entries are kept in the cache SonarQube provides between analyses when it is enabled. Otherwise they are kept in the
+ * directory of the {@code sonar.gosu.analysis.cacheDir} property, or in a directory of the project under the SonarQube
+ * user home when the scanner runs without it, since the scanner empties its working directory on every analysis.
+ */
+public final class AnalysisCache {
+    private static final Logger LOG = LoggerFactory.getLogger(AnalysisCache.class);
+    private static final String KEY_PREFIX = "gosu:analysis:";
+    private static final String CACHE_DIRECTORY = "gosu-cache";
+    private static final String SONAR_USER_HOME_KEY = "sonar.userHome";
+    private static final String SONAR_USER_HOME_VARIABLE = "SONAR_USER_HOME";
+    private static final List<String> ANALYSIS_PROPERTIES = List.of(
+            GosuLangProperties.PARSER_STRATEGY_KEY,
+            GosuLangProperties.LISTENER_MODE_KEY
+    );
+
+    private final CacheStorage storage;
+    private final String fingerprint;
+    private final UnitTestReports unitTestReports;
+
+    private AnalysisCache(CacheStorage storage, String fingerprint, UnitTestReports unitTestReports) {
+        this.storage = storage;
+        this.fingerprint = fingerprint;
+        this.unitTestReports = unitTestReports;
+    }
+
+    public static AnalysisCache create(SensorContext context, UnitTestReports unitTestReports) {
+        final Optional<String> pluginVersion = PluginVersion.VALUE;
+        if (pluginVersion.isEmpty()) {
+            LOG.debug("Version of the Gosu plugin is unknown, analyses are not cached");
+            return new AnalysisCache(CacheStorage.NONE, "", unitTestReports);
+        }
+        return new AnalysisCache(createStorage(context), fingerprintOf(context, pluginVersion.get()), unitTestReports);
+    }
+
+    /**
+     * @return Analysis of the file restored from the cache, empty when the file or the rules changed since it was stored
+     */
+    public Optional<GosuFileAnalysis> load(InputFile inputFile, FileLinesContext fileLinesContext) {
+        final String contentHash = contentHashOf(inputFile);
+        if (contentHash == null) {
+            return Optional.empty();
+        }
+
+        final String key = keyOf(inputFile);
+        try {
+            final Optional<byte[]> entry = storage.read(key);
+            if (entry.isEmpty()) {
+                return Optional.empty();
+            }
+
+            final GosuFileAnalysis analysis = FileAnalysisCodec.decode(entry.get(), fingerprint, contentHash,
+                    inputFile, fileLinesContext, unitTestReports);
+            if (analysis != null) {
+                storage.keep(key);
+                LOG.debug("Analysis of {} restored from cache", inputFile);
+            }
+            return Optional.ofNullable(analysis);
+        } catch (IOException | RuntimeException e) {
+            LOG.debug("Unable to restore analysis of {} from cache", inputFile, e);
+            return Optional.empty();
+        }
+    }
+
+    /**
+     * Drops the entries of files that were not analysed, once every file of the analysis was.
+     */
+    public void finish() {
+        try {
+            storage.finish();
+        } catch (UncheckedIOException e) {
+            LOG.debug("Unable to remove unused analyses from cache", e);
+        }
+    }
+
+    public void store(GosuFileAnalysis analysis) {
+        final InputFile inputFile = analysis.getInputFile();
+        final String contentHash = contentHashOf(inputFile);
+        if (contentHash == null) {
+            return;
+        }
+
+        try {
+            storage.write(keyOf(inputFile), FileAnalysisCodec.encode(analysis, fingerprint, contentHash));
+        } catch (IOException | UncheckedIOException e) {
+            LOG.debug("Unable to store analysis of {} in cache", inputFile, e);
+        }
+    }
+
+    private static CacheStorage createStorage(SensorContext context) {
+        if (!context.config().getBoolean(GosuLangProperties.ANALYSIS_CACHE_KEY)
+                .orElse(GosuLangProperties.ANALYSIS_CACHE_DEFAULT_VALUE)) {
+            return CacheStorage.NONE;
+        }
+        if (context.isCacheEnabled()) {
+            return new SensorCacheStorage(context.previousCache(), context.nextCache());
+        }
+        return cacheDirectoryOf(context)
+                .map(directory -> {
+                    LOG.debug("SonarQube analysis cache is disabled, caching Gosu analyses in {}", directory);
+                    return (CacheStorage) new DirectoryCacheStorage(directory);
+                })
+                .orElse(CacheStorage.NONE);
+    }
+
+    /**
+     * @return Directory of the {@code sonar.gosu.analysis.cacheDir} property resolved against the base directory, or
+     * a directory named after the base directory under the SonarQube user home when the scanner has a working directory
+     */
+    private static Optional<Path> cacheDirectoryOf(SensorContext context) {
+        final Path baseDir = context.fileSystem().baseDir().toPath().toAbsolutePath().normalize();
+        final Optional<String> cacheDir = context.config().get(GosuLangProperties.ANALYSIS_CACHE_DIR_KEY)
+                .filter(value -> !value.isBlank());
+        if (cacheDir.isPresent()) {
+            return Optional.of(baseDir.resolve(cacheDir.get().trim()));
+        }
+        return FileSystemUtil.workDirOf(context.fileSystem())
+                .map(workDir -> sonarUserHomeOf(context).resolve(CACHE_DIRECTORY).resolve(sha256Of(baseDir.toString())));
+    }
+
+    private static Path sonarUserHomeOf(SensorContext context) {
+        return context.config().get(SONAR_USER_HOME_KEY)
+                .or(() -> Optional.ofNullable(System.getenv(SONAR_USER_HOME_VARIABLE)))
+                .map(Path::of)
+                .orElseGet(() -> Path.of(System.getProperty("user.home"), ".sonar"));
+    }
+
+    private static String fingerprintOf(SensorContext context, String pluginVersion) {
+        final StringBuilder fingerprint = new StringBuilder(pluginVersion)
+                .append('\n').append(context.runtime().getProduct());
+        for (String property : ANALYSIS_PROPERTIES) {
+            fingerprint.append('\n').append(property).append('=')
+                    .append(context.config().get(property).map(value -> value.trim().toUpperCase(Locale.ROOT)).orElse(""));
+        }
+        context.activeRules().findByRepository(GosuLanguage.REPOSITORY_KEY).stream()
+                .sorted(Comparator.comparing(activeRule -> activeRule.ruleKey().toString()))
+                .forEach(activeRule -> appendRule(fingerprint, activeRule));
+        return sha256Of(fingerprint.toString());
+    }
+
+    private static void appendRule(StringBuilder fingerprint, ActiveRule activeRule) {
+        fingerprint.append('\n').append(activeRule.ruleKey());
+        final Map<String, String> params = new TreeMap<>(activeRule.params());
+        params.forEach((key, value) -> fingerprint.append('\n').append(key).append('=').append(value));
+    }
+
+    /**
+     * The type is part of the key, since rules and metrics run on main and test files differ.
+     */
+    private static String keyOf(InputFile inputFile) {
+        return KEY_PREFIX + inputFile.type() + ":" + inputFile.key();
+    }
+
+    private static String contentHashOf(InputFile inputFile) {
+        try {
+            return inputFile.md5Hash();
+        } catch (UnsupportedOperationException e) {
+            return null;
+        }
+    }
+
+    private static String sha256Of(String value) {
+        final MessageDigest digest = sha256();
+        return HexFormat.of().formatHex(digest.digest(value.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Version of the plugin, or a hash of the jar or the directory of its classes when it was built without a version,
+     * so the results of another build of the plugin are never replayed. Computed once per class loader.
+     */
+    private static final class PluginVersion {
+        private static final Optional<String> VALUE = compute();
+
+        private PluginVersion() {
+        }
+
+        private static Optional<String> compute() {
+            final String implementationVersion = GosuPlugin.class.getPackage().getImplementationVersion();
+            if (implementationVersion != null) {
+                return Optional.of(implementationVersion);
+            }
+            try {
+                final CodeSource codeSource = GosuPlugin.class.getProtectionDomain().getCodeSource();
+                if (codeSource == null || codeSource.getLocation() == null) {
+                    return Optional.empty();
+                }
+                return Optional.of("classes:" + hashOf(Path.of(codeSource.getLocation().toURI())));
+            } catch (IOException | URISyntaxException | RuntimeException e) {
+                LOG.debug("Unable to hash the classes of the Gosu plugin", e);
+                return Optional.empty();
+            }
+        }
+
+        private static String hashOf(Path location) throws IOException {
+            final MessageDigest digest = sha256();
+            if (Files.isRegularFile(location)) {
+                digest.update(Files.readAllBytes(location));
+            } else {
+                try (Stream<Path> files = Files.walk(location)) {
+                    for (Path file : files.filter(Files::isRegularFile).sorted().toList()) {
+                        digest.update(location.relativize(file).toString().getBytes(StandardCharsets.UTF_8));
+                        digest.update(Files.readAllBytes(file));
+                    }
+                }
+            }
+            return HexFormat.of().formatHex(digest.digest());
+        }
+    }
+}
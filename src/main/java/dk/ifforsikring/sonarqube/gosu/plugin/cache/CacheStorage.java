@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.cache;
+
+import java.util.Optional;
+
+/**
+ * Key-value store the analysis cache entries are read from and written to.
+ * Implementations are called from every analysis worker thread.
+ */
+interface CacheStorage {
+    CacheStorage NONE = new CacheStorage() {
+        @Override
+        public Optional<byte[]> read(String key) {
+            return Optional.empty();
+        }
+
+        @Override
+        public void write(String key, byte[] entry) {
+            // Nothing is cached
+        }
+
+        @Override
+        public void keep(String key) {
+            // Nothing is cached
+        }
+
+        @Override
+        public void finish() {
+            // Nothing is cached
+        }
+    };
+
+    Optional<byte[]> read(String key);
+
+    void write(String key, byte[] entry);
+
+    /**
+     * Keeps the entry read from the storage for the next analysis.
+     */
+    void keep(String key);
+
+    /**
+     * Called once every file of the analysis was read from or written to the storage.
+     */
+    void finish();
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.cache;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+/**
+ * Storage keeping one file per entry in a local directory, used when SonarQube doesn't provide a cache.
+ * Entries neither kept nor written during an analysis are deleted when it finishes.
+ */
+final class DirectoryCacheStorage implements CacheStorage {
+    private final Path directory;
+    private final Set<String> usedEntries = ConcurrentHashMap.newKeySet();
+
+    DirectoryCacheStorage(Path directory) {
+        this.directory = directory;
+    }
+
+    @Override
+    public Optional<byte[]> read(String key) {
+        final Path entryFile = entryFileOf(key);
+        if (!Files.isRegularFile(entryFile)) {
+            return Optional.empty();
+        }
+
+        try {
+            return Optional.of(Files.readAllBytes(entryFile));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void write(String key, byte[] entry) {
+        final Path entryFile = entryFileOf(key);
+        try {
+            Files.createDirectories(directory);
+            final Path temporaryFile = Files.createTempFile(directory, entryFile.getFileName().toString(), ".tmp");
+            Files.write(temporaryFile, entry);
+            Files.move(temporaryFile, entryFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            usedEntries.add(entryFile.getFileName().toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public void keep(String key) {
+        usedEntries.add(entryFileOf(key).getFileName().toString());
+    }
+
+    @Override
+    public void finish() {
+        if (!Files.isDirectory(directory)) {
+            return;
+        }
+
+        try (Stream<Path> files = Files.list(directory)) {
+            final List<Path> unusedFiles = files
+                    .filter(file -> !usedEntries.contains(file.getFileName().toString()))
+                    .toList();
+            for (Path unusedFile : unusedFiles) {
+                Files.deleteIfExists(unusedFile);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private Path entryFileOf(String key) {
+        try {
+            final byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            return directory.resolve(HexFormat.of().formatHex(digest));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,368 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.cache;
+
+import dk.ifforsikring.sonarqube.gosu.plugin.GosuFileAnalysis;
+import dk.ifforsikring.sonarqube.gosu.plugin.GosuFileLineData;
+import dk.ifforsikring.sonarqube.gosu.plugin.issues.GosuIssue;
+import dk.ifforsikring.sonarqube.gosu.plugin.issues.Issue;
+import dk.ifforsikring.sonarqube.gosu.plugin.issues.SecondaryIssue;
+import dk.ifforsikring.sonarqube.gosu.plugin.measures.MeasureCollector;
+import dk.ifforsikring.sonarqube.gosu.plugin.measures.ProcessedTokens;
+import dk.ifforsikring.sonarqube.gosu.plugin.measures.ProcessedTokens.CpdToken;
+import dk.ifforsikring.sonarqube.gosu.plugin.measures.ProcessedTokens.Highlight;
+import dk.ifforsikring.sonarqube.gosu.plugin.measures.metrics.TestsMetric;
+import dk.ifforsikring.sonarqube.gosu.plugin.reports.UnitTestReports;
+import dk.ifforsikring.sonarqube.gosu.plugin.tools.listeners.SyntaxErrorListener.SyntaxError;
+import dk.ifforsikring.sonarqube.gosu.plugin.utils.TextRangeUtil;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.TextRange;
+import org.sonar.api.batch.measure.Metric;
+import org.sonar.api.batch.sensor.highlighting.TypeOfText;
+import org.sonar.api.measures.CoreMetrics;
+import org.sonar.api.measures.FileLinesContext;
+import org.sonar.api.rule.RuleKey;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Binary form of a {@link GosuFileAnalysis}, stored in the analysis cache.
+ * <p>
+ * An entry starts with the format version, the analysis fingerprint and the content hash of the file,
+ * so entries written by another plugin version, for another rule set or for another content are ignored.
+ * Test measures are not stored: they depend on the unit test reports of the current analysis and are
+ * computed again from the class names when the entry is read.
+ */
+final class FileAnalysisCodec {
+    private static final int FORMAT_VERSION = 1;
+    private static final byte INTEGER_VALUE = 'I';
+    private static final byte LONG_VALUE = 'L';
+    private static final byte DOUBLE_VALUE = 'D';
+    private static final byte STRING_VALUE = 'S';
+
+    private FileAnalysisCodec() {
+    }
+
+    static byte[] encode(GosuFileAnalysis analysis, String fingerprint, String contentHash) throws IOException {
+        final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (DataOutputStream output = new DataOutputStream(bytes)) {
+            output.writeInt(FORMAT_VERSION);
+            writeString(output, fingerprint);
+            writeString(output, contentHash);
+            writeIssues(output, analysis.getIssues());
+            writeSyntaxErrors(output, analysis.getSyntaxErrors());
+            writeMeasures(output, analysis.getMeasures());
+            writeHighlights(output, analysis.getProcessedTokens().getHighlights());
+            writeCpdTokens(output, analysis.getProcessedTokens().getCpdTokens());
+        }
+        return bytes.toByteArray();
+    }
+
+    /**
+     * @return Restored analysis, {@code null} when the entry was written for another plugin version, rule set or content
+     */
+    static GosuFileAnalysis decode(byte[] entry, String fingerprint, String contentHash, InputFile inputFile,
+                                   FileLinesContext fileLinesContext, UnitTestReports unitTestReports) throws IOException {
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(entry))) {
+            if (input.readInt() != FORMAT_VERSION
+                    || !fingerprint.equals(readString(input))
+                    || !contentHash.equals(readString(input))) {
+                return null;
+            }
+
+            final List<Issue> issues = readIssues(input);
+            final List<SyntaxError> syntaxErrors = readSyntaxErrors(input);
+            final MeasureCollector measures = readMeasures(input, inputFile, fileLinesContext, unitTestReports);
+            final List<Highlight> highlights = readHighlights(input);
+            final List<CpdToken> cpdTokens = readCpdTokens(input);
+            return new GosuFileAnalysis(inputFile, issues, measures, syntaxErrors,
+                    ProcessedTokens.of(inputFile, highlights, cpdTokens), null);
+        }
+    }
+
+    private static void writeIssues(DataOutputStream output, List<Issue> issues) throws IOException {
+        output.writeInt(issues.size());
+        for (Issue issue : issues) {
+            if (!(issue instanceof GosuIssue gosuIssue)) {
+                throw new IOException("Unsupported issue type: " + issue.getClass().getName());
+            }
+            writeString(output, gosuIssue.getRuleKey().repository());
+            writeString(output, gosuIssue.getRuleKey().rule());
+            writeNullableTextRange(output, gosuIssue.getPosition());
+            writeNullableString(output, gosuIssue.getMessage());
+            output.writeInt(gosuIssue.getGap());
+            output.writeInt(gosuIssue.getSecondaries().size());
+            for (SecondaryIssue secondary : gosuIssue.getSecondaries()) {
+                writeTextRange(output, secondary.getRange());
+                writeNullableString(output, secondary.getMessage());
+            }
+        }
+    }
+
+    private static List<Issue> readIssues(DataInputStream input) throws IOException {
+        final int count = input.readInt();
+        final List<Issue> issues = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            final RuleKey ruleKey = RuleKey.of(readString(input), readString(input));
+            final TextRange position = readNullableTextRange(input);
+            final String message = readNullableString(input);
+            final int gap = input.readInt();
+            final int secondariesCount = input.readInt();
+            final List<SecondaryIssue> secondaries = new ArrayList<>(secondariesCount);
+            for (int j = 0; j < secondariesCount; j++) {
+                secondaries.add(new SecondaryIssue(readTextRange(input), readNullableString(input)));
+            }
+            issues.add(new GosuIssue.GosuIssueBuilder(ruleKey)
+                    .onTextRange(position)
+                    .withMessage(message)
+                    .withGap(gap)
+                    .withSecondaryIssues(secondaries)
+                    .build());
+        }
+        return issues;
+    }
+
+    private static void writeSyntaxErrors(DataOutputStream output, List<SyntaxError> syntaxErrors) throws IOException {
+        output.writeInt(syntaxErrors.size());
+        for (SyntaxError syntaxError : syntaxErrors) {
+            output.writeInt(syntaxError.line());
+            output.writeInt(syntaxError.charPositionInLine());
+            writeString(output, syntaxError.message());
+        }
+    }
+
+    private static List<SyntaxError> readSyntaxErrors(DataInputStream input) throws IOException {
+        final int count = input.readInt();
+        final List<SyntaxError> syntaxErrors = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            syntaxErrors.add(new SyntaxError(input.readInt(), input.readInt(), readString(input)));
+        }
+        return syntaxErrors;
+    }
+
+    private static void writeMeasures(DataOutputStream output, MeasureCollector measures) throws IOException {
+        final List<MeasureCollector.FileMeasure<?>> storedMeasures = measures.getMeasures().stream()
+                .filter(measure -> !TestsMetric.METRIC_KEYS.contains(measure.metric().key()))
+                .toList();
+        output.writeInt(storedMeasures.size());
+        for (MeasureCollector.FileMeasure<?> measure : storedMeasures) {
+            writeString(output, measure.metric().key());
+            writeMeasureValue(output, measure.value());
+        }
+
+        writeStrings(output, measures.getUnitTestClassNames());
+
+        final GosuFileLineData fileLineData = measures.getFileLineData().orElse(null);
+        output.writeBoolean(fileLineData != null);
+        if (fileLineData != null) {
+            output.writeInt(fileLineData.getNumberOfLinesOfCode());
+            output.writeInt(fileLineData.getNumberOfCommentedLines());
+            writeLines(output, fileLineData.getLinesOfCodeIndexes());
+            writeLines(output, fileLineData.getExecutableLinesIndexes());
+        }
+    }
+
+    private static MeasureCollector readMeasures(DataInputStream input, InputFile inputFile,
+                                                 FileLinesContext fileLinesContext, UnitTestReports unitTestReports) throws IOException {
+        final MeasureCollector measures = new MeasureCollector();
+        final int count = input.readInt();
+        for (int i = 0; i < count; i++) {
+            addMeasure(measures, readString(input), readMeasureValue(input));
+        }
+
+        for (String className : readStrings(input)) {
+            measures.addUnitTestClassName(className);
+            TestsMetric.addMeasuresOf(unitTestReports, className, measures);
+        }
+
+        if (input.readBoolean()) {
+            measures.addFileLineData(new GosuFileLineData(inputFile, fileLinesContext, input.readInt(), input.readInt(),
+                    readLines(input), readLines(input)));
+        }
+        return measures;
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T extends Serializable> void addMeasure(MeasureCollector measures, String metricKey, Serializable value) throws IOException {
+        final Metric<T> metric;
+        try {
+            metric = (Metric<T>) CoreMetrics.getMetric(metricKey);
+        } catch (RuntimeException e) {
+            throw new IOException("Unknown metric: " + metricKey, e);
+        }
+        measures.addMeasure(metric, (T) value);
+    }
+
+    private static void writeMeasureValue(DataOutputStream output, Serializable value) throws IOException {
+        if (value instanceof Integer integer) {
+            output.writeByte(INTEGER_VALUE);
+            output.writeInt(integer);
+        } else if (value instanceof Long longValue) {
+            output.writeByte(LONG_VALUE);
+            output.writeLong(longValue);
+        } else if (value instanceof Double doubleValue) {
+            output.writeByte(DOUBLE_VALUE);
+            output.writeDouble(doubleValue);
+        } else if (value instanceof String string) {
+            output.writeByte(STRING_VALUE);
+            writeString(output, string);
+        } else {
+            throw new IOException("Unsupported measure value: " + value.getClass().getName());
+        }
+    }
+
+    private static Serializable readMeasureValue(DataInputStream input) throws IOException {
+        final byte type = input.readByte();
+        return switch (type) {
+            case INTEGER_VALUE -> input.readInt();
+            case LONG_VALUE -> input.readLong();
+            case DOUBLE_VALUE -> input.readDouble();
+            case STRING_VALUE -> readString(input);
+            default -> throw new IOException("Unsupported measure value type: " + type);
+        };
+    }
+
+    private static void writeHighlights(DataOutputStream output, List<Highlight> highlights) throws IOException {
+        output.writeInt(highlights.size());
+        for (Highlight highlight : highlights) {
+            output.writeInt(highlight.startLine());
+            output.writeInt(highlight.startLineOffset());
+            output.writeInt(highlight.endLine());
+            output.writeInt(highlight.endLineOffset());
+            writeString(output, highlight.typeOfText().name());
+        }
+    }
+
+    private static List<Highlight> readHighlights(DataInputStream input) throws IOException {
+        final int count = input.readInt();
+        final List<Highlight> highlights = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            highlights.add(new Highlight(input.readInt(), input.readInt(), input.readInt(), input.readInt(),
+                    TypeOfText.valueOf(readString(input))));
+        }
+        return highlights;
+    }
+
+    private static void writeCpdTokens(DataOutputStream output, List<CpdToken> cpdTokens) throws IOException {
+        output.writeInt(cpdTokens.size());
+        for (CpdToken cpdToken : cpdTokens) {
+            writeTextRange(output, cpdToken.range());
+            writeString(output, cpdToken.image());
+        }
+    }
+
+    private static List<CpdToken> readCpdTokens(DataInputStream input) throws IOException {
+        final int count = input.readInt();
+        final List<CpdToken> cpdTokens = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            cpdTokens.add(new CpdToken(readTextRange(input), readString(input)));
+        }
+        return cpdTokens;
+    }
+
+    private static void writeNullableTextRange(DataOutputStream output, TextRange textRange) throws IOException {
+        output.writeBoolean(textRange != null);
+        if (textRange != null) {
+            writeTextRange(output, textRange);
+        }
+    }
+
+    private static TextRange readNullableTextRange(DataInputStream input) throws IOException {
+        return input.readBoolean() ? readTextRange(input) : null;
+    }
+
+    private static void writeTextRange(DataOutputStream output, TextRange textRange) throws IOException {
+        output.writeInt(textRange.start().line());
+        output.writeInt(textRange.start().lineOffset());
+        output.writeInt(textRange.end().line());
+        output.writeInt(textRange.end().lineOffset());
+    }
+
+    private static TextRange readTextRange(DataInputStream input) throws IOException {
+        final int startLine = input.readInt();
+        final int startOffset = input.readInt();
+        final int endLine = input.readInt();
+        final int endOffset = input.readInt();
+        return TextRangeUtil.fromPosition(startLine, startOffset, endLine, endOffset);
+    }
+
+    private static void writeLines(DataOutputStream output, int[] lines) throws IOException {
+        output.writeInt(lines.length);
+        for (int line : lines) {
+            output.writeInt(line);
+        }
+    }
+
+    private static int[] readLines(DataInputStream input) throws IOException {
+        final int[] lines = new int[input.readInt()];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = input.readInt();
+        }
+        return lines;
+    }
+
+    private static void writeStrings(DataOutputStream output, Collection<String> strings) throws IOException {
+        output.writeInt(strings.size());
+        for (String string : strings) {
+            writeString(output, string);
+        }
+    }
+
+    private static List<String> readStrings(DataInputStream input) throws IOException {
+        final int count = input.readInt();
+        final List<String> strings = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            strings.add(readString(input));
+        }
+        return strings;
+    }
+
+    private static void writeNullableString(DataOutputStream output, String string) throws IOException {
+        output.writeBoolean(string != null);
+        if (string != null) {
+            writeString(output, string);
+        }
+    }
+
+    private static String readNullableString(DataInputStream input) throws IOException {
+        return input.readBoolean() ? readString(input) : null;
+    }
+
+    /**
+     * Strings are written with their byte length, since {@link DataOutputStream#writeUTF} is limited to 64 KB.
+     */
+    private static void writeString(DataOutputStream output, String string) throws IOException {
+        final byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        final byte[] bytes = new byte[input.readInt()];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
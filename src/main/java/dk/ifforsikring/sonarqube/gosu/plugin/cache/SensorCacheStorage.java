@@ -0,0 +1,66 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.cache;
+
+import org.sonar.api.batch.sensor.cache.ReadCache;
+import org.sonar.api.batch.sensor.cache.WriteCache;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.util.Optional;
+
+/**
+ * Storage backed by the cache SonarQube keeps between analyses of the same branch.
+ */
+final class SensorCacheStorage implements CacheStorage {
+    private final ReadCache previousCache;
+    private final WriteCache nextCache;
+
+    SensorCacheStorage(ReadCache previousCache, WriteCache nextCache) {
+        this.previousCache = previousCache;
+        this.nextCache = nextCache;
+    }
+
+    @Override
+    public synchronized Optional<byte[]> read(String key) {
+        if (!previousCache.contains(key)) {
+            return Optional.empty();
+        }
+
+        try (InputStream entry = previousCache.read(key)) {
+            return Optional.of(entry.readAllBytes());
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    @Override
+    public synchronized void write(String key, byte[] entry) {
+        nextCache.write(key, entry);
+    }
+
+    @Override
+    public synchronized void keep(String key) {
+        nextCache.copyFromPrevious(key);
+    }
+
+    @Override
+    public void finish() {
+        // Entries neither kept nor written are not part of the next cache
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.context;
+
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import dk.ifforsikring.sonarqube.gosu.plugin.parser.GosuParserFactory;
+import dk.ifforsikring.sonarqube.gosu.plugin.parser.ParsingStrategy;
+import dk.ifforsikring.sonarqube.gosu.plugin.profiling.ListenerProfiler;
+import dk.ifforsikring.sonarqube.gosu.plugin.reports.UnitTestReports;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.sonar.api.batch.sensor.SensorContext;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * State shared by every file of one analysis: the sensor context, the analysis injector, the rule plan,
+ * the parser factory, the parsing strategy, the listener mode, the listener profiler
+ * and the callbacks overridden by each listener class.
+ * Built once when the sensor starts and safe to share between worker threads.
+ */
+public final class AnalysisContext {
+    private final SensorContext sensorContext;
+    private final Injector injector;
+    private final RulePlan rulePlan;
+    private final GosuParserFactory parserFactory;
+    private final ParsingStrategy parsingStrategy;
+    private final ListenerMode listenerMode;
+    private final ListenerProfiler profiler;
+    private final ConcurrentMap<Class<?>, ListenerCallbacks> listenerCallbacks = new ConcurrentHashMap<>();
+
+    private AnalysisContext(Builder builder) {
+        this.sensorContext = builder.sensorContext;
+        this.injector = Guice.createInjector(new AnalysisModule(builder.sensorContext, builder.unitTestReports));
+        this.rulePlan = RulePlan.of(builder.sensorContext.activeRules());
+        this.parserFactory = builder.parserFactory;
+        this.parsingStrategy = builder.parsingStrategy;
+        this.listenerMode = builder.listenerMode;
+        this.profiler = builder.profiler;
+    }
+
+    public static AnalysisContext create(SensorContext sensorContext, UnitTestReports unitTestReports) {
+        return builder(sensorContext, unitTestReports).build();
+    }
+
+    /**
+     * @return Builder of an analysis context using the shared parser factory, the {@link ParsingStrategy#SLL_THEN_LL}
+     * strategy, the {@link ListenerMode#TREE_WALK} mode and no profiling, unless told otherwise
+     */
+    public static Builder builder(SensorContext sensorContext, UnitTestReports unitTestReports) {
+        return new Builder(sensorContext, unitTestReports);
+    }
+
+    public SensorContext getSensorContext() {
+        return sensorContext;
+    }
+
+    public RulePlan getRulePlan() {
+        return rulePlan;
+    }
+
+    public GosuParserFactory getParserFactory() {
+        return parserFactory;
+    }
+
+    public ParsingStrategy getParsingStrategy() {
+        return parsingStrategy;
+    }
+
+    public ListenerMode getListenerMode() {
+        return listenerMode;
+    }
+
+    public ListenerProfiler getProfiler() {
+        return profiler;
+    }
+
+    /**
+     * @return Callbacks overridden by the listener class, looked up once per analysis
+     */
+    ListenerCallbacks getListenerCallbacks(Class<? extends ParseTreeListener> listenerClass) {
+        final ListenerCallbacks callbacks = listenerCallbacks.get(listenerClass);
+        return callbacks != null ? callbacks : listenerCallbacks.computeIfAbsent(listenerClass, clazz -> ListenerCallbacks.of(listenerClass));
+    }
+
+    Injector createFileInjector(FileAnalysisModule fileAnalysisModule) {
+        return injector.createChildInjector(fileAnalysisModule);
+    }
+
+    public static final class Builder {
+        private final SensorContext sensorContext;
+        private final UnitTestReports unitTestReports;
+        private GosuParserFactory parserFactory = GosuParserFactory.shared();
+        private ParsingStrategy parsingStrategy = ParsingStrategy.SLL_THEN_LL;
+        private ListenerMode listenerMode = ListenerMode.TREE_WALK;
+        private ListenerProfiler profiler = ListenerProfiler.disabled();
+
+        private Builder(SensorContext sensorContext, UnitTestReports unitTestReports) {
+            this.sensorContext = sensorContext;
+            this.unitTestReports = unitTestReports;
+        }
+
+        public Builder withParserFactory(GosuParserFactory parserFactory) {
+            this.parserFactory = parserFactory;
+            return this;
+        }
+
+        public Builder withParsingStrategy(ParsingStrategy parsingStrategy) {
+            this.parsingStrategy = parsingStrategy;
+            return this;
+        }
+
+        public Builder withListenerMode(ListenerMode listenerMode) {
+            this.listenerMode = listenerMode;
+            return this;
+        }
+
+        public Builder withProfiler(ListenerProfiler profiler) {
+            this.profiler = profiler;
+            return this;
+        }
+
+        public AnalysisContext build() {
+            return new AnalysisContext(this);
+        }
+    }
+}
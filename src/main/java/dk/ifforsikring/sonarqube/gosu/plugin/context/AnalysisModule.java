@@ -17,65 +17,25 @@
 package dk.ifforsikring.sonarqube.gosu.plugin.context;
 
 import com.google.inject.AbstractModule;
-import com.google.inject.Singleton;
-import com.google.inject.multibindings.Multibinder;
-import dk.ifforsikring.sonarqube.gosu.plugin.GosuFileProperties;
-import dk.ifforsikring.sonarqube.gosu.plugin.issues.IssueCollector;
-import dk.ifforsikring.sonarqube.gosu.plugin.measures.metrics.*;
-import dk.ifforsikring.sonarqube.gosu.plugin.rules.BaseGosuRule;
-import dk.ifforsikring.sonarqube.gosu.plugin.tools.listeners.SuppressWarningsListener;
-import dk.ifforsikring.sonarqube.gosu.plugin.tools.listeners.SyntaxErrorListener;
-import dk.ifforsikring.sonarqube.gosu.plugin.tools.reflections.ClassExtractor;
-import org.antlr.v4.runtime.ANTLRErrorListener;
+import dk.ifforsikring.sonarqube.gosu.plugin.reports.UnitTestReports;
 import org.sonar.api.batch.sensor.SensorContext;
-import org.sonar.plugins.surefire.data.UnitTestIndex;
 
+/**
+ * Bindings shared by every file of one analysis.
+ * Per-file bindings are made by {@link FileAnalysisModule} in a child injector.
+ */
 public class AnalysisModule extends AbstractModule {
     private final SensorContext context;
-    private final GosuFileProperties gosuFileProperties;
-    private final IssueCollector issueCollector;
-    private final UnitTestIndex unitTestIndex;
+    private final UnitTestReports unitTestReports;
 
-    public AnalysisModule(SensorContext context, GosuFileProperties gosuFileProperties, IssueCollector issueCollector, UnitTestIndex unitTestIndex) {
+    public AnalysisModule(SensorContext context, UnitTestReports unitTestReports) {
         this.context = context;
-        this.gosuFileProperties = gosuFileProperties;
-        this.issueCollector = issueCollector;
-        this.unitTestIndex = unitTestIndex;
+        this.unitTestReports = unitTestReports;
     }
 
     @Override
     protected void configure() {
-        bindBasicModuleFields();
-        bindMetrics();
-        bindRules();
-        bindListeners();
-    }
-
-    private void bindBasicModuleFields() {
         bind(SensorContext.class).toInstance(context);
-        bind(GosuFileProperties.class).toInstance(gosuFileProperties);
-        bind(IssueCollector.class).toInstance(issueCollector);
-        bind(UnitTestIndex.class).toInstance(unitTestIndex);
-    }
-
-    private void bindMetrics() {
-        bind(CodeSizeMetrics.class).in(Singleton.class);
-        bind(CognitiveComplexityMetric.class).in(Singleton.class);
-        bind(CyclomaticComplexityMetric.class).in(Singleton.class);
-        bind(LinesOfCodeMetric.class).in(Singleton.class);
-        bind(TestsMetric.class).in(Singleton.class);
-    }
-
-    private void bindRules() {
-        final Multibinder<BaseGosuRule> checksMultibinder = Multibinder.newSetBinder(binder(), BaseGosuRule.class);
-
-        for (Class<? extends BaseGosuRule> check : ClassExtractor.getRules().values()) {
-            checksMultibinder.addBinding().to(check);
-        }
-    }
-
-    private void bindListeners() {
-        bind(ANTLRErrorListener.class).to(SyntaxErrorListener.class);
-        bind(SuppressWarningsListener.class).in(Singleton.class);
+        bind(UnitTestReports.class).toInstance(unitTestReports);
     }
 }
@@ -0,0 +1,77 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.context;
+
+import com.google.inject.AbstractModule;
+import com.google.inject.Singleton;
+import dk.ifforsikring.sonarqube.gosu.plugin.ContextFingerprints;
+import dk.ifforsikring.sonarqube.gosu.plugin.GosuFileProperties;
+import dk.ifforsikring.sonarqube.gosu.plugin.issues.IssueCollector;
+import dk.ifforsikring.sonarqube.gosu.plugin.measures.MeasureCollector;
+import dk.ifforsikring.sonarqube.gosu.plugin.measures.metrics.*;
+import dk.ifforsikring.sonarqube.gosu.plugin.semantic.SemanticModel;
+import dk.ifforsikring.sonarqube.gosu.plugin.tokens.TokenPipeline;
+import dk.ifforsikring.sonarqube.gosu.plugin.tools.listeners.SuppressWarningsListener;
+import dk.ifforsikring.sonarqube.gosu.plugin.tools.listeners.SyntaxErrorListener;
+import org.antlr.v4.runtime.ANTLRErrorListener;
+
+/**
+ * Bindings of a single file, installed in a child injector of the analysis injector.
+ */
+public class FileAnalysisModule extends AbstractModule {
+    private final GosuFileProperties gosuFileProperties;
+    private final IssueCollector issueCollector;
+    private final MeasureCollector measureCollector;
+    private final SyntaxErrorListener syntaxErrorListener;
+
+    public FileAnalysisModule(GosuFileProperties gosuFileProperties, IssueCollector issueCollector,
+                              MeasureCollector measureCollector, SyntaxErrorListener syntaxErrorListener) {
+        this.gosuFileProperties = gosuFileProperties;
+        this.issueCollector = issueCollector;
+        this.measureCollector = measureCollector;
+        this.syntaxErrorListener = syntaxErrorListener;
+    }
+
+    @Override
+    protected void configure() {
+        bindBasicModuleFields();
+        bindMetrics();
+        bindListeners();
+    }
+
+    private void bindBasicModuleFields() {
+        bind(GosuFileProperties.class).toInstance(gosuFileProperties);
+        bind(IssueCollector.class).toInstance(issueCollector);
+        bind(MeasureCollector.class).toInstance(measureCollector);
+        bind(TokenPipeline.class).in(Singleton.class);
+        bind(ContextFingerprints.class).in(Singleton.class);
+    }
+
+    private void bindMetrics() {
+        bind(CodeSizeMetrics.class).in(Singleton.class);
+        bind(CognitiveComplexityMetric.class).in(Singleton.class);
+        bind(CyclomaticComplexityMetric.class).in(Singleton.class);
+        bind(LinesOfCodeMetric.class).in(Singleton.class);
+        bind(TestsMetric.class).in(Singleton.class);
+    }
+
+    private void bindListeners() {
+        bind(ANTLRErrorListener.class).toInstance(syntaxErrorListener);
+        bind(SuppressWarningsListener.class).in(Singleton.class);
+        bind(SemanticModel.class).in(Singleton.class);
+    }
+}
@@ -16,105 +16,190 @@
  */
 package dk.ifforsikring.sonarqube.gosu.plugin.context;
 
-import com.google.inject.Guice;
 import com.google.inject.Injector;
 import dk.ifforsikring.sonarqube.gosu.antlr.GosuParser;
 import dk.ifforsikring.sonarqube.gosu.antlr.GosuParserBaseListener;
-import dk.ifforsikring.sonarqube.gosu.language.GosuLanguage;
+import dk.ifforsikring.sonarqube.gosu.plugin.GosuFileProperties;
+import dk.ifforsikring.sonarqube.gosu.plugin.measures.Measures;
+import dk.ifforsikring.sonarqube.gosu.plugin.measures.ProcessedTokens;
 import dk.ifforsikring.sonarqube.gosu.plugin.measures.metrics.BaseMetric;
-import dk.ifforsikring.sonarqube.gosu.plugin.rules.BaseGosuRule;
+import dk.ifforsikring.sonarqube.gosu.plugin.semantic.SemanticModel;
+import dk.ifforsikring.sonarqube.gosu.plugin.tokens.TokenPipeline;
 import dk.ifforsikring.sonarqube.gosu.plugin.tools.listeners.SuppressWarningsListener;
+import dk.ifforsikring.sonarqube.gosu.plugin.tools.listeners.TokenPipelineListener;
 import dk.ifforsikring.sonarqube.gosu.plugin.tools.reflections.ClassExtractor;
 import org.antlr.v4.runtime.ANTLRErrorListener;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.fs.InputFile;
-import org.sonar.api.batch.rule.ActiveRule;
-import org.sonar.api.batch.rule.CheckFactory;
-import org.sonar.api.batch.rule.Checks;
-import org.sonar.api.batch.sensor.SensorContext;
 
 import java.util.ArrayList;
-import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
-import java.util.Optional;
+import java.util.Set;
 
 public class GosuParserContext {
+    private static final Logger LOG = LoggerFactory.getLogger(GosuParserContext.class);
 
     private final GosuParser gosuParser;
 
-    private final SensorContext context;
+    private final AnalysisContext analysisContext;
 
-    private final AnalysisModule analysisModule;
+    private final FileAnalysisModule fileAnalysisModule;
     private final InputFile inputFile;
-
-    public GosuParserContext(SensorContext context, AnalysisModule analysisModule, InputFile inputFile, GosuParser gosuParser) {
-        this.context = context;
-        this.analysisModule = analysisModule;
+    private final ListenerChain listenerChain = new ListenerChain();
+    private TokenPipeline tokenPipeline;
+    private CommonTokenStream tokenStream;
+    private ProcessedTokens processedTokens;
+    private boolean needsParsing;
+
+    public GosuParserContext(AnalysisContext analysisContext, FileAnalysisModule fileAnalysisModule, InputFile inputFile, GosuParser gosuParser) {
+        this.analysisContext = analysisContext;
+        this.fileAnalysisModule = fileAnalysisModule;
         this.inputFile = inputFile;
         this.gosuParser = gosuParser;
     }
 
     public void start() {
-        final Injector injector = Guice.createInjector(analysisModule);
-        registerRulesOn(injector);
-        registerMetricsOn(injector);
-        registerListenersOn(injector);
+        final Injector injector = analysisContext.createFileInjector(fileAnalysisModule);
+        final CommonTokenStream tokenStream = injector.getInstance(GosuFileProperties.class).getTokenStream();
+        tokenStream.fill();
+        final TokenPresence tokenPresence = analysisContext.getRulePlan().findRequiredTokensIn(tokenStream.getTokens());
+        final List<RulePlan.PlannedRule> rules = registerRulesOn(injector, tokenPresence);
+        final List<Class<? extends BaseMetric>> metrics = registerMetricsOn(injector, rules);
+        registerListenersOn(injector, !rules.isEmpty() && tokenPresence.containsIdentifier(SuppressWarningsListener.SUPPRESS_WARNINGS));
+        registerTokenPipelineOn(injector);
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("Analysing {} with the rules {} and the metrics {}", inputFile,
+                    rules.stream().map(rule -> rule.getRuleClass().getSimpleName()).toList(),
+                    metrics.stream().map(Class::getSimpleName).toList());
+        }
+        if (analysisContext.getListenerMode() == ListenerMode.PARSE) {
+            gosuParser.addParseListener(listenerChain);
+        }
+    }
+
+    /**
+     * @return Whether a registered listener needs the parser events of the file, otherwise its tokens are enough
+     */
+    public boolean needsParsing() {
+        return needsParsing;
+    }
+
+    /**
+     * Runs the token pipeline of a file which is not parsed.
+     */
+    public void processTokens() {
+        tokenPipeline.run(tokenStream.getTokens());
+    }
+
+    /**
+     * Walks the listeners over the parse tree of the file, unless the parser already notified them.
+     *
+     * @param tree Parse tree of the file
+     */
+    public void walk(ParseTree tree) {
+        if (analysisContext.getListenerMode() == ListenerMode.TREE_WALK) {
+            ParseTreeWalker.DEFAULT.walk(listenerChain, tree);
+        }
     }
 
     public void stop() {
         removeParserListeners();
     }
 
-    private void registerRulesOn(Injector injector) {
-        final List<BaseGosuRule> activeRules = instantiateRules(injector);
+    /**
+     * Rules requiring tokens the file does not contain are not instantiated.
+     *
+     * @return The registered rules
+     */
+    private List<RulePlan.PlannedRule> registerRulesOn(Injector injector, TokenPresence tokenPresence) {
+        final List<RulePlan.PlannedRule> rules = analysisContext.getRulePlan().getRulesFor(inputFile.type()).stream()
+                .filter(plannedRule -> plannedRule.canRaiseIssuesOn(tokenPresence))
+                .toList();
+        registerSemanticModelOn(injector, rules);
+        for (RulePlan.PlannedRule plannedRule : rules) {
+            registerListener(plannedRule.instantiate(injector));
+        }
+        return rules;
+    }
 
-        for (BaseGosuRule gosuRule : activeRules) {
-            registerListener(gosuRule);
+    /**
+     * The semantic model is registered before the rules using it, so its scopes are up-to-date when they are notified.
+     */
+    private void registerSemanticModelOn(Injector injector, List<RulePlan.PlannedRule> rules) {
+        if (rules.stream().anyMatch(rule -> rule.dependsOn(SemanticModel.class))) {
+            registerListener(injector.getInstance(SemanticModel.class));
         }
     }
 
-    private void registerMetricsOn(Injector injector) {
+    /**
+     * A metric is only computed when its measures are saved for the file, or when a registered rule depends on it.
+     *
+     * @return The registered metrics
+     */
+    private List<Class<? extends BaseMetric>> registerMetricsOn(Injector injector, List<RulePlan.PlannedRule> rules) {
+        final boolean savesMeasures = BaseMetric.savesMeasuresOn(inputFile.type());
+        final Set<Class<? extends BaseMetric>> metricDependencies = new HashSet<>();
+        rules.forEach(rule -> metricDependencies.addAll(rule.getMetricDependencies()));
+
+        final List<Class<? extends BaseMetric>> registered = new ArrayList<>();
         for (Class<? extends BaseMetric> metric : ClassExtractor.getMetrics()) {
-            registerListener(injector.getInstance(metric));
+            if (savesMeasures || metricDependencies.contains(metric)) {
+                registerListener(injector.getInstance(metric));
+                registered.add(metric);
+            }
         }
+        return registered;
     }
 
-    private void registerListenersOn(Injector injector) {
+    /**
+     * Warnings only need to be suppressed in files containing the {@code SuppressWarnings} annotation
+     * and analysed by some rule.
+     */
+    private void registerListenersOn(Injector injector, boolean suppressesWarnings) {
         registerErrorListener(injector.getInstance(ANTLRErrorListener.class));
-        registerListener(injector.getInstance(SuppressWarningsListener.class));
+        if (suppressesWarnings) {
+            registerListener(injector.getInstance(SuppressWarningsListener.class));
+        }
     }
 
-    private List<BaseGosuRule> instantiateRules(Injector injector) {
-        final Collection<ActiveRule> activeRules = context.activeRules().findByRepository(GosuLanguage.REPOSITORY_KEY);
-        final List<BaseGosuRule> activeGosuRules = new ArrayList<>();
-
-        for (ActiveRule activeRule : activeRules) {
-            getRuleClass(activeRule).ifPresent(rule -> activeGosuRules.add(injector.getInstance(rule)));
+    /**
+     * Registers the highlighting, copy-paste detection and line indexes of the file on the token pipeline,
+     * after the rules and metrics did. When the file is parsed, adds the listener running it last.
+     */
+    private void registerTokenPipelineOn(Injector injector) {
+        final GosuFileProperties gosuFileProperties = injector.getInstance(GosuFileProperties.class);
+        tokenPipeline = injector.getInstance(TokenPipeline.class);
+        tokenStream = gosuFileProperties.getTokenStream();
+        tokenPipeline.register(gosuFileProperties.getLineIndexes());
+        processedTokens = Measures.of(gosuFileProperties).registerOn(tokenPipeline);
+        needsParsing = listenerChain.needsParserEvents();
+        if (needsParsing) {
+            registerListener(new TokenPipelineListener(tokenPipeline, tokenStream));
         }
+    }
 
-        return bindRulesWithSonarAnnotations(activeGosuRules);
+    /**
+     * @return Highlighting and copy-paste detection tokens of the file, complete once the file has been parsed
+     */
+    public ProcessedTokens getProcessedTokens() {
+        return processedTokens;
     }
 
     private void registerListener(GosuParserBaseListener listener) {
-        gosuParser.addParseListener(listener);
+        final ParseTreeListener profiledListener = analysisContext.getProfiler().profile(listener);
+        listenerChain.add(profiledListener, analysisContext.getListenerCallbacks(listener.getClass()), profiledListener != listener);
     }
 
     private void registerErrorListener(ANTLRErrorListener errorListener) {
         gosuParser.addErrorListener(errorListener);
     }
 
-    private Optional<Class<? extends BaseGosuRule>> getRuleClass(ActiveRule activeRule) {
-        final String activeRuleKey = activeRule.ruleKey().rule();
-
-        return ClassExtractor.getRuleForScope(activeRuleKey, inputFile.type());
-    }
-
-    private List<BaseGosuRule> bindRulesWithSonarAnnotations(List<BaseGosuRule> activeChecks) {
-        final CheckFactory checkFactory = new CheckFactory(context.activeRules());
-        final Checks<BaseGosuRule> checks = checkFactory.create(GosuLanguage.REPOSITORY_KEY);
-
-        return new ArrayList<>(checks.addAnnotatedChecks(activeChecks).all());
-    }
-
     private void removeParserListeners() {
         gosuParser.removeParseListeners();
         gosuParser.removeErrorListeners();
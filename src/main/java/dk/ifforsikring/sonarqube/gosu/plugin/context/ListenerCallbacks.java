@@ -0,0 +1,113 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.context;
+
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuParserBaseListener;
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuParserListener;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import java.lang.reflect.Method;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Callbacks a listener class overrides, so parser events it would ignore are not dispatched to it.
+ */
+final class ListenerCallbacks {
+    private static final String ENTER = "enter";
+    private static final String EXIT = "exit";
+
+    private final boolean entersEveryRule;
+    private final boolean exitsEveryRule;
+    private final boolean visitsTerminals;
+    private final boolean visitsErrorNodes;
+    private final Set<Class<?>> enteredContexts;
+    private final Set<Class<?>> exitedContexts;
+
+    private ListenerCallbacks(Class<? extends ParseTreeListener> listenerClass) {
+        this.entersEveryRule = overrides(listenerClass, "enterEveryRule", ParserRuleContext.class);
+        this.exitsEveryRule = overrides(listenerClass, "exitEveryRule", ParserRuleContext.class);
+        this.visitsTerminals = overrides(listenerClass, "visitTerminal", TerminalNode.class);
+        this.visitsErrorNodes = overrides(listenerClass, "visitErrorNode", ErrorNode.class);
+        this.enteredContexts = overriddenRuleCallbacks(listenerClass, ENTER);
+        this.exitedContexts = overriddenRuleCallbacks(listenerClass, EXIT);
+    }
+
+    static ListenerCallbacks of(Class<? extends ParseTreeListener> listenerClass) {
+        return new ListenerCallbacks(listenerClass);
+    }
+
+    boolean needsParserEvents() {
+        return entersEveryRule || exitsEveryRule || visitsTerminals || visitsErrorNodes
+                || !enteredContexts.isEmpty() || !exitedContexts.isEmpty();
+    }
+
+    boolean entersEveryRule() {
+        return entersEveryRule;
+    }
+
+    boolean exitsEveryRule() {
+        return exitsEveryRule;
+    }
+
+    boolean visitsTerminals() {
+        return visitsTerminals;
+    }
+
+    boolean visitsErrorNodes() {
+        return visitsErrorNodes;
+    }
+
+    boolean entersRule(Class<? extends ParserRuleContext> contextClass) {
+        return enteredContexts.contains(contextClass);
+    }
+
+    boolean exitsRule(Class<? extends ParserRuleContext> contextClass) {
+        return exitedContexts.contains(contextClass);
+    }
+
+    /**
+     * The parser only calls rule specific callbacks of {@link GosuParserListener} instances,
+     * with the context class of the rule as parameter.
+     */
+    private static Set<Class<?>> overriddenRuleCallbacks(Class<? extends ParseTreeListener> listenerClass, String prefix) {
+        if (!GosuParserListener.class.isAssignableFrom(listenerClass)) {
+            return Set.of();
+        }
+        final Set<Class<?>> contextClasses = new HashSet<>();
+        for (Method callback : GosuParserListener.class.getMethods()) {
+            final Class<?>[] parameterTypes = callback.getParameterTypes();
+            if (callback.getName().startsWith(prefix) && parameterTypes.length == 1
+                    && parameterTypes[0] != ParserRuleContext.class
+                    && overrides(listenerClass, callback.getName(), parameterTypes[0])) {
+                contextClasses.add(parameterTypes[0]);
+            }
+        }
+        return Set.copyOf(contextClasses);
+    }
+
+    private static boolean overrides(Class<?> listenerClass, String name, Class<?> parameterType) {
+        try {
+            return listenerClass.getMethod(name, parameterType).getDeclaringClass() != GosuParserBaseListener.class;
+        } catch (NoSuchMethodException e) {
+            return false;
+        }
+    }
+}
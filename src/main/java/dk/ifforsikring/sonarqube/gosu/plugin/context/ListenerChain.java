@@ -0,0 +1,157 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.context;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Single listener dispatching the parser events to the listeners of a file, notified in the order the parser
+ * notifies its parse listeners: rule entries in registration order, rule exits in reverse registration order.
+ * <p>
+ * Each event only reaches the listeners overriding one of its callbacks, looked up in a dispatch table
+ * per context class built the first time the class is seen.
+ */
+final class ListenerChain implements ParseTreeListener {
+    private static final Call[] NO_CALLS = new Call[0];
+
+    private final List<Member> members = new ArrayList<>();
+    private final Map<Class<?>, Call[]> enterCalls = new HashMap<>();
+    private final Map<Class<?>, Call[]> exitCalls = new HashMap<>();
+    private ParseTreeListener[] terminalListeners;
+    private ParseTreeListener[] errorNodeListeners;
+
+    void add(ParseTreeListener listener) {
+        add(listener, ListenerCallbacks.of(listener.getClass()), false);
+    }
+
+    /**
+     * @param listener              Listener to notify
+     * @param callbacks             Callbacks overridden by the listener, or by the listener it forwards the events to
+     * @param forwardsRuleCallbacks Whether the listener calls the rule specific callbacks itself from
+     *                              {@code enterEveryRule} and {@code exitEveryRule}
+     */
+    void add(ParseTreeListener listener, ListenerCallbacks callbacks, boolean forwardsRuleCallbacks) {
+        members.add(new Member(listener, callbacks, forwardsRuleCallbacks));
+        enterCalls.clear();
+        exitCalls.clear();
+        terminalListeners = null;
+        errorNodeListeners = null;
+    }
+
+    /**
+     * @return Whether a listener overrides one of the callbacks, so the events of the parser are needed
+     */
+    boolean needsParserEvents() {
+        return members.stream().anyMatch(member -> member.callbacks().needsParserEvents());
+    }
+
+    @Override
+    public void enterEveryRule(ParserRuleContext ctx) {
+        for (Call call : enterCalls.computeIfAbsent(ctx.getClass(), this::enterCallsOf)) {
+            if (call.everyRule()) {
+                call.listener().enterEveryRule(ctx);
+            }
+            if (call.rule()) {
+                ctx.enterRule(call.listener());
+            }
+        }
+    }
+
+    @Override
+    public void exitEveryRule(ParserRuleContext ctx) {
+        for (Call call : exitCalls.computeIfAbsent(ctx.getClass(), this::exitCallsOf)) {
+            if (call.rule()) {
+                ctx.exitRule(call.listener());
+            }
+            if (call.everyRule()) {
+                call.listener().exitEveryRule(ctx);
+            }
+        }
+    }
+
+    @Override
+    public void visitTerminal(TerminalNode node) {
+        if (terminalListeners == null) {
+            terminalListeners = members.stream()
+                    .filter(member -> member.callbacks().visitsTerminals())
+                    .map(Member::listener)
+                    .toArray(ParseTreeListener[]::new);
+        }
+        for (ParseTreeListener listener : terminalListeners) {
+            listener.visitTerminal(node);
+        }
+    }
+
+    @Override
+    public void visitErrorNode(ErrorNode node) {
+        if (errorNodeListeners == null) {
+            errorNodeListeners = members.stream()
+                    .filter(member -> member.callbacks().visitsErrorNodes())
+                    .map(Member::listener)
+                    .toArray(ParseTreeListener[]::new);
+        }
+        for (ParseTreeListener listener : errorNodeListeners) {
+            listener.visitErrorNode(node);
+        }
+    }
+
+    private Call[] enterCallsOf(Class<?> contextClass) {
+        final Class<? extends ParserRuleContext> ruleClass = contextClass.asSubclass(ParserRuleContext.class);
+        final List<Call> calls = new ArrayList<>();
+        for (Member member : members) {
+            final boolean everyRule = member.callbacks().entersEveryRule();
+            final boolean rule = member.callbacks().entersRule(ruleClass);
+            addCall(calls, member, everyRule, rule);
+        }
+        return calls.isEmpty() ? NO_CALLS : calls.toArray(Call[]::new);
+    }
+
+    private Call[] exitCallsOf(Class<?> contextClass) {
+        final Class<? extends ParserRuleContext> ruleClass = contextClass.asSubclass(ParserRuleContext.class);
+        final List<Call> calls = new ArrayList<>();
+        for (Member member : members) {
+            final boolean everyRule = member.callbacks().exitsEveryRule();
+            final boolean rule = member.callbacks().exitsRule(ruleClass);
+            addCall(calls, member, everyRule, rule);
+        }
+        Collections.reverse(calls);
+        return calls.isEmpty() ? NO_CALLS : calls.toArray(Call[]::new);
+    }
+
+    private static void addCall(List<Call> calls, Member member, boolean everyRule, boolean rule) {
+        if (member.forwardsRuleCallbacks() && (everyRule || rule)) {
+            calls.add(new Call(member.listener(), true, false));
+        } else if (everyRule || rule) {
+            calls.add(new Call(member.listener(), everyRule, rule));
+        }
+    }
+
+    private record Member(ParseTreeListener listener, ListenerCallbacks callbacks, boolean forwardsRuleCallbacks) {
+    }
+
+    private record Call(ParseTreeListener listener, boolean everyRule, boolean rule) {
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.context;
+
+/**
+ * How the rules and metrics of a file are notified of its parse tree.
+ */
+public enum ListenerMode {
+    /**
+     * Listeners are walked over the parse tree once the file is parsed, so every node is entered and exited
+     * exactly once, with all its children and its stop token.
+     */
+    TREE_WALK,
+    /**
+     * Listeners are notified by the parser while it parses the file. Left-recursive rules, like expressions,
+     * are then exited once for every partial context the parser builds on the way.
+     */
+    PARSE
+}
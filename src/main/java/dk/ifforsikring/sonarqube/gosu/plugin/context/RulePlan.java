@@ -0,0 +1,223 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.context;
+
+import com.google.inject.Injector;
+import com.google.inject.spi.InjectionPoint;
+import dk.ifforsikring.sonarqube.gosu.language.GosuLanguage;
+import dk.ifforsikring.sonarqube.gosu.plugin.measures.metrics.BaseMetric;
+import dk.ifforsikring.sonarqube.gosu.plugin.rules.BaseGosuRule;
+import dk.ifforsikring.sonarqube.gosu.plugin.rules.RequiredTokens;
+import dk.ifforsikring.sonarqube.gosu.plugin.tools.listeners.SuppressWarningsListener;
+import dk.ifforsikring.sonarqube.gosu.plugin.tools.reflections.ClassExtractor;
+import org.antlr.v4.runtime.Token;
+import org.apache.commons.lang3.StringUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.rule.ActiveRule;
+import org.sonar.api.batch.rule.ActiveRules;
+import org.sonar.check.RuleProperty;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+/**
+ * Active Gosu rules of one analysis, with their scope and {@link RuleProperty} values resolved once.
+ * Every file then only has to instantiate the rules planned for its type.
+ */
+public final class RulePlan {
+    private static final Logger LOG = LoggerFactory.getLogger(RulePlan.class);
+
+    private final Map<InputFile.Type, List<PlannedRule>> rulesByType;
+    private final Set<String> requiredIdentifiers;
+    private final Set<String> requiredCommentWords;
+
+    private RulePlan(Map<InputFile.Type, List<PlannedRule>> rulesByType) {
+        this.rulesByType = rulesByType;
+        final Set<String> identifiers = new HashSet<>(Set.of(SuppressWarningsListener.SUPPRESS_WARNINGS));
+        final Set<String> commentWords = new HashSet<>();
+        rulesByType.values().stream()
+                .flatMap(List::stream)
+                .map(plannedRule -> plannedRule.requiredTokens)
+                .filter(Objects::nonNull)
+                .forEach(requiredTokens -> {
+                    identifiers.addAll(List.of(requiredTokens.identifiers()));
+                    commentWords.addAll(List.of(requiredTokens.commentWords()));
+                });
+        this.requiredIdentifiers = Set.copyOf(identifiers);
+        this.requiredCommentWords = Set.copyOf(commentWords);
+    }
+
+    public static RulePlan of(ActiveRules activeRules) {
+        final Map<InputFile.Type, List<PlannedRule>> rulesByType = new EnumMap<>(InputFile.Type.class);
+
+        for (InputFile.Type type : InputFile.Type.values()) {
+            final List<PlannedRule> plannedRules = new ArrayList<>();
+            for (ActiveRule activeRule : activeRules.findByRepository(GosuLanguage.REPOSITORY_KEY)) {
+                ClassExtractor.getRuleForScope(activeRule.ruleKey().rule(), type)
+                        .ifPresent(ruleClass -> plannedRules.add(PlannedRule.of(ruleClass, activeRule)));
+            }
+            rulesByType.put(type, Collections.unmodifiableList(plannedRules));
+        }
+
+        return new RulePlan(rulesByType);
+    }
+
+    public List<PlannedRule> getRulesFor(InputFile.Type type) {
+        return rulesByType.get(type);
+    }
+
+    /**
+     * @return Token types, and the identifiers and comment words required by the planned rules or by
+     * the {@code SuppressWarnings} annotation, found in the tokens
+     */
+    TokenPresence findRequiredTokensIn(List<Token> tokens) {
+        return TokenPresence.of(tokens, requiredIdentifiers, requiredCommentWords);
+    }
+
+    public static final class PlannedRule {
+        private final Class<? extends BaseGosuRule> ruleClass;
+        private final List<RuleParameter> parameters;
+        private final RequiredTokens requiredTokens;
+        private final Set<Class<?>> dependencies;
+
+        private PlannedRule(Class<? extends BaseGosuRule> ruleClass, List<RuleParameter> parameters) {
+            this.ruleClass = ruleClass;
+            this.parameters = parameters;
+            this.requiredTokens = ruleClass.getAnnotation(RequiredTokens.class);
+            this.dependencies = getDependencies(ruleClass);
+        }
+
+        private static PlannedRule of(Class<? extends BaseGosuRule> ruleClass, ActiveRule activeRule) {
+            final List<RuleParameter> parameters = new ArrayList<>();
+
+            for (Map.Entry<String, String> param : activeRule.params().entrySet()) {
+                final Optional<Field> field = getRulePropertyField(ruleClass, param.getKey());
+
+                if (field.isEmpty()) {
+                    LOG.debug("The field '{}' does not exist or is not annotated with @RuleProperty in the class {}", param.getKey(), ruleClass.getName());
+                } else if (StringUtils.isNotBlank(param.getValue())) {
+                    parameters.add(RuleParameter.of(field.get(), param.getValue()));
+                }
+            }
+
+            return new PlannedRule(ruleClass, List.copyOf(parameters));
+        }
+
+        public Class<? extends BaseGosuRule> getRuleClass() {
+            return ruleClass;
+        }
+
+        /**
+         * @return Metrics injected in the rule, which have to listen to the file for the rule to work
+         */
+        public Set<Class<? extends BaseMetric>> getMetricDependencies() {
+            return dependencies.stream()
+                    .filter(BaseMetric.class::isAssignableFrom)
+                    .<Class<? extends BaseMetric>>map(type -> type.asSubclass(BaseMetric.class))
+                    .collect(Collectors.toUnmodifiableSet());
+        }
+
+        /**
+         * @return Whether the type is injected in the rule
+         */
+        public boolean dependsOn(Class<?> type) {
+            return dependencies.contains(type);
+        }
+
+        /**
+         * @return Whether the file contains one of the {@link RequiredTokens} of the rule, if it declares any
+         */
+        boolean canRaiseIssuesOn(TokenPresence tokenPresence) {
+            return tokenPresence.containsAnyOf(requiredTokens);
+        }
+
+        public BaseGosuRule instantiate(Injector injector) {
+            final BaseGosuRule rule = injector.getInstance(ruleClass);
+            parameters.forEach(parameter -> parameter.applyTo(rule));
+            return rule;
+        }
+
+        private static Set<Class<?>> getDependencies(Class<? extends BaseGosuRule> ruleClass) {
+            final Set<InjectionPoint> injectionPoints = new HashSet<>(InjectionPoint.forInstanceMethodsAndFields(ruleClass));
+            injectionPoints.add(InjectionPoint.forConstructorOf(ruleClass));
+            return injectionPoints.stream()
+                    .flatMap(injectionPoint -> injectionPoint.getDependencies().stream())
+                    .<Class<?>>map(dependency -> dependency.getKey().getTypeLiteral().getRawType())
+                    .collect(Collectors.toUnmodifiableSet());
+        }
+
+        private static Optional<Field> getRulePropertyField(Class<?> ruleClass, String key) {
+            for (Class<?> clazz = ruleClass; clazz != null; clazz = clazz.getSuperclass()) {
+                for (Field field : clazz.getDeclaredFields()) {
+                    final RuleProperty ruleProperty = field.getAnnotation(RuleProperty.class);
+                    if (ruleProperty != null && (key.equals(field.getName()) || key.equals(ruleProperty.key()))) {
+                        return Optional.of(field);
+                    }
+                }
+            }
+            return Optional.empty();
+        }
+    }
+
+    private record RuleParameter(Field field, Object value) {
+
+        private static RuleParameter of(Field field, String value) {
+            field.setAccessible(true);
+            return new RuleParameter(field, convert(field, value));
+        }
+
+        private static Object convert(Field field, String value) {
+            final Class<?> type = field.getType();
+
+            if (type == String.class) {
+                return value;
+            } else if (type == int.class || type == Integer.class) {
+                return Integer.parseInt(value);
+            } else if (type == long.class || type == Long.class) {
+                return Long.parseLong(value);
+            } else if (type == short.class || type == Short.class) {
+                return Short.parseShort(value);
+            } else if (type == byte.class || type == Byte.class) {
+                return Byte.parseByte(value);
+            } else if (type == double.class || type == Double.class) {
+                return Double.parseDouble(value);
+            } else if (type == boolean.class || type == Boolean.class) {
+                return Boolean.parseBoolean(value);
+            }
+            throw new IllegalStateException("The type of the field " + field + " is not supported: " + type);
+        }
+
+        private void applyTo(BaseGosuRule rule) {
+            try {
+                field.set(rule, value);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Can not set the value of the field " + field + " in the class: " + rule.getClass().getName(), e);
+            }
+        }
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.context;
+
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuLexer;
+import dk.ifforsikring.sonarqube.gosu.plugin.rules.RequiredTokens;
+import dk.ifforsikring.sonarqube.gosu.plugin.tokens.GosuTokenClasses;
+import org.antlr.v4.runtime.Token;
+import org.apache.commons.lang3.Strings;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Token types, identifiers and comment words found in a file, checked against the {@link RequiredTokens}
+ * of the planned rules before they are instantiated.
+ * <p>
+ * Only the identifiers and comment words some rule requires are looked for, so the text of
+ * the other tokens is never read.
+ */
+final class TokenPresence {
+    private final BitSet types = new BitSet();
+    private final Set<String> identifiers = new HashSet<>();
+    private final Set<String> commentWords = new HashSet<>();
+
+    private TokenPresence() {
+    }
+
+    static TokenPresence of(List<Token> tokens, Set<String> requiredIdentifiers, Set<String> requiredCommentWords) {
+        final TokenPresence presence = new TokenPresence();
+        final BitSet identifierLengths = new BitSet();
+        requiredIdentifiers.forEach(identifier -> identifierLengths.set(identifier.length()));
+
+        for (Token token : tokens) {
+            final int type = token.getType();
+            if (type == Token.EOF) {
+                continue;
+            }
+            presence.types.set(type);
+            if (type == GosuLexer.IDENTIFIER && identifierLengths.get(token.getStopIndex() - token.getStartIndex() + 1)) {
+                final String text = token.getText();
+                if (requiredIdentifiers.contains(text)) {
+                    presence.identifiers.add(text);
+                }
+            } else if (GosuTokenClasses.isComment(type) && !requiredCommentWords.isEmpty()) {
+                final String text = token.getText();
+                for (String word : requiredCommentWords) {
+                    if (Strings.CI.contains(text, word)) {
+                        presence.commentWords.add(word);
+                    }
+                }
+            }
+        }
+        return presence;
+    }
+
+    boolean containsIdentifier(String identifier) {
+        return identifiers.contains(identifier);
+    }
+
+    /**
+     * @param requiredTokens Tokens required by a rule, null when it requires none
+     * @return Whether the file contains one of the required tokens
+     */
+    boolean containsAnyOf(RequiredTokens requiredTokens) {
+        if (requiredTokens == null) {
+            return true;
+        }
+        for (int type : requiredTokens.types()) {
+            if (types.get(type)) {
+                return true;
+            }
+        }
+        for (String identifier : requiredTokens.identifiers()) {
+            if (identifiers.contains(identifier)) {
+                return true;
+            }
+        }
+        for (String word : requiredTokens.commentWords()) {
+            if (commentWords.contains(word)) {
+                return true;
+            }
+        }
+        return false;
+    }
+}
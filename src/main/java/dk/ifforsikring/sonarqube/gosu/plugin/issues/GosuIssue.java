@@ -72,6 +72,21 @@ public final class GosuIssue implements Issue {
         return textRange;
     }
 
+    public String getMessage() {
+        return message;
+    }
+
+    public List<SecondaryIssue> getSecondaries() {
+        return Collections.unmodifiableList(secondaries);
+    }
+
+    /**
+     * @return Effort to fix the issue, -1 when the rule doesn't define one
+     */
+    public int getGap() {
+        return gap;
+    }
+
     private NewIssueLocation getLocation(TextRange textRange, NewIssue issue, InputFile inputFile) {
         return textRange == null
                 ? issue.newLocation().on(inputFile)
@@ -87,7 +102,11 @@ public final class GosuIssue implements Issue {
         private int gap = -1;
 
         public GosuIssueBuilder(BaseGosuRule rule) {
-            this.ruleKey = rule.getRuleKey();
+            this(rule.getRuleKey());
+        }
+
+        public GosuIssueBuilder(RuleKey ruleKey) {
+            this.ruleKey = ruleKey;
         }
 
         public GosuIssueBuilder withSecondaryIssues(Iterable<SecondaryIssue> secondaries) {
@@ -27,9 +27,9 @@ public class IssueCollector {
     private static final String CODE_SMELLS_TAG = "code_smells";
     private static final String CODE_SMELLS_DIR = "smells";
     private static final String ALL_RULES_TAG = "all";
+    private static final Map<String, String> RULE_PACKAGE_TAGS = rulePackageTags();
     @Inject
     private SuppressWarningsListener suppressWarningsListener;
-    private Map<String, List<TextRange>> suppressWarnings;
 
     private final List<Issue> issues = new ArrayList<>();
 
@@ -38,65 +38,40 @@ public class IssueCollector {
     }
 
     public List<Issue> getIssues() {
-        suppressWarnings = suppressWarningsListener.getSuppressWarnings();
+        final Map<String, List<TextRange>> suppressWarnings = suppressWarningsListener.getSuppressWarnings();
         return suppressWarnings.isEmpty()
                 ? Collections.unmodifiableList(issues)
-                : Collections.unmodifiableList(filterIssues());
+                : Collections.unmodifiableList(filterIssues(suppressWarnings));
     }
 
-    private List<Issue> filterIssues() {
+    private List<Issue> filterIssues(Map<String, List<TextRange>> suppressWarnings) {
+        final Map<String, SuppressedRanges> suppressedRanges = new HashMap<>();
+        suppressWarnings.forEach((key, textRanges) -> suppressedRanges.put(key, SuppressedRanges.of(textRanges)));
+        final SuppressedRanges allRulesRanges = suppressedRanges.get(ALL_RULES_TAG);
+
         final List<Issue> filteredIssues = new ArrayList<>();
         for (Issue issue : issues) {
-            getUnsuppressedIssue(issue).ifPresent(filteredIssues::add);
+            final TextRange issuePosition = issue.getPosition();
+            final String issueRuleKey = issue.getRuleKey().rule();
+            if (!isSuppressed(allRulesRanges, issuePosition)
+                    && !isSuppressed(suppressedRanges.get(RULE_PACKAGE_TAGS.get(issueRuleKey)), issuePosition)
+                    && !isSuppressed(suppressedRanges.get(issueRuleKey), issuePosition)) {
+                filteredIssues.add(issue);
+            }
         }
         return filteredIssues;
     }
 
-    private Optional<Issue> getUnsuppressedIssue(Issue issue) {
-        return isSuppressed(issue) ? Optional.empty() : Optional.of(issue);
-    }
-
-    private boolean isSuppressed(Issue issue) {
-        final TextRange issuePosition = issue.getPosition();
-        final String issueRuleKey = issue.getRuleKey().rule();
-        final String issuePackageTag = getRulePackageTag(issueRuleKey);
-
-        return isInAllWarnings(issuePosition)
-                || isInPackageWarnings(issuePackageTag, issuePosition)
-                || isInRuleWarnings(issueRuleKey, issuePosition);
-    }
-
-    private String getRulePackageTag(String issueKey) {
-        final String directory = RulesKeysExtractor.getRulePackage(issueKey);
-        return CODE_SMELLS_DIR.equals(directory) ? CODE_SMELLS_TAG : directory;
-    }
-
-    private boolean isInAllWarnings(TextRange issueTextRange) {
-        return compareTextRanges(suppressWarnings.get(ALL_RULES_TAG), issueTextRange);
+    private static boolean isSuppressed(SuppressedRanges suppressedRanges, TextRange issuePosition) {
+        return suppressedRanges != null && suppressedRanges.overlap(issuePosition);
     }
 
-    private boolean isInPackageWarnings(String issuePackageTag, TextRange issueTextRange) {
-        return compareTextRanges(suppressWarnings.get(issuePackageTag), issueTextRange);
-    }
-
-    private boolean isInRuleWarnings(String issueRuleKey, TextRange issueTextRange) {
-        return compareTextRanges(suppressWarnings.get(issueRuleKey), issueTextRange);
-    }
-
-    private boolean compareTextRanges(List<TextRange> textRangeList, TextRange issueTextRange) {
-        if (textRangeList == null) {
-            return false;
-        }
-
-        if (issueTextRange == null) {
-            return true;
-        }
-
-        for (TextRange textRange : textRangeList) {
-            if (issueTextRange.overlap(textRange)) {
-                return true;
-            }
+    private static Map<String, String> rulePackageTags() {
+        final Map<String, String> rulePackageTags = new HashMap<>();
+        for (String ruleKey : RulesKeysExtractor.getAllRulesKeys()) {
+            final String directory = RulesKeysExtractor.getRulePackage(ruleKey);
+            rulePackageTags.put(ruleKey, CODE_SMELLS_DIR.equals(directory) ? CODE_SMELLS_TAG : directory);
         }
-        return false;
+        return Map.copyOf(rulePackageTags);
     }
 }
@@ -55,6 +55,15 @@ public class SecondaryIssue implements Comparable<SecondaryIssue> {
         return new SecondaryIssue(issue.range, issue.message);
     }
 
+    public TextRange getRange() {
+        return range;
+    }
+
+    @Nullable
+    public String getMessage() {
+        return message;
+    }
+
     public boolean overlap(@Nonnull SecondaryIssue otherIssue) {
         return this.range.overlap(otherIssue.range);
     }
@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.issues;
+
+import org.sonar.api.batch.fs.TextPointer;
+import org.sonar.api.batch.fs.TextRange;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Ranges of the members annotated with one {@code @SuppressWarnings} key, sorted by their start
+ * with the furthest end reached so far, so an overlapping range is found with a single binary search.
+ */
+final class SuppressedRanges {
+    private final long[] starts;
+    private final long[] maxEnds;
+
+    private SuppressedRanges(long[] starts, long[] maxEnds) {
+        this.starts = starts;
+        this.maxEnds = maxEnds;
+    }
+
+    static SuppressedRanges of(List<TextRange> textRanges) {
+        final TextRange[] sorted = textRanges.toArray(TextRange[]::new);
+        Arrays.sort(sorted, Comparator.comparingLong(textRange -> positionOf(textRange.start())));
+        final long[] starts = new long[sorted.length];
+        final long[] maxEnds = new long[sorted.length];
+        long maxEnd = Long.MIN_VALUE;
+        for (int i = 0; i < sorted.length; i++) {
+            starts[i] = positionOf(sorted[i].start());
+            maxEnd = Math.max(maxEnd, positionOf(sorted[i].end()));
+            maxEnds[i] = maxEnd;
+        }
+        return new SuppressedRanges(starts, maxEnds);
+    }
+
+    /**
+     * Same answer as {@link TextRange#overlap} against every range, where an issue on the whole file
+     * overlaps all of them.
+     *
+     * @param textRange Position of the issue, null when it is on the whole file
+     */
+    boolean overlap(TextRange textRange) {
+        if (starts.length == 0) {
+            return false;
+        }
+        if (textRange == null) {
+            return true;
+        }
+        final int startingBefore = countStartsBefore(positionOf(textRange.end()));
+        return startingBefore > 0 && maxEnds[startingBefore - 1] > positionOf(textRange.start());
+    }
+
+    private int countStartsBefore(long position) {
+        int low = 0;
+        int high = starts.length;
+        while (low < high) {
+            final int middle = (low + high) >>> 1;
+            if (starts[middle] < position) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        return low;
+    }
+
+    private static long positionOf(TextPointer pointer) {
+        return ((long) pointer.line() << Integer.SIZE) | pointer.lineOffset();
+    }
+}
@@ -0,0 +1,86 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.measures;
+
+import dk.ifforsikring.sonarqube.gosu.plugin.GosuFileLineData;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.measure.Metric;
+import org.sonar.api.batch.sensor.SensorContext;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Optional;
+
+/**
+ * Collects the measures computed for a single file, so they can be saved on the sensor context later on.
+ */
+public class MeasureCollector {
+    private final List<FileMeasure<?>> measures = new ArrayList<>();
+    private final List<String> unitTestClassNames = new ArrayList<>();
+    private GosuFileLineData fileLineData;
+
+    public <T extends Serializable> void addMeasure(Metric<T> metric, T value) {
+        measures.add(new FileMeasure<>(metric, value));
+    }
+
+    public void addFileLineData(GosuFileLineData fileLineData) {
+        this.fileLineData = fileLineData;
+    }
+
+    /**
+     * Records a class looked up in the unit test reports, so its test measures can be computed again
+     * when the file analysis is replayed from the cache.
+     */
+    public void addUnitTestClassName(String className) {
+        unitTestClassNames.add(className);
+    }
+
+    public List<String> getUnitTestClassNames() {
+        return Collections.unmodifiableList(unitTestClassNames);
+    }
+
+    public List<FileMeasure<?>> getMeasures() {
+        return Collections.unmodifiableList(measures);
+    }
+
+    public Optional<GosuFileLineData> getFileLineData() {
+        return Optional.ofNullable(fileLineData);
+    }
+
+    public void saveOn(SensorContext context, InputFile inputFile) {
+        for (FileMeasure<?> measure : measures) {
+            measure.saveOn(context, inputFile);
+        }
+
+        if (fileLineData != null) {
+            fileLineData.saveOnContext();
+        }
+    }
+
+    public record FileMeasure<T extends Serializable>(Metric<T> metric, T value) {
+
+        private void saveOn(SensorContext context, InputFile inputFile) {
+            context.<T>newMeasure()
+                    .withValue(value)
+                    .forMetric(metric)
+                    .on(inputFile)
+                    .save();
+        }
+    }
+}
@@ -19,8 +19,7 @@ package dk.ifforsikring.sonarqube.gosu.plugin.measures;
 import dk.ifforsikring.sonarqube.gosu.plugin.GosuFileProperties;
 import dk.ifforsikring.sonarqube.gosu.plugin.measures.tools.GosuDuplicates;
 import dk.ifforsikring.sonarqube.gosu.plugin.measures.tools.GosuHighlighting;
-import org.antlr.v4.runtime.CommonTokenStream;
-import org.antlr.v4.runtime.Token;
+import dk.ifforsikring.sonarqube.gosu.plugin.tokens.TokenPipeline;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.batch.sensor.cpd.NewCpdTokens;
 import org.sonar.api.batch.sensor.highlighting.NewHighlighting;
@@ -37,16 +36,30 @@ public final class Measures {
     }
 
     public void addProcessedTokensTo(SensorContext context) {
-        final NewCpdTokens cpdTokens = context.newCpdTokens().onFile(gosuFileProperties.getFile());
-        final NewHighlighting highlighting = context.newHighlighting().onFile(gosuFileProperties.getFile());
-        final CommonTokenStream tokenStream = gosuFileProperties.getTokenStream();
+        processTokens().saveOn(context);
+    }
+
+    public ProcessedTokens processTokens() {
+        final TokenPipeline tokenPipeline = new TokenPipeline();
+        final ProcessedTokens processedTokens = registerOn(tokenPipeline);
+        tokenPipeline.run(gosuFileProperties.getTokenStream().getTokens());
+        return processedTokens;
+    }
 
-        for (Token token : tokenStream.getTokens()) {
+    /**
+     * Registers the highlighting and copy-paste detection of the file on the pipeline.
+     *
+     * @return Highlighting and tokens, recorded once the pipeline has run
+     */
+    public ProcessedTokens registerOn(TokenPipeline tokenPipeline) {
+        final ProcessedTokens processedTokens = new ProcessedTokens(gosuFileProperties.getFile());
+        final NewHighlighting highlighting = processedTokens.highlighting();
+        final NewCpdTokens cpdTokens = processedTokens.cpdTokens();
+
+        tokenPipeline.register(token -> {
             GosuHighlighting.highlightToken(token, highlighting, gosuFileProperties);
             GosuDuplicates.addCopyAndPasteDetectionToken(token, cpdTokens);
-        }
-
-        highlighting.save();
-        cpdTokens.save();
+        });
+        return processedTokens;
     }
 }
@@ -0,0 +1,145 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.measures;
+
+import dk.ifforsikring.sonarqube.gosu.plugin.utils.TextRangeUtil;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.TextRange;
+import org.sonar.api.batch.sensor.SensorContext;
+import org.sonar.api.batch.sensor.cpd.NewCpdTokens;
+import org.sonar.api.batch.sensor.highlighting.NewHighlighting;
+import org.sonar.api.batch.sensor.highlighting.TypeOfText;
+
+import javax.annotation.Nonnull;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Highlighting and copy-paste detection tokens of a single file, recorded without touching the sensor context.
+ */
+public final class ProcessedTokens {
+    private final InputFile inputFile;
+    private final RecordedHighlighting highlighting = new RecordedHighlighting();
+    private final RecordedCpdTokens cpdTokens = new RecordedCpdTokens();
+
+    ProcessedTokens(InputFile inputFile) {
+        this.inputFile = inputFile;
+    }
+
+    /**
+     * Restores highlighting and tokens recorded by a previous analysis of the same file.
+     */
+    public static ProcessedTokens of(InputFile inputFile, List<Highlight> highlights, List<CpdToken> cpdTokens) {
+        final ProcessedTokens processedTokens = new ProcessedTokens(inputFile);
+        processedTokens.highlighting.highlights.addAll(highlights);
+        processedTokens.cpdTokens.tokens.addAll(cpdTokens);
+        return processedTokens;
+    }
+
+    NewHighlighting highlighting() {
+        return highlighting;
+    }
+
+    NewCpdTokens cpdTokens() {
+        return cpdTokens;
+    }
+
+    public List<Highlight> getHighlights() {
+        return Collections.unmodifiableList(highlighting.highlights);
+    }
+
+    public List<CpdToken> getCpdTokens() {
+        return Collections.unmodifiableList(cpdTokens.tokens);
+    }
+
+    public void saveOn(SensorContext context) {
+        final NewHighlighting newHighlighting = context.newHighlighting().onFile(inputFile);
+        for (Highlight highlight : highlighting.highlights) {
+            newHighlighting.highlight(highlight.startLine(), highlight.startLineOffset(), highlight.endLine(), highlight.endLineOffset(), highlight.typeOfText());
+        }
+        newHighlighting.save();
+
+        final NewCpdTokens newCpdTokens = context.newCpdTokens().onFile(inputFile);
+        for (CpdToken cpdToken : cpdTokens.tokens) {
+            newCpdTokens.addToken(cpdToken.range(), cpdToken.image());
+        }
+        newCpdTokens.save();
+    }
+
+    public record Highlight(int startLine, int startLineOffset, int endLine, int endLineOffset, TypeOfText typeOfText) {
+    }
+
+    public record CpdToken(TextRange range, String image) {
+    }
+
+    private static final class RecordedHighlighting implements NewHighlighting {
+        private final List<Highlight> highlights = new ArrayList<>();
+
+        @Override
+        @Nonnull
+        public NewHighlighting onFile(@Nonnull InputFile inputFile) {
+            return this;
+        }
+
+        @Override
+        @Nonnull
+        public NewHighlighting highlight(TextRange range, @Nonnull TypeOfText typeOfText) {
+            return highlight(range.start().line(), range.start().lineOffset(), range.end().line(), range.end().lineOffset(), typeOfText);
+        }
+
+        @Override
+        @Nonnull
+        public NewHighlighting highlight(int startLine, int startLineOffset, int endLine, int endLineOffset, @Nonnull TypeOfText typeOfText) {
+            highlights.add(new Highlight(startLine, startLineOffset, endLine, endLineOffset, typeOfText));
+            return this;
+        }
+
+        @Override
+        public void save() {
+            // Highlights are saved on the sensor context by ProcessedTokens.saveOn
+        }
+    }
+
+    private static final class RecordedCpdTokens implements NewCpdTokens {
+        private final List<CpdToken> tokens = new ArrayList<>();
+
+        @Override
+        @Nonnull
+        public NewCpdTokens onFile(@Nonnull InputFile inputFile) {
+            return this;
+        }
+
+        @Override
+        @Nonnull
+        public NewCpdTokens addToken(@Nonnull TextRange range, @Nonnull String image) {
+            tokens.add(new CpdToken(range, image));
+            return this;
+        }
+
+        @Override
+        @Nonnull
+        public NewCpdTokens addToken(int startLine, int startLineOffset, int endLine, int endLineOffset, @Nonnull String image) {
+            return addToken(TextRangeUtil.fromPosition(startLine, startLineOffset, endLine, endLineOffset), image);
+        }
+
+        @Override
+        public void save() {
+            // Tokens are saved on the sensor context by ProcessedTokens.saveOn
+        }
+    }
+}
@@ -16,50 +16,54 @@
  */
 package dk.ifforsikring.sonarqube.gosu.plugin.measures.metrics;
 
-import dk.ifforsikring.sonarqube.gosu.antlr.GosuLexer;
+import com.google.inject.Inject;
 import dk.ifforsikring.sonarqube.gosu.antlr.GosuParserBaseListener;
+import dk.ifforsikring.sonarqube.gosu.plugin.GosuFileLineData;
 import dk.ifforsikring.sonarqube.gosu.plugin.GosuFileProperties;
+import dk.ifforsikring.sonarqube.gosu.plugin.measures.MeasureCollector;
+import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.measure.Metric;
 import org.sonar.api.batch.sensor.SensorContext;
 
 import java.io.Serializable;
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.Set;
 
 public abstract class BaseMetric extends GosuParserBaseListener {
-    private static final Set<Integer> GOSU_COMPLEXITY_OPERATORS = new HashSet<>(Arrays.asList(
-            GosuLexer.AND,
-            GosuLexer.CONJ,
-            GosuLexer.OR,
-            GosuLexer.DISJ,
-            GosuLexer.BITAND,
-            GosuLexer.BITOR)
-    );
-
     protected final SensorContext context;
     protected final GosuFileProperties gosuFileProperties;
+    @Inject
+    MeasureCollector measureCollector;
 
     protected BaseMetric(SensorContext context, GosuFileProperties gosuFileProperties) {
         this.context = context;
         this.gosuFileProperties = gosuFileProperties;
     }
 
-    public static boolean isComplexityOperator(int type) {
-        return GOSU_COMPLEXITY_OPERATORS.contains(type);
+    /**
+     * @return Whether the measures of the metrics are saved for files of the given type
+     */
+    public static boolean savesMeasuresOn(InputFile.Type type) {
+        return type == InputFile.Type.MAIN;
     }
 
     protected boolean shouldSaveMetric() {
-        return gosuFileProperties.isMainFile();
+        return savesMeasuresOn(gosuFileProperties.getFile().type());
     }
 
     <T extends Serializable> void saveMetricOnContext(Metric<T> metric, T value) {
         if (shouldSaveMetric()) {
-            context.<T>newMeasure()
-                    .withValue(value)
-                    .forMetric(metric)
-                    .on(gosuFileProperties.getFile())
-                    .save();
+            measureCollector.addMeasure(metric, value);
+        }
+    }
+
+    void saveUnitTestClassName(String className) {
+        if (shouldSaveMetric()) {
+            measureCollector.addUnitTestClassName(className);
+        }
+    }
+
+    void saveFileLineData(GosuFileLineData fileLineData) {
+        if (shouldSaveMetric()) {
+            measureCollector.addFileLineData(fileLineData);
         }
     }
 }
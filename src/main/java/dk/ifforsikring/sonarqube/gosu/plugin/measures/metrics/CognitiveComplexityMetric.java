@@ -18,13 +18,10 @@ package dk.ifforsikring.sonarqube.gosu.plugin.measures.metrics;
 
 import com.google.inject.Inject;
 import dk.ifforsikring.sonarqube.gosu.antlr.GosuParser;
-import dk.ifforsikring.sonarqube.gosu.language.utils.GosuUtil;
 import dk.ifforsikring.sonarqube.gosu.plugin.GosuFileProperties;
-import org.antlr.v4.runtime.Token;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.measures.CoreMetrics;
 
-import java.util.List;
 
 /**
  * Implementation base on Sonarqube documentation:
@@ -193,22 +190,9 @@ public class CognitiveComplexityMetric extends BaseMetric {
     }
 
     private void calculateComplexity(GosuParser.ExpressionContext context, int nestedLevel) {
-        int initialComplexity = 1 + nestedLevel;
-        List<Token> tokenList = gosuFileProperties
-                .getTokenStream()
-                .get(context.getStart().getTokenIndex(), GosuUtil.getStopToken(context).getTokenIndex());
-
-        int previousTokenType = 0;
-        for (Token token : tokenList) {
-            if (BaseMetric.isComplexityOperator(token.getType())) {
-                if (previousTokenType != token.getType()) {
-                    initialComplexity++;
-                }
-                previousTokenType = token.getType();
-            }
-        }
-        classComplexity += initialComplexity;
-        methodComplexity += initialComplexity;
+        final int complexity = 1 + nestedLevel + gosuFileProperties.getComplexityOperators().countSequencesIn(context);
+        classComplexity += complexity;
+        methodComplexity += complexity;
     }
 
     private void increaseComplexity(int nestedLevel) {
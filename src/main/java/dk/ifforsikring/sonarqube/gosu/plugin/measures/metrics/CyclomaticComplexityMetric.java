@@ -18,14 +18,10 @@ package dk.ifforsikring.sonarqube.gosu.plugin.measures.metrics;
 
 import com.google.inject.Inject;
 import dk.ifforsikring.sonarqube.gosu.antlr.GosuParser;
-import dk.ifforsikring.sonarqube.gosu.language.utils.GosuUtil;
 import dk.ifforsikring.sonarqube.gosu.plugin.GosuFileProperties;
-import org.antlr.v4.runtime.Token;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.measures.CoreMetrics;
 
-import java.util.List;
-
 public class CyclomaticComplexityMetric extends BaseMetric {
     private int classComplexity;
     private int methodComplexity;
@@ -95,18 +91,8 @@ public class CyclomaticComplexityMetric extends BaseMetric {
     }
 
     private void calculateComplexity(GosuParser.ExpressionContext context) {
-        int initialComplexity = 1;
-
-        List<Token> tokenList = gosuFileProperties
-                .getTokenStream()
-                .get(context.getStart().getTokenIndex(), GosuUtil.getStopToken(context).getTokenIndex());
-
-        for (Token token : tokenList) {
-            if (BaseMetric.isComplexityOperator(token.getType())) {
-                initialComplexity++;
-            }
-        }
-        classComplexity += initialComplexity;
-        methodComplexity += initialComplexity;
+        final int complexity = 1 + gosuFileProperties.getComplexityOperators().countIn(context);
+        classComplexity += complexity;
+        methodComplexity += complexity;
     }
 }
@@ -36,7 +36,7 @@ public class LinesOfCodeMetric extends BaseMetric {
             final GosuFileLineData fileLineData = gosuFileProperties.getFileLineData();
             saveMetricOnContext(CoreMetrics.NCLOC, fileLineData.getNumberOfLinesOfCode());
             saveMetricOnContext(CoreMetrics.COMMENT_LINES, fileLineData.getNumberOfCommentedLines());
-            fileLineData.saveOnContext();
+            saveFileLineData(fileLineData);
         }
     }
 }
@@ -19,24 +19,38 @@ package dk.ifforsikring.sonarqube.gosu.plugin.measures.metrics;
 import com.google.inject.Inject;
 import dk.ifforsikring.sonarqube.gosu.antlr.GosuParser;
 import dk.ifforsikring.sonarqube.gosu.plugin.GosuFileProperties;
+import dk.ifforsikring.sonarqube.gosu.plugin.measures.MeasureCollector;
+import dk.ifforsikring.sonarqube.gosu.plugin.reports.UnitTestReports;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.batch.sensor.SensorContext;
 import org.sonar.api.measures.CoreMetrics;
 import org.sonar.plugins.surefire.data.UnitTestClassReport;
-import org.sonar.plugins.surefire.data.UnitTestIndex;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
 
 public class TestsMetric extends BaseMetric {
 
+    public static final Set<String> METRIC_KEYS = Set.of(
+            CoreMetrics.SKIPPED_TESTS_KEY,
+            CoreMetrics.TESTS_KEY,
+            CoreMetrics.TEST_ERRORS_KEY,
+            CoreMetrics.TEST_FAILURES_KEY,
+            CoreMetrics.TEST_EXECUTION_TIME_KEY
+    );
+
     private static final Logger LOGGER = LoggerFactory.getLogger(TestsMetric.class);
-    private final UnitTestIndex index;
+    private final UnitTestReports unitTestReports;
+    private final List<String> classNames = new ArrayList<>();
 
     private String packageName = "";
 
     @Inject
-    public TestsMetric(SensorContext context, GosuFileProperties gosuFileProperties, UnitTestIndex index) {
+    public TestsMetric(SensorContext context, GosuFileProperties gosuFileProperties, UnitTestReports unitTestReports) {
         super(context, gosuFileProperties);
-        this.index = index;
+        this.unitTestReports = unitTestReports;
     }
 
     @Override
@@ -49,29 +63,46 @@ public class TestsMetric extends BaseMetric {
 
     @Override
     public void exitClassSignature(GosuParser.ClassSignatureContext classSignatureContext) {
-        processReportForClass(classSignatureContext.identifier().getText());
+        classNames.add(packageName + '.' + classSignatureContext.identifier().getText());
+    }
+
+    /**
+     * The reports are looked up once the whole file is parsed, giving them more time to be indexed.
+     */
+    @Override
+    public void exitStart(GosuParser.StartContext ctx) {
+        if (!shouldSaveMetric()) {
+            return;
+        }
+        for (String className : classNames) {
+            saveUnitTestClassName(className);
+            addMeasuresOf(unitTestReports, className, measureCollector);
+        }
     }
 
-    private void processReportForClass(String className) {
-        final UnitTestClassReport unitTestClassReport = index.get(packageName + '.' + className);
+    /**
+     * Adds the test measures of a class, found in the unit test reports, to the collector.
+     */
+    public static void addMeasuresOf(UnitTestReports unitTestReports, String className, MeasureCollector measureCollector) {
+        final UnitTestClassReport unitTestClassReport = unitTestReports.get(className);
         if (unitTestClassReport == null) {
             return;
         }
         if (unitTestClassReport.getTests() > 0) {
-            saveMetrics(unitTestClassReport);
+            addMeasures(unitTestClassReport, measureCollector);
         }
         if (unitTestClassReport.getNegativeTimeTestNumber() > 0) {
             LOGGER.warn("There is {} test(s) reported with negative time by surefire, total duration may not be accurate.", unitTestClassReport.getNegativeTimeTestNumber());
         }
     }
 
-    private void saveMetrics(UnitTestClassReport report) {
+    private static void addMeasures(UnitTestClassReport report, MeasureCollector measureCollector) {
         final int testsCount = report.getTests() - report.getSkipped();
 
-        saveMetricOnContext(CoreMetrics.SKIPPED_TESTS, report.getSkipped());
-        saveMetricOnContext(CoreMetrics.TESTS, testsCount);
-        saveMetricOnContext(CoreMetrics.TEST_ERRORS, report.getErrors());
-        saveMetricOnContext(CoreMetrics.TEST_FAILURES, report.getFailures());
-        saveMetricOnContext(CoreMetrics.TEST_EXECUTION_TIME, report.getDurationMilliseconds());
+        measureCollector.addMeasure(CoreMetrics.SKIPPED_TESTS, report.getSkipped());
+        measureCollector.addMeasure(CoreMetrics.TESTS, testsCount);
+        measureCollector.addMeasure(CoreMetrics.TEST_ERRORS, report.getErrors());
+        measureCollector.addMeasure(CoreMetrics.TEST_FAILURES, report.getFailures());
+        measureCollector.addMeasure(CoreMetrics.TEST_EXECUTION_TIME, report.getDurationMilliseconds());
     }
 }
@@ -18,6 +18,7 @@ package dk.ifforsikring.sonarqube.gosu.plugin.measures.tools;
 
 import dk.ifforsikring.sonarqube.gosu.antlr.GosuLexer;
 import dk.ifforsikring.sonarqube.gosu.plugin.GosuFileProperties;
+import dk.ifforsikring.sonarqube.gosu.plugin.tokens.GosuTokenClasses;
 import dk.ifforsikring.sonarqube.gosu.plugin.utils.TextRangeUtil;
 import org.antlr.v4.runtime.Recognizer;
 import org.antlr.v4.runtime.Token;
@@ -41,15 +42,6 @@ public final class GosuHighlighting {
             case GosuLexer.COMMENT:
                 addHighlighting(token, TypeOfText.STRUCTURED_COMMENT, highlighting);
                 break;
-            case GosuLexer.OPEN_STRING_DQ:
-            case GosuLexer.OPEN_STRING_SQ:
-            case GosuLexer.CLOSE_STRING_DQ:
-            case GosuLexer.CLOSE_STRING_SQ:
-            case GosuLexer.DQ_TEXT:
-            case GosuLexer.SQ_TEXT:
-            case GosuLexer.CHAR_LITERAL:
-                addHighlighting(token, TypeOfText.STRING, highlighting);
-                break;
             case GosuLexer.NumberLiteral:
                 addHighlighting(token, TypeOfText.CONSTANT, highlighting);
                 break;
@@ -61,7 +53,9 @@ public final class GosuHighlighting {
                 addHighlighting(token, TypeOfText.KEYWORD, highlighting);
                 break;
             default:
-                if (token.getType() < GosuLexer.LPAREN) {
+                if (GosuTokenClasses.isLiteral(token.getType())) {
+                    addHighlighting(token, TypeOfText.STRING, highlighting);
+                } else if (GosuTokenClasses.isKeyword(token.getType())) {
                     addHighlighting(token, TypeOfText.KEYWORD, highlighting);
                 }
         }
@@ -0,0 +1,125 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.parser;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CodePointBuffer;
+import org.antlr.v4.runtime.CodePointCharStream;
+import org.sonar.api.batch.fs.InputFile;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CodingErrorAction;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Creates the character streams lexed from input files, decoded with the charset of the files.
+ * <p>
+ * Files read from the disk are memory-mapped when they are large enough for it to be cheaper than reading them.
+ * The stream keeps the code points in the smallest of the representations of {@link CodePointBuffer}: one byte per
+ * code point when the file only holds Latin-1 characters, one char when it only holds characters of the basic
+ * multilingual plane, an int otherwise. Files in Latin-1, or in ASCII, are not decoded at all.
+ */
+public final class GosuCharStreams {
+    static final int MIN_MAPPED_SIZE = 16 * 1024;
+
+    private static final char BYTE_ORDER_MARK = '\uFEFF';
+
+    private GosuCharStreams() {
+    }
+
+    /**
+     * @param readFromDisk Whether the contents of the file are the ones on the disk, so it can be mapped,
+     *                     unlike the contents of an editor given to SonarLint
+     */
+    public static CharStream of(InputFile inputFile, boolean readFromDisk) throws IOException {
+        final Charset charset = inputFile.charset() != null ? inputFile.charset() : StandardCharsets.UTF_8;
+        final ByteBuffer bytes = readFromDisk && inputFile.isFile() ? read(Path.of(inputFile.uri())) : read(inputFile);
+        return CodePointCharStream.fromBuffer(codePointsOf(bytes, charset), inputFile.filename());
+    }
+
+    static CodePointBuffer codePointsOf(ByteBuffer bytes, Charset charset) throws CharacterCodingException {
+        if (isLatin1(bytes, charset)) {
+            return CodePointBuffer.withBytes(ByteBuffer.wrap(arrayOf(bytes)));
+        }
+
+        final CharBuffer chars = charset.newDecoder()
+                .onMalformedInput(CodingErrorAction.REPLACE)
+                .onUnmappableCharacter(CodingErrorAction.REPLACE)
+                .decode(bytes);
+        if (chars.hasRemaining() && chars.get(chars.position()) == BYTE_ORDER_MARK) {
+            chars.position(chars.position() + 1);
+        }
+        final CodePointBuffer.Builder codePoints = CodePointBuffer.builder(chars.remaining());
+        codePoints.append(chars);
+        return codePoints.build();
+    }
+
+    /**
+     * @return Whether every byte is the Latin-1 code point of the character it encodes
+     */
+    private static boolean isLatin1(ByteBuffer bytes, Charset charset) {
+        if (charset.equals(StandardCharsets.ISO_8859_1)) {
+            return true;
+        }
+        if (!charset.equals(StandardCharsets.UTF_8) && !charset.equals(StandardCharsets.US_ASCII)) {
+            return false;
+        }
+        for (int i = bytes.position(); i < bytes.limit(); i++) {
+            if (bytes.get(i) < 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static byte[] arrayOf(ByteBuffer bytes) {
+        if (bytes.hasArray() && bytes.arrayOffset() == 0 && bytes.position() == 0 && bytes.remaining() == bytes.array().length) {
+            return bytes.array();
+        }
+        final byte[] array = new byte[bytes.remaining()];
+        bytes.duplicate().get(array);
+        return array;
+    }
+
+    private static ByteBuffer read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            final long size = channel.size();
+            if (size >= MIN_MAPPED_SIZE) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+            }
+            final ByteBuffer bytes = ByteBuffer.allocate((int) size);
+            while (bytes.hasRemaining() && channel.read(bytes) >= 0) {
+                // reads until the buffer is full or the file ends
+            }
+            return bytes.flip();
+        }
+    }
+
+    private static ByteBuffer read(InputFile inputFile) throws IOException {
+        try (InputStream stream = inputFile.inputStream()) {
+            return ByteBuffer.wrap(stream.readAllBytes());
+        }
+    }
+}
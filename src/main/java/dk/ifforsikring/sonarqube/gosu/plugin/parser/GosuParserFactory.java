@@ -0,0 +1,160 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.parser;
+
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuLexer;
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuParser;
+import dk.ifforsikring.sonarqube.gosu.plugin.GosuPluginException;
+import dk.ifforsikring.sonarqube.gosu.plugin.tokens.GosuTokenStream;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.TokenStream;
+import org.antlr.v4.runtime.atn.ATN;
+import org.antlr.v4.runtime.atn.LexerATNSimulator;
+import org.antlr.v4.runtime.atn.ParserATNSimulator;
+import org.antlr.v4.runtime.atn.PredictionContextCache;
+import org.antlr.v4.runtime.dfa.DFA;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Creates Gosu lexers and parsers sharing the same ATN prediction caches (DFA and {@link PredictionContextCache}).
+ * <p>
+ * The caches are owned by the factory, so they can be warmed up once when the analysis starts and
+ * replaced by empty ones when they hold more DFA states than allowed.
+ * Lexers and parsers still running keep the caches they were created with, which makes the replacement
+ * safe while other threads are parsing. ANTLR synchronizes the updates of shared caches.
+ */
+public final class GosuParserFactory {
+    public static final int UNBOUNDED = 0;
+
+    private static final Logger LOG = LoggerFactory.getLogger(GosuParserFactory.class);
+    private static final String WARM_UP_RESOURCE = "/parser/WarmUp.gs";
+    private static final GosuParserFactory SHARED = new GosuParserFactory(UNBOUNDED);
+
+    private final int maxDfaStates;
+    private final AtomicReference<PredictionCaches> caches = new AtomicReference<>(new PredictionCaches());
+
+    private GosuParserFactory(int maxDfaStates) {
+        this.maxDfaStates = maxDfaStates;
+    }
+
+    /**
+     * @return Factory shared by the whole JVM, with caches that are never cleared
+     */
+    public static GosuParserFactory shared() {
+        return SHARED;
+    }
+
+    /**
+     * @param maxDfaStates Number of DFA states above which the caches are cleared, {@link #UNBOUNDED} to never clear them
+     * @return Factory with its own, empty, caches
+     */
+    public static GosuParserFactory withMaxDfaStates(int maxDfaStates) {
+        return new GosuParserFactory(maxDfaStates);
+    }
+
+    public GosuLexer createLexer(CharStream input) {
+        final PredictionCaches current = caches.get();
+        final GosuLexer lexer = new GosuLexer(input);
+        lexer.setInterpreter(new LexerATNSimulator(lexer, GosuLexer._ATN, current.lexerDecisionToDFA, current.lexerContextCache));
+        return lexer;
+    }
+
+    public GosuParser createParser(TokenStream tokenStream) {
+        final PredictionCaches current = caches.get();
+        final GosuParser parser = new GosuParser(tokenStream);
+        parser.setInterpreter(new ParserATNSimulator(parser, GosuParser._ATN, current.parserDecisionToDFA, current.parserContextCache));
+        return parser;
+    }
+
+    /**
+     * Parses a sample covering most of the Gosu grammar, so the first analysed files do not pay for building the DFA.
+     */
+    public void warmUp() {
+        final long start = System.nanoTime();
+
+        try (InputStream warmUpSource = GosuParserFactory.class.getResourceAsStream(WARM_UP_RESOURCE)) {
+            if (warmUpSource == null) {
+                throw new IOException("Resource not found: " + WARM_UP_RESOURCE);
+            }
+            final GosuLexer lexer = createLexer(CharStreams.fromStream(warmUpSource));
+            lexer.removeErrorListeners();
+            final GosuParser parser = createParser(new GosuTokenStream(lexer));
+            parser.removeErrorListeners();
+            parser.start();
+        } catch (IOException e) {
+            throw new GosuPluginException("Unable to warm up the Gosu parser", e);
+        }
+
+        LOG.debug("Gosu parser warmed up in {} ms with {} DFA states",
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start), getDfaStateCount());
+    }
+
+    /**
+     * Replaces the caches by empty ones when they hold more DFA states than allowed.
+     */
+    public void clearIfTooLarge() {
+        if (maxDfaStates == UNBOUNDED) {
+            return;
+        }
+
+        final PredictionCaches current = caches.get();
+        final int dfaStates = current.getDfaStateCount();
+        if (dfaStates > maxDfaStates && caches.compareAndSet(current, new PredictionCaches())) {
+            LOG.info("Gosu parser caches cleared after reaching {} DFA states", dfaStates);
+        }
+    }
+
+    public int getDfaStateCount() {
+        return caches.get().getDfaStateCount();
+    }
+
+    private static final class PredictionCaches {
+        private final DFA[] lexerDecisionToDFA = createDecisionToDFA(GosuLexer._ATN);
+        private final PredictionContextCache lexerContextCache = new PredictionContextCache();
+        private final DFA[] parserDecisionToDFA = createDecisionToDFA(GosuParser._ATN);
+        private final PredictionContextCache parserContextCache = new PredictionContextCache();
+
+        private static DFA[] createDecisionToDFA(ATN atn) {
+            final DFA[] decisionToDFA = new DFA[atn.getNumberOfDecisions()];
+            for (int decision = 0; decision < decisionToDFA.length; decision++) {
+                decisionToDFA[decision] = new DFA(atn.getDecisionState(decision), decision);
+            }
+            return decisionToDFA;
+        }
+
+        private int getDfaStateCount() {
+            return countStates(lexerDecisionToDFA) + countStates(parserDecisionToDFA);
+        }
+
+        private static int countStates(DFA[] decisionToDFA) {
+            int states = 0;
+            for (DFA dfa : decisionToDFA) {
+                synchronized (dfa.states) {
+                    states += dfa.states.size();
+                }
+            }
+            return states;
+        }
+    }
+}
@@ -0,0 +1,84 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.parser;
+
+import org.antlr.v4.runtime.BailErrorStrategy;
+import org.antlr.v4.runtime.DefaultErrorStrategy;
+import org.antlr.v4.runtime.Parser;
+import org.antlr.v4.runtime.RecognitionException;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.atn.PredictionMode;
+
+import java.util.List;
+
+/**
+ * Prediction modes the parser goes through until one of them parses the file.
+ * <p>
+ * Every mode but the last one bails out on the first syntax error, so the file can be parsed again
+ * with the next mode. The last mode recovers from syntax errors and reports them.
+ * {@link PredictionMode#SLL} is much faster than {@link PredictionMode#LL} and only fails on
+ * files with syntax errors or on the rare constructs needing full context.
+ */
+public enum ParsingStrategy {
+    LL(PredictionMode.LL),
+    SLL_THEN_LL(PredictionMode.SLL, PredictionMode.LL);
+
+    private final List<PredictionMode> predictionModes;
+
+    ParsingStrategy(PredictionMode... predictionModes) {
+        this.predictionModes = List.of(predictionModes);
+    }
+
+    public List<PredictionMode> getPredictionModes() {
+        return predictionModes;
+    }
+
+    /**
+     * Prepares the parser for the given attempt and rewinds its input.
+     *
+     * @param parser  Parser to configure
+     * @param attempt Index of the prediction mode to use
+     */
+    public void configure(Parser parser, int attempt) {
+        parser.getInterpreter().setPredictionMode(predictionModes.get(attempt));
+        parser.setErrorHandler(isLastAttempt(attempt) ? new DefaultErrorStrategy() : new DetachingBailErrorStrategy());
+        parser.reset();
+    }
+
+    public boolean isLastAttempt(int attempt) {
+        return attempt == predictionModes.size() - 1;
+    }
+
+    /**
+     * Removes the parse listeners before bailing out. Otherwise the parser notifies them of every rule
+     * it unwinds, with contexts left incomplete by the syntax error.
+     */
+    private static final class DetachingBailErrorStrategy extends BailErrorStrategy {
+
+        @Override
+        public void recover(Parser recognizer, RecognitionException e) {
+            recognizer.removeParseListeners();
+            super.recover(recognizer, e);
+        }
+
+        @Override
+        public Token recoverInline(Parser recognizer) {
+            recognizer.removeParseListeners();
+            return super.recoverInline(recognizer);
+        }
+    }
+}
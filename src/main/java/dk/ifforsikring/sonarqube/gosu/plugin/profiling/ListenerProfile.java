@@ -0,0 +1,184 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.profiling;
+
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuParserBaseListener;
+import dk.ifforsikring.sonarqube.gosu.plugin.measures.metrics.BaseMetric;
+import dk.ifforsikring.sonarqube.gosu.plugin.rules.BaseGosuRule;
+import org.antlr.v4.runtime.ParserRuleContext;
+
+import java.lang.reflect.Method;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Time, allocated bytes and calls of one listener class, summed over every file of the analysis.
+ */
+public final class ListenerProfile {
+    private static final String ENTER = "enter";
+    private static final String EXIT = "exit";
+    private static final String VISIT_TERMINAL = "visitTerminal";
+    private static final String VISIT_ERROR_NODE = "visitErrorNode";
+    private static final String CONTEXT_SUFFIX = "Context";
+
+    private final String name;
+    private final Kind kind;
+    private final Set<String> implementedCallbacks;
+    private final LongAdder timeNanos = new LongAdder();
+    private final LongAdder allocatedBytes = new LongAdder();
+    private final LongAdder calls = new LongAdder();
+    private final ConcurrentMap<Class<?>, RuleCalls> ruleCalls = new ConcurrentHashMap<>();
+    private final LongAdder terminalCalls = new LongAdder();
+    private final LongAdder errorNodeCalls = new LongAdder();
+
+    private ListenerProfile(String name, Kind kind, Set<String> implementedCallbacks) {
+        this.name = name;
+        this.kind = kind;
+        this.implementedCallbacks = implementedCallbacks;
+    }
+
+    static ListenerProfile of(Class<?> listenerClass) {
+        return new ListenerProfile(listenerClass.getSimpleName(), Kind.of(listenerClass), implementedCallbacksOf(listenerClass));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public long getTimeNanos() {
+        return timeNanos.sum();
+    }
+
+    /**
+     * @return Bytes allocated by the listener, 0 when the JVM can not measure them
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes.sum();
+    }
+
+    /**
+     * @return Number of parser events forwarded to the listener
+     */
+    public long getCalls() {
+        return calls.sum();
+    }
+
+    /**
+     * @return Calls of the callbacks the listener implements, the most called first
+     */
+    public Map<String, Long> getCallbackCalls() {
+        final Map<String, Long> sorted = new LinkedHashMap<>();
+        collectCallbackCalls().entrySet().stream()
+                .sorted(Map.Entry.<String, Long>comparingByValue(Comparator.reverseOrder()).thenComparing(Map.Entry.comparingByKey()))
+                .forEach(entry -> sorted.put(entry.getKey(), entry.getValue()));
+        return sorted;
+    }
+
+    void record(long nanos, long bytes) {
+        timeNanos.add(nanos);
+        allocatedBytes.add(bytes);
+        calls.increment();
+    }
+
+    void countEnter(Class<? extends ParserRuleContext> contextClass) {
+        ruleCallsOf(contextClass).enter.increment();
+    }
+
+    void countExit(Class<? extends ParserRuleContext> contextClass) {
+        ruleCallsOf(contextClass).exit.increment();
+    }
+
+    void countTerminal() {
+        terminalCalls.increment();
+    }
+
+    void countErrorNode() {
+        errorNodeCalls.increment();
+    }
+
+    private RuleCalls ruleCallsOf(Class<? extends ParserRuleContext> contextClass) {
+        final RuleCalls calls = ruleCalls.get(contextClass);
+        return calls != null ? calls : ruleCalls.computeIfAbsent(contextClass, RuleCalls::new);
+    }
+
+    private Map<String, Long> collectCallbackCalls() {
+        final Map<String, Long> callbackCalls = new LinkedHashMap<>();
+        for (RuleCalls calls : ruleCalls.values()) {
+            putIfImplemented(callbackCalls, calls.enterCallback, calls.enter.sum());
+            putIfImplemented(callbackCalls, calls.exitCallback, calls.exit.sum());
+        }
+        putIfImplemented(callbackCalls, VISIT_TERMINAL, terminalCalls.sum());
+        putIfImplemented(callbackCalls, VISIT_ERROR_NODE, errorNodeCalls.sum());
+        return callbackCalls;
+    }
+
+    private void putIfImplemented(Map<String, Long> callbackCalls, String callback, long count) {
+        if (count > 0 && implementedCallbacks.contains(callback)) {
+            callbackCalls.put(callback, count);
+        }
+    }
+
+    private static Set<String> implementedCallbacksOf(Class<?> listenerClass) {
+        final Set<String> callbacks = new HashSet<>();
+        for (Class<?> clazz = listenerClass; clazz != null && clazz != GosuParserBaseListener.class && clazz != Object.class; clazz = clazz.getSuperclass()) {
+            for (Method method : clazz.getDeclaredMethods()) {
+                final String methodName = method.getName();
+                if (methodName.startsWith(ENTER) || methodName.startsWith(EXIT)
+                        || VISIT_TERMINAL.equals(methodName) || VISIT_ERROR_NODE.equals(methodName)) {
+                    callbacks.add(methodName);
+                }
+            }
+        }
+        return Set.copyOf(callbacks);
+    }
+
+    public enum Kind {
+        RULE, METRIC, LISTENER;
+
+        private static Kind of(Class<?> listenerClass) {
+            if (BaseGosuRule.class.isAssignableFrom(listenerClass)) return RULE;
+            if (BaseMetric.class.isAssignableFrom(listenerClass)) return METRIC;
+            return LISTENER;
+        }
+    }
+
+    private static final class RuleCalls {
+        private final String enterCallback;
+        private final String exitCallback;
+        private final LongAdder enter = new LongAdder();
+        private final LongAdder exit = new LongAdder();
+
+        private RuleCalls(Class<?> contextClass) {
+            final String simpleName = contextClass.getSimpleName();
+            final String ruleName = simpleName.endsWith(CONTEXT_SUFFIX)
+                    ? simpleName.substring(0, simpleName.length() - CONTEXT_SUFFIX.length())
+                    : simpleName;
+            this.enterCallback = ENTER + ruleName;
+            this.exitCallback = EXIT + ruleName;
+        }
+    }
+}
@@ -0,0 +1,173 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.profiling;
+
+import dk.ifforsikring.sonarqube.gosu.language.GosuLangProperties;
+import dk.ifforsikring.sonarqube.gosu.plugin.utils.FileSystemUtil;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.sonar.api.batch.fs.FileSystem;
+import org.sonar.api.config.Configuration;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Opt-in profiling of the rules, metrics and listeners registered on the parser, enabled by the
+ * {@value GosuLangProperties#PROFILE_KEY} property.
+ * <p>
+ * Profiles are summed per listener class over every file of the analysis, from any number of threads,
+ * and reported once the analysis is over.
+ */
+public final class ListenerProfiler {
+    public static final String REPORT_FILE = "gosu-profile.json";
+
+    private static final Logger LOG = LoggerFactory.getLogger(ListenerProfiler.class);
+    private static final double NANOS_PER_MILLI = 1_000_000d;
+    private static final ListenerProfiler DISABLED = new ListenerProfiler(false);
+
+    private final boolean enabled;
+    private final ConcurrentMap<Class<?>, ListenerProfile> profiles = new ConcurrentHashMap<>();
+
+    private ListenerProfiler(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    public static ListenerProfiler create(Configuration configuration) {
+        return configuration.getBoolean(GosuLangProperties.PROFILE_KEY).orElse(GosuLangProperties.PROFILE_DEFAULT_VALUE)
+                ? enabled()
+                : disabled();
+    }
+
+    public static ListenerProfiler enabled() {
+        return new ListenerProfiler(true);
+    }
+
+    public static ListenerProfiler disabled() {
+        return DISABLED;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * @return Listener recording the cost of the given one when profiling is enabled, the given listener otherwise
+     */
+    public ParseTreeListener profile(ParseTreeListener listener) {
+        if (!enabled) {
+            return listener;
+        }
+        return new ProfilingListener(listener, profiles.computeIfAbsent(listener.getClass(), ListenerProfile::of));
+    }
+
+    /**
+     * @return Profiles of every listener, the most time consuming first
+     */
+    public List<ListenerProfile> getProfiles() {
+        return profiles.values().stream()
+                .sorted(Comparator.comparingLong(ListenerProfile::getTimeNanos).reversed()
+                        .thenComparing(ListenerProfile::getName))
+                .toList();
+    }
+
+    /**
+     * Logs the profiles and writes them as JSON in the working directory of the scanner.
+     */
+    public void report(FileSystem fileSystem) {
+        if (!enabled) {
+            return;
+        }
+
+        final List<ListenerProfile> sortedProfiles = getProfiles();
+        LOG.info("Gosu rules and metrics profile, the most time consuming first:{}", summaryOf(sortedProfiles));
+        FileSystemUtil.workDirOf(fileSystem)
+                .map(workDir -> workDir.toPath().resolve(REPORT_FILE))
+                .ifPresent(reportFile -> write(reportFile, sortedProfiles));
+    }
+
+    private static String summaryOf(List<ListenerProfile> sortedProfiles) {
+        final StringBuilder summary = new StringBuilder();
+        for (ListenerProfile profile : sortedProfiles) {
+            summary.append(System.lineSeparator())
+                    .append(String.format("  %-40s %-8s %10.1f ms %12d calls", profile.getName(), profile.getKind(),
+                            profile.getTimeNanos() / NANOS_PER_MILLI, profile.getCalls()));
+            if (AllocationMeter.isSupported()) {
+                summary.append(String.format(" %10d KB allocated", profile.getAllocatedBytes() / 1024));
+            }
+        }
+        return summary.toString();
+    }
+
+    private static void write(Path reportFile, List<ListenerProfile> sortedProfiles) {
+        try {
+            Files.writeString(reportFile, toJson(sortedProfiles), StandardCharsets.UTF_8);
+            LOG.info("Gosu rules and metrics profile written to {}", reportFile);
+        } catch (IOException e) {
+            LOG.warn("Unable to write the Gosu rules and metrics profile to {}", reportFile, e);
+        }
+    }
+
+    static String toJson(List<ListenerProfile> sortedProfiles) {
+        final StringBuilder json = new StringBuilder("{\n  \"allocationMeasured\": ")
+                .append(AllocationMeter.isSupported())
+                .append(",\n  \"listeners\": [");
+        for (int i = 0; i < sortedProfiles.size(); i++) {
+            final ListenerProfile profile = sortedProfiles.get(i);
+            json.append(i == 0 ? "\n" : ",\n")
+                    .append("    {\"name\": ").append(quote(profile.getName()))
+                    .append(", \"kind\": ").append(quote(profile.getKind().name()))
+                    .append(", \"timeNanos\": ").append(profile.getTimeNanos())
+                    .append(", \"allocatedBytes\": ").append(profile.getAllocatedBytes())
+                    .append(", \"calls\": ").append(profile.getCalls())
+                    .append(", \"callbacks\": {");
+            appendCallbacks(json, profile.getCallbackCalls());
+            json.append("}}");
+        }
+        return json.append("\n  ]\n}\n").toString();
+    }
+
+    private static void appendCallbacks(StringBuilder json, Map<String, Long> callbackCalls) {
+        String separator = "";
+        for (Map.Entry<String, Long> callback : callbackCalls.entrySet()) {
+            json.append(separator).append(quote(callback.getKey())).append(": ").append(callback.getValue());
+            separator = ", ";
+        }
+    }
+
+    private static String quote(String value) {
+        final StringBuilder quoted = new StringBuilder("\"");
+        for (char c : value.toCharArray()) {
+            if (c == '"' || c == '\\') {
+                quoted.append('\\').append(c);
+            } else if (c < 0x20) {
+                quoted.append(String.format("\\u%04x", (int) c));
+            } else {
+                quoted.append(c);
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.profiling;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ErrorNode;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.antlr.v4.runtime.tree.TerminalNode;
+
+/**
+ * Forwards the parser events to a listener and records the time and bytes it spends on each of them.
+ * <p>
+ * The parser only calls the rule specific callbacks of {@code GosuParserListener} instances,
+ * so this listener calls them on the wrapped listener itself.
+ */
+final class ProfilingListener implements ParseTreeListener {
+    private final ParseTreeListener listener;
+    private final ListenerProfile profile;
+
+    ProfilingListener(ParseTreeListener listener, ListenerProfile profile) {
+        this.listener = listener;
+        this.profile = profile;
+    }
+
+    @Override
+    public void enterEveryRule(ParserRuleContext ctx) {
+        final long allocatedBytes = AllocationMeter.currentThreadAllocatedBytes();
+        final long start = System.nanoTime();
+        try {
+            listener.enterEveryRule(ctx);
+            ctx.enterRule(listener);
+        } finally {
+            profile.record(System.nanoTime() - start, AllocationMeter.currentThreadAllocatedBytes() - allocatedBytes);
+            profile.countEnter(ctx.getClass());
+        }
+    }
+
+    @Override
+    public void exitEveryRule(ParserRuleContext ctx) {
+        final long allocatedBytes = AllocationMeter.currentThreadAllocatedBytes();
+        final long start = System.nanoTime();
+        try {
+            ctx.exitRule(listener);
+            listener.exitEveryRule(ctx);
+        } finally {
+            profile.record(System.nanoTime() - start, AllocationMeter.currentThreadAllocatedBytes() - allocatedBytes);
+            profile.countExit(ctx.getClass());
+        }
+    }
+
+    @Override
+    public void visitTerminal(TerminalNode node) {
+        final long allocatedBytes = AllocationMeter.currentThreadAllocatedBytes();
+        final long start = System.nanoTime();
+        try {
+            listener.visitTerminal(node);
+        } finally {
+            profile.record(System.nanoTime() - start, AllocationMeter.currentThreadAllocatedBytes() - allocatedBytes);
+            profile.countTerminal();
+        }
+    }
+
+    @Override
+    public void visitErrorNode(ErrorNode node) {
+        final long allocatedBytes = AllocationMeter.currentThreadAllocatedBytes();
+        final long start = System.nanoTime();
+        try {
+            listener.visitErrorNode(node);
+        } finally {
+            profile.record(System.nanoTime() - start, AllocationMeter.currentThreadAllocatedBytes() - allocatedBytes);
+            profile.countErrorNode();
+        }
+    }
+}
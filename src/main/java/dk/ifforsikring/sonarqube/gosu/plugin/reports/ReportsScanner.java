@@ -22,17 +22,22 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.api.config.Configuration;
 import org.sonar.plugins.surefire.StaxParser;
+import org.sonar.plugins.surefire.data.UnitTestClassReport;
 import org.sonar.plugins.surefire.data.UnitTestIndex;
 
 import javax.xml.stream.XMLStreamException;
 import java.io.File;
 import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 public class ReportsScanner {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(ReportsScanner.class);
+    private static final String REPORT_PREFIX = "TEST-";
+    private static final String REPORT_SUFFIX = ".xml";
     private final Configuration settings;
     private UnitTestIndex index;
 
@@ -41,8 +46,18 @@ public class ReportsScanner {
     }
 
     public UnitTestIndex createIndex(List<File> reportsDirs) {
+        return createIndex(reportsDirs, simpleClassName -> true);
+    }
+
+    /**
+     * Only parses the {@code TEST-<class name>.xml} reports of the classes with an accepted simple name.
+     * Reports of test suites, and reports named after something else than a class, are always parsed.
+     */
+    public UnitTestIndex createIndex(List<File> reportsDirs, Predicate<String> isReportedClass) {
         index = new UnitTestIndex();
-        final List<File> xmlFiles = getReports(reportsDirs, settings.hasKey(ReportsDirectories.REPORT_PATHS_PROPERTY));
+        final List<File> xmlFiles = getReports(reportsDirs, settings.hasKey(ReportsDirectories.REPORT_PATHS_PROPERTY)).stream()
+                .filter(report -> isReportOf(report, isReportedClass))
+                .toList();
         if (!xmlFiles.isEmpty()) {
             parseFiles(xmlFiles);
         }
@@ -64,7 +79,7 @@ public class ReportsScanner {
             }
             return new File[0];
         }
-        File[] unitTestResultFiles = findXMLFilesStartingWith(dir, "TEST-");
+        File[] unitTestResultFiles = findXMLFilesStartingWith(dir, REPORT_PREFIX);
         if (unitTestResultFiles.length == 0) {
             // case if there's only a test suite result file
             unitTestResultFiles = findXMLFilesStartingWith(dir, "TESTS-");
@@ -76,7 +91,18 @@ public class ReportsScanner {
     }
 
     private File[] findXMLFilesStartingWith(File dir, final String fileNameStart) {
-        return dir.listFiles((parentDir, name) -> name.startsWith(fileNameStart) && name.endsWith(".xml"));
+        return dir.listFiles((parentDir, name) -> name.startsWith(fileNameStart) && name.endsWith(REPORT_SUFFIX));
+    }
+
+    private static boolean isReportOf(File report, Predicate<String> isReportedClass) {
+        final String name = report.getName();
+        if (!name.startsWith(REPORT_PREFIX)) {
+            return true;
+        }
+        final String className = StringUtils.substringBefore(
+                name.substring(REPORT_PREFIX.length(), name.length() - REPORT_SUFFIX.length()), "$");
+        final String simpleClassName = StringUtils.substringAfterLast(className, ".");
+        return simpleClassName.isEmpty() || isReportedClass.test(simpleClassName);
     }
 
     private void parseFiles(List<File> reports) {
@@ -84,17 +110,30 @@ public class ReportsScanner {
         sanitize();
     }
 
+    /**
+     * Parses every report into its own index in parallel, and merges them in the order of the reports.
+     */
     private void parseReports(List<File> reports) {
-        StaxParser parser = new StaxParser(index);
-        for (File report : reports) {
-            try {
-                parser.parse(report);
-            } catch (XMLStreamException e) {
-                LOGGER.error("Fail to parse the junit test report: {}", report, e);
+        final List<UnitTestIndex> reportIndexes = reports.parallelStream()
+                .map(ReportsScanner::parseReport)
+                .toList();
+        for (UnitTestIndex reportIndex : reportIndexes) {
+            for (Map.Entry<String, UnitTestClassReport> classReport : reportIndex.getIndexByClassname().entrySet()) {
+                index.index(classReport.getKey()).add(classReport.getValue());
             }
         }
     }
 
+    private static UnitTestIndex parseReport(File report) {
+        final UnitTestIndex reportIndex = new UnitTestIndex();
+        try {
+            new StaxParser(reportIndex).parse(report);
+        } catch (XMLStreamException e) {
+            LOGGER.error("Fail to parse the junit test report: {}", report, e);
+        }
+        return reportIndex;
+    }
+
     private void sanitize() {
         for (String classname : index.getClassnames()) {
             if (Strings.CS.contains(classname, "$")) {
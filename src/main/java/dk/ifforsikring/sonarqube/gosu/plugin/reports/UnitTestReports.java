@@ -0,0 +1,85 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.reports;
+
+import dk.ifforsikring.sonarqube.gosu.plugin.GosuPluginException;
+import org.sonar.plugins.surefire.data.UnitTestClassReport;
+import org.sonar.plugins.surefire.data.UnitTestIndex;
+
+import javax.annotation.CheckForNull;
+import java.io.File;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Unit test reports of the analysed classes, indexed on a background thread while the files are analysed.
+ * Looking up a class waits for the index to be done.
+ */
+public final class UnitTestReports {
+    private final CompletableFuture<UnitTestIndex> index;
+
+    private UnitTestReports(CompletableFuture<UnitTestIndex> index) {
+        this.index = index;
+    }
+
+    public static UnitTestReports of(UnitTestIndex index) {
+        return new UnitTestReports(CompletableFuture.completedFuture(index));
+    }
+
+    public static UnitTestReports empty() {
+        return of(new UnitTestIndex());
+    }
+
+    /**
+     * Starts indexing the reports of the given classes in the reports directories.
+     *
+     * @param simpleClassNames Names, without their package, of the classes the reports are looked up for
+     */
+    public static UnitTestReports scan(ReportsScanner scanner, List<File> reportsDirectories, Set<String> simpleClassNames) {
+        final ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> {
+            final Thread thread = new Thread(runnable, "gosu-unit-test-reports");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            return new UnitTestReports(CompletableFuture.supplyAsync(
+                    () -> scanner.createIndex(reportsDirectories, simpleClassNames::contains), executor));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @CheckForNull
+    public UnitTestClassReport get(String className) {
+        return await().get(className);
+    }
+
+    private UnitTestIndex await() {
+        try {
+            return index.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new GosuPluginException("Indexing the unit test reports was interrupted", e);
+        } catch (ExecutionException e) {
+            throw new GosuPluginException("Indexing the unit test reports failed", e.getCause());
+        }
+    }
+}
@@ -16,10 +16,10 @@
  */
 package dk.ifforsikring.sonarqube.gosu.plugin.rules;
 
-import org.reflections.Reflections;
-import org.sonar.check.Rule;
+import dk.ifforsikring.sonarqube.gosu.plugin.tools.reflections.ClassExtractor;
 
 import java.util.List;
+import java.util.Map;
 
 public enum RuleType {
     BUGS("bugs"),
@@ -43,9 +43,14 @@ public enum RuleType {
     }
 
     public List<String> getRuleKeys() {
-        return new Reflections(getRuleTypePackage())
-                .getSubTypesOf(BaseGosuRule.class)
-                .parallelStream()
-                .map(checkClass -> checkClass.getAnnotation(Rule.class).key()).toList();
+        return ClassExtractor.getRules().entrySet().stream()
+                .filter(rule -> isInRuleTypePackage(rule.getValue()))
+                .map(Map.Entry::getKey)
+                .toList();
+    }
+
+    private boolean isInRuleTypePackage(Class<? extends BaseGosuRule> ruleClass) {
+        final String rulePackage = ruleClass.getPackageName();
+        return rulePackage.equals(getRuleTypePackage()) || rulePackage.startsWith(getRuleTypePackage() + ".");
     }
 }
@@ -16,7 +16,9 @@
  */
 package dk.ifforsikring.sonarqube.gosu.plugin.rules.bugs;
 
+import com.google.inject.Inject;
 import dk.ifforsikring.sonarqube.gosu.antlr.GosuParser;
+import dk.ifforsikring.sonarqube.gosu.plugin.ContextFingerprints;
 import dk.ifforsikring.sonarqube.gosu.plugin.issues.GosuIssue;
 import dk.ifforsikring.sonarqube.gosu.plugin.rules.BaseGosuRule;
 import org.sonar.check.Rule;
@@ -29,7 +31,13 @@ import java.util.Set;
 public class SameConditionsInIfRule extends BaseGosuRule {
     static final String KEY = "SameConditionsInIfRule";
     private int counter;
-    private final HashMap<Integer, Set<String>> ifExpressions = new HashMap<>();
+    private final HashMap<Integer, Set<Long>> ifExpressions = new HashMap<>();
+    private final ContextFingerprints fingerprints;
+
+    @Inject
+    SameConditionsInIfRule(ContextFingerprints fingerprints) {
+        this.fingerprints = fingerprints;
+    }
 
     @Override
     public void enterIfStatement(GosuParser.IfStatementContext ctx) {
@@ -46,7 +54,7 @@ public class SameConditionsInIfRule extends BaseGosuRule {
 
     @Override
     public void exitIfStatement(GosuParser.IfStatementContext ctx) {
-        String condition = ctx.expression().getText();
+        final long condition = fingerprints.fingerprintOf(ctx.expression());
 
         if (!ifExpressions.get(counter).add(condition)) {
             addIssue(new GosuIssue.GosuIssueBuilder(this)
@@ -16,14 +16,24 @@
  */
 package dk.ifforsikring.sonarqube.gosu.plugin.rules.bugs;
 
+import com.google.inject.Inject;
 import dk.ifforsikring.sonarqube.gosu.antlr.GosuParser;
+import dk.ifforsikring.sonarqube.gosu.plugin.ContextFingerprints;
 import dk.ifforsikring.sonarqube.gosu.plugin.issues.GosuIssue;
 import dk.ifforsikring.sonarqube.gosu.plugin.rules.BaseGosuRule;
+import dk.ifforsikring.sonarqube.gosu.plugin.rules.RequiredTokens;
 import org.sonar.check.Rule;
 
 @Rule(key = SystemClockUnawareDateRule.KEY)
+@RequiredTokens(identifiers = {"Date", "now"})
 public class SystemClockUnawareDateRule extends BaseGosuRule {
     static final String KEY = "SystemClockUnawareDateRule";
+    private final ContextFingerprints fingerprints;
+
+    @Inject
+    SystemClockUnawareDateRule(ContextFingerprints fingerprints) {
+        this.fingerprints = fingerprints;
+    }
 
     @Override
     public void exitNewExpression(GosuParser.NewExpressionContext ctx) {
@@ -34,7 +44,7 @@ public class SystemClockUnawareDateRule extends BaseGosuRule {
             return;
         }
 
-        if (constructor.getText().equals("Date") && arguments.argExpression().isEmpty()) {
+        if (fingerprints.hasText(constructor, "Date") && arguments.argExpression().isEmpty()) {
             addIssue(new GosuIssue.GosuIssueBuilder(this)
                     .onContext(ctx)
                     .withMessage("\"Date\" should not be instantiated.")
@@ -43,25 +53,31 @@ public class SystemClockUnawareDateRule extends BaseGosuRule {
     }
 
     @Override
-    public void enterLocalVarStatement(GosuParser.LocalVarStatementContext ctx) {
-        ctx.getText();
-        super.enterLocalVarStatement(ctx);
+    public void exitMemberAccess(GosuParser.MemberAccessContext ctx) {
+        if (ctx.QUESTION() != null || ctx.MUL() != null || !fingerprints.hasText(ctx.expression(0), "LocalDate")) {
+            return;
+        }
+        final GosuParser.IdentifierContext member = memberOf(ctx.expression(1));
+        if (member != null && fingerprints.hasText(member, "now")) {
+            addIssue(new GosuIssue.GosuIssueBuilder(this)
+                    .onContext(member)
+                    .withMessage("\"LocalDate.now()\" should not be instantiated.")
+                    .build());
+        }
     }
 
-    @Override
-    public void exitIdentifier(GosuParser.IdentifierContext ctx) {
-        if (ctx.getText().equals("now")) {
-            try {
-                if (ctx.parent.parent.parent.getText().equals("LocalDate.")) {
-                    addIssue(new GosuIssue.GosuIssueBuilder(this)
-                            .onContext(ctx)
-                            .withMessage("\"LocalDate.now()\" should not be instantiated.")
-                            .build());
-                }
-            } catch (NullPointerException ex) {
-                // there were not enough parent objects.
-            }
+    /**
+     * Identifier the accessed member starts with, e.g. {@code now} of {@code now()}.
+     */
+    private static GosuParser.IdentifierContext memberOf(GosuParser.ExpressionContext expression) {
+        GosuParser.ExpressionContext member = expression;
+        while (member.getChild(0) instanceof GosuParser.ExpressionContext operand) {
+            member = operand;
+        }
+        if (member instanceof GosuParser.PrimaryExpressionContext primaryExpression) {
+            return primaryExpression.primary().identifier();
         }
+        return null;
     }
 
     @Override
@@ -18,11 +18,9 @@ package dk.ifforsikring.sonarqube.gosu.plugin.rules.metrics;
 
 import com.google.inject.Inject;
 import dk.ifforsikring.sonarqube.gosu.antlr.GosuParser;
-import dk.ifforsikring.sonarqube.gosu.language.utils.GosuUtil;
 import dk.ifforsikring.sonarqube.gosu.plugin.GosuFileProperties;
 import dk.ifforsikring.sonarqube.gosu.plugin.issues.GosuIssue;
 import dk.ifforsikring.sonarqube.gosu.plugin.issues.SecondaryIssue;
-import dk.ifforsikring.sonarqube.gosu.plugin.measures.metrics.BaseMetric;
 import dk.ifforsikring.sonarqube.gosu.plugin.measures.metrics.CyclomaticComplexityMetric;
 import dk.ifforsikring.sonarqube.gosu.plugin.rules.BaseGosuRule;
 import org.antlr.v4.runtime.Token;
@@ -151,14 +149,8 @@ public class CyclomaticComplexityRule extends BaseGosuRule {
     }
 
     private void addSecondariesInsideExpression(GosuParser.ExpressionContext context) {
-        List<Token> tokenList = gosuFileProperties
-                .getTokenStream()
-                .get(context.getStart().getTokenIndex(), GosuUtil.getStopToken(context).getTokenIndex());
-
-        for (Token token : tokenList) {
-            if (BaseMetric.isComplexityOperator(token.getType())) {
-                secondaryIssuesList.add(new SecondaryIssue(token, "+1"));
-            }
+        for (Token token : gosuFileProperties.getComplexityOperators().operatorsIn(context)) {
+            secondaryIssuesList.add(new SecondaryIssue(token, "+1"));
         }
     }
 
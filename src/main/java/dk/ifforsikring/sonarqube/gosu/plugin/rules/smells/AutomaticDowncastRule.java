@@ -16,10 +16,13 @@
  */
 package dk.ifforsikring.sonarqube.gosu.plugin.rules.smells;
 
-
+import com.google.inject.Inject;
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuLexer;
 import dk.ifforsikring.sonarqube.gosu.antlr.GosuParser;
+import dk.ifforsikring.sonarqube.gosu.plugin.ContextFingerprints;
 import dk.ifforsikring.sonarqube.gosu.plugin.issues.GosuIssue;
 import dk.ifforsikring.sonarqube.gosu.plugin.rules.BaseGosuRule;
+import dk.ifforsikring.sonarqube.gosu.plugin.rules.RequiredTokens;
 import org.antlr.v4.runtime.ParserRuleContext;
 import org.sonar.check.Rule;
 
@@ -27,24 +30,32 @@ import java.util.HashMap;
 import java.util.Map;
 
 @Rule(key = AutomaticDowncastRule.KEY)
+@RequiredTokens(types = {GosuLexer.TYPEIS, GosuLexer.TYPEOF, GosuLexer.STATICTYPEOF})
 public class AutomaticDowncastRule extends BaseGosuRule {
     static final String KEY = "AutomaticDowncastRule";
-    private final Map<String, String> castedVariables = new HashMap<>();
-    private String ifKey = "";
-    private String switchKey = "";
+    private final Map<Long, Long> castedVariables = new HashMap<>();
+    private final ContextFingerprints fingerprints;
+    private Long ifKey;
+    private Long switchKey;
+
+    @Inject
+    AutomaticDowncastRule(ContextFingerprints fingerprints) {
+        this.fingerprints = fingerprints;
+    }
 
     @Override
     public void exitTypeisExpression(GosuParser.TypeisExpressionContext ctx) {
         GosuParser.ExpressionContext identifier = ctx.expression();
         if (identifier instanceof GosuParser.PrimaryExpressionContext
                 && ctx.getParent() instanceof GosuParser.IfStatementContext) {
-            ifKey = identifier.getText();
-            castedVariables.put(ifKey, ctx.type().getText());
+            ifKey = fingerprints.fingerprintOf(identifier);
+            castedVariables.put(ifKey, fingerprints.fingerprintOf(ctx.type()));
             return;
         }
 
-        if (ifKey.equals(identifier.getText())) {
-            castedVariables.remove(identifier.getText());
+        final long key = fingerprints.fingerprintOf(identifier);
+        if (ifKey != null && ifKey == key) {
+            castedVariables.remove(key);
         }
     }
 
@@ -52,46 +63,46 @@ public class AutomaticDowncastRule extends BaseGosuRule {
     public void exitTypeofExpression(GosuParser.TypeofExpressionContext ctx) {
         if (ctx.getParent() instanceof GosuParser.SwitchStatementContext
                 && ctx.expression() instanceof GosuParser.PrimaryExpressionContext) {
-            switchKey = ctx.expression().getText();
+            switchKey = fingerprints.fingerprintOf(ctx.expression());
         }
     }
 
     @Override
     public void exitCaseOrDefaultStatement(GosuParser.CaseOrDefaultStatementContext ctx) {
-        if (!"".equals(switchKey) && ctx.DEFAULT() == null) {
-            castedVariables.put(switchKey, ctx.expression().getText());
+        if (switchKey != null && ctx.DEFAULT() == null) {
+            castedVariables.put(switchKey, fingerprints.fingerprintOf(ctx.expression()));
         }
     }
 
     @Override
     public void exitSwitchBlockStatement(GosuParser.SwitchBlockStatementContext ctx) {
-        if (!"".equals(switchKey) && !ctx.statement().isEmpty() && !endsWithBreak(ctx)) {
+        if (switchKey != null && !ctx.statement().isEmpty() && !endsWithBreak(ctx)) {
             castedVariables.remove(switchKey);
         }
     }
 
     @Override
     public void exitSwitchStatement(GosuParser.SwitchStatementContext ctx) {
-        switchKey = "";
+        switchKey = null;
     }
 
     @Override
     public void exitIfStatement(GosuParser.IfStatementContext ctx) {
-        castedVariables.remove(ifKey);
-        ifKey = "";
+        if (ifKey != null) {
+            castedVariables.remove(ifKey);
+            ifKey = null;
+        }
     }
 
     @Override
     public void exitAssignStatement(GosuParser.AssignStatementContext ctx) {
-        String key = ctx.expression(0).getText();
-        castedVariables.remove(key);
+        castedVariables.remove(fingerprints.fingerprintOf(ctx.expression(0)));
     }
 
     @Override
     public void exitTypeCastExpression(GosuParser.TypeCastExpressionContext ctx) {
-        String key = ctx.expression(0).getText();
-        String value = ctx.expression(1).getText();
-        if (castedVariables.containsKey(key) && castedVariables.get(key).equals(value)) {
+        final Long castedType = castedVariables.get(fingerprints.fingerprintOf(ctx.expression(0)));
+        if (castedType != null && castedType == fingerprints.fingerprintOf(ctx.expression(1))) {
             createIssue(ctx);
         }
 
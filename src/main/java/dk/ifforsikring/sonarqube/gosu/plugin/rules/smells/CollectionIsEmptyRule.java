@@ -16,7 +16,9 @@
  */
 package dk.ifforsikring.sonarqube.gosu.plugin.rules.smells;
 
+import com.google.inject.Inject;
 import dk.ifforsikring.sonarqube.gosu.antlr.GosuParser;
+import dk.ifforsikring.sonarqube.gosu.plugin.ContextFingerprints;
 import dk.ifforsikring.sonarqube.gosu.plugin.issues.GosuIssue;
 import dk.ifforsikring.sonarqube.gosu.plugin.rules.BaseGosuRule;
 import org.sonar.check.Rule;
@@ -28,6 +30,12 @@ import java.util.List;
 public class CollectionIsEmptyRule extends BaseGosuRule {
     static final String KEY = "CollectionIsEmptyRule";
     private final List<String> countingMethods = Arrays.asList(".getCount()", ".Count", ".size()", ".length", ".length()");
+    private final ContextFingerprints fingerprints;
+
+    @Inject
+    CollectionIsEmptyRule(ContextFingerprints fingerprints) {
+        this.fingerprints = fingerprints;
+    }
 
     @Override
     public void exitRelationalExpression(GosuParser.RelationalExpressionContext ctx) {
@@ -40,8 +48,8 @@ public class CollectionIsEmptyRule extends BaseGosuRule {
         GosuParser.ExpressionContext leftExpression = ctx.expression(0);
         GosuParser.ExpressionContext rightExpression = ctx.expression(1);
 
-        if (("0".equals(leftExpression.getText()) || "0".equals(rightExpression.getText())) &&
-                (endsWithCountMethod(leftExpression.getText()) || endsWithCountMethod(rightExpression.getText()))) {
+        if ((fingerprints.hasText(leftExpression, "0") || fingerprints.hasText(rightExpression, "0")) &&
+                (endsWithCountMethod(fingerprints.textOf(leftExpression)) || endsWithCountMethod(fingerprints.textOf(rightExpression)))) {
             addIssue(new GosuIssue.GosuIssueBuilder(this)
                     .withMessage("Use isEmpty()/Empty to check whether the collection or Query is empty or not.")
                     .onContext(ctx)
@@ -17,15 +17,13 @@
 package dk.ifforsikring.sonarqube.gosu.plugin.rules.smells;
 
 import com.google.inject.Inject;
-import dk.ifforsikring.sonarqube.gosu.antlr.GosuParser;
 import dk.ifforsikring.sonarqube.gosu.plugin.GosuFileProperties;
 import dk.ifforsikring.sonarqube.gosu.plugin.issues.GosuIssue;
 import dk.ifforsikring.sonarqube.gosu.plugin.rules.BaseGosuRule;
+import dk.ifforsikring.sonarqube.gosu.plugin.tokens.TokenPipeline;
 import org.antlr.v4.runtime.Token;
 import org.sonar.check.Rule;
 
-import java.util.List;
-
 @Rule(key = EmptyLineRule.KEY)
 public class EmptyLineRule extends BaseGosuRule {
     static final String KEY = "EmptyLineRule";
@@ -33,20 +31,18 @@ public class EmptyLineRule extends BaseGosuRule {
     private final GosuFileProperties gosuFileProperties;
 
     @Inject
-    EmptyLineRule(GosuFileProperties gosuFileProperties) {
+    EmptyLineRule(GosuFileProperties gosuFileProperties, TokenPipeline tokenPipeline) {
         this.gosuFileProperties = gosuFileProperties;
+        tokenPipeline.register(this::checkEndOfFile, Token.EOF);
     }
 
-    @Override
-    public void exitStart(GosuParser.StartContext ctx) {
-        List<Token> tokens = gosuFileProperties.getTokenStream().getTokens();
-        int lastTokenIndex = tokens.size() - 1;
-        Token eofToken = tokens.get(lastTokenIndex);
-
-        int eofTokenLine = eofToken.getLine();
-        int lastTokenLine = tokens.get(lastTokenIndex - 1).getLine();
+    private void checkEndOfFile(Token eofToken) {
+        if (eofToken.getTokenIndex() == 0) {
+            return;
+        }
+        int lastTokenLine = gosuFileProperties.getToken(eofToken.getTokenIndex() - 1).getLine();
 
-        if (eofTokenLine == lastTokenLine) {
+        if (eofToken.getLine() == lastTokenLine) {
             addIssue(new GosuIssue.GosuIssueBuilder(this)
                     .withMessage("Add a new line at the end of this file.")
                     .build());
@@ -16,18 +16,28 @@
  */
 package dk.ifforsikring.sonarqube.gosu.plugin.rules.smells;
 
+import com.google.inject.Inject;
 import dk.ifforsikring.sonarqube.gosu.antlr.GosuParser;
+import dk.ifforsikring.sonarqube.gosu.plugin.ContextFingerprints;
 import dk.ifforsikring.sonarqube.gosu.plugin.issues.GosuIssue;
 import dk.ifforsikring.sonarqube.gosu.plugin.rules.BaseGosuRule;
+import dk.ifforsikring.sonarqube.gosu.plugin.rules.RequiredTokens;
 import org.sonar.check.Rule;
 
 import java.util.Arrays;
 import java.util.List;
 
 @Rule(key = HardcodedEntityFieldValueRule.KEY)
+@RequiredTokens(identifiers = {"getFieldValue", "setFieldValue"})
 public class HardcodedEntityFieldValueRule extends BaseGosuRule {
     static final String KEY = "HardcodedEntityFieldValueRule";
     private static final List<String> GET_SET_FIELD_METHODS = Arrays.asList("getFieldValue", "setFieldValue");
+    private final ContextFingerprints fingerprints;
+
+    @Inject
+    HardcodedEntityFieldValueRule(ContextFingerprints fingerprints) {
+        this.fingerprints = fingerprints;
+    }
 
     @Override
     public void exitMethodCall(GosuParser.MethodCallContext ctx) {
@@ -37,14 +47,14 @@ public class HardcodedEntityFieldValueRule extends BaseGosuRule {
         }
 
         GosuParser.ExpressionContext expression = ctx.expression();
-        if (GET_SET_FIELD_METHODS.contains(expression.getText())) {
+        if (GET_SET_FIELD_METHODS.stream().anyMatch(method -> fingerprints.hasText(expression, method))) {
             addIssueIfHardcodedString(arguments);
         }
     }
 
     private void addIssueIfHardcodedString(GosuParser.ArgumentsContext arguments) {
         GosuParser.ArgExpressionContext arg = arguments.argExpression(0);
-        if (arg.getText().startsWith("\"")) {
+        if (arg.getStart().getText().startsWith("\"")) {
             addIssue(new GosuIssue.GosuIssueBuilder(this)
                     .withMessage("Hardcoded Strings should not be used to get entity value")
                     .onContext(arg)
@@ -19,6 +19,7 @@ package dk.ifforsikring.sonarqube.gosu.plugin.rules.smells;
 import dk.ifforsikring.sonarqube.gosu.antlr.GosuParser;
 import dk.ifforsikring.sonarqube.gosu.plugin.issues.GosuIssue;
 import dk.ifforsikring.sonarqube.gosu.plugin.rules.BaseGosuRule;
+import dk.ifforsikring.sonarqube.gosu.plugin.rules.RequiredTokens;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.sonar.check.Rule;
@@ -28,6 +29,7 @@ import java.util.regex.Pattern;
 import java.util.regex.PatternSyntaxException;
 
 @Rule(key = LoggerRule.KEY)
+@RequiredTokens(identifiers = "getLogger")
 public class LoggerRule extends BaseGosuRule {
     static final String KEY = "LoggerRule";
     private static final String DEFAULT_LOGGER_REGEX = "LOG(?:GER)?";
@@ -97,10 +97,9 @@ public class MagicNumbersRule extends BaseGosuRule {
 
     @Override
     public void exitNumberLiteral(GosuParser.NumberLiteralContext ctx) {
-        ParserRuleContext statementWithMagicNumber = ctx.getParent()  //literal
-                .getParent()                                          //primary
-                .getParent()                                          //primaryExpression
-                .getParent();
+        ParserRuleContext statementWithMagicNumber = statementOf(ctx.getParent()  //literal
+                .getParent()                                                      //primary
+                .getParent());                                                    //primaryExpression
 
         if (statementWithMagicNumber instanceof GosuParser.LocalVarStatementContext
                 || statementWithMagicNumber instanceof GosuParser.FieldContext
@@ -111,6 +110,17 @@ public class MagicNumbersRule extends BaseGosuRule {
         tryAddIssue(ctx.NumberLiteral().getSymbol());
     }
 
+    /**
+     * The left operand of a binary expression starts the statement it is part of, which already checks the number.
+     */
+    private static ParserRuleContext statementOf(ParserRuleContext expression) {
+        ParserRuleContext operand = expression;
+        while (operand.getParent() instanceof GosuParser.ExpressionContext parent && parent.getChild(0) == operand) {
+            operand = parent;
+        }
+        return operand.getParent();
+    }
+
     private List<String> authorizedNumbers() {
         return Arrays.asList(approvedNumbers.split(","));
     }
@@ -16,7 +16,9 @@
  */
 package dk.ifforsikring.sonarqube.gosu.plugin.rules.smells;
 
+import com.google.inject.Inject;
 import dk.ifforsikring.sonarqube.gosu.antlr.GosuParser;
+import dk.ifforsikring.sonarqube.gosu.plugin.ContextFingerprints;
 import dk.ifforsikring.sonarqube.gosu.plugin.issues.GosuIssue;
 import dk.ifforsikring.sonarqube.gosu.plugin.issues.SecondaryIssue;
 import dk.ifforsikring.sonarqube.gosu.plugin.rules.BaseGosuRule;
@@ -28,16 +30,21 @@ import java.util.List;
 @Rule(key = RethrowInCatchRule.KEY)
 public class RethrowInCatchRule extends BaseGosuRule {
     static final String KEY = "RethrowInCatchRule";
+    private final ContextFingerprints fingerprints;
+
+    @Inject
+    RethrowInCatchRule(ContextFingerprints fingerprints) {
+        this.fingerprints = fingerprints;
+    }
 
     @Override
     public void exitCatchClause(GosuParser.CatchClauseContext ctx) {
         List<GosuParser.StatementContext> statements = ctx.statementBlock().statement();
-        String exception = ctx.identifier().getText();
 
         if (statements.size() == 1) {
             GosuParser.ThrowStatementContext throwStatement = statements.get(0).throwStatement();
 
-            if (throwStatement != null && throwStatement.expression().getText().equals(exception)) {
+            if (throwStatement != null && fingerprints.fingerprintOf(throwStatement.expression()) == fingerprints.fingerprintOf(ctx.identifier())) {
                 final SecondaryIssue secondaryIssue = new SecondaryIssue(throwStatement.THROW(), null);
                 addIssue(new GosuIssue.GosuIssueBuilder(this)
                         .withMessage("\"catch\" clauses should do more than rethrow")
@@ -17,48 +17,33 @@
 package dk.ifforsikring.sonarqube.gosu.plugin.rules.smells;
 
 import com.google.inject.Inject;
-import dk.ifforsikring.sonarqube.gosu.antlr.GosuLexer;
-import dk.ifforsikring.sonarqube.gosu.antlr.GosuParser;
-import dk.ifforsikring.sonarqube.gosu.plugin.GosuFileProperties;
 import dk.ifforsikring.sonarqube.gosu.plugin.issues.GosuIssue;
 import dk.ifforsikring.sonarqube.gosu.plugin.rules.BaseGosuRule;
+import dk.ifforsikring.sonarqube.gosu.plugin.rules.RequiredTokens;
+import dk.ifforsikring.sonarqube.gosu.plugin.tokens.GosuTokenClasses;
+import dk.ifforsikring.sonarqube.gosu.plugin.tokens.TokenPipeline;
 import org.antlr.v4.runtime.Token;
 import org.apache.commons.lang3.Strings;
 import org.sonar.check.Rule;
 
-import java.util.Arrays;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Set;
-
 import static dk.ifforsikring.sonarqube.gosu.plugin.rules.smells.TODOsRule.KEY;
 
 @Rule(key = KEY)
+@RequiredTokens(commentWords = "TODO")
 public class TODOsRule extends BaseGosuRule {
     static final String KEY = "TODOsRule";
-    private final Set<Integer> commentTokens = new HashSet<>(Arrays.asList(GosuLexer.COMMENT, GosuLexer.LINE_COMMENT));
-    private final GosuFileProperties gosuFileProperties;
 
     @Inject
-    TODOsRule(GosuFileProperties gosuFileProperties) {
-        this.gosuFileProperties = gosuFileProperties;
+    TODOsRule(TokenPipeline tokenPipeline) {
+        tokenPipeline.register(this::checkComment, GosuTokenClasses.commentTypes());
     }
 
-    @Override
-    public void exitStart(GosuParser.StartContext ctx) {
-        final List<Token> tokens = gosuFileProperties.getTokenStream()
-                .getTokens()
-                .stream()
-                .filter(token -> commentTokens.contains(token.getType()))
-                .toList();
-
-        for (Token token : tokens) {
-            if (Strings.CI.contains(token.getText(), "TODO")) {
-                addIssue(new GosuIssue.GosuIssueBuilder(this)
-                        .onToken(token)
-                        .withMessage("Complete the task associated to this TODO comment.")
-                        .build());
-            }
+    private void checkComment(Token token) {
+        if (Strings.CI.contains(token.getText(), "TODO")) {
+            addIssue(new GosuIssue.GosuIssueBuilder(this)
+                    .onToken(token)
+                    .withMessage("Complete the task associated to this TODO comment.")
+                    .build());
         }
     }
 
@@ -16,12 +16,13 @@
  */
 package dk.ifforsikring.sonarqube.gosu.plugin.rules.smells;
 
+import com.google.inject.Inject;
 import dk.ifforsikring.sonarqube.gosu.antlr.GosuParser;
 import dk.ifforsikring.sonarqube.gosu.language.statements.UsesStatement;
 import dk.ifforsikring.sonarqube.gosu.plugin.issues.GosuIssue;
 import dk.ifforsikring.sonarqube.gosu.plugin.rules.BaseGosuRule;
+import dk.ifforsikring.sonarqube.gosu.plugin.semantic.SemanticModel;
 import org.antlr.v4.runtime.ParserRuleContext;
-import org.antlr.v4.runtime.tree.ParseTree;
 import org.sonar.check.Rule;
 
 import java.util.*;
@@ -32,62 +33,33 @@ public class UnnecessaryImportRule extends BaseGosuRule {
 
     static final String KEY = "UnnecessaryImportRule";
 
-    private final Set<UsesStatement> allImports = new HashSet<>();
-    private final Set<String> allReferencedClasses = new HashSet<>();
+    private final SemanticModel semanticModel;
 
-    private String currentPackage;
-    private boolean afterUsesStatements = false;
+    @Inject
+    UnnecessaryImportRule(SemanticModel semanticModel) {
+        this.semanticModel = semanticModel;
+    }
 
     @Override
     protected String getKey() {
         return KEY;
     }
 
-    @Override
-    public void exitPackageDeclaration(GosuParser.PackageDeclarationContext context) {
-        currentPackage = context.namespace().getText();
-    }
-
     @Override
     public void exitUsesStatement(GosuParser.UsesStatementContext context) {
         if (isNamespaceAvailable(context)) {
             final UsesStatement usesStatement = new UsesStatement(context);
             checkUnnecessaryImports(usesStatement);
-            allImports.add(usesStatement);
         }
     }
 
-    @Override
-    public void exitUsesFeatureLiteral(GosuParser.UsesFeatureLiteralContext context) {
-        final List<String> staticImportClasses = context.children.stream()
-                .map(ParseTree::getPayload)
-                .filter(ParserRuleContext.class::isInstance)
-                .map(parserRuleContext -> ((ParserRuleContext) parserRuleContext).getText())
-                .toList();
-        allReferencedClasses.addAll(staticImportClasses);
-    }
-
     private boolean isNamespaceAvailable(GosuParser.UsesStatementContext context) {
         return context.namespace() != null;
     }
 
-    @Override
-    public void exitUsesStatementList(GosuParser.UsesStatementListContext ctx) {
-        afterUsesStatements = true;
-    }
-
-    @Override
-    public void exitIdentifier(GosuParser.IdentifierContext identifierContext) {
-        final String identifier = identifierContext.getText();
-
-        if (afterUsesStatements && identifier.matches("[A-Z].*")) {
-            allReferencedClasses.add(identifier);
-        }
-    }
-
     @Override
     public void exitStart(GosuParser.StartContext ctx) {
-        allImports.stream()
+        new HashSet<>(semanticModel.getUsesStatements()).stream()
                 .filter(this::isUnusedImport)
                 .forEach(unusedImport ->
                         addIssueWithMessage("There is unused import of " + unusedImport.getValue() + ".", unusedImport.getContext())
@@ -99,8 +71,17 @@ public class UnnecessaryImportRule extends BaseGosuRule {
                 && isUnreferencedClass(usesStatement);
     }
 
+    /**
+     * Classes are referenced by the capitalized identifiers following the uses statements, or by uses statements of features.
+     */
     private boolean isUnreferencedClass(UsesStatement usesStatement) {
-        return !allReferencedClasses.contains(usesStatement.getClassName());
+        final String className = usesStatement.getClassName();
+        return !semanticModel.getUsesFeatureNames().contains(className)
+                && !(isCapitalized(className) && semanticModel.getFileScope().containsIdentifier(className));
+    }
+
+    private static boolean isCapitalized(String name) {
+        return !name.isEmpty() && name.charAt(0) >= 'A' && name.charAt(0) <= 'Z';
     }
 
     private boolean isNotWildcardImport(UsesStatement usesStatement) {
@@ -123,7 +104,7 @@ public class UnnecessaryImportRule extends BaseGosuRule {
     }
 
     private void checkSamePackageImport(UsesStatement usesStatement) {
-        Objects.requireNonNull(currentPackage);
+        final String currentPackage = Objects.requireNonNull(semanticModel.getPackageName());
 
         if (usesStatement.hasSamePackageAs(currentPackage)) {
             addIssueWithMessage(
@@ -134,7 +115,7 @@ public class UnnecessaryImportRule extends BaseGosuRule {
     }
 
     private void checkDuplicateImport(UsesStatement usesStatement) {
-        if (allImports.contains(usesStatement)) {
+        if (semanticModel.getUsesStatements().contains(usesStatement)) {
             addIssueWithMessage(
                     "Unnecessary import, it is a duplicate.",
                     usesStatement.getContext()
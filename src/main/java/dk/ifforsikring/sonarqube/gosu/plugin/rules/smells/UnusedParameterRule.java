@@ -24,6 +24,9 @@ import dk.ifforsikring.sonarqube.gosu.plugin.GosuFileProperties;
 import dk.ifforsikring.sonarqube.gosu.plugin.issues.GosuIssue;
 import dk.ifforsikring.sonarqube.gosu.plugin.issues.SecondaryIssue;
 import dk.ifforsikring.sonarqube.gosu.plugin.rules.BaseGosuRule;
+import dk.ifforsikring.sonarqube.gosu.plugin.semantic.Declaration;
+import dk.ifforsikring.sonarqube.gosu.plugin.semantic.Scope;
+import dk.ifforsikring.sonarqube.gosu.plugin.semantic.SemanticModel;
 import org.antlr.v4.runtime.Token;
 import org.sonar.check.Rule;
 import org.sonar.check.RuleProperty;
@@ -36,9 +39,8 @@ public class UnusedParameterRule extends BaseGosuRule {
     private static final boolean DEFAULT_ADD_ISSUE_IF_ANNOTATED = false;
     private static final List<String> approvedAnnotations = Arrays.asList("@SuppressWarning(\"unchecked\")", "@SuppressWarning(\"rawtypes\")");
     private final GosuFileProperties gosuFileProperties;
+    private final SemanticModel semanticModel;
     private final Deque<Boolean> isInFinalClass = new ArrayDeque<>();
-    private final Map<Integer, Set<String>> parameters = new HashMap<>();
-    private int nestedLevel = -1;
 
     @RuleProperty(
             key = "Add issue for annotated methods",
@@ -48,8 +50,9 @@ public class UnusedParameterRule extends BaseGosuRule {
     private boolean isCheckingAnnotations = DEFAULT_ADD_ISSUE_IF_ANNOTATED;
 
     @Inject
-    public UnusedParameterRule(GosuFileProperties gosuFileProperties) {
+    public UnusedParameterRule(GosuFileProperties gosuFileProperties, SemanticModel semanticModel) {
         this.gosuFileProperties = gosuFileProperties;
+        this.semanticModel = semanticModel;
     }
 
     @Override
@@ -65,79 +68,51 @@ public class UnusedParameterRule extends BaseGosuRule {
         isInFinalClass.push(false);
     }
 
-    @Override
-    public void exitFunctionSignature(GosuParser.FunctionSignatureContext ctx) {
-        initParameters(ctx.parameterDeclarationList());
-    }
-
-    @Override
-    public void exitPropertySignature(GosuParser.PropertySignatureContext ctx) {
-        initParameters(ctx.parameterDeclarationList());
-    }
-
-    private void initParameters(GosuParser.ParameterDeclarationListContext parametersList) {
-        nestedLevel++;
-        parameters.put(nestedLevel, new HashSet<>());
-        if (parametersList == null) {
-            return;
-        }
-        for (GosuParser.ParameterDeclarationContext param : parametersList.parameterDeclaration()) {
-            addParamToSet(param);
-        }
-    }
-
-    private void addParamToSet(GosuParser.ParameterDeclarationContext param) {
-        GosuParser.IdentifierContext identifier = param.identifier();
-        if (identifier != null) {
-            parameters.get(nestedLevel).add(identifier.getText());
-        } else {
-            GosuParser.BlockTypeContext block = param.blockType();
-            identifier = block.identifier();
-            if (identifier != null) {
-                parameters.get(nestedLevel).add(identifier.getText());
-            }
-        }
-    }
-
-    @Override
-    public void exitIdentifier(GosuParser.IdentifierContext ctx) {
-        String identifier = ctx.getText();
-        for (int i = nestedLevel; i >= 0; i--) {
-            parameters.get(i).remove(identifier);
-        }
-    }
-
     @Override
     public void exitFunction(GosuParser.FunctionContext ctx) {
         Token startToken = ctx.getStart();
         GosuParser.FunctionBodyContext body = ctx.functionBody();
-        if (canHaveUnusedParameters(body, startToken)) {
+        Set<String> unusedParameters = getUnusedParameters();
+        if (canHaveUnusedParameters(body, unusedParameters, startToken)) {
             GosuParser.FunctionSignatureContext signature = ctx.functionSignature();
             addIssueIfViolatingCheck(signature.modifiers(),
                     body.statementBlock(),
                     signature.identifier(),
-                    signature.parameterDeclarationList());
+                    unusedParameters);
         }
-        removeParameters();
     }
 
     @Override
     public void exitProperty(GosuParser.PropertyContext ctx) {
         Token startToken = ctx.getStart();
         GosuParser.FunctionBodyContext body = ctx.functionBody();
-        if (canHaveUnusedParameters(body, startToken)) {
+        Set<String> unusedParameters = getUnusedParameters();
+        if (canHaveUnusedParameters(body, unusedParameters, startToken)) {
             GosuParser.PropertySignatureContext signature = ctx.propertySignature();
             addIssueIfViolatingCheck(signature.modifiers(),
                     body.statementBlock(),
                     signature.identifier(),
-                    signature.parameterDeclarationList());
+                    unusedParameters);
+        }
+    }
+
+    /**
+     * @return Names of the parameters of the function being exited, which are not found in its body
+     */
+    private Set<String> getUnusedParameters() {
+        final Scope scope = semanticModel.getCurrentScope();
+        final Set<String> unusedParameters = new HashSet<>();
+        for (Declaration parameter : scope.getParameters()) {
+            if (!scope.containsIdentifier(parameter.name())) {
+                unusedParameters.add(parameter.name());
+            }
         }
-        removeParameters();
+        return unusedParameters;
     }
 
-    private boolean canHaveUnusedParameters(GosuParser.FunctionBodyContext functionBody, Token startToken) {
+    private boolean canHaveUnusedParameters(GosuParser.FunctionBodyContext functionBody, Set<String> unusedParameters, Token startToken) {
         return functionBody != null
-                && !parameters.get(nestedLevel).isEmpty()
+                && !unusedParameters.isEmpty()
                 && hasNoParamsInJavadoc(startToken);
     }
 
@@ -153,12 +128,12 @@ public class UnusedParameterRule extends BaseGosuRule {
     private void addIssueIfViolatingCheck(GosuParser.ModifiersContext modifiers,
                                           GosuParser.StatementBlockContext statements,
                                           GosuParser.IdentifierContext identifier,
-                                          GosuParser.ParameterDeclarationListContext parametersList) {
+                                          Set<String> unusedParameters) {
         if (violatesRules(modifiers, statements)) {
             addIssue(new GosuIssue.GosuIssueBuilder(this)
                     .onContext(identifier)
-                    .withMessage("Remove this " + parameters.get(nestedLevel).size() + " unused parameter(s)")
-                    .withSecondaryIssues(createSecondaries(parametersList))
+                    .withMessage("Remove this " + unusedParameters.size() + " unused parameter(s)")
+                    .withSecondaryIssues(createSecondaries(unusedParameters))
                     .build());
         }
     }
@@ -211,26 +186,17 @@ public class UnusedParameterRule extends BaseGosuRule {
                 && modifiers.PRIVATE().isEmpty();
     }
 
-    private List<SecondaryIssue> createSecondaries(GosuParser.ParameterDeclarationListContext parametersList) {
+    private List<SecondaryIssue> createSecondaries(Set<String> unusedParameters) {
         List<SecondaryIssue> secondaries = new ArrayList<>();
 
-        for (GosuParser.ParameterDeclarationContext param : parametersList.parameterDeclaration()) {
-            GosuParser.IdentifierContext identifier = param.identifier();
-            if (identifier == null) {
-                identifier = param.blockType().identifier();
-            }
-            if (identifier != null && parameters.get(nestedLevel).contains(identifier.getText())) {
-                secondaries.add(new SecondaryIssue(identifier, "unused"));
+        for (Declaration parameter : semanticModel.getCurrentScope().getParameters()) {
+            if (unusedParameters.contains(parameter.name())) {
+                secondaries.add(new SecondaryIssue(parameter.identifier(), "unused"));
             }
         }
         return secondaries;
     }
 
-    private void removeParameters() {
-        parameters.remove(nestedLevel);
-        nestedLevel--;
-    }
-
     @Override
     public void exitClassBody(GosuParser.ClassBodyContext ctx) {
         isInFinalClass.pop();
@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.semantic;
+
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuParser;
+
+/**
+ * Name declared in a scope.
+ *
+ * @param kind       What the name is declared as
+ * @param name       Interned name
+ * @param identifier Identifier declaring the name
+ */
+public record Declaration(Kind kind, String name, GosuParser.IdentifierContext identifier) {
+
+    public enum Kind {
+        PARAMETER,
+        LOCAL_VARIABLE
+    }
+}
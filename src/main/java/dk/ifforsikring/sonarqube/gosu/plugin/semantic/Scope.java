@@ -0,0 +1,107 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.semantic;
+
+import org.antlr.v4.runtime.ParserRuleContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Scope of a file, of a type body or of a function, property or constructor.
+ * <p>
+ * The identifiers of a scope are the names of the identifiers in its body and in its nested scopes: the signature of
+ * a function belongs to the enclosing scope, and the package and uses statements of a file to no scope.
+ */
+public final class Scope {
+    private final Kind kind;
+    private final ParserRuleContext context;
+    private final Scope parent;
+    private final List<Declaration> declarations = new ArrayList<>();
+    private final Set<String> identifiers = new HashSet<>();
+    private boolean inBody;
+
+    Scope(Kind kind, ParserRuleContext context, Scope parent, boolean inBody) {
+        this.kind = kind;
+        this.context = context;
+        this.parent = parent;
+        this.inBody = inBody;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public ParserRuleContext getContext() {
+        return context;
+    }
+
+    public Scope getParent() {
+        return parent;
+    }
+
+    public List<Declaration> getDeclarations() {
+        return Collections.unmodifiableList(declarations);
+    }
+
+    public List<Declaration> getParameters() {
+        return declarations.stream()
+                .filter(declaration -> declaration.kind() == Declaration.Kind.PARAMETER)
+                .toList();
+    }
+
+    /**
+     * @return Whether an identifier with the name is in the body of the scope or in its nested scopes so far
+     */
+    public boolean containsIdentifier(String name) {
+        return identifiers.contains(name);
+    }
+
+    void declare(Declaration declaration) {
+        declarations.add(declaration);
+    }
+
+    void startBody() {
+        inBody = true;
+    }
+
+    /**
+     * @return Scope holding the identifiers found now, which is the enclosing one before the body of this scope
+     */
+    Scope identifierScope() {
+        return inBody ? this : parent;
+    }
+
+    void addIdentifier(String name) {
+        identifiers.add(name);
+    }
+
+    void close() {
+        if (parent != null) {
+            parent.identifiers.addAll(identifiers);
+        }
+    }
+
+    public enum Kind {
+        FILE,
+        TYPE,
+        FUNCTION
+    }
+}
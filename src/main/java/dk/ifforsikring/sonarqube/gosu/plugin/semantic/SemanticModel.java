@@ -0,0 +1,293 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.semantic;
+
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuParser;
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuParserBaseListener;
+import dk.ifforsikring.sonarqube.gosu.language.statements.UsesStatement;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ParseTree;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Scopes, declarations, identifiers and uses statements of a file, built once during the analysis for all the rules
+ * injecting it.
+ * <p>
+ * It is registered before the rules, so it enters a context before them and exits it after them: a rule exiting
+ * a function finds the scope of the function still current, with the identifiers of its whole body.
+ */
+public class SemanticModel extends GosuParserBaseListener {
+    private final Map<String, String> names = new HashMap<>();
+    private final List<UsesStatement> usesStatements = new ArrayList<>();
+    private final Set<String> usesFeatureNames = new HashSet<>();
+    private String packageName;
+    private Scope fileScope;
+    private Scope currentScope;
+
+    public Scope getFileScope() {
+        return fileScope;
+    }
+
+    public Scope getCurrentScope() {
+        return currentScope;
+    }
+
+    public String getPackageName() {
+        return packageName;
+    }
+
+    /**
+     * @return Uses statements of a namespace, in the order of the file
+     */
+    public List<UsesStatement> getUsesStatements() {
+        return Collections.unmodifiableList(usesStatements);
+    }
+
+    /**
+     * @return Texts of the namespaces, features and arguments of the uses statements of features
+     */
+    public Set<String> getUsesFeatureNames() {
+        return Collections.unmodifiableSet(usesFeatureNames);
+    }
+
+    /**
+     * @return The name of the identifier, the same instance for all identifiers with the same name
+     */
+    public String nameOf(GosuParser.IdentifierContext identifier) {
+        return intern(identifier.getText());
+    }
+
+    @Override
+    public void enterStart(GosuParser.StartContext ctx) {
+        fileScope = new Scope(Scope.Kind.FILE, ctx, null, false);
+        currentScope = fileScope;
+    }
+
+    @Override
+    public void exitStart(GosuParser.StartContext ctx) {
+        fileScope.close();
+    }
+
+    @Override
+    public void exitPackageDeclaration(GosuParser.PackageDeclarationContext ctx) {
+        if (ctx.namespace() != null) {
+            packageName = ctx.namespace().getText();
+        }
+    }
+
+    @Override
+    public void exitUsesStatement(GosuParser.UsesStatementContext ctx) {
+        if (ctx.namespace() != null) {
+            usesStatements.add(new UsesStatement(ctx));
+        }
+    }
+
+    @Override
+    public void exitUsesFeatureLiteral(GosuParser.UsesFeatureLiteralContext ctx) {
+        for (ParseTree child : ctx.children) {
+            if (child instanceof ParserRuleContext childContext) {
+                usesFeatureNames.add(intern(childContext.getText()));
+            }
+        }
+    }
+
+    @Override
+    public void exitUsesStatementList(GosuParser.UsesStatementListContext ctx) {
+        fileScope.startBody();
+    }
+
+    @Override
+    public void enterTypeDeclaration(GosuParser.TypeDeclarationContext ctx) {
+        fileScope.startBody();
+    }
+
+    @Override
+    public void enterClassBody(GosuParser.ClassBodyContext ctx) {
+        enterTypeScope(ctx);
+    }
+
+    @Override
+    public void exitClassBody(GosuParser.ClassBodyContext ctx) {
+        exitScope();
+    }
+
+    @Override
+    public void enterEnhancementBody(GosuParser.EnhancementBodyContext ctx) {
+        enterTypeScope(ctx);
+    }
+
+    @Override
+    public void exitEnhancementBody(GosuParser.EnhancementBodyContext ctx) {
+        exitScope();
+    }
+
+    @Override
+    public void enterInterfaceBody(GosuParser.InterfaceBodyContext ctx) {
+        enterTypeScope(ctx);
+    }
+
+    @Override
+    public void exitInterfaceBody(GosuParser.InterfaceBodyContext ctx) {
+        exitScope();
+    }
+
+    @Override
+    public void enterStructureBody(GosuParser.StructureBodyContext ctx) {
+        enterTypeScope(ctx);
+    }
+
+    @Override
+    public void exitStructureBody(GosuParser.StructureBodyContext ctx) {
+        exitScope();
+    }
+
+    @Override
+    public void enterEnumBody(GosuParser.EnumBodyContext ctx) {
+        enterTypeScope(ctx);
+    }
+
+    @Override
+    public void exitEnumBody(GosuParser.EnumBodyContext ctx) {
+        exitScope();
+    }
+
+    @Override
+    public void enterAnnotationBody(GosuParser.AnnotationBodyContext ctx) {
+        enterTypeScope(ctx);
+    }
+
+    @Override
+    public void exitAnnotationBody(GosuParser.AnnotationBodyContext ctx) {
+        exitScope();
+    }
+
+    @Override
+    public void enterAnonymousInnerClass(GosuParser.AnonymousInnerClassContext ctx) {
+        enterTypeScope(ctx);
+    }
+
+    @Override
+    public void exitAnonymousInnerClass(GosuParser.AnonymousInnerClassContext ctx) {
+        exitScope();
+    }
+
+    @Override
+    public void enterFunction(GosuParser.FunctionContext ctx) {
+        enterFunctionScope(ctx);
+    }
+
+    @Override
+    public void exitFunctionSignature(GosuParser.FunctionSignatureContext ctx) {
+        declareParameters(ctx, ctx.parameterDeclarationList());
+    }
+
+    @Override
+    public void exitFunction(GosuParser.FunctionContext ctx) {
+        exitScope();
+    }
+
+    @Override
+    public void enterProperty(GosuParser.PropertyContext ctx) {
+        enterFunctionScope(ctx);
+    }
+
+    @Override
+    public void exitPropertySignature(GosuParser.PropertySignatureContext ctx) {
+        declareParameters(ctx, ctx.parameterDeclarationList());
+    }
+
+    @Override
+    public void exitProperty(GosuParser.PropertyContext ctx) {
+        exitScope();
+    }
+
+    @Override
+    public void enterConstructor(GosuParser.ConstructorContext ctx) {
+        enterFunctionScope(ctx);
+    }
+
+    @Override
+    public void exitConstructorSignature(GosuParser.ConstructorSignatureContext ctx) {
+        declareParameters(ctx, ctx.parameterDeclarationList());
+    }
+
+    @Override
+    public void exitConstructor(GosuParser.ConstructorContext ctx) {
+        exitScope();
+    }
+
+    @Override
+    public void exitLocalVarStatement(GosuParser.LocalVarStatementContext ctx) {
+        if (ctx.identifier() != null) {
+            currentScope.declare(new Declaration(Declaration.Kind.LOCAL_VARIABLE, nameOf(ctx.identifier()), ctx.identifier()));
+        }
+    }
+
+    @Override
+    public void exitIdentifier(GosuParser.IdentifierContext ctx) {
+        final Scope scope = currentScope == null ? null : currentScope.identifierScope();
+        if (scope != null) {
+            scope.addIdentifier(nameOf(ctx));
+        }
+    }
+
+    private void enterTypeScope(ParserRuleContext ctx) {
+        currentScope = new Scope(Scope.Kind.TYPE, ctx, currentScope, true);
+    }
+
+    private void enterFunctionScope(ParserRuleContext ctx) {
+        currentScope = new Scope(Scope.Kind.FUNCTION, ctx, currentScope, false);
+    }
+
+    /**
+     * Declares the parameters of the signature of the current function scope and starts its body.
+     * Signatures of other constructs, like default value functions of annotations, are not scopes.
+     */
+    private void declareParameters(ParserRuleContext signature, GosuParser.ParameterDeclarationListContext parameters) {
+        if (signature.getParent() != currentScope.getContext()) {
+            return;
+        }
+        if (parameters != null) {
+            for (GosuParser.ParameterDeclarationContext parameter : parameters.parameterDeclaration()) {
+                final GosuParser.IdentifierContext identifier = parameter.identifier() != null || parameter.blockType() == null
+                        ? parameter.identifier()
+                        : parameter.blockType().identifier();
+                if (identifier != null) {
+                    currentScope.declare(new Declaration(Declaration.Kind.PARAMETER, nameOf(identifier), identifier));
+                }
+            }
+        }
+        currentScope.startBody();
+    }
+
+    private void exitScope() {
+        currentScope.close();
+        currentScope = currentScope.getParent();
+    }
+
+    private String intern(String name) {
+        final String interned = names.putIfAbsent(name, name);
+        return interned == null ? name : interned;
+    }
+}
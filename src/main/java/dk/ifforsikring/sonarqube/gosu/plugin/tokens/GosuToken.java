@@ -0,0 +1,131 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.tokens;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.WritableToken;
+
+/**
+ * View on a token stored by a {@link GosuTokenFactory}, which makes one per token.
+ */
+public final class GosuToken implements WritableToken {
+    private final GosuTokenFactory factory;
+    private final int index;
+
+    GosuToken(GosuTokenFactory factory, int index) {
+        this.factory = factory;
+        this.index = index;
+    }
+
+    public LineStartIndex getLineStartIndex() {
+        return factory.getLineStartIndex();
+    }
+
+    @Override
+    public String getText() {
+        return factory.getText(index);
+    }
+
+    @Override
+    public int getType() {
+        return factory.getType(index);
+    }
+
+    @Override
+    public int getLine() {
+        return factory.getLine(index);
+    }
+
+    @Override
+    public int getCharPositionInLine() {
+        return factory.getCharPositionInLine(index);
+    }
+
+    @Override
+    public int getChannel() {
+        return factory.getChannel(index);
+    }
+
+    @Override
+    public int getTokenIndex() {
+        return index;
+    }
+
+    @Override
+    public int getStartIndex() {
+        return factory.getStartIndex(index);
+    }
+
+    @Override
+    public int getStopIndex() {
+        return factory.getStopIndex(index);
+    }
+
+    @Override
+    public TokenSource getTokenSource() {
+        return factory.getSource().a;
+    }
+
+    @Override
+    public CharStream getInputStream() {
+        return factory.getSource().b;
+    }
+
+    @Override
+    public void setText(String text) {
+        factory.setText(index, text);
+    }
+
+    @Override
+    public void setType(int ttype) {
+        factory.setType(index, ttype);
+    }
+
+    @Override
+    public void setLine(int line) {
+        factory.setLine(index, line);
+    }
+
+    @Override
+    public void setCharPositionInLine(int pos) {
+        factory.setCharPositionInLine(index, pos);
+    }
+
+    @Override
+    public void setChannel(int channel) {
+        factory.setChannel(index, channel);
+    }
+
+    /**
+     * The index of a token is the order the lexer made it in, which is also its index in the token stream.
+     */
+    @Override
+    public void setTokenIndex(int index) {
+        if (index != this.index) {
+            throw new IllegalStateException("Token " + this.index + " cannot be moved to index " + index);
+        }
+    }
+
+    @Override
+    public String toString() {
+        final String text = getText() == null ? "<no text>"
+                : getText().replace("\n", "\\n").replace("\r", "\\r").replace("\t", "\\t");
+        return "[@" + index + "," + getStartIndex() + ":" + getStopIndex() + "='" + text + "',<" + getType() + ">"
+                + (getChannel() > 0 ? ",channel=" + getChannel() : "") + "," + getLine() + ":" + getCharPositionInLine() + "]";
+    }
+}
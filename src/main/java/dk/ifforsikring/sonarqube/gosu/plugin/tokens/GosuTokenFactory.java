@@ -0,0 +1,217 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.tokens;
+
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuLexer;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CommonTokenFactory;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.TokenFactory;
+import org.antlr.v4.runtime.TokenSource;
+import org.antlr.v4.runtime.misc.Interval;
+import org.antlr.v4.runtime.misc.Pair;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Stores the fields of the tokens of one lexer in parallel arrays, and keeps the one {@link GosuToken} view made for
+ * each of them when the lexer makes it, so reading a token again never allocates.
+ * <p>
+ * The text of a token is only read from the char stream when asked for, once, and the same instance is returned for
+ * all the tokens with the same text. Keywords and operators return the text of the vocabulary without reading it.
+ * Tokens not made by the lexer, like the ones the parser makes up to recover from syntax errors, are plain tokens.
+ */
+public final class GosuTokenFactory implements TokenFactory<Token> {
+    private static final String[] LITERAL_TEXTS = literalTexts();
+    private static final int MIN_CAPACITY = 16;
+    private static final int CHARS_PER_TOKEN = 4;
+
+    private final Pair<TokenSource, CharStream> source;
+    private final Map<String, String> internedTexts = new HashMap<>();
+    private int[] types;
+    private int[] channels;
+    private int[] starts;
+    private int[] stops;
+    private int[] lines;
+    private int[] columns;
+    private String[] texts;
+    private GosuToken[] tokens;
+    private int size;
+    private LineStartIndex lineStartIndex;
+
+    GosuTokenFactory(TokenSource tokenSource) {
+        this.source = new Pair<>(tokenSource, tokenSource.getInputStream());
+        final int capacity = Math.max(MIN_CAPACITY, tokenSource.getInputStream().size() / CHARS_PER_TOKEN);
+        this.types = new int[capacity];
+        this.channels = new int[capacity];
+        this.starts = new int[capacity];
+        this.stops = new int[capacity];
+        this.lines = new int[capacity];
+        this.columns = new int[capacity];
+        this.tokens = new GosuToken[capacity];
+    }
+
+    @Override
+    public Token create(Pair<TokenSource, CharStream> source, int type, String text, int channel,
+                        int start, int stop, int line, int charPositionInLine) {
+        if (text != null || source.a != this.source.a) {
+            return CommonTokenFactory.DEFAULT.create(source, type, text, channel, start, stop, line, charPositionInLine);
+        }
+        if (size == types.length) {
+            grow();
+        }
+        types[size] = type;
+        channels[size] = channel;
+        starts[size] = start;
+        stops[size] = stop;
+        lines[size] = line;
+        columns[size] = charPositionInLine;
+        final GosuToken token = new GosuToken(this, size);
+        tokens[size++] = token;
+        return token;
+    }
+
+    @Override
+    public Token create(int type, String text) {
+        return CommonTokenFactory.DEFAULT.create(type, text);
+    }
+
+    /**
+     * @return Number of tokens made by the lexer so far
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return View on the token, the same instance every time
+     */
+    public GosuToken getToken(int index) {
+        return tokens[index];
+    }
+
+    public int getType(int index) {
+        return types[index];
+    }
+
+    public int getChannel(int index) {
+        return channels[index];
+    }
+
+    public int getStartIndex(int index) {
+        return starts[index];
+    }
+
+    public int getStopIndex(int index) {
+        return stops[index];
+    }
+
+    public int getLine(int index) {
+        return lines[index];
+    }
+
+    public int getCharPositionInLine(int index) {
+        return columns[index];
+    }
+
+    public String getText(int index) {
+        if (texts != null && texts[index] != null) {
+            return texts[index];
+        }
+        final int type = types[index];
+        if (type > 0 && type < LITERAL_TEXTS.length && LITERAL_TEXTS[type] != null) {
+            return LITERAL_TEXTS[type];
+        }
+        final CharStream input = source.b;
+        final int start = starts[index];
+        final int stop = stops[index];
+        if (start >= input.size() || stop >= input.size()) {
+            return "<EOF>";
+        }
+        final String text = input.getText(Interval.of(start, stop));
+        final String interned = internedTexts.putIfAbsent(text, text);
+        setText(index, interned == null ? text : interned);
+        return texts[index];
+    }
+
+    /**
+     * @return Offsets of the lines of the char stream, built the first time they are asked for
+     */
+    public LineStartIndex getLineStartIndex() {
+        if (lineStartIndex == null) {
+            lineStartIndex = LineStartIndex.of(source.b);
+        }
+        return lineStartIndex;
+    }
+
+    Pair<TokenSource, CharStream> getSource() {
+        return source;
+    }
+
+    void setType(int index, int type) {
+        types[index] = type;
+    }
+
+    void setChannel(int index, int channel) {
+        channels[index] = channel;
+    }
+
+    void setLine(int index, int line) {
+        lines[index] = line;
+    }
+
+    void setCharPositionInLine(int index, int charPositionInLine) {
+        columns[index] = charPositionInLine;
+    }
+
+    void setText(int index, String text) {
+        if (texts == null) {
+            texts = new String[types.length];
+        }
+        texts[index] = text;
+    }
+
+    private void grow() {
+        final int capacity = types.length + (types.length >> 1);
+        types = Arrays.copyOf(types, capacity);
+        channels = Arrays.copyOf(channels, capacity);
+        starts = Arrays.copyOf(starts, capacity);
+        stops = Arrays.copyOf(stops, capacity);
+        lines = Arrays.copyOf(lines, capacity);
+        columns = Arrays.copyOf(columns, capacity);
+        tokens = Arrays.copyOf(tokens, capacity);
+        if (texts != null) {
+            texts = Arrays.copyOf(texts, capacity);
+        }
+    }
+
+    /**
+     * @return Texts of the token types defined by a single literal, indexed by type
+     */
+    private static String[] literalTexts() {
+        final String[] literalTexts = new String[GosuLexer.VOCABULARY.getMaxTokenType() + 1];
+        for (int type = 1; type < literalTexts.length; type++) {
+            final String literalName = GosuLexer.VOCABULARY.getLiteralName(type);
+            if (literalName != null && literalName.length() > 2 && literalName.indexOf('\\') < 0) {
+                literalTexts[type] = literalName.substring(1, literalName.length() - 1);
+            }
+        }
+        return literalTexts;
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.tokens;
+
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Lexer;
+import org.antlr.v4.runtime.Token;
+
+import java.util.AbstractList;
+
+/**
+ * Token stream of a lexer making its tokens with a {@link GosuTokenFactory}.
+ * <p>
+ * The stream gives the views the factory keeps instead of a list of its own, and looks ahead and skips the hidden
+ * tokens from the arrays of the factory.
+ */
+public class GosuTokenStream extends CommonTokenStream {
+    private final GosuTokenFactory factory;
+
+    public GosuTokenStream(Lexer lexer) {
+        super(lexer);
+        this.factory = new GosuTokenFactory(lexer);
+        lexer.setTokenFactory(factory);
+        this.tokens = new FetchedTokens();
+    }
+
+    public GosuTokenFactory getTokenFactory() {
+        return factory;
+    }
+
+    @Override
+    public int LA(int i) {
+        if (i <= 0) {
+            return super.LA(i);
+        }
+        lazyInit();
+        int index = p;
+        for (int n = 1; n < i; n++) {
+            if (sync(index + 1)) {
+                index = nextTokenOnChannel(index + 1, channel);
+            }
+        }
+        return factory.getType(index);
+    }
+
+    @Override
+    protected int nextTokenOnChannel(int i, int channel) {
+        int index = i;
+        sync(index);
+        if (index >= size()) {
+            return size() - 1;
+        }
+        while (factory.getChannel(index) != channel) {
+            if (factory.getType(index) == Token.EOF) {
+                return index;
+            }
+            index++;
+            sync(index);
+        }
+        return index;
+    }
+
+    @Override
+    protected int previousTokenOnChannel(int i, int channel) {
+        int index = i;
+        sync(index);
+        if (index >= size()) {
+            return size() - 1;
+        }
+        while (index >= 0) {
+            if (factory.getType(index) == Token.EOF || factory.getChannel(index) == channel) {
+                return index;
+            }
+            index--;
+        }
+        return index;
+    }
+
+    /**
+     * Tokens fetched from the lexer, which are the first ones made by the factory.
+     */
+    private final class FetchedTokens extends AbstractList<Token> {
+        private int size;
+
+        @Override
+        public Token get(int index) {
+            if (index < 0 || index >= size) {
+                throw new IndexOutOfBoundsException("Token " + index + " out of " + size);
+            }
+            return factory.getToken(index);
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public boolean add(Token token) {
+            if (token.getTokenIndex() != size || !(token instanceof GosuToken)) {
+                throw new IllegalArgumentException("Token not made by the lexer of the stream: " + token);
+            }
+            size++;
+            modCount++;
+            return true;
+        }
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.tokens;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.IntStream;
+
+import java.util.Arrays;
+
+/**
+ * Offsets of the lines of a char stream, to find the line and the column of any offset of the stream by binary search.
+ * Lines are split on {@code \n} like the lexer does, and the ends of the lines exclude the {@code \r\n} or {@code \n}.
+ */
+public final class LineStartIndex {
+    private static final int MIN_CAPACITY = 16;
+    private static final int CHARS_PER_LINE = 32;
+
+    private final int[] lineStarts;
+    private final int[] lineEnds;
+    private final int lineCount;
+
+    private LineStartIndex(int[] lineStarts, int[] lineEnds, int lineCount) {
+        this.lineStarts = lineStarts;
+        this.lineEnds = lineEnds;
+        this.lineCount = lineCount;
+    }
+
+    public static LineStartIndex of(CharStream input) {
+        final int size = input.size();
+        final int capacity = Math.max(MIN_CAPACITY, size / CHARS_PER_LINE);
+        int[] lineStarts = new int[capacity];
+        int[] lineEnds = new int[capacity];
+        int lineCount = 1;
+
+        final int mark = input.index();
+        int previous = IntStream.EOF;
+        for (int offset = 0; offset < size; offset++) {
+            input.seek(offset);
+            final int current = input.LA(1);
+            if (current == '\n') {
+                if (lineCount == lineStarts.length) {
+                    lineStarts = Arrays.copyOf(lineStarts, lineCount + (lineCount >> 1));
+                    lineEnds = Arrays.copyOf(lineEnds, lineStarts.length);
+                }
+                lineEnds[lineCount - 1] = previous == '\r' ? offset - 1 : offset;
+                lineStarts[lineCount++] = offset + 1;
+            }
+            previous = current;
+        }
+        lineEnds[lineCount - 1] = size;
+        input.seek(mark);
+
+        return new LineStartIndex(lineStarts, lineEnds, lineCount);
+    }
+
+    public int getLineCount() {
+        return lineCount;
+    }
+
+    /**
+     * @return Line of the offset, starting at 1
+     */
+    public int getLine(int offset) {
+        final int found = Arrays.binarySearch(lineStarts, 0, lineCount, offset);
+        return found >= 0 ? found + 1 : -found - 1;
+    }
+
+    /**
+     * @return Column of the offset in its line, starting at 0
+     */
+    public int getLineOffset(int offset) {
+        return offset - getLineStart(getLine(offset));
+    }
+
+    public int getLineStart(int line) {
+        return lineStarts[line - 1];
+    }
+
+    public int getLineEnd(int line) {
+        return lineEnds[line - 1];
+    }
+}
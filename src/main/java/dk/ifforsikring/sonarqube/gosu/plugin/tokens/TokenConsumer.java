@@ -0,0 +1,34 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.tokens;
+
+import org.antlr.v4.runtime.Token;
+
+/**
+ * Receives the tokens of a file, in order, from a {@link TokenPipeline}.
+ */
+@FunctionalInterface
+public interface TokenConsumer {
+
+    void consume(Token token);
+
+    /**
+     * Called once every token of the file has been consumed.
+     */
+    default void complete() {
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.tokens;
+
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuLexer;
+import org.antlr.v4.runtime.Token;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Walks the tokens of a file once and dispatches each of them to the consumers registered for its type.
+ * <p>
+ * Highlighting, copy-paste detection, line data and token based rules all register here,
+ * instead of walking the token stream on their own.
+ */
+public final class TokenPipeline {
+    private static final int EOF_OFFSET = 1;
+
+    private final List<TokenConsumer> consumers = new ArrayList<>();
+    private final List<TokenConsumer> allTypesConsumers = new ArrayList<>();
+    private final List<List<TokenConsumer>> consumersByType = new ArrayList<>(
+            Collections.nCopies(GosuLexer.VOCABULARY.getMaxTokenType() + EOF_OFFSET + 1, null)
+    );
+
+    /**
+     * @param consumer   Consumer to notify
+     * @param tokenTypes Types of the tokens the consumer is interested in, every token when none is given
+     */
+    public TokenPipeline register(TokenConsumer consumer, int... tokenTypes) {
+        consumers.add(consumer);
+        if (tokenTypes.length == 0) {
+            allTypesConsumers.add(consumer);
+            return this;
+        }
+
+        for (int tokenType : tokenTypes) {
+            final int index = tokenType + EOF_OFFSET;
+            if (consumersByType.get(index) == null) {
+                consumersByType.set(index, new ArrayList<>());
+            }
+            consumersByType.get(index).add(consumer);
+        }
+        return this;
+    }
+
+    public void run(List<Token> tokens) {
+        for (Token token : tokens) {
+            for (TokenConsumer consumer : allTypesConsumers) {
+                consumer.consume(token);
+            }
+
+            final List<TokenConsumer> typeConsumers = consumersByType.get(token.getType() + EOF_OFFSET);
+            if (typeConsumers != null) {
+                for (TokenConsumer consumer : typeConsumers) {
+                    consumer.consume(token);
+                }
+            }
+        }
+
+        for (TokenConsumer consumer : consumers) {
+            consumer.complete();
+        }
+    }
+}
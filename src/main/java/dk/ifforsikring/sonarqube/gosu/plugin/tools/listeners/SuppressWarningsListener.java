@@ -26,7 +26,7 @@ import java.util.*;
 import java.util.regex.Pattern;
 
 public final class SuppressWarningsListener extends GosuParserBaseListener {
-    private static final String SUPPRESS_WARNINGS = "SuppressWarnings";
+    public static final String SUPPRESS_WARNINGS = "SuppressWarnings";
     private static final Pattern GOSU_SUPPRESS_WARNINGS_KEY_PATTERN = Pattern.compile("gosu:\\w+");
 
     private final Map<String, List<TextRange>> gosuSuppressWarningsMap = new HashMap<>();
@@ -24,23 +24,43 @@ import org.antlr.v4.runtime.Recognizer;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.sensor.SensorContext;
 
-public class SyntaxErrorListener extends BaseErrorListener {
-    private final SensorContext context;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
 
+public class SyntaxErrorListener extends BaseErrorListener {
     private final InputFile inputFile;
 
+    private final List<SyntaxError> syntaxErrors = new ArrayList<>();
+
     @Inject
-    public SyntaxErrorListener(SensorContext context, GosuFileProperties gosuFileProperties) {
-        this.context = context;
+    public SyntaxErrorListener(GosuFileProperties gosuFileProperties) {
         this.inputFile = gosuFileProperties.getFile();
     }
 
     @Override
     public void syntaxError(Recognizer<?, ?> recognizer, Object offendingSymbol, int line, int charPositionInLine, String msg, RecognitionException e) {
-        context.newAnalysisError()
-                .onFile(inputFile)
-                .at(inputFile.newPointer(line, charPositionInLine))
-                .message(msg)
-                .save();
+        syntaxErrors.add(new SyntaxError(line, charPositionInLine, msg));
+    }
+
+    public List<SyntaxError> getSyntaxErrors() {
+        return Collections.unmodifiableList(syntaxErrors);
+    }
+
+    public void saveOn(SensorContext context) {
+        for (SyntaxError syntaxError : syntaxErrors) {
+            syntaxError.saveOn(context, inputFile);
+        }
+    }
+
+    public record SyntaxError(int line, int charPositionInLine, String message) {
+
+        public void saveOn(SensorContext context, InputFile inputFile) {
+            context.newAnalysisError()
+                    .onFile(inputFile)
+                    .at(inputFile.newPointer(line, charPositionInLine))
+                    .message(message)
+                    .save();
+        }
     }
 }
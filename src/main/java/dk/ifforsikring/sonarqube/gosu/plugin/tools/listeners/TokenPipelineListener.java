@@ -0,0 +1,43 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.tools.listeners;
+
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuParser;
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuParserBaseListener;
+import dk.ifforsikring.sonarqube.gosu.plugin.tokens.TokenPipeline;
+import org.antlr.v4.runtime.CommonTokenStream;
+
+/**
+ * Runs the token pipeline once the parser reached the end of the file, so every token has been read.
+ * <p>
+ * The parser notifies exit events in the reverse order the listeners were added, so this listener must be
+ * added last for the pipeline to run before the other listeners exit the start rule.
+ */
+public final class TokenPipelineListener extends GosuParserBaseListener {
+    private final TokenPipeline tokenPipeline;
+    private final CommonTokenStream tokenStream;
+
+    public TokenPipelineListener(TokenPipeline tokenPipeline, CommonTokenStream tokenStream) {
+        this.tokenPipeline = tokenPipeline;
+        this.tokenStream = tokenStream;
+    }
+
+    @Override
+    public void exitStart(GosuParser.StartContext ctx) {
+        tokenPipeline.run(tokenStream.getTokens());
+    }
+}
@@ -19,41 +19,31 @@ package dk.ifforsikring.sonarqube.gosu.plugin.tools.reflections;
 import dk.ifforsikring.sonarqube.gosu.plugin.measures.metrics.BaseMetric;
 import dk.ifforsikring.sonarqube.gosu.plugin.rules.BaseGosuRule;
 import dk.ifforsikring.sonarqube.gosu.plugin.utils.RulesMetadataUtil;
-import org.reflections.Reflections;
 import org.sonar.api.batch.fs.InputFile;
-import org.sonar.check.Rule;
 
 import java.util.*;
 
+/**
+ * Rules and metrics of the plugin, listed in the {@code ClassRegistry} generated when the plugin is compiled.
+ */
 public final class ClassExtractor {
     private static final Map<String, Class<? extends BaseGosuRule>> allRules = new HashMap<>();
     private static final Map<String, Class<? extends BaseGosuRule>> mainSourcesRules = new HashMap<>();
     private static final Map<String, Class<? extends BaseGosuRule>> testSourcesRules = new HashMap<>();
-    private static final List<Class<? extends BaseMetric>> metrics;
+    private static final Map<String, RulesMetadataUtil.Scope> scopes = new HashMap<>();
 
     static {
-        final Reflections reflections = new Reflections("dk.ifforsikring.sonarqube.gosu.plugin.rules");
-        final Set<Class<? extends BaseGosuRule>> allClasses = reflections.getSubTypesOf(BaseGosuRule.class);
-
-        for (Class<? extends BaseGosuRule> ruleClass : allClasses) {
-            final String key = ruleClass.getAnnotation(Rule.class).key();
-            addRuleByScope(ruleClass, key);
+        for (RegisteredRule rule : ClassRegistry.RULES) {
+            addRuleByScope(rule.ruleClass(), rule.key(), rule.scope());
         }
     }
 
-    static {
-        final Reflections reflections = new Reflections("dk.ifforsikring.sonarqube.gosu.plugin.measures");
-        final Set<Class<? extends BaseMetric>> allClasses = reflections.getSubTypesOf(BaseMetric.class);
-
-        metrics = List.copyOf(allClasses);
-    }
-
     private ClassExtractor() {
     }
 
-    private static void addRuleByScope(Class<? extends BaseGosuRule> clazz, String ruleKey) {
+    private static void addRuleByScope(Class<? extends BaseGosuRule> clazz, String ruleKey, RulesMetadataUtil.Scope scope) {
         allRules.put(ruleKey, clazz);
-        RulesMetadataUtil.Scope scope = RulesMetadataUtil.getRuleScope(ruleKey);
+        scopes.put(ruleKey, scope);
         switch (scope) {
             case MAIN:
                 mainSourcesRules.put(ruleKey, clazz);
@@ -73,7 +63,11 @@ public final class ClassExtractor {
     }
 
     public static List<Class<? extends BaseMetric>> getMetrics() {
-        return metrics;
+        return ClassRegistry.METRICS;
+    }
+
+    public static Optional<RulesMetadataUtil.Scope> getRuleScope(String key) {
+        return Optional.ofNullable(scopes.get(key));
     }
 
     public static Optional<Class<? extends BaseGosuRule>> getRuleForScope(String key, InputFile.Type type) {
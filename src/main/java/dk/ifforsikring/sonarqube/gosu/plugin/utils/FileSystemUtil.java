@@ -0,0 +1,40 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.utils;
+
+import org.sonar.api.batch.fs.FileSystem;
+
+import java.io.File;
+import java.util.Optional;
+
+public final class FileSystemUtil {
+
+    private FileSystemUtil() {
+    }
+
+    /**
+     * @return Working directory of the scanner, empty when the file system has none
+     */
+    public static Optional<File> workDirOf(FileSystem fileSystem) {
+        try {
+            return Optional.ofNullable(fileSystem.workDir());
+        } catch (RuntimeException e) {
+            // File systems created without a working directory, like the one of SensorContextTester, throw here
+            return Optional.empty();
+        }
+    }
+}
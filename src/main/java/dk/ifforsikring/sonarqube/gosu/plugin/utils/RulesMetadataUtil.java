@@ -16,69 +16,27 @@
  */
 package dk.ifforsikring.sonarqube.gosu.plugin.utils;
 
-import com.google.common.io.Resources;
-import com.google.gson.Gson;
-import dk.ifforsikring.sonarqube.gosu.language.GosuLanguage;
-
-import javax.annotation.Nullable;
-import java.io.IOException;
-import java.net.URL;
-import java.nio.charset.StandardCharsets;
+import dk.ifforsikring.sonarqube.gosu.plugin.tools.reflections.ClassExtractor;
 
 public final class RulesMetadataUtil {
-    private static final Gson GSON = new Gson();
 
+    /**
+     * Scopes of the rule metadata, read from it when the plugin is compiled.
+     */
     public enum Scope {
-        ALL("All"),
-        MAIN("Main"),
-        TESTS("Tests");
-
-        private final String text;
-
-        Scope(String text) {
-            this.text = text;
-        }
+        ALL,
+        MAIN,
+        TESTS;
 
         private static Scope getDefault() {
             return MAIN;
         }
-
-        private static Scope fromString(String text) {
-            for (Scope scope : Scope.values()) {
-                if (scope.text.equalsIgnoreCase(text)) {
-                    return scope;
-                }
-            }
-            return getDefault();
-        }
     }
 
     private RulesMetadataUtil() {
     }
 
     public static Scope getRuleScope(String ruleKey) {
-        RuleMetadata metadata = readRuleMetadata(ruleKey);
-        return metadata == null
-                ? Scope.getDefault()
-                : Scope.fromString(metadata.scope);
-    }
-
-    @Nullable
-    private static RuleMetadata readRuleMetadata(String metadataKey) {
-        URL resource = RuleMetadata.class.getResource('/' + GosuLanguage.GOSU_RESOURCE_PATH + '/' + metadataKey + ".json");
-
-        return resource != null ? GSON.fromJson(readResource(resource), RuleMetadata.class) : null;
-    }
-
-    private static String readResource(URL resource) {
-        try {
-            return Resources.toString(resource, StandardCharsets.UTF_8);
-        } catch (IOException e) {
-            throw new IllegalStateException("Failed to read: " + resource, e);
-        }
-    }
-
-    static class RuleMetadata {
-        String scope;
+        return ClassExtractor.getRuleScope(ruleKey).orElse(Scope.getDefault());
     }
 }
@@ -18,6 +18,8 @@ package dk.ifforsikring.sonarqube.gosu.plugin.utils;
 
 import dk.ifforsikring.sonarqube.gosu.antlr.GosuLexer;
 import dk.ifforsikring.sonarqube.gosu.language.utils.GosuUtil;
+import dk.ifforsikring.sonarqube.gosu.plugin.tokens.GosuToken;
+import dk.ifforsikring.sonarqube.gosu.plugin.tokens.LineStartIndex;
 import org.antlr.v4.runtime.ParserRuleContext;
 import org.antlr.v4.runtime.Token;
 import org.antlr.v4.runtime.tree.TerminalNode;
@@ -25,14 +27,9 @@ import org.sonar.api.batch.fs.TextPointer;
 import org.sonar.api.batch.fs.TextRange;
 
 import javax.annotation.Nonnull;
-import java.util.Arrays;
-import java.util.List;
 import java.util.Objects;
-import java.util.regex.Pattern;
 
 public final class TextRangeUtil {
-    private static final Pattern LINE_SEPARATOR = Pattern.compile("\\r?\\n");
-
     private TextRangeUtil() {
     }
 
@@ -86,21 +83,50 @@ public final class TextRangeUtil {
     }
 
     private static TextRange getMultilineTokenTextRange(Token token) {
-        List<String> listOfLines = Arrays.asList(LINE_SEPARATOR.split(token.getText()));
         final TextPointer start = new InternalTextPointer(token.getLine(), token.getCharPositionInLine());
-        final TextPointer stop = getEndTextPointerForMultilineToken(token, listOfLines);
+        final TextPointer stop = token instanceof GosuToken gosuToken
+                ? getEndTextPointerForMultilineToken(gosuToken)
+                : getEndTextPointerForMultilineToken(token, token.getText());
         return TextRangeUtil.fromPointers(start, stop);
     }
 
-    private static TextPointer getEndTextPointerForMultilineToken(Token token, List<String> listOfLines) {
-        int lastLineIndex = listOfLines.size() - 1;
-        int lastLineLength = listOfLines.get(lastLineIndex).length();
+    /**
+     * Finds the end of the token from the offsets of the lines of its file. Line breaks at the end of the token
+     * are left out of the range.
+     */
+    private static TextPointer getEndTextPointerForMultilineToken(GosuToken token) {
+        final LineStartIndex lineStartIndex = token.getLineStartIndex();
+        int end = token.getStopIndex() + 1;
+        int line = lineStartIndex.getLine(end);
+        while (line > 1 && end > token.getStartIndex() && end == lineStartIndex.getLineStart(line)) {
+            end = lineStartIndex.getLineEnd(--line);
+        }
+        return new InternalTextPointer(line, end - lineStartIndex.getLineStart(line));
+    }
+
+    private static TextPointer getEndTextPointerForMultilineToken(Token token, String text) {
+        int end = text.length();
+        while (end > 0 && text.charAt(end - 1) == '\n') {
+            end--;
+            if (end > 0 && text.charAt(end - 1) == '\r') {
+                end--;
+            }
+        }
+
+        int lineBreaks = 0;
+        int lastLineStart = 0;
+        for (int i = 0; i < end; i++) {
+            if (text.charAt(i) == '\n') {
+                lineBreaks++;
+                lastLineStart = i + 1;
+            }
+        }
 
-        if (lastLineIndex == 0) {
+        int lastLineLength = end - lastLineStart;
+        if (lineBreaks == 0) {
             lastLineLength += token.getCharPositionInLine();
         }
-        return new InternalTextPointer(token.getLine() + lastLineIndex,
-                lastLineLength);
+        return new InternalTextPointer(token.getLine() + lineBreaks, lastLineLength);
     }
 
     private static int getStopPosition(Token token) {
@@ -0,0 +1,85 @@
+package warmup
+
+uses java.util.ArrayList
+uses java.util.Map
+uses gw.api.util.DateUtil#currentDate()
+
+/**
+ * Parsed when the Gosu sensor starts, to warm up the parser prediction caches
+ * before the analysed files are parsed.
+ */
+@Export
+class WarmUp<T> extends ArrayList<T> implements Runnable {
+  static final var LIMIT : int = 10
+  private var _name : String as Name
+  protected var _values : Map<String, Integer> = {"one" -> 1, "two" -> 2}
+  var _items = new ArrayList<T>()
+
+  construct(name : String) {
+    super()
+    this._name = name
+  }
+
+  property get Size() : int {
+    return _items.Count
+  }
+
+  property set Size(value : int) {
+    _values.put("size", value)
+  }
+
+  override function run() {
+    var total = 0
+    for (item in _items index i) {
+      if (item typeis String and item.length > LIMIT or i % 2 == 0) {
+        total += i * 3 - (total / 2) + (i << 1)
+      } else if (item == null || !(item as Object).equals(this)) {
+        total--
+      } else {
+        continue
+      }
+    }
+    while (total > 0 && total != LIMIT) {
+      total -= 1
+    }
+    do {
+      total++
+    } while (total < LIMIT)
+    for (j in 0..LIMIT) {
+      print("${j}: ${_name?.toUpperCase() ?: "none"}")
+    }
+    for (k in 0..|LIMIT) {
+      total = total > k ? total : k
+    }
+  }
+
+  function describe(value : Object, flags : boolean[] = null) : String {
+    switch (typeof value) {
+      case String:
+        return 'text ' + value
+      case Integer:
+        return "number " + (value as Integer).intValue()
+      default:
+        break
+    }
+    var text = new StringBuilder()
+    try {
+      var numbers = {1, 2, 3}.where(\n -> n > 1).map(\n -> n * 2.5d)
+      var increment : block(x : int) : int = \x -> x + 1
+      text.append(numbers.first()).append(increment(0x1F)).append(0b101).append(1.5e3f)
+    } catch (e : IllegalStateException) {
+      throw new RuntimeException(e.Message, e)
+    } finally {
+      text.append(DateUtil.currentDate())
+    }
+    using (var lock = new Object()) {
+      eval("1 + 1")
+    }
+    return text.toString()
+  }
+
+  private static function compute(a : int, b : int) : int {
+    assert a >= 0 : "negative"
+    return (a & b) | (a ^ b) + ~a
+  }
+}
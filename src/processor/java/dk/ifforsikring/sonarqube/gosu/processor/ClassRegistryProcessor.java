@@ -0,0 +1,197 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.AnnotationMirror;
+import javax.lang.model.element.AnnotationValue;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.ExecutableElement;
+import javax.lang.model.element.Modifier;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.type.TypeMirror;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Generates the {@code ClassRegistry} of the rules, with their keys and scopes, and of the metrics of the plugin,
+ * so they are not looked up on the classpath and in the rule metadata when the plugin is loaded.
+ * <p>
+ * The scopes are read from the JSON metadata of the rules, in the directory given by the {@value #METADATA_DIR_OPTION}
+ * option.
+ */
+@SupportedAnnotationTypes("*")
+@SupportedOptions(ClassRegistryProcessor.METADATA_DIR_OPTION)
+public class ClassRegistryProcessor extends AbstractProcessor {
+    static final String METADATA_DIR_OPTION = "gosu.rulesMetadataDir";
+
+    private static final String PLUGIN_PACKAGE = "dk.ifforsikring.sonarqube.gosu.plugin";
+    private static final String RULES_PACKAGE = PLUGIN_PACKAGE + ".rules";
+    private static final String MEASURES_PACKAGE = PLUGIN_PACKAGE + ".measures";
+    private static final String REGISTRY_PACKAGE = PLUGIN_PACKAGE + ".tools.reflections";
+    private static final String REGISTRY_NAME = "ClassRegistry";
+    private static final String BASE_RULE = RULES_PACKAGE + ".BaseGosuRule";
+    private static final String BASE_METRIC = MEASURES_PACKAGE + ".metrics.BaseMetric";
+    private static final String RULE_ANNOTATION = "org.sonar.check.Rule";
+    private static final Pattern SCOPE = Pattern.compile("\"scope\"\\s*:\\s*\"([^\"]*)\"");
+
+    private final Map<String, String> rules = new TreeMap<>();
+    private final Set<String> metrics = new TreeSet<>();
+    private boolean generated;
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (generated || roundEnv.processingOver()) {
+            return false;
+        }
+        final TypeElement baseRule = processingEnv.getElementUtils().getTypeElement(BASE_RULE);
+        final TypeElement baseMetric = processingEnv.getElementUtils().getTypeElement(BASE_METRIC);
+        if (baseRule == null || baseMetric == null) {
+            return false;
+        }
+
+        for (Element element : roundEnv.getRootElements()) {
+            if (element.getKind() != ElementKind.CLASS || element.getModifiers().contains(Modifier.ABSTRACT)) {
+                continue;
+            }
+            final TypeElement type = (TypeElement) element;
+            final String name = type.getQualifiedName().toString();
+            if (name.startsWith(RULES_PACKAGE + ".") && isSubtype(type, baseRule)) {
+                addRule(type, name);
+            } else if (name.startsWith(MEASURES_PACKAGE + ".") && isSubtype(type, baseMetric)) {
+                metrics.add(name);
+            }
+        }
+
+        writeRegistry();
+        generated = true;
+        return false;
+    }
+
+    private boolean isSubtype(TypeElement type, TypeElement supertype) {
+        final TypeMirror erasure = processingEnv.getTypeUtils().erasure(supertype.asType());
+        return processingEnv.getTypeUtils().isSubtype(processingEnv.getTypeUtils().erasure(type.asType()), erasure);
+    }
+
+    private void addRule(TypeElement type, String name) {
+        final String key = ruleKeyOf(type);
+        if (key == null) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Rule without a @Rule key", type);
+            return;
+        }
+        final String previous = rules.put(key, name);
+        if (previous != null) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Rule key " + key + " is also used by " + previous, type);
+        }
+    }
+
+    private static String ruleKeyOf(TypeElement type) {
+        for (AnnotationMirror annotation : type.getAnnotationMirrors()) {
+            if (annotation.getAnnotationType().toString().equals(RULE_ANNOTATION)) {
+                for (Map.Entry<? extends ExecutableElement, ? extends AnnotationValue> value : annotation.getElementValues().entrySet()) {
+                    if (value.getKey().getSimpleName().contentEquals("key")) {
+                        return (String) value.getValue().getValue();
+                    }
+                }
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Same as the scopes of the rule metadata loaded by SonarQube: the main sources when the scope is missing or unknown.
+     */
+    private String scopeOf(String ruleKey) {
+        final String metadataDir = processingEnv.getOptions().get(METADATA_DIR_OPTION);
+        if (metadataDir == null) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Missing the -A" + METADATA_DIR_OPTION + " option");
+            return "MAIN";
+        }
+        final Path metadata = Path.of(metadataDir, ruleKey + ".json");
+        if (!Files.isRegularFile(metadata)) {
+            return "MAIN";
+        }
+        try {
+            final Matcher scope = SCOPE.matcher(Files.readString(metadata, StandardCharsets.UTF_8));
+            if (!scope.find()) {
+                return "MAIN";
+            }
+            return switch (scope.group(1).toLowerCase(Locale.ROOT)) {
+                case "all" -> "ALL";
+                case "tests" -> "TESTS";
+                default -> "MAIN";
+            };
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read: " + metadata, e);
+        }
+    }
+
+    private void writeRegistry() {
+        final StringBuilder source = new StringBuilder()
+                .append("package ").append(REGISTRY_PACKAGE).append(";\n\n")
+                .append("import dk.ifforsikring.sonarqube.gosu.plugin.measures.metrics.BaseMetric;\n")
+                .append("import dk.ifforsikring.sonarqube.gosu.plugin.utils.RulesMetadataUtil.Scope;\n\n")
+                .append("import java.util.List;\n\n")
+                .append("/**\n * Generated by ").append(ClassRegistryProcessor.class.getName()).append(".\n */\n")
+                .append("final class ").append(REGISTRY_NAME).append(" {\n")
+                .append("    static final List<RegisteredRule> RULES = List.of(");
+        String separator = "\n";
+        for (Map.Entry<String, String> rule : rules.entrySet()) {
+            source.append(separator)
+                    .append("            new RegisteredRule(\"").append(rule.getKey()).append("\", ")
+                    .append(rule.getValue()).append(".class, Scope.").append(scopeOf(rule.getKey())).append(')');
+            separator = ",\n";
+        }
+        source.append(");\n\n")
+                .append("    static final List<Class<? extends BaseMetric>> METRICS = List.of(");
+        separator = "\n";
+        for (String metric : metrics) {
+            source.append(separator).append("            ").append(metric).append(".class");
+            separator = ",\n";
+        }
+        source.append(");\n\n")
+                .append("    private ").append(REGISTRY_NAME).append("() {\n    }\n}\n");
+
+        try (Writer writer = processingEnv.getFiler().createSourceFile(REGISTRY_PACKAGE + "." + REGISTRY_NAME).openWriter()) {
+            writer.write(source.toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write the " + REGISTRY_NAME, e);
+        }
+    }
+}
@@ -0,0 +1,364 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.processor;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.annotation.processing.SupportedOptions;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.Element;
+import javax.lang.model.element.ElementKind;
+import javax.lang.model.element.TypeElement;
+import javax.lang.model.element.VariableElement;
+import javax.tools.Diagnostic;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.regex.Pattern;
+
+/**
+ * Generates {@code GosuTokenClasses}, with bitmask tables of the token types of the {@code GosuLexer} indexed by type,
+ * from the lexer grammar given by the {@value #LEXER_GRAMMAR_OPTION} option.
+ * <p>
+ * Keywords, operators, literals and comments are found from the rules of the grammar: a keyword matches one word,
+ * an operator matches symbols in the default mode, a literal is named after literals or enters or stays in another
+ * mode than the default one, like strings, and a comment is sent to the {@value #COMMENTS_CHANNEL} channel.
+ * <p>
+ * Complexity operators and executable tokens are not told by the grammar, so they are maintained by hand, with a
+ * {@code // classes: complexity-operator} or {@code // classes: executable} comment at the end of their rules.
+ */
+@SupportedAnnotationTypes("*")
+@SupportedOptions(TokenClassesProcessor.LEXER_GRAMMAR_OPTION)
+public class TokenClassesProcessor extends AbstractProcessor {
+    static final String LEXER_GRAMMAR_OPTION = "gosu.lexerGrammar";
+    static final String COMMENTS_CHANNEL = "COMMENTS";
+
+    private static final String LEXER = "dk.ifforsikring.sonarqube.gosu.antlr.GosuLexer";
+    private static final String TABLES_PACKAGE = "dk.ifforsikring.sonarqube.gosu.plugin.tokens";
+    private static final String TABLES_NAME = "GosuTokenClasses";
+    private static final String CLASSES_MARKER = "classes:";
+    private static final String DEFAULT_MODE = "DEFAULT_MODE";
+    private static final Pattern LITERAL = Pattern.compile("'(?:[^'\\\\]|\\\\.)*'");
+    private static final Pattern WORD = Pattern.compile("'[A-Za-z_]+'");
+    private static final Pattern RULE_NAME = Pattern.compile("[A-Z]\\w*");
+    private static final Pattern PREDICATE = Pattern.compile("\\{}\\??");
+    private static final Pattern SETTINGS = Pattern.compile("channels|tokens|options|@\\w+(::\\w+)?");
+    private static final Pattern OTHER_MODE_PUSH = Pattern.compile("pushMode\\((?!" + DEFAULT_MODE + "\\))");
+    private static final Map<String, TokenClass> MARKED_CLASSES = Map.of(
+            "complexity-operator", TokenClass.COMPLEXITY_OPERATOR,
+            "executable", TokenClass.EXECUTABLE
+    );
+
+    private boolean generated;
+
+    enum TokenClass {
+        KEYWORD, OPERATOR, LITERAL, COMMENT, COMPLEXITY_OPERATOR, EXECUTABLE;
+
+        private String methodName() {
+            final StringBuilder name = new StringBuilder();
+            for (String word : name().split("_")) {
+                name.append(word.charAt(0)).append(word.substring(1).toLowerCase(Locale.ROOT));
+            }
+            return name.toString();
+        }
+    }
+
+    private record LexerRule(String name, String mode, String body, String trailingComment) {
+    }
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        if (generated || roundEnv.processingOver()) {
+            return false;
+        }
+        final TypeElement lexer = processingEnv.getElementUtils().getTypeElement(LEXER);
+        if (lexer == null) {
+            return false;
+        }
+        final String grammar = processingEnv.getOptions().get(LEXER_GRAMMAR_OPTION);
+        if (grammar == null) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Missing the -A" + LEXER_GRAMMAR_OPTION + " option");
+            return false;
+        }
+
+        final Map<String, Integer> types = tokenTypesOf(lexer);
+        final Map<TokenClass, Set<String>> classes = new EnumMap<>(TokenClass.class);
+        for (TokenClass tokenClass : TokenClass.values()) {
+            classes.put(tokenClass, new TreeSet<>());
+        }
+        for (LexerRule rule : readRules(Path.of(grammar))) {
+            if (!types.containsKey(rule.name())) {
+                processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "No token type for the lexer rule " + rule.name(), lexer);
+                continue;
+            }
+            for (TokenClass tokenClass : classesOf(rule)) {
+                classes.get(tokenClass).add(rule.name());
+            }
+        }
+
+        writeTables(classes, types);
+        generated = true;
+        return false;
+    }
+
+    private static Map<String, Integer> tokenTypesOf(TypeElement lexer) {
+        final Map<String, Integer> types = new HashMap<>();
+        for (Element element : lexer.getEnclosedElements()) {
+            if (element.getKind() == ElementKind.FIELD
+                    && ((VariableElement) element).getConstantValue() instanceof Integer type
+                    && RULE_NAME.matcher(element.getSimpleName()).matches()) {
+                types.putIfAbsent(element.getSimpleName().toString(), type);
+            }
+        }
+        return types;
+    }
+
+    private List<TokenClass> classesOf(LexerRule rule) {
+        final List<TokenClass> classes = new ArrayList<>();
+        final int arrow = indexOutsideLiterals(rule.body(), "->");
+        final String commands = arrow < 0 ? "" : rule.body().substring(arrow + 2).replaceAll("\\s", "");
+        final String alternatives = PREDICATE.matcher(arrow < 0 ? rule.body() : rule.body().substring(0, arrow)).replaceAll("");
+        final boolean defaultMode = rule.mode().equals(DEFAULT_MODE);
+        final boolean entersOtherMode = OTHER_MODE_PUSH.matcher(commands).find();
+
+        if (defaultMode && allLiterals(alternatives, WORD)) {
+            classes.add(TokenClass.KEYWORD);
+        } else if (defaultMode && allLiterals(alternatives, LITERAL) && !hasLetter(alternatives) && !entersOtherMode) {
+            classes.add(TokenClass.OPERATOR);
+        }
+        if (rule.name().toLowerCase(Locale.ROOT).contains("literal") || entersOtherMode
+                || (!defaultMode && !commands.contains("pushMode(" + DEFAULT_MODE + ")"))) {
+            classes.add(TokenClass.LITERAL);
+        }
+        if (commands.contains("channel(" + COMMENTS_CHANNEL + ")")) {
+            classes.add(TokenClass.COMMENT);
+        }
+
+        final String comment = rule.trailingComment().trim();
+        if (comment.startsWith(CLASSES_MARKER)) {
+            for (String name : comment.substring(CLASSES_MARKER.length()).split(",")) {
+                final TokenClass tokenClass = MARKED_CLASSES.get(name.trim());
+                if (tokenClass == null) {
+                    processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Unknown token class '" + name.trim()
+                            + "' of the lexer rule " + rule.name() + ", expected one of " + MARKED_CLASSES.keySet());
+                } else {
+                    classes.add(tokenClass);
+                }
+            }
+        }
+        return classes;
+    }
+
+    private static boolean allLiterals(String alternatives, Pattern literal) {
+        int from = 0;
+        int bar;
+        do {
+            bar = indexOutsideLiterals(alternatives.substring(from), "|");
+            final String alternative = bar < 0 ? alternatives.substring(from) : alternatives.substring(from, from + bar);
+            if (!literal.matcher(alternative.trim()).matches()) {
+                return false;
+            }
+            from += bar + 1;
+        } while (bar >= 0);
+        return true;
+    }
+
+    /**
+     * @return Index of the text in the body of a rule, outside its quoted literals, or -1
+     */
+    private static int indexOutsideLiterals(String body, String text) {
+        int i = 0;
+        while (i < body.length()) {
+            if (body.charAt(i) == '\'') {
+                i = quoteEnd(body, i) + 1;
+            } else if (body.startsWith(text, i)) {
+                return i;
+            } else {
+                i++;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean hasLetter(String alternatives) {
+        return LITERAL.matcher(alternatives).results()
+                .anyMatch(literal -> literal.group().chars().skip(1).limit(literal.group().length() - 2L).anyMatch(Character::isLetter));
+    }
+
+    /**
+     * Reads the token rules of the grammar, with the literals kept and the actions and predicates replaced by {@code {}}.
+     */
+    private static List<LexerRule> readRules(Path grammar) {
+        final String text;
+        try {
+            text = Files.readString(grammar, StandardCharsets.UTF_8);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read: " + grammar, e);
+        }
+
+        final List<LexerRule> rules = new ArrayList<>();
+        final StringBuilder statement = new StringBuilder();
+        String mode = DEFAULT_MODE;
+        LexerRule lastRule = null;
+        boolean lastRuleEndsLine = false;
+        int i = 0;
+        while (i < text.length()) {
+            final char c = text.charAt(i);
+            if (c == '/' && text.startsWith("//", i)) {
+                final int end = lineEnd(text, i);
+                if (lastRule != null && !lastRuleEndsLine) {
+                    rules.set(rules.size() - 1, new LexerRule(lastRule.name(), lastRule.mode(), lastRule.body(), text.substring(i + 2, end)));
+                }
+                i = end;
+            } else if (c == '/' && text.startsWith("/*", i)) {
+                i = text.indexOf("*/", i + 2) + 2;
+            } else if (c == '\'') {
+                final int end = quoteEnd(text, i);
+                statement.append(text, i, end + 1);
+                i = end + 1;
+            } else if (c == '{') {
+                int depth = 0;
+                do {
+                    final char action = text.charAt(i);
+                    if (action == '\'' || action == '"') {
+                        i = quoteEnd(text, i);
+                    }
+                    depth += action == '{' ? 1 : action == '}' ? -1 : 0;
+                    i++;
+                } while (depth > 0);
+                if (SETTINGS.matcher(statement.toString().trim()).matches()) {
+                    statement.setLength(0);
+                } else {
+                    statement.append("{}");
+                }
+            } else if (c == ';') {
+                final String[] words = statement.toString().trim().split("\\s+", 2);
+                final int colon = statement.indexOf(":");
+                if (words[0].equals("mode")) {
+                    mode = words[1].trim();
+                } else if (colon > 0 && RULE_NAME.matcher(statement.substring(0, colon).trim()).matches()) {
+                    lastRule = new LexerRule(statement.substring(0, colon).trim(), mode, statement.substring(colon + 1).trim(), "");
+                    rules.add(lastRule);
+                    lastRuleEndsLine = false;
+                }
+                statement.setLength(0);
+                i++;
+            } else {
+                lastRuleEndsLine |= c == '\n';
+                statement.append(c);
+                i++;
+            }
+        }
+        return rules;
+    }
+
+    /**
+     * @return Index of the quote closing the quote at the given index
+     */
+    private static int quoteEnd(String text, int quote) {
+        int end = quote + 1;
+        while (text.charAt(end) != text.charAt(quote)) {
+            end += text.charAt(end) == '\\' ? 2 : 1;
+        }
+        return end;
+    }
+
+    private static int lineEnd(String text, int from) {
+        final int end = text.indexOf('\n', from);
+        return end < 0 ? text.length() : end;
+    }
+
+    private void writeTables(Map<TokenClass, Set<String>> classes, Map<String, Integer> types) {
+        final int maxType = types.values().stream().mapToInt(Integer::intValue).max().orElse(0);
+        final StringBuilder source = new StringBuilder()
+                .append("package ").append(TABLES_PACKAGE).append(";\n\n")
+                .append("/**\n * Classes of the token types of the lexer, as bitmasks indexed by token type.\n")
+                .append(" * <p>\n * Generated by ").append(TokenClassesProcessor.class.getName()).append(".\n */\n")
+                .append("public final class ").append(TABLES_NAME).append(" {\n");
+
+        for (Map.Entry<TokenClass, Set<String>> tokenClass : classes.entrySet()) {
+            final long[] table = new long[(maxType >> 6) + 1];
+            for (String name : tokenClass.getValue()) {
+                final int type = types.get(name);
+                table[type >> 6] |= 1L << type;
+            }
+            source.append("    // ").append(String.join(", ", tokenClass.getValue())).append('\n')
+                    .append("    private static final long[] ").append(tokenClass.getKey().name()).append(" = {");
+            for (int word = 0; word < table.length; word++) {
+                source.append(word == 0 ? "" : ", ").append("0x").append(Long.toHexString(table[word])).append('L');
+            }
+            source.append("};\n\n");
+        }
+
+        source.append("    private ").append(TABLES_NAME).append("() {\n    }\n");
+        for (TokenClass tokenClass : classes.keySet()) {
+            source.append('\n')
+                    .append("    public static boolean is").append(tokenClass.methodName()).append("(int type) {\n")
+                    .append("        return contains(").append(tokenClass.name()).append(", type);\n")
+                    .append("    }\n\n")
+                    .append("    public static int[] ").append(Character.toLowerCase(tokenClass.methodName().charAt(0)))
+                    .append(tokenClass.methodName().substring(1)).append("Types() {\n")
+                    .append("        return typesOf(").append(tokenClass.name()).append(");\n")
+                    .append("    }\n");
+        }
+        source.append("""
+
+                    private static boolean contains(long[] table, int type) {
+                        return type >= 0 && (type >> 6) < table.length && (table[type >> 6] & (1L << type)) != 0;
+                    }
+
+                    private static int[] typesOf(long[] table) {
+                        int count = 0;
+                        for (long word : table) {
+                            count += Long.bitCount(word);
+                        }
+                        final int[] types = new int[count];
+                        int i = 0;
+                        for (int type = 0; type < table.length << 6; type++) {
+                            if (contains(table, type)) {
+                                types[i++] = type;
+                            }
+                        }
+                        return types;
+                    }
+                }
+                """);
+
+        try (Writer writer = processingEnv.getFiler().createSourceFile(TABLES_PACKAGE + "." + TABLES_NAME).openWriter()) {
+            writer.write(source.toString());
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to write the " + TABLES_NAME, e);
+        }
+    }
+}
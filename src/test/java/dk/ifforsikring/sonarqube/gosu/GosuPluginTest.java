@@ -44,6 +44,6 @@ class GosuPluginTest {
         assertThatCode(() -> new GosuPlugin().define(context)).doesNotThrowAnyException();
 
         // then
-        assertThat(context.getExtensions()).hasSize(6);
+        assertThat(context.getExtensions()).hasSize(13);
     }
 }
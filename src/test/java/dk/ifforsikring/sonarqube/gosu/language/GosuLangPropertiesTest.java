@@ -17,6 +17,7 @@
 package dk.ifforsikring.sonarqube.gosu.language;
 
 import org.junit.jupiter.api.Test;
+import org.sonar.api.PropertyType;
 import org.sonar.api.config.PropertyDefinition;
 
 import static org.assertj.core.api.Assertions.assertThat;
@@ -34,4 +35,88 @@ class GosuLangPropertiesTest {
         assertThat(properties.category()).isEqualTo("Gosu");
         assertThat(properties.description()).isEqualTo("Comma-separated list of suffixes for files to analyze.");
     }
-}
\ No newline at end of file
+
+    @Test
+    void shouldReturnAnalysisThreadsPropertyDefinition() {
+        // when
+        final PropertyDefinition properties = GosuLangProperties.getAnalysisThreadsProperty();
+
+        assertThat(properties.key()).isEqualTo("sonar.gosu.analysis.threads");
+        assertThat(properties.defaultValue()).isEqualTo("1");
+        assertThat(properties.type()).isEqualTo(PropertyType.INTEGER);
+        assertThat(properties.name()).isEqualTo("Analysis Threads");
+        assertThat(properties.category()).isEqualTo("Gosu");
+    }
+
+    @Test
+    void shouldReturnAnalysisCachePropertyDefinition() {
+        // when
+        final PropertyDefinition properties = GosuLangProperties.getAnalysisCacheProperty();
+
+        assertThat(properties.key()).isEqualTo("sonar.gosu.analysis.cache");
+        assertThat(properties.defaultValue()).isEqualTo("true");
+        assertThat(properties.type()).isEqualTo(PropertyType.BOOLEAN);
+        assertThat(properties.name()).isEqualTo("Analysis Cache");
+        assertThat(properties.category()).isEqualTo("Gosu");
+    }
+
+    @Test
+    void shouldReturnAnalysisCacheDirPropertyDefinition() {
+        // when
+        final PropertyDefinition properties = GosuLangProperties.getAnalysisCacheDirProperty();
+
+        assertThat(properties.key()).isEqualTo("sonar.gosu.analysis.cacheDir");
+        assertThat(properties.defaultValue()).isEmpty();
+        assertThat(properties.type()).isEqualTo(PropertyType.STRING);
+        assertThat(properties.name()).isEqualTo("Analysis Cache Directory");
+        assertThat(properties.category()).isEqualTo("Gosu");
+    }
+
+    @Test
+    void shouldReturnParserMaxDfaStatesPropertyDefinition() {
+        // when
+        final PropertyDefinition properties = GosuLangProperties.getParserMaxDfaStatesProperty();
+
+        assertThat(properties.key()).isEqualTo("sonar.gosu.parser.maxDfaStates");
+        assertThat(properties.defaultValue()).isEqualTo("200000");
+        assertThat(properties.type()).isEqualTo(PropertyType.INTEGER);
+        assertThat(properties.name()).isEqualTo("Parser Cache Limit");
+        assertThat(properties.category()).isEqualTo("Gosu");
+    }
+
+    @Test
+    void shouldReturnParserStrategyPropertyDefinition() {
+        // when
+        final PropertyDefinition properties = GosuLangProperties.getParserStrategyProperty();
+
+        assertThat(properties.key()).isEqualTo("sonar.gosu.parser.strategy");
+        assertThat(properties.defaultValue()).isEqualTo("SLL_THEN_LL");
+        assertThat(properties.type()).isEqualTo(PropertyType.SINGLE_SELECT_LIST);
+        assertThat(properties.options()).containsExactly("SLL_THEN_LL", "LL");
+        assertThat(properties.category()).isEqualTo("Gosu");
+    }
+
+    @Test
+    void shouldReturnListenerModePropertyDefinition() {
+        // when
+        final PropertyDefinition properties = GosuLangProperties.getListenerModeProperty();
+
+        assertThat(properties.key()).isEqualTo("sonar.gosu.analysis.listenerMode");
+        assertThat(properties.defaultValue()).isEqualTo("TREE_WALK");
+        assertThat(properties.type()).isEqualTo(PropertyType.SINGLE_SELECT_LIST);
+        assertThat(properties.options()).containsExactly("TREE_WALK", "PARSE");
+        assertThat(properties.category()).isEqualTo("Gosu");
+    }
+
+    @Test
+    void shouldReturnProfilePropertyDefinition() {
+        // when
+        final PropertyDefinition properties = GosuLangProperties.getProfileProperty();
+
+        assertThat(properties.key()).isEqualTo("sonar.gosu.profile");
+        assertThat(properties.defaultValue()).isEqualTo("false");
+        assertThat(properties.type()).isEqualTo(PropertyType.BOOLEAN);
+        assertThat(properties.name()).isEqualTo("Profile Rules");
+        assertThat(properties.category()).isEqualTo("Gosu");
+    }
+}
@@ -0,0 +1,117 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin;
+
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuLexer;
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuParser;
+import dk.ifforsikring.sonarqube.gosu.language.utils.GosuUtil;
+import dk.ifforsikring.sonarqube.gosu.plugin.tokens.GosuTokenClasses;
+import dk.ifforsikring.test.support.TestResourcesDirectories;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Token;
+import org.antlr.v4.runtime.tree.ParseTree;
+import org.antlr.v4.runtime.tree.Trees;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ComplexityOperatorsTest {
+
+    @Test
+    void shouldCountOperatorsAndSequencesOfOperatorsOfTheSameType() {
+        // given
+        final CommonTokenStream tokenStream = new CommonTokenStream(new GosuLexer(CharStreams.fromString(
+                "class A {\n  var a = b && c && d || e or f and g and h | i\n}")));
+        final GosuParser.ExpressionContext expression = expressionsOf(tokenStream).get(0);
+
+        // when
+        final ComplexityOperators complexityOperators = ComplexityOperators.of(tokenStream.getTokens());
+
+        // then
+        assertThat(complexityOperators.countIn(expression)).isEqualTo(7);
+        assertThat(complexityOperators.countSequencesIn(expression)).isEqualTo(5);
+        assertThat(complexityOperators.sequenceStartsIn(expression))
+                .extracting(Token::getText)
+                .containsExactly("&&", "||", "or", "and", "|");
+    }
+
+    @Test
+    void shouldFindTheSameOperatorsAsScanningTheTokensOfEveryExpression() throws IOException {
+        // given
+        final List<Path> files = TestResourcesDirectories.RESOURCES_DIR.findGosuFiles();
+        assertThat(files).isNotEmpty();
+
+        for (Path file : files) {
+            final CommonTokenStream tokenStream = new CommonTokenStream(new GosuLexer(CharStreams.fromPath(file)));
+            final List<GosuParser.ExpressionContext> expressions = expressionsOf(tokenStream);
+
+            // when
+            final ComplexityOperators complexityOperators = ComplexityOperators.of(tokenStream.getTokens());
+
+            // then
+            for (GosuParser.ExpressionContext expression : expressions) {
+                final List<Token> tokens = tokenStream.get(expression.getStart().getTokenIndex(), GosuUtil.getStopToken(expression).getTokenIndex());
+                final String description = file + " at " + expression.getStart().getLine() + ": " + expression.getText();
+
+                assertThat(complexityOperators.operatorsIn(expression)).as(description).isEqualTo(operatorsOf(tokens));
+                assertThat(complexityOperators.countIn(expression)).as(description).isEqualTo(operatorsOf(tokens).size());
+                assertThat(complexityOperators.sequenceStartsIn(expression)).as(description).isEqualTo(sequenceStartsOf(tokens));
+                assertThat(complexityOperators.countSequencesIn(expression)).as(description).isEqualTo(sequenceStartsOf(tokens).size());
+            }
+        }
+    }
+
+    private static List<Token> operatorsOf(List<Token> tokens) {
+        final List<Token> operators = new ArrayList<>();
+        for (Token token : tokens) {
+            if (GosuTokenClasses.isComplexityOperator(token.getType())) {
+                operators.add(token);
+            }
+        }
+        return operators;
+    }
+
+    private static List<Token> sequenceStartsOf(List<Token> tokens) {
+        final List<Token> operators = new ArrayList<>();
+        int previousTokenType = 0;
+        for (Token token : tokens) {
+            if (GosuTokenClasses.isComplexityOperator(token.getType())) {
+                if (previousTokenType != token.getType()) {
+                    operators.add(token);
+                }
+                previousTokenType = token.getType();
+            }
+        }
+        return operators;
+    }
+
+    private static List<GosuParser.ExpressionContext> expressionsOf(CommonTokenStream tokenStream) {
+        final GosuParser parser = new GosuParser(tokenStream);
+        parser.removeErrorListeners();
+        final ParseTree tree = parser.start();
+        return Trees.getDescendants(tree).stream()
+                .filter(GosuParser.ExpressionContext.class::isInstance)
+                .map(GosuParser.ExpressionContext.class::cast)
+                .toList();
+    }
+}
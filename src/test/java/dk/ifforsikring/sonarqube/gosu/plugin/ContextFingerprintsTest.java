@@ -0,0 +1,130 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin;
+
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuLexer;
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuParser;
+import dk.ifforsikring.test.support.TestResourcesDirectories;
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonToken;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.TerminalNodeImpl;
+import org.antlr.v4.runtime.tree.Trees;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ContextFingerprintsTest {
+    private final ContextFingerprints fingerprints = new ContextFingerprints();
+
+    @Test
+    void shouldFingerprintContextsMadeOfTheSameTokensAlike() {
+        // given
+        final List<ParserRuleContext> contexts = contextsOf(CharStreams.fromString(
+                "class A {\n  var a = x as Foo\n  var b = x /* cast */ as   Foo\n  var c = a or b\n  var d = aorb\n  var e = x typeis Foo\n}"));
+        final List<GosuParser.TypeCastExpressionContext> casts = ofType(contexts, GosuParser.TypeCastExpressionContext.class);
+        final List<GosuParser.LogicalExpressionContext> disjunctions = ofType(contexts, GosuParser.LogicalExpressionContext.class);
+        final GosuParser.PrimaryExpressionContext aorb = ofType(contexts, GosuParser.PrimaryExpressionContext.class).stream()
+                .filter(expression -> expression.getText().equals("aorb"))
+                .findFirst()
+                .orElseThrow();
+
+        // then
+        assertThat(fingerprints.fingerprintOf(casts.get(0))).isEqualTo(fingerprints.fingerprintOf(casts.get(1)));
+        assertThat(fingerprints.fingerprintOf(casts.get(0).expression(1)))
+                .isEqualTo(fingerprints.fingerprintOf(ofType(contexts, GosuParser.TypeContext.class).get(0)));
+        assertThat(fingerprints.fingerprintOf(disjunctions.get(0)))
+                .isNotEqualTo(fingerprints.fingerprintOf(disjunctions.get(0).expression(1)));
+        assertThat(aorb.getText()).isEqualTo(disjunctions.get(0).getText());
+        assertThat(fingerprints.fingerprintOf(aorb)).isNotEqualTo(fingerprints.fingerprintOf(disjunctions.get(0)));
+    }
+
+    @Test
+    void shouldCompareTextsWithoutBuildingThem() {
+        // given
+        final List<ParserRuleContext> contexts = contextsOf(CharStreams.fromString("class A {\n  var a = LocalDate.now()\n}"));
+        final GosuParser.MemberAccessContext memberAccess = ofType(contexts, GosuParser.MemberAccessContext.class).get(0);
+
+        // then
+        assertThat(fingerprints.hasText(memberAccess, "LocalDate.now()")).isTrue();
+        assertThat(fingerprints.hasText(memberAccess, "LocalDate.now")).isFalse();
+        assertThat(fingerprints.hasText(memberAccess, "LocalDate.now()x")).isFalse();
+        assertThat(fingerprints.hasText(memberAccess.expression(0), "LocalDate")).isTrue();
+        assertThat(fingerprints.textOf(memberAccess)).isEqualTo("LocalDate.now()");
+    }
+
+    @Test
+    void shouldNotCacheContextsTheParserIsNotDoneWith() {
+        // given
+        final ParserRuleContext context = new ParserRuleContext();
+        context.addChild(new TerminalNodeImpl(new CommonToken(GosuLexer.IDENTIFIER, "a")));
+        final long fingerprint = fingerprints.fingerprintOf(context);
+        final String text = fingerprints.textOf(context);
+
+        // when
+        context.addChild(new TerminalNodeImpl(new CommonToken(GosuLexer.IDENTIFIER, "b")));
+
+        // then
+        assertThat(fingerprints.fingerprintOf(context)).isNotEqualTo(fingerprint);
+        assertThat(fingerprints.textOf(context)).isNotEqualTo(text).isEqualTo("ab");
+    }
+
+    @Test
+    void shouldGiveTheSameFingerprintsToTheContextsWithTheSameTextInTheTestResources() throws IOException {
+        // given
+        final List<Path> files = TestResourcesDirectories.RESOURCES_DIR.findGosuFiles();
+        assertThat(files).isNotEmpty();
+
+        for (Path file : files) {
+            final Map<String, Long> fingerprintsByText = new HashMap<>();
+            final Map<Long, String> textsByFingerprint = new HashMap<>();
+
+            // when
+            for (ParserRuleContext context : contextsOf(CharStreams.fromPath(file))) {
+                final String text = context.getText();
+                final long fingerprint = fingerprints.fingerprintOf(context);
+
+                // then
+                assertThat(fingerprints.textOf(context)).isEqualTo(text);
+                assertThat(fingerprints.hasText(context, text)).isTrue();
+                assertThat(fingerprintsByText.computeIfAbsent(text, key -> fingerprint)).as(file + ": " + text).isEqualTo(fingerprint);
+                assertThat(textsByFingerprint.computeIfAbsent(fingerprint, key -> text)).as(file + ": " + text).isEqualTo(text);
+            }
+        }
+    }
+
+    private static <T extends ParserRuleContext> List<T> ofType(List<ParserRuleContext> contexts, Class<T> type) {
+        return contexts.stream().filter(type::isInstance).map(type::cast).toList();
+    }
+
+    private static List<ParserRuleContext> contextsOf(CharStream source) {
+        final GosuParser parser = new GosuParser(new CommonTokenStream(new GosuLexer(source)));
+        parser.removeErrorListeners();
+        return Trees.getDescendants(parser.start()).stream()
+                .filter(ParserRuleContext.class::isInstance)
+                .map(ParserRuleContext.class::cast)
+                .toList();
+    }
+}
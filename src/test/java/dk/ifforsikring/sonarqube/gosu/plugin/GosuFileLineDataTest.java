@@ -32,12 +32,10 @@ import org.sonar.api.batch.sensor.internal.SensorContextTester;
 import org.sonar.api.measures.CoreMetrics;
 import org.sonar.api.measures.FileLinesContext;
 
-import java.io.IOException;
 import java.util.stream.Stream;
 
 import static dk.ifforsikring.test.support.TestResourcesDirectories.SAMPLES_RESOURCES_DIR;
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 class GosuFileLineDataTest {
@@ -63,23 +61,61 @@ class GosuFileLineDataTest {
     private Stream<Arguments> getGosuSourceFiles() {
         return Stream.of(
                 Arguments.of("/samples/Foo.gs", 6, 1),
-                Arguments.of("/samples/FooEnhancement.gsx", 6, 4),
-                Arguments.of("/samples/SpaceMarine.gs", 7, 4),
-                Arguments.of("/samples/SpaceMarineTest.gs", 11, 0)
+                Arguments.of("/samples/FooEnhancement.gsx", 6, 2),
+                Arguments.of("/samples/SpaceMarine.gs", 7, 1),
+                Arguments.of("/samples/SpaceMarineTest.gs", 11, 0),
+                Arguments.of("/samples/MultiLineString.gs", 10, 0)
         );
     }
 
     @Test
-    void throwsGosuPluginExceptionWhenFileLineDataCanNotBeCreated() {
-        final GosuTestFileParser.GosuFileParsed fileParsed = aParsedGosuFileOf("/samples/Foo.gs");
+    void shouldComputeFileLinesDataFromTokensWithoutReadingTheFileAgain() {
+        final GosuTestFileParser.GosuFileParsed fileParsed = aParsedGosuFileOf("/samples/SpaceMarine.gs");
         final InputFile fakeInputFile = TestInputFileBuilder.create("fakeModule", "FakeFile.java").build();
         final CommonTokenStream tokenStream = fileParsed.getSourceFileProperties().getTokenStream();
         final GosuFileProperties fileProperties = new GosuFileProperties(fakeInputFile, tokenStream, aFileLinesContextOf(fakeInputFile));
 
-        assertThatThrownBy(() -> new GosuFileLineData(fileProperties))
-                .isInstanceOf(GosuPluginException.class)
-                .hasCauseInstanceOf(IOException.class)
-                .hasMessage("Unable to compute lines of code for source file: FakeFile.java");
+        final GosuFileLineData fileLineData = new GosuFileLineData(fileProperties);
+
+        assertThat(fileLineData.getNumberOfLinesOfCode()).isEqualTo(7);
+        assertThat(fileLineData.getNumberOfCommentedLines()).isEqualTo(1);
+    }
+
+    @Test
+    void shouldNotCountBlankLinesOfCommentsNorCommentsTrailingCode() {
+        final GosuFileProperties fileProperties = aFilePropertiesOf("/samples/CommentedLines.gs");
+
+        final GosuFileLineData fileLineData = new GosuFileLineData(fileProperties);
+
+        assertThat(fileLineData.getNumberOfLinesOfCode()).isEqualTo(5);
+        assertThat(fileLineData.getNumberOfCommentedLines()).isEqualTo(2);
+    }
+
+    @Test
+    void shouldNotCountLinesHoldingOnlyCommentDelimiters() {
+        final LineIndexes lineIndexes = new LineIndexes();
+        aFilePropertiesOf("/samples/CommentedLines.gs").getTokenStream().getTokens().forEach(lineIndexes::consume);
+        lineIndexes.complete();
+
+        assertThat(lineIndexes.isCommentLine(3)).as("/*").isFalse();
+        assertThat(lineIndexes.isCommentLine(4)).isTrue();
+        assertThat(lineIndexes.isCommentLine(5)).as("blank line").isFalse();
+        assertThat(lineIndexes.isCommentLine(6)).as("*/").isFalse();
+        assertThat(lineIndexes.isCommentLine(7)).as("comment trailing code").isFalse();
+        assertThat(lineIndexes.isCommentLine(10)).isTrue();
+    }
+
+    @Test
+    void shouldAnswerLineQueriesOfFileLinesData() {
+        final GosuFileLineData fileLineData = new GosuFileLineData(aFilePropertiesOf("/samples/SpaceMarine.gs"));
+
+        assertThat(fileLineData.getLinesOfCodeIndexes()).containsExactly(1, 3, 5, 7, 8, 9, 15);
+        assertThat(fileLineData.getExecutableLinesIndexes()).containsExactly(7);
+        assertThat(fileLineData.isLineOfCode(5)).isTrue();
+        assertThat(fileLineData.isLineOfCode(11)).isFalse();
+        assertThat(fileLineData.isLineOfCode(0)).isFalse();
+        assertThat(fileLineData.isExecutableLine(7)).isTrue();
+        assertThat(fileLineData.isExecutableLine(8)).isFalse();
     }
 
     @ParameterizedTest
@@ -104,7 +140,8 @@ class GosuFileLineDataTest {
                 Arguments.of("/samples/Foo.gs", "1=1;3=1;5=1;6=1;7=1;9=1", "5=1"),
                 Arguments.of("/samples/FooEnhancement.gsx", "1=1;3=1;8=1;10=1;11=1;13=1", ""),
                 Arguments.of("/samples/SpaceMarine.gs", "1=1;3=1;5=1;7=1;8=1;9=1;15=1", "7=1"),
-                Arguments.of("/samples/SpaceMarineTest.gs", "1=1;3=1;4=1;6=1;8=1;9=1;10=1;11=1;12=1;13=1;14=1", "9=1;11=1")
+                Arguments.of("/samples/SpaceMarineTest.gs", "1=1;3=1;4=1;6=1;8=1;9=1;10=1;11=1;12=1;13=1;14=1", "9=1;11=1"),
+                Arguments.of("/samples/MultiLineString.gs", "1=1;3=1;5=1;6=1;7=1;8=1;9=1;10=1;11=1;13=1", "5=1")
         );
     }
 
@@ -0,0 +1,142 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin;
+
+import dk.ifforsikring.sonarqube.gosu.language.GosuLanguage;
+import dk.ifforsikring.sonarqube.gosu.plugin.context.AnalysisContext;
+import dk.ifforsikring.sonarqube.gosu.plugin.reports.UnitTestReports;
+import dk.ifforsikring.test.support.TestResourcesDirectories;
+import dk.ifforsikring.test.support.rules.dsl.gosu.GosuSourceCodeFile;
+import dk.ifforsikring.test.support.sonar.scanner.FileLinesContextFactorySpy;
+import org.junit.jupiter.api.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.batch.rule.internal.NewActiveRule;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.api.rule.RuleKey;
+
+import java.io.IOException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GosuFileParserTest {
+
+    @Test
+    void shouldOnlyLexTestFileWhenNoActiveRuleNeedsItsParseTree() throws IOException {
+        // given
+        final InputFile inputFile = inputFileOf("TODOsRule/nok.gs", InputFile.Type.TEST);
+
+        // when
+        final GosuFileAnalysis analysis = analyse(inputFile, "TODOsRule", "EmptyLineRule");
+
+        // then
+        assertThat(analysis.getPredictionMode()).isNull();
+        assertThat(analysis.getIssues()).isEmpty();
+        assertThat(analysis.getMeasures().getMeasures()).isEmpty();
+        assertThat(analysis.getProcessedTokens()).isNotNull();
+    }
+
+    @Test
+    void shouldOnlyLexTestFileSuppressingWarningsWhenNoRuleAnalysesIt() throws IOException {
+        // given
+        final InputFile inputFile = inputFileOf("SuppressWarningsListener/CheckWarnings.gs", InputFile.Type.TEST);
+
+        // when
+        final GosuFileAnalysis analysis = analyse(inputFile, "TODOsRule");
+
+        // then
+        assertThat(analysis.getPredictionMode()).isNull();
+        assertThat(analysis.getIssues()).isEmpty();
+    }
+
+    @Test
+    void shouldParseMainFileSuppressingWarnings() throws IOException {
+        // given
+        final InputFile inputFile = inputFileOf("SuppressWarningsListener/CheckWarnings.gs", InputFile.Type.MAIN);
+
+        // when
+        final GosuFileAnalysis analysis = analyse(inputFile, "TODOsRule");
+
+        // then
+        assertThat(analysis.getPredictionMode()).isNotNull();
+        assertThat(analysis.getIssues()).hasSize(1);
+    }
+
+    @Test
+    void shouldParseMainFileForItsMetrics() throws IOException {
+        // given
+        final InputFile inputFile = inputFileOf("TODOsRule/nok.gs", InputFile.Type.MAIN);
+
+        // when
+        final GosuFileAnalysis analysis = analyse(inputFile, "TODOsRule");
+
+        // then
+        assertThat(analysis.getPredictionMode()).isNotNull();
+        assertThat(analysis.getMeasures().getMeasures()).isNotEmpty();
+    }
+
+    @Test
+    void shouldReportSyntaxErrorsOfMainFile() throws IOException {
+        // given
+        final InputFile inputFile = inputFileOf(TestResourcesDirectories.SENSOR_RESOURCES_DIR, "SensorSyntaxErrorTest.gs", InputFile.Type.MAIN);
+
+        // when
+        final GosuFileAnalysis analysis = analyse(inputFile, "TODOsRule");
+
+        // then
+        assertThat(analysis.getPredictionMode()).isNotNull();
+        assertThat(analysis.getSyntaxErrors()).isNotEmpty();
+    }
+
+    /**
+     * Syntax errors are found by the parser, so they are not reported for files which are only lexed.
+     */
+    @Test
+    void shouldNotReportSyntaxErrorsOfOnlyLexedTestFile() throws IOException {
+        // given
+        final InputFile inputFile = inputFileOf(TestResourcesDirectories.SENSOR_RESOURCES_DIR, "SensorSyntaxErrorTest.gs", InputFile.Type.TEST);
+
+        // when
+        final GosuFileAnalysis analysis = analyse(inputFile, "TODOsRule");
+
+        // then
+        assertThat(analysis.getPredictionMode()).isNull();
+        assertThat(analysis.getSyntaxErrors()).isEmpty();
+    }
+
+    private static GosuFileAnalysis analyse(InputFile inputFile, String... ruleKeys) throws IOException {
+        final SensorContextTester sensorContext = SensorContextTester.create(TestResourcesDirectories.RULES_RESOURCES_DIR.getPath());
+        final ActiveRulesBuilder activeRules = new ActiveRulesBuilder();
+        for (String ruleKey : ruleKeys) {
+            activeRules.addRule(new NewActiveRule.Builder()
+                    .setRuleKey(RuleKey.of(GosuLanguage.REPOSITORY_KEY, ruleKey))
+                    .build());
+        }
+        sensorContext.setActiveRules(activeRules.build());
+        sensorContext.fileSystem().add(inputFile);
+        final AnalysisContext analysisContext = AnalysisContext.create(sensorContext, UnitTestReports.empty());
+        return new GosuFileParser(inputFile, analysisContext, new FileLinesContextFactorySpy(sensorContext).createFor(inputFile)).analyse();
+    }
+
+    private static InputFile inputFileOf(String fileName, InputFile.Type type) {
+        return inputFileOf(TestResourcesDirectories.RULES_RESOURCES_DIR, fileName, type);
+    }
+
+    private static InputFile inputFileOf(TestResourcesDirectories directory, String fileName, InputFile.Type type) {
+        return new GosuSourceCodeFile(fileName, directory.getPathAsString(), type).asInputFile();
+    }
+}
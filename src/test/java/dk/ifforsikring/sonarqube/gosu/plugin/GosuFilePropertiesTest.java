@@ -28,11 +28,9 @@ import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
 import org.sonar.api.measures.FileLinesContext;
 
-import java.io.IOException;
 import java.util.stream.Stream;
 
 import static org.assertj.core.api.Assertions.assertThat;
-import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
 class GosuFilePropertiesTest {
@@ -58,17 +56,14 @@ class GosuFilePropertiesTest {
     }
 
     @Test
-    void throwsGosuPluginExceptionWhenFileLineDataCanNotBeCreated() {
+    void shouldReturnFileLineDataWithoutReadingTheFile() {
         final GosuTestFileParser.GosuFileParsed fileParsed = aParsedGosuFileOf("/samples/Foo.gs");
         final InputFile fakeInputFile = TestInputFileBuilder.create("fakeModule", "FakeFile.java").build();
         final CommonTokenStream tokenStream = fileParsed.getSourceFileProperties().getTokenStream();
 
         final GosuFileProperties fileProperties = new GosuFileProperties(fakeInputFile, tokenStream, aFileLinesContextOf(fakeInputFile));
 
-        assertThatThrownBy(fileProperties::getFileLineData)
-                .isInstanceOf(GosuPluginException.class)
-                .hasCauseInstanceOf(IOException.class)
-                .hasMessage("Unable to compute lines of code for source file: FakeFile.java");
+        assertThat(fileProperties.getFileLineData().getNumberOfLinesOfCode()).isEqualTo(6);
     }
 
     @Test
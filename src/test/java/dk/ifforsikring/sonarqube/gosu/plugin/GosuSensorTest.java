@@ -17,19 +17,25 @@
 package dk.ifforsikring.sonarqube.gosu.plugin;
 
 import dk.ifforsikring.sonarqube.gosu.language.GosuLanguage;
+import dk.ifforsikring.sonarqube.gosu.plugin.profiling.ListenerProfiler;
+import dk.ifforsikring.sonarqube.gosu.plugin.tools.reflections.ClassExtractor;
 import dk.ifforsikring.test.support.GosuSensorContextTester;
 import dk.ifforsikring.test.support.TestResourcesDirectories;
 import dk.ifforsikring.test.support.rules.dsl.gosu.GosuSourceCodeFile;
 import dk.ifforsikring.test.support.rules.dsl.specification.SourceCodeFile;
-import dk.ifforsikring.test.support.sonar.scanner.FileLinesContextFactorySpy;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.fs.TextPointer;
 import org.sonar.api.batch.fs.TextRange;
 import org.sonar.api.batch.fs.internal.DefaultTextPointer;
+import org.sonar.api.batch.rule.ActiveRules;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.batch.rule.internal.NewActiveRule;
 import org.sonar.api.batch.sensor.internal.DefaultSensorDescriptor;
 import org.sonar.api.batch.sensor.internal.SensorContextTester;
-import org.sonar.api.scan.filesystem.PathResolver;
+import org.sonar.api.config.internal.MapSettings;
+import org.sonar.api.rule.RuleKey;
 
 import javax.annotation.Nonnull;
 import java.io.File;
@@ -37,13 +43,24 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.net.URI;
 import java.nio.charset.Charset;
+import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.List;
 import java.util.Objects;
-
+import java.util.stream.Stream;
+
+import static dk.ifforsikring.test.support.GosuSensorTester.createSensorContextTester;
+import static dk.ifforsikring.test.support.GosuSensorTester.describeCpdTokensOf;
+import static dk.ifforsikring.test.support.GosuSensorTester.describeHighlightingOf;
+import static dk.ifforsikring.test.support.GosuSensorTester.describeIssuesOf;
+import static dk.ifforsikring.test.support.GosuSensorTester.describeMeasuresOf;
+import static dk.ifforsikring.test.support.GosuSensorTester.newGosuSensorFor;
 import static org.assertj.core.api.Assertions.assertThat;
 
 class GosuSensorTest {
+    private static final List<String> SENSOR_FILES = List.of("SensorTest.gs", "SensorTest2.gs", "SensorTest3.gs");
 
     @Test
     void shouldSaveIssuesOnContextWhenGosuFileHasIssues() {
@@ -87,6 +104,146 @@ class GosuSensorTest {
         assertThat(sensorContextTester.allIssues()).isEmpty();
     }
 
+    @Test
+    void shouldSaveNoIssuesOnContextWhenParallelSensorExecutionWasCancelled() {
+        // given
+        final SensorContextTester sensorContextTester = createSensorContextTesterFor(SENSOR_FILES, true, 4);
+        final GosuSensor sensor = newGosuSensorFor(sensorContextTester);
+
+        // when
+        sensor.execute(sensorContextTester);
+
+        // then
+        assertThat(sensorContextTester.allIssues()).isEmpty();
+    }
+
+    @Test
+    void shouldSaveSameResultsOnContextWhenFilesAreAnalysedInParallel() {
+        // given
+        final SensorContextTester sequentialContext = createSensorContextTesterFor(SENSOR_FILES, false, 1);
+        final SensorContextTester parallelContext = createSensorContextTesterFor(SENSOR_FILES, false, 4);
+
+        // when
+        newGosuSensorFor(sequentialContext).execute(sequentialContext);
+        newGosuSensorFor(parallelContext).execute(parallelContext);
+
+        // then
+        assertThat(sequentialContext.allIssues()).isNotEmpty();
+        assertThat(describeIssuesOf(parallelContext)).containsExactlyElementsOf(describeIssuesOf(sequentialContext));
+        for (InputFile inputFile : sequentialContext.fileSystem().inputFiles()) {
+            final String key = inputFile.key();
+            assertThat(describeMeasuresOf(parallelContext, key)).isEqualTo(describeMeasuresOf(sequentialContext, key));
+            assertThat(describeCpdTokensOf(parallelContext, key)).isEqualTo(describeCpdTokensOf(sequentialContext, key));
+            assertThat(describeHighlightingOf(parallelContext, inputFile)).isEqualTo(describeHighlightingOf(sequentialContext, inputFile));
+        }
+    }
+
+    @Test
+    void shouldSaveSameResultsOnContextWithEitherParsingStrategy() {
+        // given
+        final SensorContextTester llContext = createSensorContextTesterFor(SENSOR_FILES, false, 1);
+        llContext.settings().setProperty("sonar.gosu.parser.strategy", "LL");
+        final SensorContextTester sllContext = createSensorContextTesterFor(SENSOR_FILES, false, 1);
+        sllContext.settings().setProperty("sonar.gosu.parser.strategy", "SLL_THEN_LL");
+
+        // when
+        newGosuSensorFor(llContext).execute(llContext);
+        newGosuSensorFor(sllContext).execute(sllContext);
+
+        // then
+        assertThat(llContext.allIssues()).isNotEmpty();
+        assertThat(describeIssuesOf(sllContext)).containsExactlyElementsOf(describeIssuesOf(llContext));
+        for (InputFile inputFile : llContext.fileSystem().inputFiles()) {
+            final String key = inputFile.key();
+            assertThat(describeMeasuresOf(sllContext, key)).isEqualTo(describeMeasuresOf(llContext, key));
+            assertThat(describeCpdTokensOf(sllContext, key)).isEqualTo(describeCpdTokensOf(llContext, key));
+        }
+    }
+
+    @Test
+    void shouldFallBackToDefaultParsingStrategyAndListenerModeWhenValuesAreUnknown() {
+        // given
+        final SensorContextTester defaultContext = createSensorContextTesterFor(SENSOR_FILES, false, 1);
+        final SensorContextTester unknownContext = createSensorContextTesterFor(SENSOR_FILES, false, 1);
+        unknownContext.settings().setProperty("sonar.gosu.parser.strategy", "sll");
+        unknownContext.settings().setProperty("sonar.gosu.analysis.listenerMode", "walk");
+        final SensorContextTester lowerCaseContext = createSensorContextTesterFor(SENSOR_FILES, false, 1);
+        lowerCaseContext.settings().setProperty("sonar.gosu.parser.strategy", "ll");
+        lowerCaseContext.settings().setProperty("sonar.gosu.analysis.listenerMode", "parse");
+
+        // when
+        newGosuSensorFor(defaultContext).execute(defaultContext);
+        newGosuSensorFor(unknownContext).execute(unknownContext);
+        newGosuSensorFor(lowerCaseContext).execute(lowerCaseContext);
+
+        // then
+        assertThat(defaultContext.allIssues()).isNotEmpty();
+        assertThat(describeIssuesOf(unknownContext)).containsExactlyElementsOf(describeIssuesOf(defaultContext));
+        assertThat(describeIssuesOf(lowerCaseContext)).containsExactlyElementsOf(describeIssuesOf(defaultContext));
+    }
+
+    @Test
+    void shouldSaveSyntaxErrorsOnceWhenSllPredictionFallsBackToLlPrediction() {
+        // given
+        final SensorContextTester llContext = createSensorContextTesterFor("SensorSyntaxErrorTest.gs");
+        llContext.settings().setProperty("sonar.gosu.parser.strategy", "LL");
+        final SensorContextTester sllContext = createSensorContextTesterFor("SensorSyntaxErrorTest.gs");
+
+        // when
+        newGosuSensorFor(llContext).execute(llContext);
+        newGosuSensorFor(sllContext).execute(sllContext);
+
+        // then
+        assertThat(llContext.allAnalysisErrors()).isNotEmpty();
+        assertThat(sllContext.allAnalysisErrors())
+                .extracting(analysisError -> analysisError.location() + " " + analysisError.message())
+                .containsExactlyElementsOf(llContext.allAnalysisErrors().stream()
+                        .map(analysisError -> analysisError.location() + " " + analysisError.message())
+                        .toList());
+    }
+
+    @Test
+    void shouldSaveSameResultsOnContextWithEitherListenerMode() throws IOException {
+        // given
+        final SensorContextTester parseContext = createSensorContextTesterForRuleFiles();
+        parseContext.settings().setProperty("sonar.gosu.analysis.listenerMode", "PARSE");
+        final SensorContextTester treeWalkContext = createSensorContextTesterForRuleFiles();
+        treeWalkContext.settings().setProperty("sonar.gosu.analysis.listenerMode", "TREE_WALK");
+
+        // when
+        newGosuSensorFor(parseContext).execute(parseContext);
+        newGosuSensorFor(treeWalkContext).execute(treeWalkContext);
+
+        // then
+        assertThat(parseContext.allIssues()).isNotEmpty();
+        assertThat(describeIssuesOf(treeWalkContext)).containsExactlyInAnyOrderElementsOf(describeIssuesOf(parseContext));
+        for (InputFile inputFile : parseContext.fileSystem().inputFiles()) {
+            final String key = inputFile.key();
+            assertThat(describeMeasuresOf(treeWalkContext, key)).isEqualTo(describeMeasuresOf(parseContext, key));
+        }
+    }
+
+    @Test
+    void shouldSaveSameIssuesOnContextAndWriteProfileWhenProfilingIsEnabled(@TempDir Path workDir) throws IOException {
+        // given
+        final SensorContextTester context = createSensorContextTesterFor(SENSOR_FILES, false, 1);
+        final SensorContextTester profiledContext = createSensorContextTesterFor(SENSOR_FILES, false, 1);
+        profiledContext.settings().setProperty("sonar.gosu.profile", true);
+        profiledContext.settings().setProperty("sonar.gosu.analysis.cache", false);
+        profiledContext.fileSystem().setWorkDir(workDir);
+
+        // when
+        newGosuSensorFor(context).execute(context);
+        newGosuSensorFor(profiledContext).execute(profiledContext);
+
+        // then
+        assertThat(context.allIssues()).isNotEmpty();
+        assertThat(describeIssuesOf(profiledContext)).containsExactlyElementsOf(describeIssuesOf(context));
+        assertThat(Files.readString(workDir.resolve(ListenerProfiler.REPORT_FILE)))
+                .contains("\"name\": \"MagicNumbersRule\", \"kind\": \"RULE\"")
+                .contains("\"kind\": \"METRIC\"");
+    }
+
     @Test
     void shouldAddGosuSensorDescriptionToSensorDescriptor() {
         // given
@@ -124,15 +281,6 @@ class GosuSensorTest {
         );
     }
 
-    private GosuSensor newGosuSensorFor(SensorContextTester sensorContextTester) {
-        return new GosuSensor(
-                sensorContextTester.fileSystem(),
-                sensorContextTester.config(),
-                new PathResolver(),
-                new FileLinesContextFactorySpy(sensorContextTester)
-        );
-    }
-
     private SensorContextTester createSensorContextTesterFor(String fileName) {
         return createSensorContextTesterFor(fileName, false);
     }
@@ -142,13 +290,48 @@ class GosuSensorTest {
         return createSensorContextTesterFor(sourceCodeFile.asInputFile(), isCancelled);
     }
 
+    private SensorContextTester createSensorContextTesterFor(List<String> fileNames, boolean isCancelled, int analysisThreads) {
+        final SensorContextTester sensorContext = createSensorContextTester(fileNames, Collections.emptyMap(), InputFile.Type.MAIN);
+        sensorContext.setCancelled(isCancelled);
+        sensorContext.setSettings(new MapSettings().setProperty("sonar.gosu.analysis.threads", analysisThreads));
+        return sensorContext;
+    }
+
+    private SensorContextTester createSensorContextTesterForRuleFiles() throws IOException {
+        final Path rulesDir = TestResourcesDirectories.RULES_RESOURCES_DIR.getPath();
+        final SensorContextTester sensorContext = SensorContextTester.create(rulesDir);
+        sensorContext.setActiveRules(activeRules(ClassExtractor.getRules().keySet()));
+        try (Stream<Path> files = Files.walk(rulesDir)) {
+            for (Path file : files.filter(path -> path.toString().endsWith(".gs")).sorted().toList()) {
+                final String fileName = rulesDir.relativize(file).toString();
+                sensorContext.fileSystem().add(new GosuSourceCodeFile(fileName, rulesDir.toString()).asInputFile());
+            }
+        }
+        return sensorContext;
+    }
+
+    private static ActiveRules activeRules(Collection<String> ruleKeys) {
+        final ActiveRulesBuilder activeRules = new ActiveRulesBuilder();
+        for (String ruleKey : ruleKeys) {
+            activeRules.addRule(new NewActiveRule.Builder()
+                    .setRuleKey(RuleKey.of(GosuLanguage.REPOSITORY_KEY, ruleKey))
+                    .build());
+        }
+        return activeRules.build();
+    }
+
     private SensorContextTester createSensorContextTesterFor(InputFile inputFile, boolean isCancelled) {
+        final SensorContextTester sensorContext = createSensorContextTesterFor(isCancelled);
+        sensorContext.fileSystem().add(inputFile);
+        return sensorContext;
+    }
+
+    private SensorContextTester createSensorContextTesterFor(boolean isCancelled) {
         final GosuSensorContextTester sensorContextTester =
                 new GosuSensorContextTester(TestResourcesDirectories.SENSOR_RESOURCES_DIR.getPath(),
                         "MagicNumbersRule", Collections.emptyMap());
         final SensorContextTester sensorContext = sensorContextTester.get();
         sensorContext.setCancelled(isCancelled);
-        sensorContext.fileSystem().add(inputFile);
         return sensorContext;
     }
 
@@ -0,0 +1,302 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.cache;
+
+import dk.ifforsikring.test.support.GosuSensorTester;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.sensor.cache.ReadCache;
+import org.sonar.api.batch.sensor.cache.WriteCache;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+
+import javax.annotation.Nonnull;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Stream;
+
+import static dk.ifforsikring.test.support.GosuSensorTester.describeAnalysisErrorsOf;
+import static dk.ifforsikring.test.support.GosuSensorTester.describeCpdTokensOf;
+import static dk.ifforsikring.test.support.GosuSensorTester.describeHighlightingOf;
+import static dk.ifforsikring.test.support.GosuSensorTester.describeIssuesOf;
+import static dk.ifforsikring.test.support.GosuSensorTester.describeMeasuresOf;
+import static dk.ifforsikring.test.support.GosuSensorTester.newGosuSensorFor;
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AnalysisCacheTest {
+    private static final List<String> SENSOR_FILES = List.of("SensorTest.gs", "SensorTest2.gs", "SensorTest3.gs", "SensorSyntaxErrorTest.gs");
+
+    @Test
+    void shouldReplaySameResultsFromSonarQubeCache() {
+        // given
+        final InMemoryCache firstCache = new InMemoryCache(Map.of());
+        final SensorContextTester firstContext = createSensorContextTester(Map.of());
+        enableCache(firstContext, firstCache);
+        execute(firstContext);
+
+        final InMemoryCache secondCache = new InMemoryCache(firstCache.entries);
+        final SensorContextTester secondContext = createSensorContextTester(Map.of());
+        enableCache(secondContext, secondCache);
+
+        // when
+        execute(secondContext);
+
+        // then
+        assertThat(firstCache.entries).hasSize(SENSOR_FILES.size());
+        assertThat(secondCache.copiedFromPrevious).hasSize(SENSOR_FILES.size());
+        assertSameResults(secondContext, firstContext);
+    }
+
+    @Test
+    void shouldAnalyseFilesAgainWhenRuleParametersChanged() {
+        // given
+        final InMemoryCache firstCache = new InMemoryCache(Map.of());
+        final SensorContextTester firstContext = createSensorContextTester(Map.of());
+        enableCache(firstContext, firstCache);
+        execute(firstContext);
+
+        final InMemoryCache secondCache = new InMemoryCache(firstCache.entries);
+        final SensorContextTester secondContext = createSensorContextTester(Map.of("Approved numbers", "-1,0,1,2,3,4,5"));
+        enableCache(secondContext, secondCache);
+
+        // when
+        execute(secondContext);
+
+        // then
+        assertThat(secondCache.copiedFromPrevious).isEmpty();
+        assertThat(secondCache.entries).hasSize(SENSOR_FILES.size());
+    }
+
+    @Test
+    void shouldAnalyseFilesAgainWhenTheirTypeChanged() {
+        // given
+        final InMemoryCache firstCache = new InMemoryCache(Map.of());
+        final SensorContextTester firstContext = createSensorContextTester(Map.of());
+        enableCache(firstContext, firstCache);
+        execute(firstContext);
+
+        final InMemoryCache secondCache = new InMemoryCache(firstCache.entries);
+        final SensorContextTester secondContext = GosuSensorTester.createSensorContextTester(SENSOR_FILES, Map.of(), InputFile.Type.TEST);
+        enableCache(secondContext, secondCache);
+        final SensorContextTester uncachedContext = GosuSensorTester.createSensorContextTester(SENSOR_FILES, Map.of(), InputFile.Type.TEST);
+
+        // when
+        execute(secondContext);
+        execute(uncachedContext);
+
+        // then
+        assertThat(secondCache.copiedFromPrevious).isEmpty();
+        assertThat(secondCache.entries).hasSize(SENSOR_FILES.size()).doesNotContainKeys(firstCache.entries.keySet().toArray(String[]::new));
+        assertThat(describeIssuesOf(secondContext)).containsExactlyElementsOf(describeIssuesOf(uncachedContext));
+        for (InputFile inputFile : uncachedContext.fileSystem().inputFiles()) {
+            assertThat(describeMeasuresOf(secondContext, inputFile.key())).isEqualTo(describeMeasuresOf(uncachedContext, inputFile.key()));
+        }
+    }
+
+    @Test
+    void shouldAnalyseFilesAgainWhenAnalysisPropertiesChanged() {
+        // given
+        final InMemoryCache firstCache = new InMemoryCache(Map.of());
+        final SensorContextTester firstContext = createSensorContextTester(Map.of());
+        enableCache(firstContext, firstCache);
+        execute(firstContext);
+
+        final InMemoryCache secondCache = new InMemoryCache(firstCache.entries);
+        final SensorContextTester secondContext = createSensorContextTester(Map.of());
+        secondContext.settings().setProperty("sonar.gosu.analysis.listenerMode", "PARSE");
+        enableCache(secondContext, secondCache);
+
+        // when
+        execute(secondContext);
+
+        // then
+        assertThat(secondCache.copiedFromPrevious).isEmpty();
+        assertThat(secondCache.entries).hasSize(SENSOR_FILES.size());
+    }
+
+    @Test
+    void shouldReplaySameResultsFromCacheDirectoryWhenSonarQubeCacheIsDisabled(@TempDir Path tempDir) throws IOException {
+        // given
+        final Path cacheDir = tempDir.resolve("cache");
+        final SensorContextTester firstContext = createSensorContextTester(Map.of());
+        firstContext.fileSystem().setWorkDir(Files.createDirectory(tempDir.resolve("firstWorkDir")));
+        firstContext.settings().setProperty("sonar.gosu.analysis.cacheDir", cacheDir.toString());
+        execute(firstContext);
+
+        final SensorContextTester secondContext = createSensorContextTester(Map.of());
+        secondContext.fileSystem().setWorkDir(Files.createDirectory(tempDir.resolve("secondWorkDir")));
+        secondContext.settings().setProperty("sonar.gosu.analysis.cacheDir", cacheDir.toString());
+        final Map<Path, FileTime> storedEntries = modificationTimesOf(cacheDir);
+
+        // when
+        execute(secondContext);
+
+        // then
+        assertThat(storedEntries).hasSize(SENSOR_FILES.size());
+        assertThat(modificationTimesOf(cacheDir)).isEqualTo(storedEntries);
+        assertSameResults(secondContext, firstContext);
+    }
+
+    @Test
+    void shouldKeepCacheInSonarUserHomeWhenNoCacheDirectoryIsSet(@TempDir Path tempDir) throws IOException {
+        // given
+        final Path sonarUserHome = tempDir.resolve("sonarUserHome");
+        final SensorContextTester firstContext = createSensorContextTester(Map.of());
+        firstContext.fileSystem().setWorkDir(Files.createDirectory(tempDir.resolve("firstWorkDir")));
+        firstContext.settings().setProperty("sonar.userHome", sonarUserHome.toString());
+        execute(firstContext);
+
+        final SensorContextTester secondContext = createSensorContextTester(Map.of());
+        secondContext.fileSystem().setWorkDir(Files.createDirectory(tempDir.resolve("secondWorkDir")));
+        secondContext.settings().setProperty("sonar.userHome", sonarUserHome.toString());
+
+        // when
+        execute(secondContext);
+
+        // then
+        try (Stream<Path> projectDirs = Files.list(sonarUserHome.resolve("gosu-cache"))) {
+            final List<Path> cacheDirs = projectDirs.toList();
+            assertThat(cacheDirs).hasSize(1);
+            assertThat(modificationTimesOf(cacheDirs.get(0))).hasSize(SENSOR_FILES.size());
+        }
+        assertSameResults(secondContext, firstContext);
+    }
+
+    @Test
+    void shouldRemoveEntriesOfFilesNoLongerAnalysed(@TempDir Path cacheDir) throws IOException {
+        // given
+        final SensorContextTester firstContext = createSensorContextTester(Map.of());
+        firstContext.settings().setProperty("sonar.gosu.analysis.cacheDir", cacheDir.toString());
+        execute(firstContext);
+        Files.writeString(cacheDir.resolve("abandoned.tmp"), "");
+
+        final SensorContextTester secondContext = GosuSensorTester.createSensorContextTester(SENSOR_FILES.subList(0, 1), Map.of(), InputFile.Type.MAIN);
+        secondContext.settings().setProperty("sonar.gosu.analysis.cacheDir", cacheDir.toString());
+
+        // when
+        execute(secondContext);
+
+        // then
+        assertThat(modificationTimesOf(cacheDir)).hasSize(1);
+    }
+
+    @Test
+    void shouldNotCacheAnythingWhenDisabled(@TempDir Path tempDir) {
+        // given
+        final Path cacheDir = tempDir.resolve("cache");
+        final SensorContextTester sensorContext = createSensorContextTester(Map.of());
+        sensorContext.fileSystem().setWorkDir(tempDir);
+        sensorContext.settings().setProperty("sonar.gosu.analysis.cache", false);
+        sensorContext.settings().setProperty("sonar.gosu.analysis.cacheDir", cacheDir.toString());
+
+        // when
+        execute(sensorContext);
+
+        // then
+        assertThat(cacheDir).doesNotExist();
+    }
+
+    private static Map<Path, FileTime> modificationTimesOf(Path directory) throws IOException {
+        try (Stream<Path> entries = Files.list(directory)) {
+            final Map<Path, FileTime> modificationTimes = new HashMap<>();
+            for (Path entry : entries.toList()) {
+                modificationTimes.put(entry, Files.getLastModifiedTime(entry));
+            }
+            return modificationTimes;
+        }
+    }
+
+    private static void assertSameResults(SensorContextTester actual, SensorContextTester expected) {
+        assertThat(expected.allIssues()).isNotEmpty();
+        assertThat(describeIssuesOf(actual)).containsExactlyElementsOf(describeIssuesOf(expected));
+        assertThat(describeAnalysisErrorsOf(actual)).isNotEmpty().containsExactlyElementsOf(describeAnalysisErrorsOf(expected));
+        for (InputFile inputFile : expected.fileSystem().inputFiles()) {
+            final String key = inputFile.key();
+            assertThat(describeMeasuresOf(actual, key)).isNotEmpty().isEqualTo(describeMeasuresOf(expected, key));
+            assertThat(describeCpdTokensOf(actual, key)).isEqualTo(describeCpdTokensOf(expected, key));
+            assertThat(describeHighlightingOf(actual, inputFile)).isEqualTo(describeHighlightingOf(expected, inputFile));
+        }
+    }
+
+    private static void execute(SensorContextTester sensorContext) {
+        newGosuSensorFor(sensorContext).execute(sensorContext);
+    }
+
+    private static void enableCache(SensorContextTester sensorContext, InMemoryCache cache) {
+        sensorContext.setCacheEnabled(true);
+        sensorContext.setPreviousCache(cache.previous);
+        sensorContext.setNextCache(cache);
+    }
+
+    private static SensorContextTester createSensorContextTester(Map<String, String> ruleProperties) {
+        return GosuSensorTester.createSensorContextTester(SENSOR_FILES, ruleProperties, InputFile.Type.MAIN);
+    }
+
+    private static final class InMemoryCache implements WriteCache {
+        private final ReadCache previous;
+        private final Map<String, byte[]> entries = new HashMap<>();
+        private final List<String> copiedFromPrevious = new ArrayList<>();
+
+        private InMemoryCache(Map<String, byte[]> previousEntries) {
+            this.previous = new ReadCache() {
+                @Override
+                @Nonnull
+                public InputStream read(@Nonnull String key) {
+                    return new ByteArrayInputStream(previousEntries.get(key));
+                }
+
+                @Override
+                public boolean contains(@Nonnull String key) {
+                    return previousEntries.containsKey(key);
+                }
+            };
+        }
+
+        @Override
+        public void write(@Nonnull String key, @Nonnull InputStream data) {
+            try {
+                write(key, data.readAllBytes());
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+
+        @Override
+        public void write(@Nonnull String key, @Nonnull byte[] data) {
+            entries.put(key, data);
+        }
+
+        @Override
+        public void copyFromPrevious(@Nonnull String key) {
+            copiedFromPrevious.add(key);
+            try (InputStream data = previous.read(key)) {
+                write(key, data);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
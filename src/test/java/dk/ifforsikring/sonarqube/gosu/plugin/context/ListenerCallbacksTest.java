@@ -0,0 +1,54 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.context;
+
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuParser;
+import dk.ifforsikring.sonarqube.gosu.plugin.rules.smells.MagicNumbersRule;
+import dk.ifforsikring.sonarqube.gosu.plugin.tools.listeners.TokenPipelineListener;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ListenerCallbacksTest {
+
+    @Test
+    void shouldFindTheRuleCallbacksARuleOverrides() {
+        // when
+        final ListenerCallbacks callbacks = ListenerCallbacks.of(MagicNumbersRule.class);
+
+        // then
+        assertThat(callbacks.exitsRule(GosuParser.NumberLiteralContext.class)).isTrue();
+        assertThat(callbacks.exitsRule(GosuParser.FieldContext.class)).isTrue();
+        assertThat(callbacks.entersRule(GosuParser.NumberLiteralContext.class)).isFalse();
+        assertThat(callbacks.exitsRule(GosuParser.ClassBodyContext.class)).isFalse();
+        assertThat(callbacks.entersEveryRule()).isFalse();
+        assertThat(callbacks.exitsEveryRule()).isFalse();
+        assertThat(callbacks.visitsTerminals()).isFalse();
+        assertThat(callbacks.visitsErrorNodes()).isFalse();
+    }
+
+    @Test
+    void shouldFindOnlyTheExitCallbackOfTheTokenPipelineListener() {
+        // when
+        final ListenerCallbacks callbacks = ListenerCallbacks.of(TokenPipelineListener.class);
+
+        // then
+        assertThat(callbacks.exitsRule(GosuParser.StartContext.class)).isTrue();
+        assertThat(callbacks.entersRule(GosuParser.StartContext.class)).isFalse();
+        assertThat(callbacks.visitsTerminals()).isFalse();
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.context;
+
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuParser;
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuParserBaseListener;
+import org.antlr.v4.runtime.CommonToken;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.antlr.v4.runtime.tree.TerminalNode;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ListenerChainTest {
+
+    @Test
+    void shouldNotifyListenersInTheOrderOfParseListeners() {
+        // given
+        final List<String> events = new ArrayList<>();
+        final ListenerChain listenerChain = new ListenerChain();
+        listenerChain.add(new RecordingListener("first", events));
+        listenerChain.add(new RecordingListener("second", events));
+        final GosuParser.StartContext start = new GosuParser.StartContext(null, 0);
+        start.addChild(new CommonToken(GosuParser.IDENTIFIER, "name"));
+
+        // when
+        ParseTreeWalker.DEFAULT.walk(listenerChain, start);
+
+        // then
+        assertThat(events).containsExactly(
+                "first enterEveryRule", "first enterStart",
+                "second enterEveryRule", "second enterStart",
+                "first visitTerminal name", "second visitTerminal name",
+                "second exitStart", "second exitEveryRule",
+                "first exitStart", "first exitEveryRule");
+    }
+
+    @Test
+    void shouldOnlyDispatchEventsToListenersOverridingTheirCallbacks() {
+        // given
+        final List<String> events = new ArrayList<>();
+        final ListenerChain listenerChain = new ListenerChain();
+        listenerChain.add(new GosuParserBaseListener() {
+            @Override
+            public void exitStart(GosuParser.StartContext ctx) {
+                events.add("exitStart");
+            }
+
+            @Override
+            public void enterEveryRule(ParserRuleContext ctx) {
+                throw new AssertionError("enterEveryRule is not overridden by the listener");
+            }
+        }, ListenerCallbacks.of(ExitStartListener.class), false);
+        final GosuParser.StartContext start = new GosuParser.StartContext(null, 0);
+        start.addChild(new GosuParser.ClassBodyContext(start, 0));
+
+        // when
+        ParseTreeWalker.DEFAULT.walk(listenerChain, start);
+
+        // then
+        assertThat(events).containsExactly("exitStart");
+    }
+
+    @Test
+    void shouldForwardEveryDispatchedRuleEventToForwardingListeners() {
+        // given
+        final List<String> events = new ArrayList<>();
+        final ListenerChain listenerChain = new ListenerChain();
+        listenerChain.add(new RecordingListener("forwarding", events), ListenerCallbacks.of(ExitStartListener.class), true);
+        final GosuParser.StartContext start = new GosuParser.StartContext(null, 0);
+
+        // when
+        ParseTreeWalker.DEFAULT.walk(listenerChain, start);
+
+        // then
+        assertThat(events).containsExactly("forwarding exitEveryRule");
+    }
+
+    private static class ExitStartListener extends GosuParserBaseListener {
+        @Override
+        public void exitStart(GosuParser.StartContext ctx) {
+            // only overridden callback
+        }
+    }
+
+    private static final class RecordingListener extends GosuParserBaseListener {
+        private final String name;
+        private final List<String> events;
+
+        private RecordingListener(String name, List<String> events) {
+            this.name = name;
+            this.events = events;
+        }
+
+        @Override
+        public void enterEveryRule(ParserRuleContext ctx) {
+            events.add(name + " enterEveryRule");
+        }
+
+        @Override
+        public void exitEveryRule(ParserRuleContext ctx) {
+            events.add(name + " exitEveryRule");
+        }
+
+        @Override
+        public void enterStart(GosuParser.StartContext ctx) {
+            events.add(name + " enterStart");
+        }
+
+        @Override
+        public void exitStart(GosuParser.StartContext ctx) {
+            events.add(name + " exitStart");
+        }
+
+        @Override
+        public void visitTerminal(TerminalNode node) {
+            events.add(name + " visitTerminal " + node.getText());
+        }
+    }
+}
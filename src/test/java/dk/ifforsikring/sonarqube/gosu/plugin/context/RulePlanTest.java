@@ -0,0 +1,167 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.context;
+
+import com.google.inject.Guice;
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuLexer;
+import dk.ifforsikring.sonarqube.gosu.plugin.GosuFileProperties;
+import dk.ifforsikring.sonarqube.gosu.plugin.measures.metrics.CognitiveComplexityMetric;
+import dk.ifforsikring.sonarqube.gosu.plugin.measures.metrics.CyclomaticComplexityMetric;
+import dk.ifforsikring.sonarqube.gosu.plugin.rules.BaseGosuRule;
+import dk.ifforsikring.sonarqube.gosu.plugin.rules.metrics.CognitiveComplexityRule;
+import dk.ifforsikring.sonarqube.gosu.plugin.rules.metrics.CyclomaticComplexityRule;
+import dk.ifforsikring.sonarqube.gosu.plugin.rules.smells.LoggerRule;
+import dk.ifforsikring.sonarqube.gosu.plugin.rules.smells.MagicNumbersRule;
+import dk.ifforsikring.sonarqube.gosu.plugin.rules.smells.NestedStatementsRule;
+import dk.ifforsikring.sonarqube.gosu.plugin.rules.smells.TODOsRule;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Token;
+import org.junit.jupiter.api.Test;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.rule.ActiveRules;
+import org.sonar.api.batch.rule.internal.ActiveRulesBuilder;
+import org.sonar.api.batch.rule.internal.NewActiveRule;
+import org.sonar.api.rule.RuleKey;
+
+import java.lang.reflect.Field;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class RulePlanTest {
+
+    @Test
+    void shouldPlanActiveRulesForTheirScope() {
+        // given
+        final ActiveRules activeRules = new ActiveRulesBuilder()
+                .addRule(anActiveRule("NestedStatementsRule", NestedStatementsRule.MAX_NESTING_KEY, "5"))
+                .addRule(anActiveRule("UnknownRule", "Some property", "1"))
+                .build();
+
+        // when
+        final RulePlan rulePlan = RulePlan.of(activeRules);
+
+        // then
+        assertThat(rulePlan.getRulesFor(InputFile.Type.MAIN))
+                .extracting(RulePlan.PlannedRule::getRuleClass)
+                .containsExactly(NestedStatementsRule.class);
+        assertThat(rulePlan.getRulesFor(InputFile.Type.TEST)).isEmpty();
+    }
+
+    @Test
+    void shouldApplyRulePropertiesWhenInstantiatingPlannedRules() throws ReflectiveOperationException {
+        // given
+        final ActiveRules activeRules = new ActiveRulesBuilder()
+                .addRule(anActiveRule("NestedStatementsRule", NestedStatementsRule.MAX_NESTING_KEY, "5"))
+                .build();
+        final RulePlan.PlannedRule plannedRule = RulePlan.of(activeRules).getRulesFor(InputFile.Type.MAIN).get(0);
+
+        // when
+        final BaseGosuRule first = plannedRule.instantiate(Guice.createInjector());
+        final BaseGosuRule second = plannedRule.instantiate(Guice.createInjector());
+
+        // then
+        assertThat(first).isNotSameAs(second);
+        assertThat(getField(first, "maxNestedLevel")).isEqualTo(5);
+        assertThat(getField(second, "maxNestedLevel")).isEqualTo(5);
+    }
+
+    @Test
+    void shouldKeepDefaultValueWhenRulePropertyIsBlank() throws ReflectiveOperationException {
+        // given
+        final ActiveRules activeRules = new ActiveRulesBuilder()
+                .addRule(anActiveRule("MagicNumbersRule", MagicNumbersRule.APPROVED_NUMBERS_KEY, " "))
+                .build();
+        final RulePlan.PlannedRule plannedRule = RulePlan.of(activeRules).getRulesFor(InputFile.Type.MAIN).get(0);
+
+        // when
+        final GosuFileProperties gosuFileProperties = new GosuFileProperties(null, null, null);
+        final BaseGosuRule rule = plannedRule.instantiate(Guice.createInjector(
+                binder -> binder.bind(GosuFileProperties.class).toInstance(gosuFileProperties)));
+
+        // then
+        assertThat(getField(rule, "approvedNumbers")).isEqualTo("-1,0,1");
+    }
+
+    @Test
+    void shouldOnlyPlanRulesWhoseRequiredTokensAreInTheFile() {
+        // given
+        final ActiveRules activeRules = new ActiveRulesBuilder()
+                .addRule(anActiveRule("LoggerRule", LoggerRule.LOGGER_REGEX_KEY, "LOG"))
+                .addRule(anActiveRule("TODOsRule", "Some property", "1"))
+                .addRule(anActiveRule("NestedStatementsRule", NestedStatementsRule.MAX_NESTING_KEY, "5"))
+                .build();
+        final RulePlan rulePlan = RulePlan.of(activeRules);
+
+        // when
+        final TokenPresence tokenPresence = rulePlan.findRequiredTokensIn(tokensOf(
+                "class A {\n  // todo: log\n  static final var Logger = LoggerFactory.getLogger(A)\n}"));
+
+        // then
+        assertThat(rulePlan.getRulesFor(InputFile.Type.MAIN))
+                .filteredOn(plannedRule -> plannedRule.canRaiseIssuesOn(tokenPresence))
+                .extracting(RulePlan.PlannedRule::getRuleClass)
+                .containsExactlyInAnyOrder(LoggerRule.class, TODOsRule.class, NestedStatementsRule.class);
+        assertThat(rulePlan.getRulesFor(InputFile.Type.MAIN))
+                .filteredOn(plannedRule -> plannedRule.canRaiseIssuesOn(rulePlan.findRequiredTokensIn(tokensOf("class A {}"))))
+                .extracting(RulePlan.PlannedRule::getRuleClass)
+                .containsExactly(NestedStatementsRule.class);
+    }
+
+    @Test
+    void shouldResolveMetricsInjectedInPlannedRules() {
+        // given
+        final ActiveRules activeRules = new ActiveRulesBuilder()
+                .addRule(anActiveRule("CognitiveComplexityRule", CognitiveComplexityRule.METHOD_THRESHOLD_KEY, "10"))
+                .addRule(anActiveRule("CyclomaticComplexityRule", CyclomaticComplexityRule.METHOD_THRESHOLD_KEY, "10"))
+                .addRule(anActiveRule("TODOsRule", "Some property", "1"))
+                .build();
+
+        // when
+        final RulePlan rulePlan = RulePlan.of(activeRules);
+
+        // then
+        assertThat(rulePlan.getRulesFor(InputFile.Type.MAIN))
+                .extracting(RulePlan.PlannedRule::getRuleClass, RulePlan.PlannedRule::getMetricDependencies)
+                .containsExactlyInAnyOrder(
+                        tuple(CognitiveComplexityRule.class, Set.of(CognitiveComplexityMetric.class)),
+                        tuple(CyclomaticComplexityRule.class, Set.of(CyclomaticComplexityMetric.class)),
+                        tuple(TODOsRule.class, Set.of()));
+    }
+
+    private static List<Token> tokensOf(String source) {
+        final CommonTokenStream tokenStream = new CommonTokenStream(new GosuLexer(CharStreams.fromString(source)));
+        tokenStream.fill();
+        return tokenStream.getTokens();
+    }
+
+    private static NewActiveRule anActiveRule(String ruleKey, String propertyKey, String propertyValue) {
+        return new NewActiveRule.Builder()
+                .setRuleKey(RuleKey.of("gosu", ruleKey))
+                .setParam(propertyKey, propertyValue)
+                .build();
+    }
+
+    private static Object getField(Object rule, String name) throws ReflectiveOperationException {
+        final Field field = rule.getClass().getDeclaredField(name);
+        field.setAccessible(true);
+        return field.get(rule);
+    }
+}
@@ -0,0 +1,81 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.issues;
+
+import org.junit.jupiter.api.Test;
+import org.sonar.api.batch.fs.TextRange;
+import org.sonar.api.batch.fs.internal.DefaultTextPointer;
+import org.sonar.api.batch.fs.internal.DefaultTextRange;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SuppressedRangesTest {
+
+    @Test
+    void shouldFindOverlappingRangesLikeTextRangeOverlap() {
+        // given
+        final Random random = new Random(42);
+        final List<TextRange> textRanges = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            textRanges.add(randomRange(random));
+        }
+        final SuppressedRanges suppressedRanges = SuppressedRanges.of(textRanges);
+
+        for (int i = 0; i < 2_000; i++) {
+            // when
+            final TextRange issuePosition = randomRange(random);
+
+            // then
+            final boolean expected = textRanges.stream().anyMatch(issuePosition::overlap);
+            assertThat(suppressedRanges.overlap(issuePosition)).as("%s", issuePosition).isEqualTo(expected);
+        }
+    }
+
+    @Test
+    void shouldFindIssueInsideNestedMember() {
+        // given
+        final SuppressedRanges suppressedRanges = SuppressedRanges.of(List.of(
+                range(1, 0, 100, 1),
+                range(10, 2, 20, 3)));
+
+        // then
+        assertThat(suppressedRanges.overlap(range(15, 4, 15, 10))).isTrue();
+        assertThat(suppressedRanges.overlap(range(101, 0, 101, 4))).isFalse();
+    }
+
+    @Test
+    void shouldSuppressIssueOnTheWholeFileOnlyWhenThereAreRanges() {
+        assertThat(SuppressedRanges.of(List.of(range(1, 0, 2, 0))).overlap(null)).isTrue();
+        assertThat(SuppressedRanges.of(List.of()).overlap(null)).isFalse();
+    }
+
+    private static TextRange randomRange(Random random) {
+        final int startLine = 1 + random.nextInt(40);
+        final int startOffset = random.nextInt(10);
+        final int endLine = startLine + random.nextInt(5);
+        final int endOffset = endLine == startLine ? startOffset + random.nextInt(10) : random.nextInt(10);
+        return range(startLine, startOffset, endLine, endOffset);
+    }
+
+    private static TextRange range(int startLine, int startOffset, int endLine, int endOffset) {
+        return new DefaultTextRange(new DefaultTextPointer(startLine, startOffset), new DefaultTextPointer(endLine, endOffset));
+    }
+}
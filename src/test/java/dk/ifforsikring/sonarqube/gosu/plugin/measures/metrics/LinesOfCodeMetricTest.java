@@ -41,7 +41,7 @@ class LinesOfCodeMetricTest {
 
         // then
         assertThat(sensor.measure(componentKey, CoreMetrics.NCLOC).value()).isEqualTo(7);
-        assertThat(sensor.measure(componentKey, CoreMetrics.COMMENT_LINES).value()).isEqualTo(4);
+        assertThat(sensor.measure(componentKey, CoreMetrics.COMMENT_LINES).value()).isEqualTo(1);
         assertThat(sensor.measure(componentKey, CoreMetrics.NCLOC_DATA).value()).isEqualTo("1=1;3=1;5=1;7=1;8=1;9=1;15=1");
         assertThat(sensor.measure(componentKey, CoreMetrics.EXECUTABLE_LINES_DATA).value()).isEqualTo("7=1");
     }
@@ -0,0 +1,114 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.parser;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CodePointBuffer;
+import org.antlr.v4.runtime.CodePointCharStream;
+import org.antlr.v4.runtime.misc.Interval;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.fs.internal.TestInputFileBuilder;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GosuCharStreamsTest {
+
+    @Test
+    void shouldDecodeTheCodePointsLikeAntlr() throws IOException {
+        for (String text : new String[]{"class A {}", "var s = \"æøå\"", "var s = \"π\"", "var s = \"😀!\"", ""}) {
+            // when
+            final CharStream stream = streamOf(text.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+
+            // then
+            final CharStream expected = CharStreams.fromString(text);
+            assertThat(stream.size()).as(text).isEqualTo(expected.size());
+            assertThat(textOf(stream)).isEqualTo(textOf(expected));
+        }
+    }
+
+    @Test
+    void shouldDecodeWithTheCharsetOfTheFile() throws IOException {
+        // given
+        final Charset windows1252 = Charset.forName("windows-1252");
+        final String text = "// Prisen er 10 € for æbler\nclass Æble {}";
+
+        // when
+        final CharStream latin1 = streamOf(text.replace("€", "EUR").getBytes(StandardCharsets.ISO_8859_1), StandardCharsets.ISO_8859_1);
+        final CharStream cp1252 = streamOf(text.getBytes(windows1252), windows1252);
+        final CharStream utf16 = streamOf(text.getBytes(StandardCharsets.UTF_16), StandardCharsets.UTF_16);
+
+        // then
+        assertThat(textOf(latin1)).isEqualTo(text.replace("€", "EUR"));
+        assertThat(textOf(cp1252)).isEqualTo(text);
+        assertThat(textOf(utf16)).isEqualTo(text);
+    }
+
+    @Test
+    void shouldSkipTheByteOrderMark() throws IOException {
+        // when
+        final CharStream stream = streamOf("\uFEFFclass A {}".getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+
+        // then
+        assertThat(textOf(stream)).isEqualTo("class A {}");
+    }
+
+    @Test
+    void shouldReadTheFilesOnTheDisk(@TempDir Path baseDir) throws IOException {
+        // given
+        final Charset windows1252 = Charset.forName("windows-1252");
+        final String text = "// æøå\n" + "var a = 1\n".repeat(GosuCharStreams.MIN_MAPPED_SIZE / 10);
+        final Path smallFile = Files.writeString(baseDir.resolve("Small.gs"), "class Æble {}", windows1252);
+        final Path largeFile = Files.writeString(baseDir.resolve("Large.gs"), text, windows1252);
+
+        // when
+        final CharStream small = GosuCharStreams.of(inputFileOf(baseDir, smallFile, windows1252), true);
+        final CharStream large = GosuCharStreams.of(inputFileOf(baseDir, largeFile, windows1252), true);
+        final CharStream streamed = GosuCharStreams.of(inputFileOf(baseDir, largeFile, windows1252), false);
+
+        // then
+        assertThat(Files.size(largeFile)).isGreaterThanOrEqualTo(GosuCharStreams.MIN_MAPPED_SIZE);
+        assertThat(textOf(small)).isEqualTo("class Æble {}");
+        assertThat(textOf(large)).isEqualTo(text);
+        assertThat(textOf(streamed)).isEqualTo(text);
+        assertThat(large.getSourceName()).isEqualTo("Large.gs");
+    }
+
+    private static InputFile inputFileOf(Path baseDir, Path file, Charset charset) {
+        return TestInputFileBuilder.create("module", baseDir.toFile(), file.toFile())
+                .setCharset(charset)
+                .build();
+    }
+
+    private static CharStream streamOf(byte[] bytes, Charset charset) throws IOException {
+        final CodePointBuffer codePoints = GosuCharStreams.codePointsOf(ByteBuffer.wrap(bytes), charset);
+        return CodePointCharStream.fromBuffer(codePoints);
+    }
+
+    private static String textOf(CharStream stream) {
+        return stream.size() == 0 ? "" : stream.getText(Interval.of(0, stream.size() - 1));
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.parser;
+
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuLexer;
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuParser;
+import dk.ifforsikring.test.support.TestResourcesDirectories;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GosuParserFactoryTest {
+
+    @Test
+    void shouldParseWarmUpSampleWithoutSyntaxErrors() throws IOException {
+        // given
+        final GosuParserFactory parserFactory = GosuParserFactory.withMaxDfaStates(GosuParserFactory.UNBOUNDED);
+
+        try (InputStream warmUpSource = GosuParserFactory.class.getResourceAsStream("/parser/WarmUp.gs")) {
+            assertThat(warmUpSource).isNotNull();
+            final GosuParser parser = parserFactory.createParser(new CommonTokenStream(parserFactory.createLexer(CharStreams.fromStream(warmUpSource))));
+
+            // when
+            parser.start();
+
+            // then
+            assertThat(parser.getNumberOfSyntaxErrors()).isZero();
+        }
+    }
+
+    @Test
+    void shouldFillPredictionCachesWhenWarmedUp() {
+        // given
+        final GosuParserFactory parserFactory = GosuParserFactory.withMaxDfaStates(GosuParserFactory.UNBOUNDED);
+        final int coldDfaStates = parserFactory.getDfaStateCount();
+
+        // when
+        parserFactory.warmUp();
+
+        // then
+        assertThat(coldDfaStates).isZero();
+        assertThat(parserFactory.getDfaStateCount()).isPositive();
+    }
+
+    @Test
+    void shouldClearPredictionCachesWhenTheyHoldTooManyDfaStates() {
+        // given
+        final GosuParserFactory parserFactory = GosuParserFactory.withMaxDfaStates(1);
+        parserFactory.warmUp();
+
+        // when
+        parserFactory.clearIfTooLarge();
+
+        // then
+        assertThat(parserFactory.getDfaStateCount()).isZero();
+    }
+
+    @Test
+    void shouldNeverClearUnboundedPredictionCaches() {
+        // given
+        final GosuParserFactory parserFactory = GosuParserFactory.withMaxDfaStates(GosuParserFactory.UNBOUNDED);
+        parserFactory.warmUp();
+        final int dfaStates = parserFactory.getDfaStateCount();
+
+        // when
+        parserFactory.clearIfTooLarge();
+
+        // then
+        assertThat(parserFactory.getDfaStateCount()).isEqualTo(dfaStates);
+    }
+
+    @Test
+    void shouldBuildSameParseTreesWhenParsingConcurrently() throws Exception {
+        // given
+        final List<Path> gosuFiles = TestResourcesDirectories.RESOURCES_DIR.findGosuFiles();
+        final GosuParserFactory parserFactory = GosuParserFactory.withMaxDfaStates(GosuParserFactory.UNBOUNDED);
+        final List<String> expectedTrees = gosuFiles.stream()
+                .map(gosuFile -> parse(GosuParserFactory.withMaxDfaStates(GosuParserFactory.UNBOUNDED), gosuFile))
+                .toList();
+        final ExecutorService executor = Executors.newFixedThreadPool(4);
+
+        try {
+            // when
+            final List<Future<String>> trees = executor.invokeAll(gosuFiles.stream()
+                    .map(gosuFile -> (Callable<String>) () -> parse(parserFactory, gosuFile))
+                    .toList());
+
+            // then
+            for (int i = 0; i < gosuFiles.size(); i++) {
+                assertThat(trees.get(i).get()).as(gosuFiles.get(i).toString()).isEqualTo(expectedTrees.get(i));
+            }
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static String parse(GosuParserFactory parserFactory, Path gosuFile) {
+        try {
+            final GosuLexer lexer = parserFactory.createLexer(CharStreams.fromPath(gosuFile));
+            lexer.removeErrorListeners();
+            final GosuParser parser = parserFactory.createParser(new CommonTokenStream(lexer));
+            parser.removeErrorListeners();
+            return parser.start().toStringTree(parser);
+        } catch (IOException e) {
+            throw new IllegalStateException("Unable to parse " + gosuFile, e);
+        }
+    }
+}
@@ -0,0 +1,119 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.parser;
+
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuLexer;
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuParser;
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuParserBaseListener;
+import dk.ifforsikring.test.support.TestResourcesDirectories;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.atn.PredictionMode;
+import org.antlr.v4.runtime.misc.ParseCancellationException;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ParsingStrategyTest {
+    private static final GosuParserFactory PARSER_FACTORY = GosuParserFactory.withMaxDfaStates(GosuParserFactory.UNBOUNDED);
+
+    @Test
+    void shouldTrySllPredictionBeforeLlPrediction() {
+        assertThat(ParsingStrategy.SLL_THEN_LL.getPredictionModes()).containsExactly(PredictionMode.SLL, PredictionMode.LL);
+        assertThat(ParsingStrategy.LL.getPredictionModes()).containsExactly(PredictionMode.LL);
+    }
+
+    @Test
+    void shouldBailOutOnSyntaxErrorsUnlessLastAttempt() {
+        // given
+        final GosuParser parser = createParser("class Broken { function ( }");
+
+        // when
+        ParsingStrategy.SLL_THEN_LL.configure(parser, 0);
+
+        // then
+        assertThatThrownBy(parser::start).isInstanceOf(ParseCancellationException.class);
+
+        // when
+        ParsingStrategy.SLL_THEN_LL.configure(parser, 1);
+        parser.start();
+
+        // then
+        assertThat(parser.getNumberOfSyntaxErrors()).isPositive();
+    }
+
+    @Test
+    void shouldNotNotifyParseListenersOfUnwoundRulesWhenBailingOut() {
+        // given
+        final GosuParser parser = createParser("class Broken { function ( }");
+        final List<String> exitedRules = new ArrayList<>();
+        parser.addParseListener(new GosuParserBaseListener() {
+            @Override
+            public void exitEveryRule(ParserRuleContext ctx) {
+                exitedRules.add(GosuParser.ruleNames[ctx.getRuleIndex()]);
+            }
+        });
+
+        // when
+        ParsingStrategy.SLL_THEN_LL.configure(parser, 0);
+
+        // then
+        assertThatThrownBy(parser::start).isInstanceOf(ParseCancellationException.class);
+        assertThat(exitedRules).doesNotContain("start");
+    }
+
+    @Test
+    void shouldBuildSameParseTreesWithBothStrategies() throws IOException {
+        for (Path gosuFile : TestResourcesDirectories.RESOURCES_DIR.findGosuFiles()) {
+            final String source = Files.readString(gosuFile);
+            assertThat(parse(ParsingStrategy.SLL_THEN_LL, source))
+                    .as(gosuFile.toString())
+                    .isEqualTo(parse(ParsingStrategy.LL, source));
+        }
+    }
+
+    private static String parse(ParsingStrategy parsingStrategy, String source) {
+        final GosuParser parser = createParser(source);
+        int attempt = 0;
+        while (!parsingStrategy.isLastAttempt(attempt)) {
+            try {
+                parsingStrategy.configure(parser, attempt);
+                return parser.start().toStringTree(parser);
+            } catch (ParseCancellationException e) {
+                attempt++;
+            }
+        }
+        parsingStrategy.configure(parser, attempt);
+        return parser.start().toStringTree(parser);
+    }
+
+    private static GosuParser createParser(String source) {
+        final GosuLexer lexer = PARSER_FACTORY.createLexer(CharStreams.fromString(source));
+        lexer.removeErrorListeners();
+        final GosuParser parser = PARSER_FACTORY.createParser(new CommonTokenStream(lexer));
+        parser.removeErrorListeners();
+        return parser;
+    }
+}
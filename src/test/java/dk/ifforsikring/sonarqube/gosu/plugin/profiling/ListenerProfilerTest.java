@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.profiling;
+
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuLexer;
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuParser;
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuParserBaseListener;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTreeListener;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.sonar.api.batch.fs.internal.DefaultFileSystem;
+import org.sonar.api.config.internal.MapSettings;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ListenerProfilerTest {
+    private static final String SOURCE = """
+            package samples
+
+            class Profiled {
+              function first() : int {
+                return 1
+              }
+
+              function second() : int {
+                return 2
+              }
+            }
+            """;
+
+    @Test
+    void shouldNotWrapListenersWhenProfilingIsDisabled() {
+        // given
+        final ListenerProfiler profiler = ListenerProfiler.create(new MapSettings().asConfig());
+        final FunctionCounter listener = new FunctionCounter();
+
+        // when
+        final ParseTreeListener profiled = profiler.profile(listener);
+
+        // then
+        assertThat(profiler.isEnabled()).isFalse();
+        assertThat(profiled).isSameAs(listener);
+    }
+
+    @Test
+    void shouldForwardEventsAndCountCallbacksOfProfiledListeners() {
+        // given
+        final ListenerProfiler profiler = ListenerProfiler.create(new MapSettings().setProperty("sonar.gosu.profile", true).asConfig());
+        final FunctionCounter listener = new FunctionCounter();
+
+        // when
+        parse(profiler.profile(listener));
+
+        // then
+        assertThat(listener.functions).isEqualTo(2);
+        assertThat(profiler.getProfiles()).singleElement().satisfies(profile -> {
+            assertThat(profile.getName()).isEqualTo("FunctionCounter");
+            assertThat(profile.getKind()).isEqualTo(ListenerProfile.Kind.LISTENER);
+            assertThat(profile.getCalls()).isGreaterThan(2);
+            assertThat(profile.getTimeNanos()).isPositive();
+            assertThat(profile.getCallbackCalls()).containsExactly(Map.entry("exitFunctionBody", 2L));
+        });
+    }
+
+    @Test
+    void shouldSumProfilesOfListenersOfTheSameClass() {
+        // given
+        final ListenerProfiler profiler = ListenerProfiler.enabled();
+
+        // when
+        parse(profiler.profile(new FunctionCounter()));
+        parse(profiler.profile(new FunctionCounter()));
+
+        // then
+        assertThat(profiler.getProfiles()).singleElement()
+                .satisfies(profile -> assertThat(profile.getCallbackCalls()).containsEntry("exitFunctionBody", 4L));
+    }
+
+    @Test
+    void shouldWriteProfilesInWorkDirWhenReported(@TempDir Path workDir) throws IOException {
+        // given
+        final ListenerProfiler profiler = ListenerProfiler.enabled();
+        parse(profiler.profile(new FunctionCounter()));
+        final DefaultFileSystem fileSystem = new DefaultFileSystem(workDir).setWorkDir(workDir);
+
+        // when
+        profiler.report(fileSystem);
+
+        // then
+        assertThat(Files.readString(workDir.resolve(ListenerProfiler.REPORT_FILE)))
+                .contains("\"name\": \"FunctionCounter\"")
+                .contains("\"kind\": \"LISTENER\"")
+                .contains("\"callbacks\": {\"exitFunctionBody\": 2}");
+    }
+
+    private static void parse(ParseTreeListener listener) {
+        final GosuParser parser = new GosuParser(new CommonTokenStream(new GosuLexer(CharStreams.fromString(SOURCE))));
+        parser.addParseListener(listener);
+        parser.start();
+        assertThat(parser.getNumberOfSyntaxErrors()).isZero();
+    }
+
+    private static final class FunctionCounter extends GosuParserBaseListener {
+        private int functions;
+
+        @Override
+        public void exitFunctionBody(GosuParser.FunctionBodyContext ctx) {
+            functions++;
+        }
+    }
+}
@@ -25,6 +25,7 @@ import org.sonar.plugins.surefire.data.UnitTestIndex;
 
 import java.io.File;
 import java.util.List;
+import java.util.Set;
 
 import static org.assertj.core.api.Assertions.assertThat;
 
@@ -52,4 +53,39 @@ class ReportsScannerTest {
         );
     }
 
+    @Test
+    void shouldOnlyIndexTheReportsOfTheGivenClasses() {
+        // given
+        final Configuration settings = new MapSettings().asConfig();
+        final DefaultFileSystem fileSystem = new DefaultFileSystem(new File("src/test/resources/reports/scanner/"));
+        final List<File> reportsDirectories = new ReportsDirectories(settings, fileSystem, new PathResolver()).get();
+        final Set<String> classNames = Set.of("StringUtilTest", "XMLUtilTest");
+
+        // when
+        final UnitTestIndex index = new ReportsScanner(settings).createIndex(reportsDirectories, classNames::contains);
+
+        // then
+        assertThat(index.getClassnames()).containsExactlyInAnyOrder(
+                "de.friday.suite.util.StringUtilTest",
+                "de.friday.suite.util.XMLUtilTest"
+        );
+    }
+
+    @Test
+    void shouldIndexTheReportsInTheBackground() {
+        // given
+        final Configuration settings = new MapSettings().asConfig();
+        final DefaultFileSystem fileSystem = new DefaultFileSystem(new File("src/test/resources/reports/scanner/"));
+        final List<File> reportsDirectories = new ReportsDirectories(settings, fileSystem, new PathResolver()).get();
+        final UnitTestIndex index = new ReportsScanner(settings).createIndex(reportsDirectories);
+
+        // when
+        final UnitTestReports reports = UnitTestReports.scan(new ReportsScanner(settings), reportsDirectories, Set.of("StringUtilTest"));
+
+        // then
+        assertThat(reports.get("de.friday.suite.util.StringUtilTest"))
+                .usingRecursiveComparison()
+                .isEqualTo(index.get("de.friday.suite.util.StringUtilTest"));
+        assertThat(reports.get("de.friday.suite.util.XMLUtilTest")).isNull();
+    }
 }
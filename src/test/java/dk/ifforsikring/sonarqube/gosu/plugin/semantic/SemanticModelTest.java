@@ -0,0 +1,116 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.semantic;
+
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuLexer;
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuParser;
+import dk.ifforsikring.sonarqube.gosu.language.statements.UsesStatement;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.tree.ParseTreeWalker;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+class SemanticModelTest {
+
+    @Test
+    void shouldDeclareParametersAndLocalVariablesInFunctionScopes() {
+        // given
+        final List<Scope> functionScopes = new ArrayList<>();
+        final SemanticModel model = new SemanticModel() {
+            @Override
+            public void exitFunction(GosuParser.FunctionContext ctx) {
+                functionScopes.add(getCurrentScope());
+                super.exitFunction(ctx);
+            }
+        };
+
+        // when
+        walk(model, "package a.b\n\nclass A {\n  function f(x : int, y : int) : int {\n    var z = x\n    return z\n  }\n}");
+
+        // then
+        assertThat(functionScopes).hasSize(1);
+        final Scope function = functionScopes.get(0);
+        assertThat(function.getKind()).isEqualTo(Scope.Kind.FUNCTION);
+        assertThat(function.getParent().getKind()).isEqualTo(Scope.Kind.TYPE);
+        assertThat(function.getParent().getParent()).isSameAs(model.getFileScope());
+        assertThat(function.getDeclarations())
+                .extracting(Declaration::kind, Declaration::name)
+                .containsExactly(
+                        tuple(Declaration.Kind.PARAMETER, "x"),
+                        tuple(Declaration.Kind.PARAMETER, "y"),
+                        tuple(Declaration.Kind.LOCAL_VARIABLE, "z"));
+        assertThat(function.getParameters()).extracting(Declaration::name).containsExactly("x", "y");
+        assertThat(function.containsIdentifier("x")).isTrue();
+        assertThat(function.containsIdentifier("y")).isFalse();
+        assertThat(function.containsIdentifier("f")).isFalse();
+        assertThat(model.getFileScope().containsIdentifier("f")).isTrue();
+        assertThat(model.getPackageName()).isEqualTo("a.b");
+    }
+
+    @Test
+    void shouldRecordIdentifiersOfNestedFunctionsInTheEnclosingScopes() {
+        // given
+        final List<Scope> functionScopes = new ArrayList<>();
+        final SemanticModel model = new SemanticModel() {
+            @Override
+            public void exitFunction(GosuParser.FunctionContext ctx) {
+                functionScopes.add(getCurrentScope());
+                super.exitFunction(ctx);
+            }
+        };
+
+        // when
+        walk(model, "class A {\n  function f(x : int) {\n    var r = new Runnable() {\n      function run() {\n        print(x)\n      }\n    }\n  }\n}");
+
+        // then
+        assertThat(functionScopes).hasSize(2);
+        final Scope run = functionScopes.get(0);
+        final Scope f = functionScopes.get(1);
+        assertThat(run.getParent().getKind()).isEqualTo(Scope.Kind.TYPE);
+        assertThat(run.getParent().getParent()).isSameAs(f);
+        assertThat(run.getParameters()).isEmpty();
+        assertThat(f.containsIdentifier("x")).isTrue();
+        assertThat(f.containsIdentifier("print")).isTrue();
+    }
+
+    @Test
+    void shouldCollectUsesStatements() {
+        // given
+        final SemanticModel model = new SemanticModel();
+
+        // when
+        walk(model, "package a\n\nuses java.util.List\nuses java.util.Map\nuses gw.lang.reflect.features.PropertyReference#Foo\n\nclass A {\n  var list : List\n}");
+
+        // then
+        assertThat(model.getUsesStatements()).extracting(UsesStatement::getClassName).containsExactly("List", "Map");
+        assertThat(model.getUsesFeatureNames()).containsExactlyInAnyOrder("gw.lang.reflect.features.PropertyReference", "Foo");
+        assertThat(model.getFileScope().containsIdentifier("List")).isTrue();
+        assertThat(model.getFileScope().containsIdentifier("Map")).isFalse();
+    }
+
+    private static void walk(SemanticModel model, String source) {
+        final GosuParser parser = new GosuParser(new CommonTokenStream(new GosuLexer(CharStreams.fromString(source))));
+        parser.removeErrorListeners();
+        ParseTreeWalker.DEFAULT.walk(model, parser.start());
+    }
+}
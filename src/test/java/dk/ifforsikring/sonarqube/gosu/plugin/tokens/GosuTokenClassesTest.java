@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.tokens;
+
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuLexer;
+import org.antlr.v4.runtime.Token;
+import org.junit.jupiter.api.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class GosuTokenClassesTest {
+
+    @Test
+    void shouldClassifyTheKeywordsOfTheGrammar() {
+        assertThat(GosuTokenClasses.keywordTypes()).contains(GosuLexer.IF, GosuLexer.TYPEIS, GosuLexer.FUNCTION,
+                GosuLexer.RETURN, GosuLexer.AND, GosuLexer.NULL, GosuLexer.INFINITY);
+        assertThat(GosuTokenClasses.isKeyword(GosuLexer.TYPEIS)).isTrue();
+        assertThat(GosuTokenClasses.isKeyword(GosuLexer.IDENTIFIER)).isFalse();
+        assertThat(GosuTokenClasses.isKeyword(GosuLexer.NumberLiteral)).isFalse();
+        assertThat(GosuTokenClasses.isKeyword(GosuLexer.LPAREN)).isFalse();
+        assertThat(GosuTokenClasses.isKeyword(Token.EOF)).isFalse();
+        assertThat(GosuTokenClasses.isKeyword(Integer.MAX_VALUE)).isFalse();
+    }
+
+    @Test
+    void shouldClassifyTheOperatorsOfTheGrammar() {
+        assertThat(GosuTokenClasses.operatorTypes()).contains(GosuLexer.LPAREN, GosuLexer.DOT, GosuLexer.ARROW,
+                GosuLexer.INTERVALOP, GosuLexer.BACKSLASH, GosuLexer.QUESTION_COLON, GosuLexer.URSHIFT_ASSIGN);
+        assertThat(GosuTokenClasses.isOperator(GosuLexer.ARROW)).isTrue();
+        assertThat(GosuTokenClasses.isOperator(GosuLexer.IDENTIFIER)).isFalse();
+        assertThat(GosuTokenClasses.isOperator(GosuLexer.OPEN_STRING_DQ)).isFalse();
+        assertThat(GosuTokenClasses.isOperator(GosuLexer.DQ_INTERP)).isFalse();
+        assertThat(GosuTokenClasses.isOperator(GosuLexer.AND)).isFalse();
+    }
+
+    @Test
+    void shouldPutEveryTokenTypeInOneClassAtMost() {
+        final List<int[]> classes = List.of(GosuTokenClasses.keywordTypes(), GosuTokenClasses.operatorTypes(),
+                GosuTokenClasses.literalTypes(), GosuTokenClasses.commentTypes());
+        final Set<Integer> types = new HashSet<>();
+        for (int[] tokenClass : classes) {
+            for (int type : tokenClass) {
+                assertThat(types.add(type)).as(GosuLexer.VOCABULARY.getSymbolicName(type)).isTrue();
+            }
+        }
+        assertThat(types).doesNotContain(GosuLexer.IDENTIFIER, GosuLexer.WS, GosuLexer.DQ_INTERP, GosuLexer.SQ_INTERP);
+    }
+
+    @Test
+    void shouldClassifyTheLiteralsAndCommentsOfTheGrammar() {
+        assertThat(GosuTokenClasses.commentTypes()).containsExactlyInAnyOrder(GosuLexer.COMMENT, GosuLexer.LINE_COMMENT);
+        assertThat(GosuTokenClasses.literalTypes()).containsExactlyInAnyOrder(GosuLexer.NumberLiteral, GosuLexer.CHAR_LITERAL,
+                GosuLexer.OPEN_STRING_DQ, GosuLexer.OPEN_STRING_SQ, GosuLexer.CLOSE_STRING_DQ, GosuLexer.CLOSE_STRING_SQ,
+                GosuLexer.DQ_TEXT, GosuLexer.SQ_TEXT);
+    }
+
+    @Test
+    void shouldClassifyTheRulesMarkedInTheGrammar() {
+        assertThat(GosuTokenClasses.complexityOperatorTypes()).containsExactlyInAnyOrder(GosuLexer.AND, GosuLexer.CONJ,
+                GosuLexer.OR, GosuLexer.DISJ, GosuLexer.BITAND, GosuLexer.BITOR);
+        assertThat(GosuTokenClasses.executableTypes()).containsExactlyInAnyOrder(GosuLexer.BLOCK, GosuLexer.FUNCTION,
+                GosuLexer.FOR, GosuLexer.FOREACH, GosuLexer.WHILE, GosuLexer.DO, GosuLexer.NEW, GosuLexer.TRY, GosuLexer.CATCH);
+        assertThat(GosuTokenClasses.keywordTypes()).contains(GosuTokenClasses.executableTypes());
+    }
+}
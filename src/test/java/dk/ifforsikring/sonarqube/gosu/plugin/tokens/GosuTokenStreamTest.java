@@ -0,0 +1,127 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.tokens;
+
+import com.sun.management.ThreadMXBean;
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuLexer;
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuParser;
+import dk.ifforsikring.test.support.TestResourcesDirectories;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Token;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+class GosuTokenStreamTest {
+    private static final int READ_PASSES = 100;
+
+    @Test
+    void shouldCacheTheTextsOfTheTokens() {
+        // given
+        final GosuTokenStream tokenStream = new GosuTokenStream(new GosuLexer(CharStreams.fromString("var abc = abc + \"abc\"")));
+
+        // when
+        tokenStream.fill();
+        final List<Token> tokens = tokenStream.getTokens();
+
+        // then
+        assertThat(tokens).extracting(Token::getText).containsExactly("var", "abc", "=", "abc", "+", "\"", "abc", "\"", "<EOF>");
+        assertThat(tokens.get(1).getText()).isSameAs(tokens.get(3).getText()).isSameAs(tokens.get(6).getText());
+        assertThat(tokens.get(1).getText()).isSameAs(tokens.get(1).getText());
+        assertThat(tokens.get(1)).isSameAs(tokenStream.get(1));
+        assertThat(tokenStream.getTokenFactory().size()).isEqualTo(tokens.size());
+    }
+
+    @Test
+    void shouldNotAllocateTokensWhenTheyAreReadAgain() throws IOException {
+        // given
+        final ThreadMXBean threads = (ThreadMXBean) ManagementFactory.getThreadMXBean();
+        assumeTrue(threads.isThreadAllocatedMemorySupported() && threads.isThreadAllocatedMemoryEnabled());
+        final GosuTokenStream tokenStream = new GosuTokenStream(new GosuLexer(CharStreams.fromPath(
+                TestResourcesDirectories.SAMPLES_RESOURCES_DIR.getPath().resolve("SpaceMarineTest.gs"))));
+        tokenStream.fill();
+        long checksum = readTokensOf(tokenStream);
+
+        // when
+        final long allocatedBytes = threads.getCurrentThreadAllocatedBytes();
+        for (int pass = 0; pass < READ_PASSES; pass++) {
+            checksum += readTokensOf(tokenStream);
+        }
+        final long readAllocatedBytes = threads.getCurrentThreadAllocatedBytes() - allocatedBytes;
+
+        // then
+        assertThat(checksum).isPositive();
+        assertThat(readAllocatedBytes).isLessThan((long) tokenStream.size() * READ_PASSES);
+    }
+
+    @Test
+    void shouldLexAndParseTheTestResourcesLikeTheCommonTokenStream() throws IOException {
+        // given
+        final List<Path> files = TestResourcesDirectories.RESOURCES_DIR.findGosuFiles();
+        assertThat(files).isNotEmpty();
+
+        for (Path file : files) {
+            final CommonTokenStream expectedStream = new CommonTokenStream(new GosuLexer(CharStreams.fromPath(file)));
+            final GosuTokenStream tokenStream = new GosuTokenStream(new GosuLexer(CharStreams.fromPath(file)));
+
+            // when
+            final GosuParser expectedParser = new GosuParser(expectedStream);
+            final GosuParser parser = new GosuParser(tokenStream);
+            expectedParser.removeErrorListeners();
+            parser.removeErrorListeners();
+            final String expectedTree = expectedParser.start().toStringTree(expectedParser);
+            final String tree = parser.start().toStringTree(parser);
+
+            // then
+            assertThat(tree).as(file.toString()).isEqualTo(expectedTree);
+            assertThat(tokenStream.size()).as(file.toString()).isEqualTo(expectedStream.size());
+            for (int i = 0; i < expectedStream.size(); i++) {
+                final Token expected = expectedStream.get(i);
+                final Token token = tokenStream.get(i);
+                assertThat(token.toString()).as(file.toString()).isEqualTo(expected.toString());
+                assertThat(token.getStartIndex()).isEqualTo(expected.getStartIndex());
+                assertThat(token.getStopIndex()).isEqualTo(expected.getStopIndex());
+            }
+        }
+    }
+
+    /**
+     * Reads every token by index, through the token list and by looking ahead, as the token pipeline and the parser do.
+     */
+    private static long readTokensOf(GosuTokenStream tokenStream) {
+        long checksum = 0;
+        for (int i = 0; i < tokenStream.size(); i++) {
+            checksum += tokenStream.get(i).getType();
+        }
+        for (Token token : tokenStream.getTokens()) {
+            checksum += token.getLine();
+        }
+        tokenStream.seek(0);
+        while (tokenStream.LA(1) != Token.EOF) {
+            checksum += tokenStream.LT(1).getStartIndex();
+            tokenStream.consume();
+        }
+        return checksum;
+    }
+}
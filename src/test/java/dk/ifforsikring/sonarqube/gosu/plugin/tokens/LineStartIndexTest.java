@@ -0,0 +1,62 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.tokens;
+
+import org.antlr.v4.runtime.CharStream;
+import org.antlr.v4.runtime.CharStreams;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class LineStartIndexTest {
+
+    @Test
+    void shouldFindTheLinesAndColumnsOfOffsets() {
+        // given
+        final CharStream input = CharStreams.fromString("ab\r\n\ncd\nef");
+        input.seek(3);
+
+        // when
+        final LineStartIndex lineStartIndex = LineStartIndex.of(input);
+
+        // then
+        assertThat(input.index()).isEqualTo(3);
+        assertThat(lineStartIndex.getLineCount()).isEqualTo(4);
+        assertThat(lineStartIndex.getLine(0)).isEqualTo(1);
+        assertThat(lineStartIndex.getLine(3)).isEqualTo(1);
+        assertThat(lineStartIndex.getLine(4)).isEqualTo(2);
+        assertThat(lineStartIndex.getLine(5)).isEqualTo(3);
+        assertThat(lineStartIndex.getLine(10)).isEqualTo(4);
+        assertThat(lineStartIndex.getLineOffset(6)).isEqualTo(1);
+        assertThat(lineStartIndex.getLineOffset(10)).isEqualTo(2);
+        assertThat(lineStartIndex.getLineEnd(1)).isEqualTo(2);
+        assertThat(lineStartIndex.getLineEnd(2)).isEqualTo(4);
+        assertThat(lineStartIndex.getLineEnd(3)).isEqualTo(7);
+        assertThat(lineStartIndex.getLineEnd(4)).isEqualTo(10);
+    }
+
+    @Test
+    void shouldIndexEmptyStreams() {
+        // when
+        final LineStartIndex lineStartIndex = LineStartIndex.of(CharStreams.fromString(""));
+
+        // then
+        assertThat(lineStartIndex.getLineCount()).isEqualTo(1);
+        assertThat(lineStartIndex.getLine(0)).isEqualTo(1);
+        assertThat(lineStartIndex.getLineEnd(1)).isZero();
+    }
+}
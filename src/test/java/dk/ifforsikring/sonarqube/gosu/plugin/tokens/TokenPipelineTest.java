@@ -0,0 +1,93 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.plugin.tokens;
+
+import dk.ifforsikring.sonarqube.gosu.antlr.GosuLexer;
+import org.antlr.v4.runtime.CharStreams;
+import org.antlr.v4.runtime.CommonTokenStream;
+import org.antlr.v4.runtime.Token;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenPipelineTest {
+
+    @Test
+    void shouldDispatchTokensToConsumersRegisteredForTheirType() {
+        // given
+        final List<Token> tokens = tokensOf("class Foo { // TODO\n /* doc */ }");
+        final List<String> comments = new ArrayList<>();
+        final List<String> identifiers = new ArrayList<>();
+
+        // when
+        new TokenPipeline()
+                .register(token -> comments.add(token.getText()), GosuLexer.COMMENT, GosuLexer.LINE_COMMENT)
+                .register(token -> identifiers.add(token.getText()), GosuLexer.IDENTIFIER)
+                .run(tokens);
+
+        // then
+        assertThat(comments).containsExactly("// TODO", "/* doc */");
+        assertThat(identifiers).containsExactly("Foo");
+    }
+
+    @Test
+    void shouldDispatchEveryTokenToConsumersRegisteredWithoutType() {
+        // given
+        final List<Token> tokens = tokensOf("class Foo {}");
+        final List<Token> consumed = new ArrayList<>();
+
+        // when
+        new TokenPipeline().register(consumed::add).run(tokens);
+
+        // then
+        assertThat(consumed).containsExactlyElementsOf(tokens);
+        assertThat(consumed.get(consumed.size() - 1).getType()).isEqualTo(Token.EOF);
+    }
+
+    @Test
+    void shouldCompleteEveryConsumerOnceAfterTheLastToken() {
+        // given
+        final List<Token> tokens = tokensOf("class Foo {}");
+        final List<String> events = new ArrayList<>();
+        final TokenConsumer eofConsumer = new TokenConsumer() {
+            @Override
+            public void consume(Token token) {
+                events.add("eof");
+            }
+
+            @Override
+            public void complete() {
+                events.add("complete");
+            }
+        };
+
+        // when
+        new TokenPipeline().register(eofConsumer, Token.EOF).run(tokens);
+
+        // then
+        assertThat(events).containsExactly("eof", "complete");
+    }
+
+    private static List<Token> tokensOf(String source) {
+        final CommonTokenStream tokenStream = new CommonTokenStream(new GosuLexer(CharStreams.fromString(source)));
+        tokenStream.fill();
+        return tokenStream.getTokens();
+    }
+}
@@ -40,7 +40,7 @@ class SyntaxErrorListenerTest {
     void shouldSaveSyntaxErrorOnSensorContext() {
         // given
         final SensorContextTester sensorContext = aSensorContext();
-        final SyntaxErrorListener syntaxErrorListener = new SyntaxErrorListener(sensorContext, aProperties());
+        final SyntaxErrorListener syntaxErrorListener = new SyntaxErrorListener(aProperties());
 
         // when
         syntaxErrorListener.syntaxError(
@@ -51,6 +51,7 @@ class SyntaxErrorListenerTest {
                 "Syntax error",
                 new DummyRecognitionException()
         );
+        syntaxErrorListener.saveOn(sensorContext);
 
         // then
         assertThat(sensorContext.allAnalysisErrors()).hasSize(1).allSatisfy(analysisError -> {
@@ -63,6 +64,28 @@ class SyntaxErrorListenerTest {
 
     }
 
+    @Test
+    void shouldNotSaveSyntaxErrorOnSensorContextUntilAsked() {
+        // given
+        final SensorContextTester sensorContext = aSensorContext();
+        final SyntaxErrorListener syntaxErrorListener = new SyntaxErrorListener(aProperties());
+
+        // when
+        syntaxErrorListener.syntaxError(
+                aGosuLexer(),
+                "#",
+                19,
+                7,
+                "Syntax error",
+                new DummyRecognitionException()
+        );
+
+        // then
+        assertThat(sensorContext.allAnalysisErrors()).isEmpty();
+        assertThat(syntaxErrorListener.getSyntaxErrors())
+                .containsExactly(new SyntaxErrorListener.SyntaxError(19, 7, "Syntax error"));
+    }
+
     private GosuLexer aGosuLexer() {
         return new GosuLexer(null);
     }
@@ -17,11 +17,18 @@
 package dk.ifforsikring.sonarqube.gosu.plugin.tools.reflections;
 
 import dk.ifforsikring.sonarqube.gosu.plugin.rules.BaseGosuRule;
+import dk.ifforsikring.sonarqube.gosu.plugin.utils.RulesMetadataUtil;
 import org.assertj.core.api.Assertions;
 import org.junit.jupiter.api.Test;
 import org.sonar.api.batch.fs.InputFile;
+import org.sonar.check.Rule;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
 import java.util.Optional;
+import java.util.stream.Stream;
 
 class ClassExtractorTest {
     @Test
@@ -37,4 +44,21 @@ class ClassExtractorTest {
         Assertions.assertThat(disabledForTestsRule).isEmpty();
         Assertions.assertThat(nonExistentRule).isEmpty();
     }
+
+    @Test
+    void shouldRegisterARuleForEveryRuleMetadata() throws IOException {
+        final List<String> metadataKeys;
+        try (Stream<Path> files = Files.list(Path.of("src/main/resources/sonar"))) {
+            metadataKeys = files.map(file -> file.getFileName().toString())
+                    .filter(name -> name.endsWith("Rule.json"))
+                    .map(name -> name.substring(0, name.length() - ".json".length()))
+                    .toList();
+        }
+
+        Assertions.assertThat(ClassExtractor.getRules()).containsOnlyKeys(metadataKeys);
+        Assertions.assertThat(ClassExtractor.getRules()).allSatisfy(
+                (key, ruleClass) -> Assertions.assertThat(ruleClass.getAnnotation(Rule.class).key()).isEqualTo(key));
+        Assertions.assertThat(ClassExtractor.getRuleScope("TODOsRule")).contains(RulesMetadataUtil.Scope.MAIN);
+        Assertions.assertThat(ClassExtractor.getMetrics()).hasSize(5);
+    }
 }
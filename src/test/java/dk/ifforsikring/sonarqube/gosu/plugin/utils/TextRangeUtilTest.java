@@ -17,14 +17,19 @@
 package dk.ifforsikring.sonarqube.gosu.plugin.utils;
 
 import dk.ifforsikring.sonarqube.gosu.antlr.GosuLexer;
+import dk.ifforsikring.sonarqube.gosu.plugin.tokens.GosuTokenStream;
+import org.antlr.v4.runtime.CharStreams;
 import org.antlr.v4.runtime.CommonToken;
 import org.antlr.v4.runtime.ParserRuleContext;
+import org.antlr.v4.runtime.Token;
 import org.junit.jupiter.api.Test;
 import org.sonar.api.batch.fs.TextPointer;
 import org.sonar.api.batch.fs.TextRange;
 import org.sonar.api.batch.fs.internal.DefaultTextPointer;
 import org.sonar.api.batch.fs.internal.DefaultTextRange;
 
+import java.util.List;
+
 import static org.assertj.core.api.Assertions.assertThat;
 
 class TextRangeUtilTest {
@@ -118,4 +123,26 @@ class TextRangeUtilTest {
 
         assertThat(TextRangeUtil.fromToken(comment)).isEqualTo(textRange);
     }
+
+    @Test
+    void shouldReturnTextRangeFromMultilineTokensOfAFile() {
+        // given
+        final String source = "/*\r\n * Comment\r\n */\nvar text = \"first\r\nsecond\n\n\" + 'single\n'";
+        final GosuTokenStream tokenStream = new GosuTokenStream(new GosuLexer(CharStreams.fromString(source)));
+        tokenStream.fill();
+        final List<Token> tokens = tokenStream.getTokens().stream()
+                .filter(token -> token.getType() == GosuLexer.COMMENT
+                        || token.getType() == GosuLexer.DQ_TEXT
+                        || token.getType() == GosuLexer.SQ_TEXT)
+                .toList();
+
+        // then
+        assertThat(tokens).extracting(TextRangeUtil::fromToken).containsExactly(
+                TextRangeUtil.fromPosition(1, 0, 3, 3),
+                TextRangeUtil.fromPosition(4, 12, 5, 6),
+                TextRangeUtil.fromPosition(7, 5, 7, 11));
+        for (Token token : tokens) {
+            assertThat(TextRangeUtil.fromToken(token)).isEqualTo(TextRangeUtil.fromToken(new CommonToken(token)));
+        }
+    }
 }
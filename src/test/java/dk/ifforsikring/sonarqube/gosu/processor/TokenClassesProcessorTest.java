@@ -0,0 +1,205 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.sonarqube.gosu.processor;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import javax.tools.Diagnostic;
+import javax.tools.DiagnosticCollector;
+import javax.tools.JavaCompiler;
+import javax.tools.JavaFileObject;
+import javax.tools.StandardJavaFileManager;
+import javax.tools.ToolProvider;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class TokenClassesProcessorTest {
+    private static final String GRAMMAR = """
+            lexer grammar GosuLexer;
+
+            channels { COMMENTS }
+
+            IF:       {_input.LA(-1) != '.'}?'if';
+            AND:      {_input.LA(-1) != '.'}?'and';  // classes: complexity-operator
+            WHILE:    {_input.LA(-1) != '.'}?'while';  // classes: executable
+            ARROW : '->';
+            OR_ASSIGN : '|=' | '||=';
+            DOT : {_input.LA(2) != '.' }?'.';
+            IDENTIFIER : Letter+ ;
+            NumberLiteral : Digit+ ;
+            OPEN_STRING_DQ : '"' -> pushMode(DQ_STRING);
+            WS : (' ' | '\\n')+ -> skip;
+            COMMENT : '/*' .*? '*/' -> channel(COMMENTS);
+
+            fragment Letter : 'a' .. 'z' ;
+            fragment Digit : '0' .. '9' ;
+
+            mode DQ_STRING;
+
+            DQ_INTERP: '${' -> pushMode(DEFAULT_MODE);
+            DQ_TEXT: (~('"'|'$') | Dollar)+ ;
+            CLOSE_STRING_DQ: '"' -> popMode;
+
+            fragment Dollar: '$'{_input.LA(1) != '{'}?;
+            """;
+    private static final List<String> TOKEN_NAMES = List.of("IF", "AND", "WHILE", "ARROW", "OR_ASSIGN", "DOT", "IDENTIFIER",
+            "NumberLiteral", "OPEN_STRING_DQ", "WS", "COMMENT", "DQ_INTERP", "DQ_TEXT", "CLOSE_STRING_DQ");
+
+    @TempDir
+    private Path directory;
+
+    @Test
+    void shouldClassifyTheRulesOfTheGrammar() throws IOException {
+        // when
+        final List<Diagnostic<? extends JavaFileObject>> errors = process(GRAMMAR, TOKEN_NAMES);
+
+        // then
+        assertThat(errors).isEmpty();
+        final List<String> tables = Files.readAllLines(
+                directory.resolve("generated/dk/ifforsikring/sonarqube/gosu/plugin/tokens/GosuTokenClasses.java"));
+        assertThat(namesOf(tables, "KEYWORD")).containsExactly("AND", "IF", "WHILE");
+        assertThat(namesOf(tables, "OPERATOR")).containsExactly("ARROW", "DOT", "OR_ASSIGN");
+        assertThat(namesOf(tables, "LITERAL")).containsExactly("CLOSE_STRING_DQ", "DQ_TEXT", "NumberLiteral", "OPEN_STRING_DQ");
+        assertThat(namesOf(tables, "COMMENT")).containsExactly("COMMENT");
+        assertThat(namesOf(tables, "COMPLEXITY_OPERATOR")).containsExactly("AND");
+        assertThat(namesOf(tables, "EXECUTABLE")).containsExactly("WHILE");
+    }
+
+    @Test
+    void shouldIndexTheTablesByTheTokenTypesOfTheLexerWhateverTheOrderOfTheRules() throws IOException {
+        // given
+        final String grammar = GRAMMAR.replace("IF:       {_input.LA(-1) != '.'}?'if';\n", "")
+                .replace("IDENTIFIER : Letter+ ;", "IF:       {_input.LA(-1) != '.'}?'if';\nIDENTIFIER : Letter+ ;");
+        final List<String> tokenNames = new ArrayList<>(TOKEN_NAMES);
+        Collections.reverse(tokenNames);
+
+        // when
+        final List<Diagnostic<? extends JavaFileObject>> errors = process(grammar, tokenNames);
+
+        // then
+        assertThat(errors).isEmpty();
+        final List<String> tables = Files.readAllLines(
+                directory.resolve("generated/dk/ifforsikring/sonarqube/gosu/plugin/tokens/GosuTokenClasses.java"));
+        assertThat(typesOf(tables, "KEYWORD")).containsExactlyInAnyOrder(typeOf(tokenNames, "IF"),
+                typeOf(tokenNames, "AND"), typeOf(tokenNames, "WHILE"));
+        assertThat(typesOf(tables, "OPERATOR")).containsExactlyInAnyOrder(typeOf(tokenNames, "ARROW"),
+                typeOf(tokenNames, "OR_ASSIGN"), typeOf(tokenNames, "DOT"));
+        assertThat(typesOf(tables, "LITERAL")).containsExactlyInAnyOrder(typeOf(tokenNames, "NumberLiteral"),
+                typeOf(tokenNames, "OPEN_STRING_DQ"), typeOf(tokenNames, "DQ_TEXT"), typeOf(tokenNames, "CLOSE_STRING_DQ"));
+        assertThat(typesOf(tables, "COMMENT")).containsExactly(typeOf(tokenNames, "COMMENT"));
+        assertThat(typesOf(tables, "COMPLEXITY_OPERATOR")).containsExactly(typeOf(tokenNames, "AND"));
+        assertThat(typesOf(tables, "EXECUTABLE")).containsExactly(typeOf(tokenNames, "WHILE"));
+    }
+
+    @Test
+    void shouldFailWhenARuleHasNoTokenType() throws IOException {
+        // when
+        final List<Diagnostic<? extends JavaFileObject>> errors = process(GRAMMAR,
+                TOKEN_NAMES.stream().filter(name -> !name.equals("WHILE")).toList());
+
+        // then
+        assertThat(errors).extracting(error -> error.getMessage(null)).containsExactly("No token type for the lexer rule WHILE");
+    }
+
+    @Test
+    void shouldFailWhenARuleIsMarkedWithAnUnknownClass() throws IOException {
+        // when
+        final List<Diagnostic<? extends JavaFileObject>> errors = process(
+                GRAMMAR.replace("// classes: executable", "// classes: literal"), TOKEN_NAMES);
+
+        // then
+        assertThat(errors).extracting(error -> error.getMessage(null)).singleElement().asString()
+                .startsWith("Unknown token class 'literal' of the lexer rule WHILE");
+    }
+
+    private List<Diagnostic<? extends JavaFileObject>> process(String grammar, List<String> tokenNames) throws IOException {
+        final Path grammarFile = Files.writeString(directory.resolve("GosuLexer.g4"), grammar);
+        final Path lexerFile = directory.resolve("src/dk/ifforsikring/sonarqube/gosu/antlr/GosuLexer.java");
+        final StringBuilder lexer = new StringBuilder("package dk.ifforsikring.sonarqube.gosu.antlr;\n\npublic class GosuLexer {\n");
+        for (int i = 0; i < tokenNames.size(); i++) {
+            lexer.append("    public static final int ").append(tokenNames.get(i)).append(" = ").append(i + 1).append(";\n");
+        }
+        Files.createDirectories(lexerFile.getParent());
+        Files.writeString(lexerFile, lexer.append("}\n"));
+        final Path generated = Files.createDirectories(directory.resolve("generated"));
+
+        final JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        final DiagnosticCollector<JavaFileObject> diagnostics = new DiagnosticCollector<>();
+        try (StandardJavaFileManager fileManager = compiler.getStandardFileManager(diagnostics, null, StandardCharsets.UTF_8)) {
+            final JavaCompiler.CompilationTask task = compiler.getTask(null, fileManager, diagnostics,
+                    List.of("-proc:only", "-s", generated.toString(), "-A" + TokenClassesProcessor.LEXER_GRAMMAR_OPTION + "=" + grammarFile),
+                    null, fileManager.getJavaFileObjects(lexerFile));
+            task.setProcessors(List.of(new TokenClassesProcessor()));
+            task.call();
+        }
+        return diagnostics.getDiagnostics().stream()
+                .filter(diagnostic -> diagnostic.getKind() == Diagnostic.Kind.ERROR)
+                .toList();
+    }
+
+    /**
+     * @return Token type the stub lexer gives to the rule, numbered from 1 in the order of the names
+     */
+    private static int typeOf(List<String> tokenNames, String name) {
+        return tokenNames.indexOf(name) + 1;
+    }
+
+    /**
+     * @return Token types whose bit is set in the table of a class
+     */
+    private static List<Integer> typesOf(List<String> tables, String tokenClass) {
+        final String prefix = "    private static final long[] " + tokenClass + " = {";
+        for (String line : tables) {
+            if (line.startsWith(prefix)) {
+                final String[] words = line.substring(prefix.length(), line.lastIndexOf('}')).split(", ");
+                final List<Integer> types = new ArrayList<>();
+                for (int word = 0; word < words.length; word++) {
+                    final long bits = Long.parseUnsignedLong(words[word].replaceFirst("^0x", "").replaceFirst("L$", ""), 16);
+                    for (int bit = 0; bit < Long.SIZE; bit++) {
+                        if ((bits & (1L << bit)) != 0) {
+                            types.add(word * Long.SIZE + bit);
+                        }
+                    }
+                }
+                return types;
+            }
+        }
+        throw new AssertionError("No table of " + tokenClass);
+    }
+
+    /**
+     * @return Names of the token types of a class, listed in the comment above its table
+     */
+    private static List<String> namesOf(List<String> tables, String tokenClass) {
+        for (int i = 1; i < tables.size(); i++) {
+            if (tables.get(i).startsWith("    private static final long[] " + tokenClass + " = ")) {
+                final String names = tables.get(i - 1).replaceFirst("^\\s*//\\s*", "");
+                return names.isEmpty() ? List.of() : Arrays.asList(names.split(", "));
+            }
+        }
+        throw new AssertionError("No table of " + tokenClass);
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (C) 2023 FRIDAY Insurance S.A.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published
+ * by the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program. If not, see <https://www.gnu.org/licenses/>.
+ */
+package dk.ifforsikring.test.support;
+
+import dk.ifforsikring.sonarqube.gosu.plugin.GosuSensor;
+import dk.ifforsikring.test.support.rules.dsl.gosu.GosuSourceCodeFile;
+import dk.ifforsikring.test.support.sonar.scanner.FileLinesContextFactorySpy;
+import org.sonar.api.batch.fs.InputFile;
+import org.sonar.api.batch.sensor.internal.SensorContextTester;
+import org.sonar.api.scan.filesystem.PathResolver;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Runs the Gosu sensor on files of the sensor test resources and describes what it saved, so the results of two
+ * analyses can be compared.
+ */
+public final class GosuSensorTester {
+
+    private GosuSensorTester() {
+    }
+
+    /**
+     * @return Context of the given sensor test resources files analysed with the MagicNumbersRule
+     */
+    public static SensorContextTester createSensorContextTester(List<String> fileNames, Map<String, String> ruleProperties,
+                                                                InputFile.Type type) {
+        final SensorContextTester sensorContext = new GosuSensorContextTester(TestResourcesDirectories.SENSOR_RESOURCES_DIR.getPath(),
+                "MagicNumbersRule", ruleProperties).get();
+        for (String fileName : fileNames) {
+            sensorContext.fileSystem().add(new GosuSourceCodeFile(fileName, TestResourcesDirectories.SENSOR_RESOURCES_DIR.getPathAsString(), type).asInputFile());
+        }
+        return sensorContext;
+    }
+
+    public static GosuSensor newGosuSensorFor(SensorContextTester sensorContext) {
+        return new GosuSensor(
+                sensorContext.fileSystem(),
+                sensorContext.config(),
+                new PathResolver(),
+                new FileLinesContextFactorySpy(sensorContext)
+        );
+    }
+
+    public static List<String> describeIssuesOf(SensorContextTester context) {
+        return context.allIssues().stream()
+                .map(issue -> issue.ruleKey() + " " + issue.primaryLocation().inputComponent() + " "
+                        + issue.primaryLocation().textRange() + " " + issue.primaryLocation().message() + " "
+                        + issue.gap() + " " + issue.flows().size())
+                .toList();
+    }
+
+    public static List<String> describeAnalysisErrorsOf(SensorContextTester context) {
+        return context.allAnalysisErrors().stream()
+                .map(analysisError -> analysisError.inputFile() + " " + analysisError.location() + " " + analysisError.message())
+                .toList();
+    }
+
+    public static List<String> describeMeasuresOf(SensorContextTester context, String componentKey) {
+        return context.measures(componentKey).stream()
+                .map(measure -> measure.metric().key() + "=" + measure.value())
+                .sorted()
+                .toList();
+    }
+
+    public static List<String> describeCpdTokensOf(SensorContextTester context, String componentKey) {
+        return Objects.requireNonNull(context.cpdTokens(componentKey)).stream()
+                .map(tokensLine -> tokensLine.getStartLine() + ":" + tokensLine.getValue())
+                .toList();
+    }
+
+    public static String describeHighlightingOf(SensorContextTester context, InputFile inputFile) {
+        return IntStream.rangeClosed(1, inputFile.lines())
+                .mapToObj(line -> IntStream.range(0, inputFile.selectLine(line).end().lineOffset())
+                        .mapToObj(offset -> context.highlightingTypeAt(inputFile.key(), line, offset).toString())
+                        .collect(Collectors.joining(",", line + ":", "")))
+                .collect(Collectors.joining("\n"));
+    }
+}
@@ -22,6 +22,8 @@ import dk.ifforsikring.sonarqube.gosu.plugin.GosuFileParser;
 import dk.ifforsikring.sonarqube.gosu.plugin.GosuFileProperties;
 import dk.ifforsikring.sonarqube.gosu.plugin.reports.ReportsDirectories;
 import dk.ifforsikring.sonarqube.gosu.plugin.reports.ReportsScanner;
+import dk.ifforsikring.sonarqube.gosu.plugin.tokens.GosuTokenStream;
+import dk.ifforsikring.sonarqube.gosu.plugin.reports.UnitTestReports;
 import dk.ifforsikring.test.support.rules.dsl.gosu.GosuSourceCodeFile;
 import dk.ifforsikring.test.support.sonar.scanner.FileLinesContextFactorySpy;
 import org.antlr.v4.runtime.CharStreams;
@@ -33,7 +35,6 @@ import org.sonar.api.batch.sensor.internal.SensorContextTester;
 import org.sonar.api.config.Configuration;
 import org.sonar.api.config.internal.MapSettings;
 import org.sonar.api.scan.filesystem.PathResolver;
-import org.sonar.plugins.surefire.data.UnitTestIndex;
 
 import java.io.File;
 import java.io.IOException;
@@ -85,7 +86,7 @@ public class GosuTestFileParser {
             assert inputStream != null;
 
             gosuLexer.setInputStream(CharStreams.fromStream(inputStream));
-            final CommonTokenStream commonTokenStream = new CommonTokenStream(gosuLexer);
+            final CommonTokenStream commonTokenStream = new GosuTokenStream(gosuLexer);
             parseListener.ifPresent(gosuParser::addParseListener);
             gosuParser.setTokenStream(commonTokenStream);
 
@@ -105,7 +106,7 @@ public class GosuTestFileParser {
 
     private GosuFileProperties parse(TestResourcesDirectories baseDir, String packageName, InputFile inputFile, SensorContextTester context) {
         try {
-            GosuFileParser gosuFileParser = new GosuFileParser(inputFile, context, getUnitTestIndex(baseDir, packageName), new FileLinesContextFactorySpy(context).createFor(inputFile));
+            GosuFileParser gosuFileParser = new GosuFileParser(inputFile, context, getUnitTestReports(baseDir, packageName), new FileLinesContextFactorySpy(context).createFor(inputFile));
             gosuFileParser.parse();
             return gosuFileParser.getProperties();
         } catch (IOException e) {
@@ -113,7 +114,7 @@ public class GosuTestFileParser {
         }
     }
 
-    private UnitTestIndex getUnitTestIndex(TestResourcesDirectories baseDir, String packageName) {
+    private UnitTestReports getUnitTestReports(TestResourcesDirectories baseDir, String packageName) {
         Configuration settings = new MapSettings().asConfig();
         ReportsScanner scanner = new ReportsScanner(settings);
         DefaultFileSystem fs = new DefaultFileSystem(new File(baseDir.getPathAsString() + File.separator + packageName));
@@ -121,7 +122,7 @@ public class GosuTestFileParser {
 
         List<File> dirs = new ReportsDirectories(settings, fs, pathResolver).get();
 
-        return scanner.createIndex(dirs);
+        return UnitTestReports.of(scanner.createIndex(dirs));
     }
 
     public static class GosuFileParsed {
@@ -16,8 +16,12 @@
  */
 package dk.ifforsikring.test.support;
 
+import java.io.IOException;
+import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.List;
+import java.util.stream.Stream;
 
 public enum TestResourcesDirectories {
 
@@ -40,4 +44,15 @@ public enum TestResourcesDirectories {
     public Path getPath() {
         return Paths.get(this.getPathAsString());
     }
+
+    /**
+     * @return Gosu files of the directory and its subdirectories, sorted by path
+     */
+    public List<Path> findGosuFiles() throws IOException {
+        try (Stream<Path> paths = Files.walk(getPath())) {
+            return paths.filter(path -> path.toString().endsWith(".gs") || path.toString().endsWith(".gsx"))
+                    .sorted()
+                    .toList();
+        }
+    }
 }
@@ -17,6 +17,7 @@
 package dk.ifforsikring.test.support.rules.dsl.gosu;
 
 import dk.ifforsikring.sonarqube.gosu.plugin.GosuFileParser;
+import dk.ifforsikring.sonarqube.gosu.plugin.reports.UnitTestReports;
 import dk.ifforsikring.sonarqube.gosu.plugin.rules.BaseGosuRule;
 import dk.ifforsikring.test.support.GosuSensorContextTester;
 import dk.ifforsikring.test.support.rules.dsl.specification.RuleRunner;
@@ -26,7 +27,6 @@ import org.sonar.api.batch.fs.InputFile;
 import org.sonar.api.batch.sensor.internal.SensorContextTester;
 import org.sonar.api.batch.sensor.issue.Issue;
 import org.sonar.check.Rule;
-import org.sonar.plugins.surefire.data.UnitTestIndex;
 
 import java.io.IOException;
 import java.util.ArrayList;
@@ -68,7 +68,7 @@ final class GosuRuleTestRunner implements RuleRunner<List<Issue>> {
             return new GosuFileParser(
                     inputFile,
                     context,
-                    new UnitTestIndex(),
+                    UnitTestReports.empty(),
                     new FileLinesContextFactorySpy(context).createFor(inputFile)
             ).parse();
         } catch (IOException e) {
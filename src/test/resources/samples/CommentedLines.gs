@@ -0,0 +1,11 @@
+package samples
+
+/*
+ * Commas, asterisks and slashes no longer decide what a comment is:
+
+ */
+class CommentedLines { // trailing comment
+  var a = {1,
+  2} /* a comment
+  spanning lines */
+}
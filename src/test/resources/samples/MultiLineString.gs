@@ -0,0 +1,13 @@
+package samples
+
+class MultiLineString {
+
+  function greet(name : String) : String {
+    return "Dear ${name},
+
+thank you for your order,
+it is on its way
+"
+  }
+
+}
@@ -0,0 +1,9 @@
+package sensor
+
+class SensorSyntaxErrorTest {
+
+  function sampleFunc() {
+    var x = 5 +
+  }
+
+}
@@ -0,0 +1,26 @@
+package sensor
+
+uses java.util.List
+
+/**
+ * Sample class analysed by the parallel sensor tests.
+ */
+class SensorTest3 {
+
+  // Magic numbers inside string templates and loops
+  function describe(items : List<String>) : String {
+    var total = 0
+    for (item in items) {
+      if (item.length > 42 and total < 7) {
+        total += item.length * 3
+      }
+    }
+    return "Total: ${total * 5} of '${items.size()}'"
+  }
+
+  @Deprecated
+  function legacy() : int {
+    return 100
+  }
+
+}